@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019-2021] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2024] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool;
 
@@ -54,9 +54,11 @@ import com.sun.enterprise.resource.listener.PoolLifeCycleListener;
 import com.sun.enterprise.resource.pool.datastructure.DataStructure;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
+import com.sun.enterprise.resource.pool.waitqueue.HandoffPoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueueFactory;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
+import com.sun.enterprise.util.TimeHistogram;
 import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.logging.LogDomains;
 import java.lang.annotation.Annotation;
@@ -374,7 +376,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         this.resourceStartTime.set(startTime);
 
         while (true) {
-            if (gateway.allowed()) {
+            if (result == null && gateway.allowed()) {
                 //See comment #1 above
                 JavaEETransaction jtx = ((JavaEETransaction) txn);
                 Set resourcesSet = null;
@@ -422,6 +424,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     if (poolLifeCycleListener != null) {
                         poolLifeCycleListener.connectionRequestQueued();
                     }
+                    InterruptedException interrupted = null;
+                    ResourceHandle handedOff = null;
                     synchronized (waitMonitor) {
                         waitQueue.addToQueue(waitMonitor);
                         try {
@@ -429,7 +433,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                             waitMonitor.wait(remainingWaitTime);
 
                         } catch (InterruptedException ex) {
-                           poolManagerTaskInterrupted(ex);         
+                           interrupted = ex;
                         }
 
                         //try to remove in case that the monitor has timed
@@ -443,6 +447,18 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                                 poolLifeCycleListener.connectionRequestDequeued();
                             }
                         }
+                        if (waitQueue instanceof HandoffPoolWaitQueue) {
+                            handedOff = ((HandoffPoolWaitQueue) waitQueue).takeHandedOff(waitMonitor);
+                        }
+                    }
+                    if (interrupted != null) {
+                        if (handedOff != null) {
+                            returnHandedOffResource(handedOff);
+                        }
+                        poolManagerTaskInterrupted(interrupted);
+                    }
+                    if (handedOff != null) {
+                        result = acceptHandedOffResource(handedOff, alloc);
                     }
                 } else {
                     //add to reconfig-wait-queue
@@ -505,6 +521,48 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         }
     }
 
+    /**
+     * Takes over a resource that was handed directly to this request by a thread freeing it, performing the same
+     * checks and bookkeeping as if it had been taken from the free list.
+     *
+     * @param handle the handed over resource
+     * @param alloc  ResourceAllocator of the request
+     * @return the resource if it can be used for the request, null otherwise
+     */
+    ResourceHandle acceptHandedOffResource(ResourceHandle handle, ResourceAllocator alloc) {
+        if (handle.hasConnectionErrorOccurred()) {
+            ds.removeResource(handle);
+            return null;
+        }
+        if (!matchConnection(handle, alloc) || handle.isShareable() != alloc.shareableWithinComponent()) {
+            returnHandedOffResource(handle);
+            return null;
+        }
+        if (!isConnectionValid(handle, alloc) || handle.hasConnectionErrorOccurred()) {
+            ds.removeResource(handle);
+            return null;
+        }
+        setResourceStateToBusy(handle);
+        if (maxConnectionUsage_ > 0) {
+            handle.incrementUsageCount();
+        }
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionUsed(handle.getId());
+            poolLifeCycleListener.decrementNumConnFree();
+        }
+        return handle;
+    }
+
+    /**
+     * Puts a handed over resource that could not be used by the request back to the free list.
+     *
+     * @param handle the handed over resource
+     */
+    private void returnHandedOffResource(ResourceHandle handle) {
+        ds.returnResource(handle);
+        notifyWaitingThreads();
+    }
+
     /**
      * Overridden in AssocWithThreadResourcePool to fetch the resource
      * cached in the ThreadLocal
@@ -1080,13 +1138,16 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     resourceHandle.getUsageCount() >= maxConnectionUsage_) {
                  performMaxConnectionUsageOperation(resourceHandle);
             } else {
-                // Put it back to the free collection.
-                ds.returnResource(resourceHandle);
                 //update the monitoring data
                 if (poolLifeCycleListener != null) {
                     poolLifeCycleListener.decrementConnectionUsed(resourceHandle.getId());
                     poolLifeCycleListener.incrementNumConnFree(false, steadyPoolSize);
                 }
+                // Hand it to the longest waiting thread, if any, otherwise put it back to the free collection.
+                if (handOffResource(resourceHandle)) {
+                    return;
+                }
+                ds.returnResource(resourceHandle);
             }
             //for both the cases of free.add and maxConUsageOperation, a free resource is added.
             // Hence notify waiting threads
@@ -1094,6 +1155,29 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         }
     }
 
+    /**
+     * Hands a freed resource directly to the first waiting thread when the wait queue supports it.
+     *
+     * @param resourceHandle freed resource
+     * @return true if the resource was handed over and must not be returned to the free list
+     */
+    private boolean handOffResource(ResourceHandle resourceHandle) {
+        if (!(waitQueue instanceof HandoffPoolWaitQueue)) {
+            return false;
+        }
+        Object waitMonitor = ((HandoffPoolWaitQueue) waitQueue).handOff(resourceHandle);
+        if (waitMonitor == null) {
+            return false;
+        }
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionRequestDequeued();
+        }
+        synchronized (waitMonitor) {
+            waitMonitor.notifyAll();
+        }
+        return true;
+    }
+
     protected boolean cleanupResource(ResourceHandle handle) {
         boolean cleanupSuccessful = true;
         // cleanup resource
@@ -1678,6 +1762,20 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         int numUsed = (this.poolInitialized) ? ds.getResourcesSize()-ds.getFreeListSize() : 0;
         poolStatus.setNumConnFree(numFree);
         poolStatus.setNumConnUsed(numUsed);
+        if (waitQueue instanceof HandoffPoolWaitQueue) {
+            TimeHistogram waitTimes = ((HandoffPoolWaitQueue) waitQueue).getWaitTimes();
+            poolStatus.setWaitTimePercentiles(waitTimes.getPercentile(50), waitTimes.getPercentile(95),
+                    waitTimes.getPercentile(99), waitTimes.getMax());
+        }
         return poolStatus;
     }
+
+    /**
+     * Resets the statistics kept by the pool itself, which is the wait time histogram of a hand-off wait queue.
+     */
+    public void resetPoolStatistics() {
+        if (waitQueue instanceof HandoffPoolWaitQueue) {
+            ((HandoffPoolWaitQueue) waitQueue).getWaitTimes().reset();
+        }
+    }
 }
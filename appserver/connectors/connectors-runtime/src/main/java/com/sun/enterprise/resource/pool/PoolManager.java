@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.resource.pool;
 
@@ -88,6 +89,9 @@ public interface PoolManager extends TransactedPoolManager {
 
     //Get status of pool
     public PoolStatus getPoolStatus(PoolInfo poolInfo);
+
+    //Reset the statistics kept by the pool itself
+    public void resetPoolStatistics(PoolInfo poolInfo);
     
 
     public ResourceHandle getResourceFromPool(ResourceSpec spec, ResourceAllocator alloc, ClientSecurityInfo info,
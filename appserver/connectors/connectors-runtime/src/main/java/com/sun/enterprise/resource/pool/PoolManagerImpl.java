@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.resource.pool;
 
@@ -718,4 +719,15 @@ public class PoolManagerImpl extends AbstractPoolManager implements ComponentInv
             return null;
         }
     }
+
+    /**
+     * Reset the statistics kept by a connection pool itself.
+     * @param poolInfo
+     */
+    public void resetPoolStatistics(PoolInfo poolInfo) {
+        ResourcePool pool = poolTable.get(poolInfo);
+        if(pool != null) {
+            pool.resetPoolStatistics();
+        }
+    }
 }
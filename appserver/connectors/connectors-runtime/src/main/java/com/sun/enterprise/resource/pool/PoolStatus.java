@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool;
 
@@ -60,6 +61,12 @@ public class PoolStatus {
     //Number of connections in the pool that are being used currently.
     private int numConnUsed;
 
+    //Wait times of queued connection requests, only collected by the hand-off wait queue.
+    private long waitTimeP50;
+    private long waitTimeP95;
+    private long waitTimeP99;
+    private long waitTimeMax;
+
     public int getNumConnFree() {
         return numConnFree;
     }
@@ -76,6 +83,29 @@ public class PoolStatus {
         this.numConnUsed = numConnUsed;
     }
 
+    public void setWaitTimePercentiles(long p50, long p95, long p99, long max) {
+        this.waitTimeP50 = p50;
+        this.waitTimeP95 = p95;
+        this.waitTimeP99 = p99;
+        this.waitTimeMax = max;
+    }
+
+    public long getWaitTimeP50() {
+        return waitTimeP50;
+    }
+
+    public long getWaitTimeP95() {
+        return waitTimeP95;
+    }
+
+    public long getWaitTimeP99() {
+        return waitTimeP99;
+    }
+
+    public long getWaitTimeMax() {
+        return waitTimeMax;
+    }
+
     public PoolInfo getPoolInfo() {
         return poolInfo;
     }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.resource.pool;
 
@@ -74,6 +75,9 @@ public interface ResourcePool {
     //Get status of pool
     public PoolStatus getPoolStatus();
 
+    //Reset the statistics kept by the pool itself
+    public void resetPoolStatistics();
+
     public void transactionCompleted(Transaction tran, int status);
 
     public void resizePool(boolean forced);
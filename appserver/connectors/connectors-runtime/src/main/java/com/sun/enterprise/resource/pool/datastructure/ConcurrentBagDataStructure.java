@@ -0,0 +1,276 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.logging.LogDomains;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock-free datastructure for pool, modelled after the concurrent bag approach.
+ * <p>
+ * Every resource is wrapped in an {@link Entry} whose state is claimed by CAS. A returned resource is remembered in a
+ * small thread-local list of the returning thread, so that the same thread will usually get it back without touching
+ * any shared state, and is offered to a shared lock-free queue so other threads can pick it up when the owning thread
+ * does not. The shared queue holds each entry at most once; entries which were claimed through the thread-local path
+ * are skipped when they are polled from it.
+ * <p>
+ * Can be selected by setting the pool property {@code PoolDataStructure} to the name of this class.
+ */
+public class ConcurrentBagDataStructure implements DataStructure {
+
+    /**
+     * Maximum number of recently returned resources remembered per thread
+     */
+    private static final int THREAD_LOCAL_LIST_SIZE = 16;
+
+    private static final int STATE_FREE = 0;
+    private static final int STATE_IN_USE = 1;
+    private static final int STATE_REMOVED = -1;
+
+    protected static final Logger _logger = LogDomains.getLogger(ConcurrentBagDataStructure.class, LogDomains.RSR_LOGGER);
+
+    private final ResourceHandler handler;
+    private volatile int maxSize;
+
+    private final ConcurrentHashMap<ResourceHandle, Entry> allResources;
+    private final ConcurrentLinkedQueue<Entry> sharedQueue = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Deque<WeakReference<Entry>>> threadList = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final AtomicInteger freeCount = new AtomicInteger();
+    private final AtomicInteger remainingCapacity;
+
+    public ConcurrentBagDataStructure(String parameters, int maxSize, ResourceHandler handler, String strategyClass) {
+        this.allResources = new ConcurrentHashMap<>(Math.min(maxSize, 1000));
+        this.maxSize = maxSize;
+        this.handler = handler;
+        this.remainingCapacity = new AtomicInteger(maxSize);
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.log(Level.FINEST, "pool.datastructure.concurrentbagds.init");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int addResource(ResourceAllocator allocator, int count) throws PoolingException {
+        int numResAdded = 0;
+        for (int i = 0; i < count && canGrow(); i++) {
+            try {
+                ResourceHandle handle = handler.createResource(allocator);
+                Entry entry = new Entry(handle);
+                allResources.put(handle, entry);
+                freeCount.incrementAndGet();
+                offerToSharedQueue(entry);
+                numResAdded++;
+            } catch (Exception e) {
+                remainingCapacity.incrementAndGet();
+                throw new PoolingException(e.getMessage(), e);
+            }
+        }
+        return numResAdded;
+    }
+
+    private boolean canGrow() {
+        int capacity = remainingCapacity.getAndUpdate(x -> x > 0 ? x - 1 : 0);
+        return capacity > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Resources recently returned by the calling thread are tried first, then the shared queue.
+     */
+    @Override
+    public ResourceHandle getResource() {
+        Deque<WeakReference<Entry>> local = threadList.get();
+        WeakReference<Entry> reference;
+        while ((reference = local.pollLast()) != null) {
+            Entry entry = reference.get();
+            if (entry != null && claim(entry)) {
+                return entry.handle;
+            }
+        }
+
+        Entry entry;
+        while ((entry = sharedQueue.poll()) != null) {
+            // clear the flag before claiming, a concurrent return will then re-queue the entry if the claim fails
+            entry.queued.set(false);
+            if (claim(entry)) {
+                return entry.handle;
+            }
+        }
+        return null;
+    }
+
+    private boolean claim(Entry entry) {
+        if (entry.state.compareAndSet(STATE_FREE, STATE_IN_USE)) {
+            freeCount.decrementAndGet();
+            entry.handle.setBusy(true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeResource(ResourceHandle resource) {
+        Entry entry = allResources.remove(resource);
+        if (entry == null) {
+            return;
+        }
+        if (entry.state.getAndSet(STATE_REMOVED) == STATE_FREE) {
+            freeCount.decrementAndGet();
+        }
+        remainingCapacity.incrementAndGet();
+        handler.deleteResource(resource);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void returnResource(ResourceHandle resource) {
+        Entry entry = allResources.get(resource);
+        if (entry == null) {
+            return;
+        }
+        resource.setBusy(false);
+        if (!entry.state.compareAndSet(STATE_IN_USE, STATE_FREE)) {
+            return;
+        }
+        freeCount.incrementAndGet();
+
+        Deque<WeakReference<Entry>> local = threadList.get();
+        if (local.size() >= THREAD_LOCAL_LIST_SIZE) {
+            local.pollFirst();
+        }
+        local.offerLast(new WeakReference<>(entry));
+        offerToSharedQueue(entry);
+    }
+
+    private void offerToSharedQueue(Entry entry) {
+        if (entry.queued.compareAndSet(false, true)) {
+            sharedQueue.offer(entry);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFreeListSize() {
+        return freeCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAll() {
+        Iterator<ResourceHandle> iterator = allResources.keySet().iterator();
+        while (iterator.hasNext()) {
+            removeResource(iterator.next());
+        }
+        sharedQueue.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getResourcesSize() {
+        return allResources.size();
+    }
+
+    /**
+     * Set maxSize based on the new max pool size set on the connection pool
+     * during a reconfiguration.
+     *
+     * @param maxSize
+     */
+    @Override
+    public synchronized void setMaxSize(int maxSize) {
+        int delta = maxSize - this.maxSize;
+        // remaining capacity might be negative after this, but its up to ConnectionPool to remove some of the resources
+        // before asking for new ones
+        remainingCapacity.getAndUpdate(x -> x + delta);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns a snapshot copy, changes to the returned list are not reflected in the datastructure.
+     */
+    @Override
+    public ArrayList<ResourceHandle> getAllResources() {
+        return new ArrayList<>(allResources.keySet());
+    }
+
+    private static final class Entry {
+
+        final ResourceHandle handle;
+        final AtomicInteger state = new AtomicInteger(STATE_FREE);
+        final AtomicBoolean queued = new AtomicBoolean();
+
+        Entry(ResourceHandle handle) {
+            this.handle = handle;
+        }
+    }
+}
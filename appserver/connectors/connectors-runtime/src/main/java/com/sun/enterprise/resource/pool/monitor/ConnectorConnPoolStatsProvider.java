@@ -38,12 +38,13 @@
  * holder.
  *
 */
-// Portions Copyright [2016-2019] [Payara Foundation]
+// Portions Copyright [2016-2024] [Payara Foundation]
 
 package com.sun.enterprise.resource.pool.monitor;
 
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.resource.pool.PoolLifeCycleListenerRegistry;
+import com.sun.enterprise.resource.pool.PoolManager;
 import com.sun.enterprise.resource.pool.PoolStatus;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
@@ -141,6 +142,15 @@ public class ConnectorConnPoolStatsProvider {
     private CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT,
             "Number of connection requests in the queue waiting to be serviced.");
+    private CountStatisticImpl connRequestWaitTimeP50 = new CountStatisticImpl(
+            "ConnRequestWaitTimeP50", StatisticImpl.UNIT_MILLISECOND,
+            "Median time connection requests spent in the wait queue. Only collected by the hand-off wait queue.");
+    private CountStatisticImpl connRequestWaitTimeP95 = new CountStatisticImpl(
+            "ConnRequestWaitTimeP95", StatisticImpl.UNIT_MILLISECOND,
+            "95th percentile of the time connection requests spent in the wait queue. Only collected by the hand-off wait queue.");
+    private CountStatisticImpl connRequestWaitTimeP99 = new CountStatisticImpl(
+            "ConnRequestWaitTimeP99", StatisticImpl.UNIT_MILLISECOND,
+            "99th percentile of the time connection requests spent in the wait queue. Only collected by the hand-off wait queue.");
     private static final String JCA_PROBE_LISTENER = "glassfish:jca:connection-pool:";
 
     public ConnectorConnPoolStatsProvider(PoolInfo poolInfo, Logger logger) {
@@ -467,7 +477,9 @@ public class ConnectorConnPoolStatsProvider {
         if(logger.isLoggable(Level.FINEST)) {
             logger.finest("Reset event received - poolName = " + poolInfo);
         }
-        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        PoolManager poolManager = ConnectorRuntime.getRuntime().getPoolManager();
+        poolManager.resetPoolStatistics(poolInfo);
+        PoolStatus status = poolManager.getPoolStatus(poolInfo);
         numConnUsed.setCurrent(status.getNumConnUsed());
         numConnFree.setCurrent(status.getNumConnFree());
         numConnCreated.reset();
@@ -710,4 +722,31 @@ public class ConnectorConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittimep50")
+    public CountStatistic getConnRequestWaitTimeP50() {
+        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        if (status != null) {
+            connRequestWaitTimeP50.setCount(status.getWaitTimeP50());
+        }
+        return connRequestWaitTimeP50;
+    }
+
+    @ManagedAttribute(id="connrequestwaittimep95")
+    public CountStatistic getConnRequestWaitTimeP95() {
+        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        if (status != null) {
+            connRequestWaitTimeP95.setCount(status.getWaitTimeP95());
+        }
+        return connRequestWaitTimeP95;
+    }
+
+    @ManagedAttribute(id="connrequestwaittimep99")
+    public CountStatistic getConnRequestWaitTimeP99() {
+        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        if (status != null) {
+            connRequestWaitTimeP99.setCount(status.getWaitTimeP99());
+        }
+        return connRequestWaitTimeP99;
+    }
 }
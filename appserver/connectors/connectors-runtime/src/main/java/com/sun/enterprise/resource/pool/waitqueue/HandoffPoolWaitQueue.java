@@ -0,0 +1,157 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.util.TimeHistogram;
+import com.sun.logging.LogDomains;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Strictly FIFO wait queue that allows a freed resource to be handed straight to the longest waiting request.
+ * <p>
+ * A resource given to {@link #handOff(ResourceHandle)} is parked against the wait monitor of the first waiting
+ * request, which is removed from the queue at the same time. The waiting thread collects it with
+ * {@link #takeHandedOff(Object)} once it has been notified, so a resource freed while requests are waiting never goes
+ * through the free list and cannot be taken by a newly arriving request first.
+ * <p>
+ * The time every request spent in the queue is recorded in a {@link TimeHistogram}.
+ */
+public class HandoffPoolWaitQueue implements PoolWaitQueue {
+
+    protected final static Logger _logger = LogDomains.getLogger(HandoffPoolWaitQueue.class, LogDomains.RSR_LOGGER);
+
+    // wait monitor -> enqueue time in nanoseconds, in insertion order
+    private final LinkedHashMap<Object, Long> waiters = new LinkedHashMap<>();
+    private final Map<Object, ResourceHandle> handedOff = new IdentityHashMap<>();
+    private final TimeHistogram waitTimes = new TimeHistogram();
+
+    public HandoffPoolWaitQueue() {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Initializing hand-off Pool Wait Queue");
+        }
+    }
+
+    @Override
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+
+    @Override
+    public synchronized void addToQueue(Object waitMonitor) {
+        waiters.put(waitMonitor, System.nanoTime());
+    }
+
+    @Override
+    public synchronized boolean removeFromQueue(Object waitMonitor) {
+        Long enqueued = waiters.remove(waitMonitor);
+        if (enqueued == null) {
+            return false;
+        }
+        recordWaitTime(enqueued);
+        return true;
+    }
+
+    @Override
+    public synchronized Object remove() {
+        Iterator<Map.Entry<Object, Long>> iterator = waiters.entrySet().iterator();
+        Map.Entry<Object, Long> first = iterator.next();
+        iterator.remove();
+        recordWaitTime(first.getValue());
+        return first.getKey();
+    }
+
+    @Override
+    public synchronized Object peek() {
+        return waiters.isEmpty() ? null : waiters.keySet().iterator().next();
+    }
+
+    @Override
+    public synchronized Collection getQueueContents() {
+        return new ArrayList<>(waiters.keySet());
+    }
+
+    /**
+     * Hands the resource over to the longest waiting request, if there is one.
+     * The caller is responsible for notifying the returned wait monitor.
+     *
+     * @param resource the freed resource
+     * @return the wait monitor of the request the resource was handed to, or null if no request is waiting
+     */
+    public synchronized Object handOff(ResourceHandle resource) {
+        if (waiters.isEmpty()) {
+            return null;
+        }
+        Object waitMonitor = remove();
+        handedOff.put(waitMonitor, resource);
+        return waitMonitor;
+    }
+
+    /**
+     * Collects the resource handed over to a request. Must be called by every waiting request after it has left
+     * the queue, whether it was notified or not, so that a resource handed over concurrently with a time-out is not lost.
+     *
+     * @param waitMonitor the wait monitor of the request
+     * @return the handed over resource, or null if none was handed to this request
+     */
+    public synchronized ResourceHandle takeHandedOff(Object waitMonitor) {
+        return handedOff.remove(waitMonitor);
+    }
+
+    /**
+     * @return histogram of the time requests spent waiting in this queue
+     */
+    public TimeHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    private void recordWaitTime(long enqueuedNanos) {
+        waitTimes.record((System.nanoTime() - enqueuedNanos) / 1_000_000);
+    }
+}
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool.waitqueue;
 
@@ -51,6 +52,7 @@ import java.util.Collection;
 public interface PoolWaitQueue {
     String DEFAULT_WAIT_QUEUE = "DEFAULT_WAIT_QUEUE";
     String THREAD_PRIORITY_BASED_WAIT_QUEUE = "THREAD_PRIORITY_BASED_WAIT_QUEUE";
+    String HANDOFF_WAIT_QUEUE = "HANDOFF_WAIT_QUEUE";
 
     /**
      * returns the length of wait queue
@@ -0,0 +1,273 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.connectors.ConnectorConnectionPool;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.ResourceSpec;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.waitqueue.HandoffPoolWaitQueue;
+import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests how a {@link ConnectionPool} with a {@link HandoffPoolWaitQueue} hands freed resources to waiting requests.
+ */
+public class ConnectionPoolHandoffTest {
+
+    private static final String CONFIGURATION = "configuration";
+
+    private final TestAllocator allocator = new TestAllocator();
+
+    @Test
+    public void freedResourceIsHandedToTheLongestWaiter() throws PoolingException {
+        ConnectionPool pool = createPool(false);
+        HandoffPoolWaitQueue queue = (HandoffPoolWaitQueue) pool.waitQueue;
+        ResourceHandle resource = pool.ds.getResource();
+        Object first = new Object();
+        Object second = new Object();
+        queue.addToQueue(first);
+        queue.addToQueue(second);
+
+        pool.freeResource(resource);
+
+        assertSame(resource, queue.takeHandedOff(first));
+        assertNull(queue.takeHandedOff(second));
+        assertEquals(singletonList(second), new ArrayList<>(queue.getQueueContents()));
+        assertEquals(0, pool.ds.getFreeListSize());
+    }
+
+    @Test
+    public void freedResourceIsReturnedWithoutWaiters() throws PoolingException {
+        ConnectionPool pool = createPool(false);
+        ResourceHandle resource = pool.ds.getResource();
+
+        pool.freeResource(resource);
+
+        assertEquals(1, pool.ds.getFreeListSize());
+    }
+
+    @Test
+    public void validHandedOffResourceIsUsed() throws PoolingException {
+        ConnectionPool pool = createPool(true);
+        ResourceHandle resource = pool.ds.getResource();
+        // freed by its previous user
+        resource.getResourceState().setBusy(false);
+
+        assertSame(resource, pool.acceptHandedOffResource(resource, allocator));
+
+        assertEquals(1, allocator.validated);
+        assertTrue(resource.getResourceState().isBusy());
+    }
+
+    @Test
+    public void invalidHandedOffResourceIsDestroyed() throws PoolingException {
+        ConnectionPool pool = createPool(true);
+        ResourceHandle resource = pool.ds.getResource();
+        allocator.valid = false;
+
+        assertNull(pool.acceptHandedOffResource(resource, allocator));
+
+        assertEquals(1, allocator.validated);
+        assertEquals(singletonList(resource), allocator.destroyed);
+        assertEquals(0, pool.ds.getResourcesSize());
+    }
+
+    @Test
+    public void handedOffResourceIsNotValidatedWithoutValidation() throws PoolingException {
+        ConnectionPool pool = createPool(false);
+        ResourceHandle resource = pool.ds.getResource();
+        allocator.valid = false;
+
+        assertSame(resource, pool.acceptHandedOffResource(resource, allocator));
+
+        assertEquals(0, allocator.validated);
+    }
+
+    @Test
+    public void handedOffResourceWithConnectionErrorIsDestroyed() throws PoolingException {
+        ConnectionPool pool = createPool(true);
+        ResourceHandle resource = pool.ds.getResource();
+        resource.setConnectionErrorOccurred();
+
+        assertNull(pool.acceptHandedOffResource(resource, allocator));
+
+        assertEquals(singletonList(resource), allocator.destroyed);
+        assertEquals(0, pool.ds.getResourcesSize());
+    }
+
+    @Test
+    public void resettingStatisticsClearsTheWaitTimes() throws PoolingException {
+        ConnectionPool pool = createPool(false);
+        HandoffPoolWaitQueue queue = (HandoffPoolWaitQueue) pool.waitQueue;
+        Object waiter = new Object();
+        queue.addToQueue(waiter);
+        queue.removeFromQueue(waiter);
+        assertEquals(1, queue.getWaitTimes().getCount());
+
+        pool.resetPoolStatistics();
+
+        assertEquals(0, queue.getWaitTimes().getCount());
+    }
+
+    private ConnectionPool createPool(boolean validation) throws PoolingException {
+        PoolInfo poolInfo = new PoolInfo("handoff-pool");
+        ConnectorConnectionPool configuration = new ConnectorConnectionPool(poolInfo);
+        configuration.setSteadyPoolSize("1");
+        configuration.setMaxPoolSize("1");
+        configuration.setMaxWaitTimeInMillis("0");
+        configuration.setPoolResizeQuantity("1");
+        configuration.setIdleTimeoutInSeconds("0");
+        configuration.setMaxConnectionUsage("0");
+        configuration.setConCreationRetryAttempts("0");
+        configuration.setConCreationRetryInterval("0");
+        configuration.setValidateAtmostOncePeriod("0");
+        configuration.setConnectionLeakTracingTimeout("0");
+        configuration.setConnectionValidationRequired(validation);
+        configuration.setPoolWaitQueue(PoolWaitQueue.HANDOFF_WAIT_QUEUE);
+
+        Hashtable<String, Object> env = new Hashtable<>();
+        env.put(CONFIGURATION, configuration);
+        ConnectionPool pool = new ConfiguredConnectionPool(poolInfo, env);
+        pool.initPool(allocator);
+        return pool;
+    }
+
+    /**
+     * Takes its configuration from the environment instead of looking it up.
+     */
+    private static class ConfiguredConnectionPool extends ConnectionPool {
+
+        ConfiguredConnectionPool(PoolInfo poolInfo, Hashtable env) throws PoolingException {
+            super(poolInfo, env);
+        }
+
+        @Override
+        protected ConnectorConnectionPool getPoolConfigurationFromJndi(Hashtable env) {
+            return (ConnectorConnectionPool) env.get(CONFIGURATION);
+        }
+    }
+
+    private static class TestAllocator implements ResourceAllocator {
+
+        private final ResourceSpec spec = new ResourceSpec("testResource", ResourceSpec.JNDI_NAME);
+        boolean valid = true;
+        int validated;
+        final List<ResourceHandle> destroyed = new ArrayList<>();
+
+        @Override
+        public ResourceHandle createResource() {
+            return new ResourceHandle(new Object(), spec, this, null);
+        }
+
+        @Override
+        public void fillInResourceObjects(ResourceHandle resource) {
+        }
+
+        @Override
+        public void closeUserConnection(ResourceHandle resource) {
+        }
+
+        @Override
+        public void destroyResource(ResourceHandle resource) {
+            destroyed.add(resource);
+        }
+
+        @Override
+        public boolean matchConnection(ResourceHandle h) {
+            return true;
+        }
+
+        @Override
+        public boolean supportsReauthentication() {
+            return false;
+        }
+
+        @Override
+        public boolean isTransactional() {
+            return false;
+        }
+
+        @Override
+        public void cleanup(ResourceHandle resource) {
+        }
+
+        @Override
+        public boolean shareableWithinComponent() {
+            return true;
+        }
+
+        @Override
+        public Object getSharedConnection(ResourceHandle h) {
+            return null;
+        }
+
+        @Override
+        public Set getInvalidConnections(Set connectionSet) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public boolean isConnectionValid(ResourceHandle resource) {
+            validated++;
+            return valid;
+        }
+
+        @Override
+        public boolean hasValidatingMCF() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.ResourceSpec;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HandoffPoolWaitQueueTest {
+
+    private final HandoffPoolWaitQueue queue = new HandoffPoolWaitQueue();
+
+    @Test
+    public void waitersLeaveInArrivalOrder() {
+        Object first = new Object();
+        Object second = new Object();
+        Object third = new Object();
+        queue.addToQueue(first);
+        queue.addToQueue(second);
+        queue.addToQueue(third);
+
+        assertEquals(Arrays.asList(first, second, third), queue.getQueueContents());
+        assertSame(first, queue.peek());
+        assertSame(first, queue.remove());
+        assertSame(second, queue.remove());
+        assertSame(third, queue.remove());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void resourcesAreHandedToTheLongestWaiter() {
+        Object first = new Object();
+        Object second = new Object();
+        queue.addToQueue(first);
+        queue.addToQueue(second);
+        ResourceHandle resource1 = resource();
+        ResourceHandle resource2 = resource();
+
+        assertSame(first, queue.handOff(resource1));
+        assertSame(second, queue.handOff(resource2));
+
+        assertEquals(0, queue.getQueueLength());
+        assertSame(resource1, queue.takeHandedOff(first));
+        assertSame(resource2, queue.takeHandedOff(second));
+    }
+
+    @Test
+    public void nothingIsHandedOffWithoutWaiters() {
+        assertNull(queue.handOff(resource()));
+    }
+
+    @Test
+    public void timedOutWaitersLeaveTheQueue() {
+        Object timedOut = new Object();
+        Object waiting = new Object();
+        queue.addToQueue(timedOut);
+        queue.addToQueue(waiting);
+
+        assertTrue(queue.removeFromQueue(timedOut));
+        assertNull(queue.takeHandedOff(timedOut));
+
+        // a freed resource goes to the request still waiting
+        ResourceHandle resource = resource();
+        assertSame(waiting, queue.handOff(resource));
+        assertSame(resource, queue.takeHandedOff(waiting));
+    }
+
+    @Test
+    public void resourceHandedOffDuringTimeOutIsKept() {
+        Object waiter = new Object();
+        queue.addToQueue(waiter);
+        ResourceHandle resource = resource();
+        queue.handOff(resource);
+
+        // the waiter times out after the hand-off, but before it collects the resource
+        assertFalse(queue.removeFromQueue(waiter));
+        assertSame(resource, queue.takeHandedOff(waiter));
+        assertNull(queue.takeHandedOff(waiter));
+    }
+
+    @Test
+    public void waitTimesAreRecordedOncePerRequest() {
+        Object handedOff = new Object();
+        Object timedOut = new Object();
+        queue.addToQueue(handedOff);
+        queue.addToQueue(timedOut);
+
+        queue.handOff(resource());
+        queue.removeFromQueue(handedOff);
+        queue.removeFromQueue(timedOut);
+
+        assertEquals(2, queue.getWaitTimes().getCount());
+    }
+
+    private static ResourceHandle resource() {
+        return new ResourceHandle(new Object(), new ResourceSpec("testResource", ResourceSpec.JNDI_NAME), null, null);
+    }
+}
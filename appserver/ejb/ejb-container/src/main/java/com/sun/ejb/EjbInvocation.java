@@ -236,6 +236,8 @@ public class EjbInvocation //
 
     private java.util.concurrent.locks.Lock cmcLock;
 
+    private long cmcLockAcquiredAt;
+
     private boolean doTxProcessingInPostInvoke;
 
     private long invId;
@@ -428,6 +430,17 @@ public class EjbInvocation //
         cmcLock = l;
     }
 
+    /**
+     * @return the {@link System#nanoTime()} at which the CMC write lock was acquired
+     */
+    public long getCMCLockAcquiredAt() {
+        return cmcLockAcquiredAt;
+    }
+
+    public void setCMCLockAcquiredAt(long nanoTime) {
+        cmcLockAcquiredAt = nanoTime;
+    }
+
     public boolean holdingSFSBSerializedLock() {
         return this.holdingSFSBSerializedLock;
     }
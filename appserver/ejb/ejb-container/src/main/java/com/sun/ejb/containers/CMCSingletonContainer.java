@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2023] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -47,14 +47,25 @@ import com.sun.ejb.ComponentContext;
 import com.sun.ejb.EjbInvocation;
 import com.sun.ejb.InvocationInfo;
 import com.sun.ejb.MethodLockInfo;
+import com.sun.ejb.monitoring.stats.EjbMonitoringStatsProvider;
+import com.sun.ejb.monitoring.stats.SingletonBeanStatsProvider;
 import com.sun.enterprise.security.SecurityManager;
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 import jakarta.ejb.ConcurrentAccessException;
 import jakarta.ejb.ConcurrentAccessTimeoutException;
 import jakarta.ejb.IllegalLoopbackException;
 import jakarta.ejb.LockType;
+import org.glassfish.ejb.config.EjbContainer;
 import org.glassfish.ejb.deployment.descriptor.EjbDescriptor;
 
 /**
@@ -63,21 +74,57 @@ import org.glassfish.ejb.deployment.descriptor.EjbDescriptor;
 public class CMCSingletonContainer
         extends AbstractSingletonContainer {
 
-    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock(true);
+    /**
+     * ejb-container property selecting the lock guarding container managed
+     * concurrency: {@value #FAIR_LOCK} (the default) or {@value #STRIPED_LOCK}.
+     * The striped lock lets {@code @Lock(READ)} methods run without contending
+     * on a shared lock word, at the cost of more expensive write locking.
+     */
+    public static final String SINGLETON_LOCK_TYPE = "cmc-singleton-lock-type";
+    public static final String FAIR_LOCK = "fair";
+    public static final String STRIPED_LOCK = "striped";
+
+    // Number of methods reported by getLongestWriteLockHolders()
+    private static final int WRITE_LOCK_HOLDERS_REPORTED = 5;
+
+    // Exactly one of rwLock and stripedLock is set
+    private final ReentrantReadWriteLock rwLock;
 
-    private final ReentrantReadWriteLock.ReadLock readLock = rwLock.readLock();
+    private final StripedReadWriteLock stripedLock;
 
-    private final ReentrantReadWriteLock.WriteLock writeLock = rwLock.writeLock();
+    private final Lock readLock;
+
+    private final Lock writeLock;
 
     private final static long NO_BLOCKING = 0;
     private final static long BLOCK_INDEFINITELY = -1;
 
     private final MethodLockInfo defaultMethodLockInfo;
 
+    private final LongAdder lockWaitCount = new LongAdder();
+
+    private final LongAdder lockWaitNanos = new LongAdder();
+
+    private final Map<Method, WriteLockHolds> writeLockHolds = new ConcurrentHashMap<>();
+
     public CMCSingletonContainer(EjbDescriptor desc, ClassLoader cl, SecurityManager sm)
             throws Exception {
         super(desc, cl, sm);
 
+        EjbContainer ejbContainer = ejbContainerUtilImpl.getEjbContainer();
+        String lockType = (ejbContainer == null) ? null : ejbContainer.getPropertyValue(SINGLETON_LOCK_TYPE);
+        if (STRIPED_LOCK.equalsIgnoreCase(lockType)) {
+            rwLock = null;
+            stripedLock = new StripedReadWriteLock(Runtime.getRuntime().availableProcessors());
+            readLock = stripedLock.readLock();
+            writeLock = stripedLock.writeLock();
+        } else {
+            rwLock = new ReentrantReadWriteLock(true);
+            stripedLock = null;
+            readLock = rwLock.readLock();
+            writeLock = rwLock.writeLock();
+        }
+
         // In absence of any method lock info default is WRITE lock with no timeout.
         defaultMethodLockInfo = new MethodLockInfo();
         defaultMethodLockInfo.setLockType(LockType.WRITE, clusteredLookup.isDistributedLockEnabled());
@@ -155,8 +202,7 @@ public class CMCSingletonContainer
             theLock = lockInfo.isReadLockedMethod() ? readLock : writeLock;
         }
 
-        if ( (rwLock.getReadHoldCount() > 0) &&
-                (!rwLock.isWriteLockedByCurrentThread()) ) {
+        if (holdsOnlyReadLock()) {
             if( lockInfo.isWriteLockedMethod() ) {
                 throw new IllegalLoopbackException("Illegal Reentrant Access : Attempt to make " +
                         "a loopback call on a Write Lock method '" + invInfo.targetMethod1 +
@@ -170,6 +216,24 @@ public class CMCSingletonContainer
          * lock, the lock is guaranteed to be unlocked in releaseContext()
          * even if exceptions were thrown in _getContext()
          */
+        if (lockInfo.isDistributed() || !tryLockWithoutWaiting(theLock)) {
+            long waitStart = System.nanoTime();
+            try {
+                acquire(theLock, lockInfo);
+            } finally {
+                lockWaitCount.increment();
+                lockWaitNanos.add(System.nanoTime() - waitStart);
+            }
+        }
+        if (theLock == writeLock) {
+            invocation.setCMCLockAcquiredAt(System.nanoTime());
+        }
+
+        //Now that we have acquired the lock, remember it
+        invocation.setCMCLock(theLock);
+    }
+
+    private void acquire(Lock theLock, MethodLockInfo lockInfo) {
         if (!lockInfo.hasTimeout() ||
                 ( (lockInfo.hasTimeout() && (lockInfo.getTimeout() == BLOCK_INDEFINITELY) )) ) {
             theLock.lock();
@@ -194,9 +258,22 @@ public class CMCSingletonContainer
                 throw cae;
             }
         }
+    }
 
-        //Now that we have acquired the lock, remember it
-        invocation.setCMCLock(theLock);
+    /**
+     * Takes the lock if that can be done without blocking. Contention
+     * statistics are only collected when this fails.
+     */
+    private boolean tryLockWithoutWaiting(Lock theLock) {
+        // Barging ahead of queued threads would defeat the fair lock
+        return (rwLock == null || !rwLock.hasQueuedThreads()) && theLock.tryLock();
+    }
+
+    private boolean holdsOnlyReadLock() {
+        if (rwLock != null) {
+            return rwLock.getReadHoldCount() > 0 && !rwLock.isWriteLockedByCurrentThread();
+        }
+        return stripedLock.getReadHoldCount() > 0 && !stripedLock.isWriteLockedByCurrentThread();
     }
 
     /**
@@ -212,11 +289,74 @@ public class CMCSingletonContainer
 
         Lock theLock = inv.getCMCLock();
         if (theLock != null) {
+            long heldNanos = (theLock == writeLock) ? System.nanoTime() - inv.getCMCLockAcquiredAt() : -1;
             try {
                 theLock.unlock();
             } catch (CPSubsystemException | LockOwnershipLostException e) {
                 _logger.log(Level.WARNING, "Distributed unlock failed", e);
             }
+            if (heldNanos >= 0 && inv.invocationInfo != null && inv.invocationInfo.targetMethod1 != null) {
+                writeLockHolds.computeIfAbsent(inv.invocationInfo.targetMethod1, m -> new WriteLockHolds())
+                        .record(heldNanos);
+            }
+        }
+    }
+
+    @Override
+    protected EjbMonitoringStatsProvider getMonitoringStatsProvider(String appName, String modName, String ejbName) {
+        return new SingletonBeanStatsProvider(this, getContainerId(), appName, modName, ejbName);
+    }
+
+    //methods for SingletonBeanStatsProvider
+
+    /**
+     * @return the number of times a caller had to wait for the concurrency lock
+     */
+    public long getLockWaitCount() {
+        return lockWaitCount.sum();
+    }
+
+    /**
+     * @return the total time callers spent waiting for the concurrency lock
+     */
+    public long getLockWaitTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lockWaitNanos.sum());
+    }
+
+    /**
+     * @return an estimate of the number of callers currently waiting for the lock
+     */
+    public int getLockQueueLength() {
+        return (rwLock != null) ? rwLock.getQueueLength() : stripedLock.getQueueLength();
+    }
+
+    /**
+     * @return the business methods with the longest write lock hold times,
+     * longest first
+     */
+    public String getLongestWriteLockHolders() {
+        return writeLockHolds.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Method, WriteLockHolds> e) -> e.getValue().max.get())
+                        .reversed())
+                .limit(WRITE_LOCK_HOLDERS_REPORTED)
+                .map(e -> e.getKey().getName() + "(max=" + TimeUnit.NANOSECONDS.toMillis(e.getValue().max.get())
+                        + "ms, total=" + TimeUnit.NANOSECONDS.toMillis(e.getValue().total.sum())
+                        + "ms, count=" + e.getValue().count.sum() + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static final class WriteLockHolds {
+
+        final LongAdder count = new LongAdder();
+
+        final LongAdder total = new LongAdder();
+
+        final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
         }
     }
 
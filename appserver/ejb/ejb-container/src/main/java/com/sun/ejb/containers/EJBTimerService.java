@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 package com.sun.ejb.containers;
 
 import java.io.Serializable;
@@ -1886,6 +1886,13 @@ public abstract class EJBTimerService {
             return result;
         }
 
+        // Returns a Set of persistent timer ids known to this server
+        public synchronized Set<TimerPrimaryKey> getPersistentTimerIds() {
+            Set<TimerPrimaryKey> result = new HashSet<TimerPrimaryKey>(timers_.keySet());
+            result.removeAll(nonpersistentTimers_.keySet());
+            return result;
+        }
+
         // Returns a Set of active non-persistent timer ids for this server
         public synchronized Set<TimerPrimaryKey> getNonPersistentActiveTimerIdsByThisServer() {
             Set<TimerPrimaryKey> result = new HashSet<TimerPrimaryKey>();
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2018-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -81,6 +81,7 @@ public final class SessionContextImpl extends AbstractSessionContextImpl impleme
 
     private boolean txCheckpointDelayed;
     private long lastPersistedAt;
+    private transient int passivatedSize;
 
     private long version;
 
@@ -291,6 +292,14 @@ public final class SessionContextImpl extends AbstractSessionContextImpl impleme
         this.lastPersistedAt = val;
     }
 
+    int getPassivatedSize() {
+        return passivatedSize;
+    }
+
+    void setPassivatedSize(int size) {
+        this.passivatedSize = size;
+    }
+
     @Override
     public long getVersion() {
         return version;
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -56,10 +57,13 @@ import com.sun.ejb.ContainerFactory;
 import com.sun.ejb.base.container.util.CacheProperties;
 import com.sun.ejb.base.sfsb.util.ScrambledKeyGenerator;
 import com.sun.ejb.base.sfsb.util.SimpleKeyGenerator;
+import com.sun.ejb.containers.util.CompressedSFSBStateSerializer;
+import com.sun.ejb.containers.util.JavaSFSBStateSerializer;
 import com.sun.ejb.containers.util.cache.FIFOSessionCache;
 import com.sun.ejb.containers.util.cache.LruSessionCache;
 import com.sun.ejb.containers.util.cache.NRUSessionCache;
 import com.sun.ejb.containers.util.cache.UnBoundedSessionCache;
+import com.sun.ejb.spi.container.SFSBStateSerializer;
 import com.sun.enterprise.config.serverbeans.AvailabilityService;
 import com.sun.enterprise.config.serverbeans.Config;
 import com.sun.enterprise.security.SecurityManager;
@@ -171,6 +175,24 @@ public class StatefulContainerFactory extends BaseContainerFactory
         level = "WARNING")
     private static final String SFSB_HA_DISABLED_BY_PASSIVATION_SETTING = "AS-EJB-00051";
 
+    @LogMessageInfo(
+        message = "Invalid value [{0}] for ejb-container property {1}, using the default",
+        level = "WARNING")
+    private static final String SFSB_INVALID_PASSIVATION_PROPERTY = "AS-EJB-00064";
+
+    /**
+     * ejb-container property naming the serializer used for passivated and
+     * replicated stateful session bean state: "java" (the default),
+     * "compressed" or the class name of an {@link SFSBStateSerializer}.
+     */
+    public static final String SFSB_STATE_SERIALIZER = "sfsb-state-serializer";
+
+    /**
+     * ejb-container property limiting how many background passivation tasks
+     * may run at once for a single stateful session bean container.
+     */
+    public static final String SFSB_MAX_PASSIVATION_TASKS = "sfsb-max-passivation-tasks";
+
     private static final Level TRACE_LEVEL = Level.FINE;
 
     private EjbDescriptor		    ejbDescriptor;
@@ -416,6 +438,7 @@ public class StatefulContainerFactory extends BaseContainerFactory
             sfsbContainer.setPassivationBatchCount(
                     cacheProps.getNumberOfVictimsToSelect());
         }
+        buildPassivationSettings();
 
         if (_logger.isLoggable(TRACE_LEVEL)) {
             _logger.log(TRACE_LEVEL,
@@ -424,6 +447,41 @@ public class StatefulContainerFactory extends BaseContainerFactory
         }
     }
 
+    private void buildPassivationSettings() {
+        if (ejbContainerConfig == null) {
+            return;
+        }
+
+        String maxTasks = ejbContainerConfig.getPropertyValue(SFSB_MAX_PASSIVATION_TASKS);
+        if (maxTasks != null) {
+            try {
+                sfsbContainer.setMaxPassivationTasks(Integer.parseInt(maxTasks.trim()));
+            } catch (NumberFormatException e) {
+                _logger.log(Level.WARNING, SFSB_INVALID_PASSIVATION_PROPERTY,
+                        new Object[]{maxTasks, SFSB_MAX_PASSIVATION_TASKS});
+            }
+        }
+
+        String serializer = ejbContainerConfig.getPropertyValue(SFSB_STATE_SERIALIZER);
+        if (serializer == null || JavaSFSBStateSerializer.NAME.equalsIgnoreCase(serializer.trim())) {
+            return;
+        }
+        serializer = serializer.trim();
+        if (CompressedSFSBStateSerializer.NAME.equalsIgnoreCase(serializer)) {
+            sfsbContainer.setStateSerializer(new CompressedSFSBStateSerializer());
+            return;
+        }
+        try {
+            Class<?> clazz = Class.forName(serializer, true, sfsbContainer.getClassLoader());
+            sfsbContainer.setStateSerializer(
+                    (SFSBStateSerializer) clazz.getDeclaredConstructor().newInstance());
+        } catch (Exception | LinkageError e) {
+            _logger.log(Level.WARNING, SFSB_INVALID_PASSIVATION_PROPERTY,
+                    new Object[]{serializer, SFSB_STATE_SERIALIZER});
+            _logger.log(Level.FINE, "Unable to create SFSB state serializer", e);
+        }
+    }
+
     private void scheduleTimerTasks(StatefulSessionContainer container) {
         String ejbName = ejbDescriptor.getEjbClassName();
 
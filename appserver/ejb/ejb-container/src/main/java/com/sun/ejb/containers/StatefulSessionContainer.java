@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -51,6 +51,7 @@ import com.sun.ejb.MethodLockInfo;
 import com.sun.ejb.base.stats.HAStatefulSessionStoreMonitor;
 import com.sun.ejb.base.stats.StatefulSessionStoreMonitor;
 import com.sun.ejb.containers.EJBContextImpl.BeanState;
+import com.sun.ejb.containers.util.JavaSFSBStateSerializer;
 import com.sun.ejb.containers.util.cache.LruSessionCache;
 import com.sun.ejb.monitoring.probes.EjbCacheProbeProvider;
 import com.sun.ejb.monitoring.stats.EjbCacheStatsProvider;
@@ -58,6 +59,7 @@ import com.sun.ejb.monitoring.stats.EjbMonitoringStatsProvider;
 import com.sun.ejb.monitoring.stats.EjbMonitoringUtils;
 import com.sun.ejb.monitoring.stats.StatefulSessionBeanStatsProvider;
 import com.sun.ejb.spi.container.SFSBContainerCallback;
+import com.sun.ejb.spi.container.SFSBStateSerializer;
 import com.sun.ejb.spi.container.StatefulEJBContext;
 import com.sun.ejb.spi.sfsb.util.SFSBUUIDUtil;
 import com.sun.ejb.spi.sfsb.util.SFSBVersionManager;
@@ -93,9 +95,11 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -308,6 +312,11 @@ public final class StatefulSessionContainer
     private int passivationBatchCount
             = MIN_PASSIVATION_BATCH_COUNT;
 
+    // Upper bound on the number of ASyncPassivator tasks running at once
+    private int maxPassivationTasks = Runtime.getRuntime().availableProcessors();
+
+    private SFSBStateSerializer stateSerializer = new JavaSFSBStateSerializer();
+
     private int containerTrimCount = 0;
 
     private LruSessionCache sessionBeanCache;
@@ -2125,6 +2134,7 @@ public final class StatefulSessionContainer
                             ejbInv, sc, prePassivateInvInfo, CallbackType.PRE_PASSIVATE);
                         sc.setLastPersistedAt(System.currentTimeMillis());
                         boolean saved = false;
+                        long passivationStart = System.nanoTime();
                         try {
                             saved = sessionBeanCache.passivateEJB(sc, instanceKey);
                         } catch (EMNotSerializableException emNotSerEx) {
@@ -2143,6 +2153,10 @@ public final class StatefulSessionContainer
                             incrementMethodReadyStat();
                             return false;
                         }
+                        cacheProbeNotifier.ejbBeanPassivationCompletedEvent(getContainerId(), //
+                            containerInfo.appName, containerInfo.modName, containerInfo.ejbName, //
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - passivationStart), //
+                            sc.getPassivatedSize());
                     }
 
                     // V2: sfsbStoreMonitor.incrementPassivationCount(true);
@@ -2246,6 +2260,14 @@ public final class StatefulSessionContainer
         this.passivationBatchCount = count;
     }
 
+    public void setMaxPassivationTasks(int count) {
+        this.maxPassivationTasks = Math.max(1, count);
+    }
+
+    public void setStateSerializer(SFSBStateSerializer serializer) {
+        this.stateSerializer = serializer;
+    }
+
     // called asynchronously from the Recycler
     @Override
     public boolean passivateEJB(StatefulEJBContext sfsbCtx) {
@@ -2416,8 +2438,8 @@ public final class StatefulSessionContainer
 
     @Override
     public Object deserializeData(byte[] data) throws Exception {
-        Object o = ejbContainerUtilImpl.getJavaEEIOUtils().deserializeObject( //
-            data, true, getClassLoader(), getApplicationId());
+        Object o = stateSerializer.deserialize( //
+            data, ejbContainerUtilImpl.getJavaEEIOUtils(), getClassLoader(), getApplicationId());
         if (o instanceof SessionContextImpl) {
             deserializeContext((SessionContextImpl) o);
         }
@@ -2456,7 +2478,11 @@ public final class StatefulSessionContainer
             ctx.setEJB(null);
             ctx.setEJB(new SerializableEJB(ejb));
         }
-        return ejbContainerUtilImpl.getJavaEEIOUtils().serializeObject(ctx, true);
+        byte[] data = stateSerializer.serialize(ctx, ejbContainerUtilImpl.getJavaEEIOUtils());
+        if (ctx.getState() == BeanState.PASSIVATED) {
+            ctx.setPassivatedSize(data.length);
+        }
+        return data;
     }
 
     private void decrementRefCountsForEEMs(SessionContextImpl context) {
@@ -2862,7 +2888,8 @@ public final class StatefulSessionContainer
         synchronized (asyncTaskSemaphore) {
             containerTrimCount++;
             passivationCandidates.add(context);
-            int requiredTaskCount = (passivationCandidates.size() / passivationBatchCount);
+            int requiredTaskCount = Math.min(passivationCandidates.size() / passivationBatchCount,
+                maxPassivationTasks);
             addTask = (asyncTaskCount < requiredTaskCount);
 
             if (_logger.isLoggable(Level.FINE)) {
@@ -2914,19 +2941,33 @@ public final class StatefulSessionContainer
                     };
                     AccessController.doPrivileged(action);
                 }
-                ComponentContext ctx = null;
+                List<ComponentContext> batch = new ArrayList<>(passivationBatchCount);
 
                 do {
+                    // Take a whole batch per lock acquisition so that request
+                    // threads queueing candidates in trimEvent see less contention
                     synchronized (asyncTaskSemaphore) {
                         int sz = passivationCandidates.size();
-                        if (sz > 0) {
-                            ctx = (ComponentContext)
-                                    passivationCandidates.remove(sz - 1);
-                        } else {
+                        if (sz == 0) {
                             return;
                         }
+                        List<ComponentContext> tail =
+                                passivationCandidates.subList(Math.max(0, sz - passivationBatchCount), sz);
+                        batch.addAll(tail);
+                        tail.clear();
+                    }
+                    // Most recently trimmed first, as when draining one at a time.
+                    // The batch is no longer queued, so a failing bean must not
+                    // keep the rest of it from being passivated
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        ComponentContext ctx = batch.get(i);
+                        try {
+                            passivateEJB(ctx);
+                        } catch (Throwable th) {
+                            _logger.log(Level.WARNING, ERROR_DURING_PASSIVATION, new Object[] {ctx, th});
+                        }
                     }
-                    passivateEJB(ctx);
+                    batch.clear();
                 } while (true);
 
             } catch (Throwable th) {
@@ -0,0 +1,356 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A reentrant read/write lock for read-mostly singletons, built from an
+ * array of {@link StampedLock} stripes.
+ * <p>
+ * A reader only takes the read stamp of the stripe its thread hashes to, so
+ * concurrent readers on different cores do not contend on the same cache
+ * line. A writer takes the write stamp of every stripe, in order, which makes
+ * writes more expensive than with a {@link java.util.concurrent.locks.ReentrantReadWriteLock}.
+ * <p>
+ * Reentrancy follows {@code ReentrantReadWriteLock}: a thread holding the read
+ * lock may take it again, and a thread holding the write lock may take either
+ * lock again. Taking the write lock while holding only the read lock is not
+ * supported; {@link CMCSingletonContainer} rejects such loopback calls before
+ * they reach this lock. The lock is not fair.
+ */
+final class StripedReadWriteLock implements ReadWriteLock {
+
+    private final StampedLock[] stripes;
+
+    private final int mask;
+
+    private final ThreadLocal<Holds> holds = ThreadLocal.withInitial(this::newHolds);
+
+    private final AtomicInteger queueLength = new AtomicInteger();
+
+    private final Lock readLock = new ReadLock();
+
+    private final Lock writeLock = new WriteLock();
+
+    StripedReadWriteLock(int stripeCount) {
+        // Round up to a power of two so that a stripe can be picked with a mask
+        stripes = new StampedLock[stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new StampedLock();
+        }
+        mask = stripes.length - 1;
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return the number of read holds of the current thread
+     */
+    int getReadHoldCount() {
+        return holds.get().reads;
+    }
+
+    boolean isWriteLockedByCurrentThread() {
+        return holds.get().writes > 0;
+    }
+
+    /**
+     * @return an estimate of the number of threads blocked acquiring this lock
+     */
+    int getQueueLength() {
+        return queueLength.get();
+    }
+
+    private Holds newHolds() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return new Holds((int) (id >>> 32) & mask);
+    }
+
+    private static final class Holds {
+
+        final int stripe;
+
+        int reads;
+
+        int writes;
+
+        long readStamp;
+
+        long[] writeStamps;
+
+        Holds(int stripe) {
+            this.stripe = stripe;
+        }
+    }
+
+    private final class ReadLock implements Lock {
+
+        @Override
+        public void lock() {
+            Holds h = holds.get();
+            if (h.reads > 0 || h.writes > 0) {
+                h.reads++;
+                return;
+            }
+            StampedLock stripe = stripes[h.stripe];
+            long stamp = stripe.tryReadLock();
+            if (stamp == 0L) {
+                queueLength.incrementAndGet();
+                try {
+                    stamp = stripe.readLock();
+                } finally {
+                    queueLength.decrementAndGet();
+                }
+            }
+            h.readStamp = stamp;
+            h.reads = 1;
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            if (!tryLock(Long.MAX_VALUE, NANOSECONDS)) {
+                throw new InterruptedException();
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            Holds h = holds.get();
+            if (h.reads > 0 || h.writes > 0) {
+                h.reads++;
+                return true;
+            }
+            long stamp = stripes[h.stripe].tryReadLock();
+            if (stamp == 0L) {
+                return false;
+            }
+            h.readStamp = stamp;
+            h.reads = 1;
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            Holds h = holds.get();
+            if (h.reads > 0 || h.writes > 0) {
+                h.reads++;
+                return true;
+            }
+            StampedLock stripe = stripes[h.stripe];
+            long stamp = stripe.tryReadLock();
+            if (stamp == 0L) {
+                queueLength.incrementAndGet();
+                try {
+                    stamp = stripe.tryReadLock(time, unit);
+                } finally {
+                    queueLength.decrementAndGet();
+                }
+                if (stamp == 0L) {
+                    return false;
+                }
+            }
+            h.readStamp = stamp;
+            h.reads = 1;
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            Holds h = holds.get();
+            if (h.reads == 0) {
+                throw new IllegalMonitorStateException();
+            }
+            if (--h.reads == 0 && h.readStamp != 0L) {
+                stripes[h.stripe].unlockRead(h.readStamp);
+                h.readStamp = 0L;
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final class WriteLock implements Lock {
+
+        @Override
+        public void lock() {
+            Holds h = holds.get();
+            if (h.writes > 0) {
+                h.writes++;
+                return;
+            }
+            long[] stamps = new long[stripes.length];
+            boolean queued = false;
+            try {
+                for (int i = 0; i < stripes.length; i++) {
+                    long stamp = stripes[i].tryWriteLock();
+                    if (stamp == 0L) {
+                        if (!queued) {
+                            queueLength.incrementAndGet();
+                            queued = true;
+                        }
+                        stamp = stripes[i].writeLock();
+                    }
+                    stamps[i] = stamp;
+                }
+            } finally {
+                if (queued) {
+                    queueLength.decrementAndGet();
+                }
+            }
+            h.writeStamps = stamps;
+            h.writes = 1;
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            if (!tryLock(Long.MAX_VALUE, NANOSECONDS)) {
+                throw new InterruptedException();
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            Holds h = holds.get();
+            if (h.writes > 0) {
+                h.writes++;
+                return true;
+            }
+            long[] stamps = new long[stripes.length];
+            for (int i = 0; i < stripes.length; i++) {
+                long stamp = stripes[i].tryWriteLock();
+                if (stamp == 0L) {
+                    unlockWrite(stamps, i);
+                    return false;
+                }
+                stamps[i] = stamp;
+            }
+            h.writeStamps = stamps;
+            h.writes = 1;
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            Holds h = holds.get();
+            if (h.writes > 0) {
+                h.writes++;
+                return true;
+            }
+            long[] stamps = new long[stripes.length];
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            boolean queued = false;
+            int acquired = 0;
+            try {
+                for (; acquired < stripes.length; acquired++) {
+                    long stamp = stripes[acquired].tryWriteLock();
+                    if (stamp == 0L) {
+                        if (!queued) {
+                            queueLength.incrementAndGet();
+                            queued = true;
+                        }
+                        stamp = stripes[acquired].tryWriteLock(deadline - System.nanoTime(), NANOSECONDS);
+                        if (stamp == 0L) {
+                            unlockWrite(stamps, acquired);
+                            return false;
+                        }
+                    }
+                    stamps[acquired] = stamp;
+                }
+            } catch (InterruptedException e) {
+                unlockWrite(stamps, acquired);
+                throw e;
+            } finally {
+                if (queued) {
+                    queueLength.decrementAndGet();
+                }
+            }
+            h.writeStamps = stamps;
+            h.writes = 1;
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            Holds h = holds.get();
+            if (h.writes == 0) {
+                throw new IllegalMonitorStateException();
+            }
+            if (--h.writes == 0) {
+                unlockWrite(h.writeStamps, stripes.length);
+                h.writeStamps = null;
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void unlockWrite(long[] stamps, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                stripes[i].unlockWrite(stamps[i]);
+            }
+        }
+    }
+}
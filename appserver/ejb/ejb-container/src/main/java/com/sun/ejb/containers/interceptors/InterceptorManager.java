@@ -36,14 +36,20 @@
  * and therefore, elected the GPL Version 2 license, then the option applies
  * only if the new code is made subject to such option by the copyright
  * holder.
- * Portions Copyright [2016-2021] [Payara Foundation and/or its affiliates]
+ * Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
  */
 
 package com.sun.ejb.containers.interceptors;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.security.AccessController;
+import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -847,9 +853,19 @@ class AroundInvokeChainImpl
 
 
 class AroundInvokeInterceptor {
+
+    private static final MethodType INTERCEPTOR_TYPE =
+            MethodType.methodType(Object.class, Object.class, InvocationContext.class);
+
     protected int index;
     protected Method method;
 
+    /**
+     * The interceptor method, taking the instance to invoke it on and the
+     * invocation context, looked up once when the chain is built.
+     */
+    protected MethodHandle handle;
+
     AroundInvokeInterceptor(int index, Method method) {
         this.index = index;
         this.method = method;
@@ -869,6 +885,12 @@ class AroundInvokeInterceptor {
                 };
                 AccessController.doPrivileged(action);
             }
+
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+            }
+            handle = methodHandle.asType(INTERCEPTOR_TYPE);
         } catch(Exception e) {
             throw new EJBException(e);
         }
@@ -876,25 +898,33 @@ class AroundInvokeInterceptor {
     }
 
     Object intercept(final InterceptorManager.AroundInvokeContext invCtx) throws Throwable {
-        try {
-            final Object[] interceptors = invCtx.getInterceptorInstances();
+        return invoke(invCtx.getInterceptorInstances()[index], invCtx);
+    }
 
-            if( System.getSecurityManager() != null ) {
-            // Wrap actual value insertion in doPrivileged to
-            // allow for private/protected field access.
-                PrivilegedExceptionAction<Object> action = () -> method.invoke(interceptors[index], invCtx);
+    /**
+     * Invokes the interceptor method on the given instance, throwing any
+     * exception from it as is.
+     */
+    protected Object invoke(final Object instance, final InvocationContext invCtx) throws Throwable {
+        if( System.getSecurityManager() != null ) {
+            // Keep running the interceptor privileged, as when it was
+            // invoked reflectively for private/protected access.
+            PrivilegedExceptionAction<Object> action = () -> {
+                try {
+                    return (Object) handle.invokeExact(instance, invCtx);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new UndeclaredThrowableException(t);
+                }
+            };
+            try {
                 return AccessController.doPrivileged(action);
+            } catch (PrivilegedActionException paEx) {
+                throw paEx.getCause();
             }
-            return method.invoke(interceptors[index], invCtx);
-        } catch (java.lang.reflect.InvocationTargetException invEx) {
-            throw invEx.getCause();
-        } catch (java.security.PrivilegedActionException paEx) {
-            Throwable th = paEx.getCause();
-            if (th.getCause() != null) {
-                throw th.getCause();
-            }
-            throw th;
         }
+        return (Object) handle.invokeExact(instance, invCtx);
     }
 
     @Override
@@ -913,23 +943,7 @@ class BeanAroundInvokeInterceptor
 
     @Override
     Object intercept(final InterceptorManager.AroundInvokeContext invCtx) throws Throwable {
-        try {
-            if( System.getSecurityManager() != null ) {
-                // Wrap actual value insertion in doPrivileged to
-                // allow for private/protected field access.
-                PrivilegedExceptionAction<Object> action = () -> method.invoke(invCtx.getTarget(), invCtx);
-                return AccessController.doPrivileged(action);
-            }
-            return method.invoke(invCtx.getTarget(), invCtx);
-        } catch (java.lang.reflect.InvocationTargetException invEx) {
-            throw invEx.getCause();
-        } catch (java.security.PrivilegedActionException paEx) {
-            Throwable th = paEx.getCause();
-            if (th.getCause() != null) {
-                throw th.getCause();
-            }
-            throw th;
-        }
+        return invoke(invCtx.getTarget(), invCtx);
     }
 }
 
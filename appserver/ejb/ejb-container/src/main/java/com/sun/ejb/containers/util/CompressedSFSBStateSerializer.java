@@ -0,0 +1,104 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers.util;
+
+import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Java serialization followed by a fast deflate pass. Session state is
+ * dominated by repeated class descriptors and field names, which compress
+ * well, so this trades a little CPU for noticeably smaller writes to the
+ * backing store.
+ * <p>
+ * Compressed data is prefixed with a two byte marker. Data without the
+ * marker (a plain Java serialization stream always starts with
+ * {@code 0xACED}) is read as written by {@link JavaSFSBStateSerializer}.
+ */
+public class CompressedSFSBStateSerializer extends JavaSFSBStateSerializer {
+
+    public static final String NAME = "compressed";
+
+    static final byte MAGIC_0 = 'P';
+    static final byte MAGIC_1 = 'Z';
+
+    @Override
+    public byte[] serialize(Object state, JavaEEIOUtils ioUtils) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(MAGIC_0);
+        bos.write(MAGIC_1);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ObjectOutputStream oos = ioUtils.createObjectOutputStream(
+                new DeflaterOutputStream(bos, deflater), true)) {
+            oos.writeObject(state);
+        } finally {
+            deflater.end();
+        }
+        return bos.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data, JavaEEIOUtils ioUtils, ClassLoader loader, long uniqueId)
+            throws Exception {
+        if (!isCompressed(data)) {
+            return super.deserialize(data, ioUtils, loader, uniqueId);
+        }
+        Inflater inflater = new Inflater();
+        try (ObjectInputStream ois = ioUtils.createObjectInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(data, 2, data.length - 2), inflater), true, loader, uniqueId)) {
+            return ois.readObject();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static boolean isCompressed(byte[] data) {
+        return data != null && data.length > 2 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+}
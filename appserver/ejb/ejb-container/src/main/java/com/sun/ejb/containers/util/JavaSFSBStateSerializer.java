@@ -1,23 +1,23 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2010 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
  * and Distribution License("CDDL") (collectively, the "License").  You
  * may not use this file except in compliance with the License.  You can
  * obtain a copy of the License at
- * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
- * or packager/legal/LICENSE.txt.  See the License for the specific
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
  * language governing permissions and limitations under the License.
  *
  * When distributing the software, include this License Header Notice in each
- * file and include the License file at packager/legal/LICENSE.txt.
+ * file and include the License file at glassfish/legal/LICENSE.txt.
  *
  * GPL Classpath Exception:
- * Oracle designates this particular file as subject to the "Classpath"
- * exception as provided by Oracle in the GPL Version 2 section of the License
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
  * file that accompanied this code.
  *
  * Modifications:
@@ -38,31 +38,28 @@
  * holder.
  */
 
-package com.sun.gjc.util;
+package com.sun.ejb.containers.util;
 
-import java.util.TimerTask;
+import com.sun.ejb.spi.container.SFSBStateSerializer;
+import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
+import java.io.IOException;
 
 /**
- * Sql Tracing Timer task used to preform a purgeEntries of the cache of objects
- * maintained by the sql tracing mechanism.
- *
- * @author Shalini M
+ * The default {@link SFSBStateSerializer}: plain Java serialization through
+ * the container's {@link JavaEEIOUtils} object streams.
  */
-public class SQLTraceTimerTask extends TimerTask {
+public class JavaSFSBStateSerializer implements SFSBStateSerializer {
 
-    private SQLTraceCache cache;
+    public static final String NAME = "java";
 
-    SQLTraceTimerTask(SQLTraceCache cache) {
-        this.cache = cache;
+    @Override
+    public byte[] serialize(Object state, JavaEEIOUtils ioUtils) throws IOException {
+        return ioUtils.serializeObject(state, true);
     }
 
-    /**
-     * Sql Tracing timer task to clean up the sql trace cache
-     */
     @Override
-    public void run() {
-        //Redirecting the purge operation of the cache to the cache factory
-        cache.purgeEntries();
+    public Object deserialize(byte[] data, JavaEEIOUtils ioUtils, ClassLoader loader, long uniqueId)
+            throws Exception {
+        return ioUtils.deserializeObject(data, true, loader, uniqueId);
     }
-
 }
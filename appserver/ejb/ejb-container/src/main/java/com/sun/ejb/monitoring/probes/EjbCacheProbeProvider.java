@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.monitoring.probes;
 
@@ -60,6 +61,15 @@ public class EjbCacheProbeProvider {
             @ProbeParam("ejbName") String ejbName,
             @ProbeParam("success") boolean success) {}
 
+    @Probe(name="beanPassivationCompletedEvent")
+    public void ejbBeanPassivationCompletedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName,
+            @ProbeParam("durationMillis") long durationMillis,
+            @ProbeParam("size") long size) {}
+
 
     @Probe(name="expiredSessionsRemovedEvent")
     public void ejbExpiredSessionsRemovedEvent(
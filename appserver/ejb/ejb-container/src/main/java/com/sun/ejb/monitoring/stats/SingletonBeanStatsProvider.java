@@ -37,9 +37,14 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.monitoring.stats;
 
+import com.sun.ejb.containers.CMCSingletonContainer;
+
+import org.glassfish.external.statistics.*;
+import org.glassfish.external.statistics.impl.*;
 import org.glassfish.gmbal.*;
 
 /**
@@ -51,8 +56,70 @@ import org.glassfish.gmbal.*;
 @ManagedObject
 public class SingletonBeanStatsProvider extends EjbMonitoringStatsProvider {
 
+    // Only set for singletons with container managed concurrency
+    private final CMCSingletonContainer delegate;
+
+    private final CountStatisticImpl lockWaitCount = new CountStatisticImpl("LockWaitCount", "count",
+            "Number of times a caller had to wait for the container managed concurrency lock");
+
+    private final CountStatisticImpl lockWaitTime = new CountStatisticImpl("LockWaitTime", "milliseconds",
+            "Total time callers spent waiting for the container managed concurrency lock");
+
+    private final RangeStatisticImpl lockQueueLength;
+
+    private final StringStatisticImpl writeLockHolders = new StringStatisticImpl("WriteLockHolders", "List",
+            "Business methods holding the write lock longest, with their maximum and total hold times");
+
     public SingletonBeanStatsProvider(long beanId, String appName,
             String moduleName, String beanName) {
+        this(null, beanId, appName, moduleName, beanName);
+    }
+
+    public SingletonBeanStatsProvider(CMCSingletonContainer delegate, long beanId,
+            String appName, String moduleName, String beanName) {
         super(beanId, appName, moduleName, beanName);
+        this.delegate = delegate;
+
+        long now = System.currentTimeMillis();
+        lockQueueLength = new RangeStatisticImpl(
+            0, 0, 0,
+            "LockQueueLength", "count", "Number of callers waiting for the container managed concurrency lock",
+            now, now);
+    }
+
+    @ManagedAttribute(id="lockwaitcount")
+    @Description( "Number of times a caller had to wait for the container managed concurrency lock")
+    public CountStatistic getLockWaitCount() {
+        if (delegate != null) {
+            lockWaitCount.setCount(delegate.getLockWaitCount());
+        }
+        return lockWaitCount;
+    }
+
+    @ManagedAttribute(id="lockwaittime")
+    @Description( "Total time callers spent waiting for the container managed concurrency lock")
+    public CountStatistic getLockWaitTime() {
+        if (delegate != null) {
+            lockWaitTime.setCount(delegate.getLockWaitTimeMillis());
+        }
+        return lockWaitTime;
+    }
+
+    @ManagedAttribute(id="lockqueuelength")
+    @Description( "Number of callers waiting for the container managed concurrency lock")
+    public RangeStatistic getLockQueueLength() {
+        if (delegate != null) {
+            lockQueueLength.setCurrent(delegate.getLockQueueLength());
+        }
+        return lockQueueLength;
+    }
+
+    @ManagedAttribute(id="writelockholders")
+    @Description( "Business methods holding the write lock longest")
+    public StringStatistic getWriteLockHolders() {
+        if (delegate != null) {
+            writeLockHolders.setCurrent(delegate.getLongestWriteLockHolders());
+        }
+        return writeLockHolders;
     }
 }
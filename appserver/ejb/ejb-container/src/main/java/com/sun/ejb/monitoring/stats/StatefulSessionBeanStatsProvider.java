@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016] [Payara Foundation]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.monitoring.stats;
 
@@ -60,9 +60,13 @@ public class StatefulSessionBeanStatsProvider extends EjbMonitoringStatsProvider
 
     private BoundedRangeStatisticImpl methodReadyStat = null;
     private BoundedRangeStatisticImpl passiveCount = null;
+    private TimeStatisticImpl passivationTimeStat = null;
+    private RangeStatisticImpl passivatedBeanSizeStat = null;
 
     private final AtomicLong methodReadyCount = new AtomicLong();
     private final AtomicLong passivations = new AtomicLong();
+    private final AtomicLong sizedPassivations = new AtomicLong();
+    private final AtomicLong passivatedBytes = new AtomicLong();
 
     public StatefulSessionBeanStatsProvider(StatefulSessionContainer delegate,
             long beanId, String appName, String moduleName, String beanName) {
@@ -80,6 +84,16 @@ public class StatefulSessionBeanStatsProvider extends EjbMonitoringStatsProvider
             0, 0, 0, Long.MAX_VALUE, 0,
             "PassiveCount", "count", "Number of stateful session beans in Passive state",
             now, now);
+
+        passivationTimeStat = new TimeStatisticImpl(
+            0, 0, 0, 0,
+            "PassivationTime", "ms", "Time taken to serialize and store a passivated stateful session bean",
+            now, now);
+
+        passivatedBeanSizeStat = new RangeStatisticImpl(
+            0, 0, 0,
+            "PassivatedBeanSize", "bytes", "Average serialized size of a passivated stateful session bean",
+            now, now);
     }
 
     @ManagedAttribute(id="methodreadycount")
@@ -96,6 +110,22 @@ public class StatefulSessionBeanStatsProvider extends EjbMonitoringStatsProvider
         return passiveCount;
     }
 
+    @ManagedAttribute(id="passivationtime")
+    @Description( "Time taken to serialize and store a passivated stateful session bean")
+    public TimeStatistic getPassivationTime() {
+        return passivationTimeStat;
+    }
+
+    @ManagedAttribute(id="passivatedbeansize")
+    @Description( "Average serialized size in bytes of a passivated stateful session bean")
+    public RangeStatistic getPassivatedBeanSize() {
+        long count = sizedPassivations.get();
+        if (count > 0) {
+            passivatedBeanSizeStat.setCurrent(passivatedBytes.get() / count);
+        }
+        return passivatedBeanSizeStat;
+    }
+
     @ProbeListener("glassfish:ejb:bean:methodReadyAddEvent")
     public void methodReadyAddEvent(
             @ProbeParam("beanId") long beanId,
@@ -133,6 +163,26 @@ public class StatefulSessionBeanStatsProvider extends EjbMonitoringStatsProvider
         }
     }
 
+    @ProbeListener("glassfish:ejb:cache:beanPassivationCompletedEvent")
+    public void ejbBeanPassivationCompletedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName,
+            @ProbeParam("durationMillis") long durationMillis,
+            @ProbeParam("size") long size) {
+        if (this.beanId == beanId) {
+            log("beanPassivationCompletedEvent", "StatefulSessionBeanStatsProvider");
+            synchronized (passivationTimeStat) {
+                passivationTimeStat.incrementCount(durationMillis);
+            }
+            if (size > 0) {
+                passivatedBytes.addAndGet(size);
+                sizedPassivations.incrementAndGet();
+            }
+        }
+    }
+
     @ProbeListener("glassfish:ejb:cache:expiredSessionsRemovedEvent")
     public void ejbExpiredSessionsRemovedEvent(
             @ProbeParam("beanId") long beanId,
@@ -0,0 +1,79 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.spi.container;
+
+import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
+import java.io.IOException;
+
+/**
+ * Converts the state of a stateful session bean to and from the bytes
+ * written to the passivation / replication store.
+ * <p>
+ * Implementations must be able to read back data written by the default
+ * Java serialization format, so that switching serializers does not make
+ * previously passivated sessions unreadable.
+ */
+public interface SFSBStateSerializer {
+
+    /**
+     * Serializes the given bean state.
+     *
+     * @param state the session context to serialize
+     * @param ioUtils used to create the object streams that replace
+     *        container managed references
+     * @return the serialized bytes
+     * @throws IOException if the state could not be serialized
+     */
+    byte[] serialize(Object state, JavaEEIOUtils ioUtils) throws IOException;
+
+    /**
+     * Restores bean state previously written by {@link #serialize}.
+     *
+     * @param data the serialized bytes
+     * @param ioUtils used to create the object streams that resolve
+     *        container managed references
+     * @param loader the application class loader
+     * @param uniqueId the unique id of the application
+     * @return the deserialized object
+     * @throws Exception if the state could not be read
+     */
+    Object deserialize(byte[] data, JavaEEIOUtils ioUtils, ClassLoader loader, long uniqueId) throws Exception;
+}
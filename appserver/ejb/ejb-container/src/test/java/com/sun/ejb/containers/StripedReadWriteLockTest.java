@@ -0,0 +1,127 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import org.junit.Test;
+
+public class StripedReadWriteLockTest {
+
+    @Test
+    public void roundsStripeCountToPowerOfTwo() {
+        assertEquals(1, new StripedReadWriteLock(1).getStripeCount());
+        assertEquals(8, new StripedReadWriteLock(5).getStripeCount());
+        assertEquals(8, new StripedReadWriteLock(8).getStripeCount());
+    }
+
+    @Test
+    public void readAndWriteLocksAreReentrant() {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+
+        lock.writeLock().lock();
+        lock.readLock().lock();
+        lock.writeLock().lock();
+        assertTrue(lock.isWriteLockedByCurrentThread());
+        assertEquals(1, lock.getReadHoldCount());
+        lock.writeLock().unlock();
+        lock.readLock().unlock();
+        lock.writeLock().unlock();
+        assertFalse(lock.isWriteLockedByCurrentThread());
+
+        lock.readLock().lock();
+        lock.readLock().lock();
+        assertEquals(2, lock.getReadHoldCount());
+        lock.readLock().unlock();
+        lock.readLock().unlock();
+        assertEquals(0, lock.getReadHoldCount());
+        assertTrue(lock.writeLock().tryLock());
+        lock.writeLock().unlock();
+    }
+
+    @Test
+    public void writerExcludesReadersOnEveryStripe() throws Exception {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < 8; i++) {
+                assertFalse(CompletableFuture.supplyAsync(() -> tryLock(lock, false)).get());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        assertTrue(CompletableFuture.supplyAsync(() -> tryLock(lock, false)).get());
+    }
+
+    @Test
+    public void readerBlocksWriterUntilReleased() throws Exception {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+
+        lock.readLock().lock();
+        try {
+            assertFalse(CompletableFuture.supplyAsync(() -> tryLock(lock, true)).get());
+        } finally {
+            lock.readLock().unlock();
+        }
+        assertTrue(CompletableFuture.supplyAsync(() -> tryLock(lock, true)).get());
+        assertEquals(0, lock.getQueueLength());
+    }
+
+    private static boolean tryLock(StripedReadWriteLock lock, boolean write) {
+        Lock theLock = write ? lock.writeLock() : lock.readLock();
+        try {
+            if (theLock.tryLock(50, MILLISECONDS)) {
+                theLock.unlock();
+                return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
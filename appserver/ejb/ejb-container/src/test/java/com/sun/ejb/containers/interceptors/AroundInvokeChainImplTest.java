@@ -0,0 +1,118 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import jakarta.interceptor.InvocationContext;
+import org.junit.Test;
+
+public class AroundInvokeChainImplTest {
+
+    @Test
+    public void invokesInterceptorsAndBeanMethodInOrder() throws Throwable {
+        AroundInvokeChainImpl chain = new AroundInvokeChainImpl(new AroundInvokeInterceptor[] {
+            new AroundInvokeInterceptor(0, FirstInterceptor.class.getDeclaredMethod("intercept", InvocationContext.class)),
+            new AroundInvokeInterceptor(1, SecondInterceptor.class.getDeclaredMethod("intercept", InvocationContext.class)),
+            new BeanAroundInvokeInterceptor(Bean.class.getDeclaredMethod("aroundInvoke", InvocationContext.class))
+        });
+
+        assertEquals("first(second(bean(hello world)))", invoke(chain, new Object[] {
+            new FirstInterceptor(), new SecondInterceptor()
+        }));
+    }
+
+    @Test
+    public void throwsInterceptorExceptionAsIs() throws Throwable {
+        AroundInvokeChainImpl chain = new AroundInvokeChainImpl(new AroundInvokeInterceptor[] {
+            new AroundInvokeInterceptor(0, FirstInterceptor.class.getDeclaredMethod("intercept", InvocationContext.class)),
+            new AroundInvokeInterceptor(1, FailingInterceptor.class.getDeclaredMethod("intercept", InvocationContext.class))
+        });
+
+        try {
+            invoke(chain, new Object[] { new FirstInterceptor(), new FailingInterceptor() });
+            fail("The interceptor exception should be thrown");
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    private static Object invoke(AroundInvokeChainImpl chain, Object[] interceptorInstances) throws Throwable {
+        Method method = Bean.class.getMethod("hello", String.class);
+        AroundInvokeInvocationContext context = new AroundInvokeInvocationContext(
+                new Bean(), interceptorInstances, chain, method, new Object[] { "world" });
+        return chain.invokeNext(0, context);
+    }
+
+    public static class Bean {
+
+        public String hello(String name) {
+            return "hello " + name;
+        }
+
+        private Object aroundInvoke(InvocationContext context) throws Exception {
+            return "bean(" + context.proceed() + ")";
+        }
+    }
+
+    public static class FirstInterceptor {
+
+        private Object intercept(InvocationContext context) throws Exception {
+            return "first(" + context.proceed() + ")";
+        }
+    }
+
+    public static class SecondInterceptor {
+
+        protected Object intercept(InvocationContext context) throws Exception {
+            return "second(" + context.proceed() + ")";
+        }
+    }
+
+    public static class FailingInterceptor {
+
+        Object intercept(InvocationContext context) throws Exception {
+            throw new IOException("failed");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.enterprise.container.common.spi.util.GlassFishInputStreamHandler;
+import com.sun.enterprise.container.common.spi.util.GlassFishOutputStreamHandler;
+import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import org.junit.Test;
+
+public class CompressedSFSBStateSerializerTest {
+
+    private final JavaEEIOUtils ioUtils = new PlainIOUtils();
+
+    @Test
+    public void roundTripsCompressedState() throws Exception {
+        CompressedSFSBStateSerializer serializer = new CompressedSFSBStateSerializer();
+        ArrayList<String> state = state();
+
+        byte[] data = serializer.serialize(state, ioUtils);
+
+        assertTrue(CompressedSFSBStateSerializer.isCompressed(data));
+        assertTrue(data.length < ioUtils.serializeObject(state, true).length);
+        assertEquals(state, serializer.deserialize(data, ioUtils, getClass().getClassLoader(), 0L));
+    }
+
+    @Test
+    public void readsStateWrittenWithJavaSerialization() throws Exception {
+        ArrayList<String> state = state();
+        byte[] data = new JavaSFSBStateSerializer().serialize(state, ioUtils);
+
+        assertEquals(state, new CompressedSFSBStateSerializer()
+                .deserialize(data, ioUtils, getClass().getClassLoader(), 0L));
+    }
+
+    private static ArrayList<String> state() {
+        ArrayList<String> state = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            state.add("shopping-cart-item-" + i);
+        }
+        return state;
+    }
+
+    private static class PlainIOUtils implements JavaEEIOUtils {
+
+        @Override
+        public ObjectInputStream createObjectInputStream(InputStream is, boolean resolveObject,
+                ClassLoader loader, long uniqueId) throws Exception {
+            return new ObjectInputStream(is);
+        }
+
+        @Override
+        public ObjectOutputStream createObjectOutputStream(OutputStream os, boolean replaceObject)
+                throws IOException {
+            return new ObjectOutputStream(os);
+        }
+
+        @Override
+        public byte[] serializeObject(Object obj, boolean replaceObject) throws IOException {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = createObjectOutputStream(bos, replaceObject)) {
+                oos.writeObject(obj);
+            }
+            return bos.toByteArray();
+        }
+
+        @Override
+        public Object deserializeObject(byte[] data, boolean resolveObject, ClassLoader appClassLoader)
+                throws Exception {
+            return deserializeObject(data, resolveObject, appClassLoader, 0L);
+        }
+
+        @Override
+        public Object deserializeObject(byte[] data, boolean resolveObject, ClassLoader appClassLoader,
+                long uniqueId) throws Exception {
+            try (ObjectInputStream ois = createObjectInputStream(
+                    new ByteArrayInputStream(data), resolveObject, appClassLoader, uniqueId)) {
+                return ois.readObject();
+            }
+        }
+
+        @Override
+        public void addGlassFishOutputStreamHandler(GlassFishOutputStreamHandler handler) {
+        }
+
+        @Override
+        public void removeGlassFishOutputStreamHandler(GlassFishOutputStreamHandler handler) {
+        }
+
+        @Override
+        public void addGlassFishInputStreamHandler(GlassFishInputStreamHandler handler) {
+        }
+
+        @Override
+        public void removeGlassFishInputStreamHandler(GlassFishInputStreamHandler handler) {
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -43,26 +43,59 @@ import fish.payara.nucleus.store.ClusteredStore;
 import org.glassfish.ha.store.api.BackingStore;
 import org.glassfish.ha.store.api.BackingStoreException;
 import org.glassfish.ha.store.api.BackingStoreFactory;
+import org.glassfish.web.ha.session.management.CompositeMetadata;
+import org.glassfish.web.ha.session.management.SessionAttributeMetadata;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * Stores values in a Hazelcast map of the store name.
+ * <p>
+ * {@link CompositeMetadata} deltas of sessions replicated by changed attributes are kept apart: the session and each
+ * attribute state are entries of a second map, so that a save only sends the changed attributes and the small
+ * metadata with the names of all attributes. Loading the metadata gathers the states again. The second map shares
+ * the configuration of the store map, and its entries are removed with the session also when the session entry
+ * expires or is evicted. That clean up is only set up for stores configured to receive such deltas.
  *
  * @author steve
  */
 public class HazelcastBackingStore<K extends Serializable, V extends Serializable>
         extends BackingStore<K, V> {
 
+    /**
+     * Separates the session id and the attribute name in the keys of the attribute states.
+     */
+    private static final char ATTRIBUTE_KEY_SEPARATOR = '\n';
+    private static final String DELTA_STORE_SUFFIX = "-attributes";
+
     private final BackingStoreFactory factory;
     private final String storeName;
+    private final String deltaStoreName;
+    private final boolean deltaAttribute;
     private String instanceName;
     private ClusteredStore clusteredStore;
 
     public HazelcastBackingStore(BackingStoreFactory factory, String storeName, ClusteredStore clusteredStore) {
+        this(factory, storeName, clusteredStore, false);
+    }
+
+    /**
+     * @param deltaAttribute true if the store receives {@link CompositeMetadata} deltas, so that the attribute states
+     * of expired or evicted sessions have to be removed as well
+     */
+    public HazelcastBackingStore(BackingStoreFactory factory, String storeName, ClusteredStore clusteredStore,
+            boolean deltaAttribute) {
         this.factory = factory;
         this.storeName = storeName;
+        this.deltaStoreName = storeName + DELTA_STORE_SUFFIX;
+        this.deltaAttribute = deltaAttribute;
         this.clusteredStore = clusteredStore;
     }
 
@@ -75,7 +108,11 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
     public V load(K k, String string) throws BackingStoreException {
         init();
         try {
-            return (V) clusteredStore.get(storeName, k);
+            V value = (V) clusteredStore.get(storeName, k);
+            if (isDelta(value)) {
+                loadStates(k, (CompositeMetadata) value);
+            }
+            return value;
         } catch (ClassCastException cce) {
             Logger.getLogger(HazelcastBackingStore.class.getName()).log(Level.WARNING,
                     "ClassCastException when reading value from store", cce);
@@ -86,15 +123,19 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
     @Override
     public String save(K k, V v, boolean bln) throws BackingStoreException {
         init();
-        clusteredStore.set(storeName, k, v);
-        
+        if (isDelta(v)) {
+            saveDelta(k, (CompositeMetadata) v);
+        } else {
+            clusteredStore.set(storeName, k, v);
+        }
+
         return instanceName;
     }
 
     @Override
     public void remove(K k) throws BackingStoreException {
         init();
-        clusteredStore.remove(storeName, k);
+        removeStates(clusteredStore, deltaStoreName, k, clusteredStore.getAndRemove(storeName, k));
     }
 
     @Override
@@ -103,6 +144,84 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
         return clusteredStore.getMap(storeName).size();
     }
 
+    private static boolean isDelta(Object value) {
+        return value instanceof CompositeMetadata && ((CompositeMetadata) value).getAttributeNames() != null;
+    }
+
+    private void saveDelta(K k, CompositeMetadata delta) {
+        Map<Serializable, Serializable> updated = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        if (delta.getState() != null) {
+            // the session state holds all attributes, states of an earlier save would be outdated
+            Serializable previous = clusteredStore.get(storeName, k);
+            if (isDelta(previous)) {
+                for (String attributeName : ((CompositeMetadata) previous).getAttributeNames()) {
+                    removed.add(attributeKey(k, attributeName));
+                }
+            }
+            updated.put(k, delta.getState());
+        }
+        for (SessionAttributeMetadata entry : delta.getModifiedEntries()) {
+            String key = attributeKey(k, entry.getAttributeName());
+            if (entry.getOperation() == SessionAttributeMetadata.Operation.DELETE) {
+                removed.add(key);
+            } else {
+                removed.remove(key);
+                updated.put(key, entry.getState());
+            }
+        }
+        if (!removed.isEmpty()) {
+            clusteredStore.removeAll(deltaStoreName, removed);
+        }
+        if (!updated.isEmpty()) {
+            clusteredStore.setAll(deltaStoreName, updated);
+        }
+        CompositeMetadata metadata = new CompositeMetadata(delta.getVersion(), delta._storeable_getLastAccessTime(),
+                delta._storeable_getMaxIdleTime(), Collections.<SessionAttributeMetadata>emptyList(), null,
+                delta.getStringExtraParam());
+        metadata.setAttributeNames(delta.getAttributeNames());
+        clusteredStore.set(storeName, k, metadata);
+    }
+
+    private void loadStates(K k, CompositeMetadata metadata) {
+        Set<Serializable> keys = new HashSet<>();
+        keys.add(k);
+        for (String attributeName : metadata.getAttributeNames()) {
+            keys.add(attributeKey(k, attributeName));
+        }
+        Map<Serializable, Serializable> states = clusteredStore.getAll(deltaStoreName, keys);
+        metadata.setState((byte[]) states.get(k));
+        for (String attributeName : metadata.getAttributeNames()) {
+            byte[] state = (byte[]) states.get(attributeKey(k, attributeName));
+            if (state != null) {
+                metadata.putEntry(new SessionAttributeMetadata(attributeName,
+                        SessionAttributeMetadata.Operation.UPDATE, state));
+            }
+        }
+    }
+
+    /**
+     * Removes the session and attribute states kept for a removed, expired or evicted value of the store.
+     * <p>
+     * This is static so that the clean up registered with the clustered store does not hold on to a backing store.
+     */
+    private static void removeStates(ClusteredStore clusteredStore, String deltaStoreName, Object k,
+            Serializable removedValue) {
+        if (!isDelta(removedValue)) {
+            return;
+        }
+        Set<Serializable> keys = new HashSet<>();
+        keys.add((Serializable) k);
+        for (String attributeName : ((CompositeMetadata) removedValue).getAttributeNames()) {
+            keys.add(attributeKey(k, attributeName));
+        }
+        clusteredStore.removeAll(deltaStoreName, keys);
+    }
+
+    private static String attributeKey(Object k, String attributeName) {
+        return String.valueOf(k) + ATTRIBUTE_KEY_SEPARATOR + attributeName;
+    }
+
     private void init() throws BackingStoreException {
         if(instanceName != null) {
             return;
@@ -113,6 +232,12 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
         if (!clusteredStore.isEnabled()) {
             throw new BackingStoreException("Hazelcast is not enabled, please enable Hazelcast");
         }
+        if (deltaAttribute) {
+            ClusteredStore store = clusteredStore;
+            String companionStoreName = deltaStoreName;
+            store.addCompanionStore(storeName, companionStoreName,
+                    (key, value) -> removeStates(store, companionStoreName, key, value));
+        }
         instanceName = clusteredStore.getInstanceId().toString();
     }
 }
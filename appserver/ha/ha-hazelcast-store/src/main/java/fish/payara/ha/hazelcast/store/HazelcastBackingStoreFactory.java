@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -48,6 +48,7 @@ import org.glassfish.ha.store.api.BackingStoreConfiguration;
 import org.glassfish.ha.store.api.BackingStoreException;
 import org.glassfish.ha.store.api.BackingStoreFactory;
 import org.glassfish.ha.store.api.BackingStoreTransaction;
+import org.glassfish.web.ha.session.management.ReplicationDeltaAttributeStore;
 import org.jvnet.hk2.annotations.Service;
 
 /**
@@ -64,7 +65,9 @@ public class HazelcastBackingStoreFactory implements BackingStoreFactory {
 
     @Override
     public <K extends Serializable, V extends Serializable> BackingStore<K, V> createBackingStore(BackingStoreConfiguration<K, V> bsc) throws BackingStoreException {
-        return new HazelcastBackingStore<>(this, bsc.getStoreName(), clusteredStore);
+        boolean deltaAttribute = Boolean.TRUE.equals(
+                bsc.getVendorSpecificSettings().get(ReplicationDeltaAttributeStore.DELTA_ATTRIBUTE_SETTING));
+        return new HazelcastBackingStore<>(this, bsc.getStoreName(), clusteredStore, deltaAttribute);
     }
 
     @Override
@@ -0,0 +1,334 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ha.hazelcast.store;
+
+import fish.payara.nucleus.store.ClusteredStore;
+import org.glassfish.web.ha.session.management.CompositeMetadata;
+import org.glassfish.web.ha.session.management.SessionAttributeMetadata;
+import org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests how {@link HazelcastBackingStore} keeps the session and attribute states of {@link CompositeMetadata} deltas
+ * apart from the metadata.
+ */
+public class HazelcastBackingStoreTest {
+
+    private static final String STORE = "sessions";
+    private static final String ATTRIBUTES = STORE + "-attributes";
+    private static final String SESSION = "session-1";
+
+    private MapClusteredStore clusteredStore;
+    private HazelcastBackingStore<String, CompositeMetadata> store;
+
+    @Before
+    public void createStore() {
+        clusteredStore = new MapClusteredStore();
+        store = new HazelcastBackingStore<>(null, STORE, clusteredStore, true);
+    }
+
+    @Test
+    public void fullSaveKeepsOnlyTheMetadataInTheStore() throws Exception {
+        store.save(SESSION, delta(1, state("full"), names("a", "b")), true);
+
+        CompositeMetadata stored = (CompositeMetadata) clusteredStore.get(STORE, SESSION);
+        assertNull(stored.getState());
+        assertTrue(stored.getModifiedEntries().isEmpty());
+        assertEquals(names("a", "b"), stored.getAttributeNames());
+        assertArrayEquals(state("full"), (byte[]) clusteredStore.get(ATTRIBUTES, SESSION));
+    }
+
+    @Test
+    public void loadGathersTheStates() throws Exception {
+        store.save(SESSION, delta(1, state("full"), names("a", "b")), true);
+        store.save(SESSION, delta(2, null, names("a", "b"),
+                entry("a", Operation.UPDATE, "a2"), entry("b", Operation.ADD, "b1")), true);
+
+        CompositeMetadata loaded = store.load(SESSION, null);
+        assertEquals(2, loaded.getVersion());
+        assertArrayEquals(state("full"), loaded.getState());
+        Map<String, SessionAttributeMetadata> entries = byName(loaded.getEntries());
+        assertEquals(names("a", "b"), entries.keySet());
+        assertArrayEquals(state("a2"), entries.get("a").getState());
+        assertArrayEquals(state("b1"), entries.get("b").getState());
+    }
+
+    @Test
+    public void deletedAttributesAreRemoved() throws Exception {
+        store.save(SESSION, delta(1, state("full"), names("a", "b")), true);
+        store.save(SESSION, delta(2, null, names("a", "b"),
+                entry("a", Operation.ADD, "a1"), entry("b", Operation.ADD, "b1")), true);
+        store.save(SESSION, delta(3, null, names("a"), entry("b", Operation.DELETE, null)), true);
+
+        assertNull(clusteredStore.get(ATTRIBUTES, attributeKey("b")));
+        CompositeMetadata loaded = store.load(SESSION, null);
+        assertEquals(names("a"), loaded.getAttributeNames());
+        assertEquals(names("a"), byName(loaded.getEntries()).keySet());
+    }
+
+    @Test
+    public void fullSaveReplacesEarlierAttributeStates() throws Exception {
+        store.save(SESSION, delta(1, state("full"), names("a")), true);
+        store.save(SESSION, delta(2, null, names("a"), entry("a", Operation.UPDATE, "a1")), true);
+        store.save(SESSION, delta(3, state("full3"), names("a")), true);
+
+        assertNull(clusteredStore.get(ATTRIBUTES, attributeKey("a")));
+        CompositeMetadata loaded = store.load(SESSION, null);
+        assertArrayEquals(state("full3"), loaded.getState());
+        assertTrue(loaded.getEntries().isEmpty());
+    }
+
+    @Test
+    public void removeDeletesTheStates() throws Exception {
+        store.save(SESSION, delta(1, state("full"), names("a")), true);
+        store.save(SESSION, delta(2, null, names("a"), entry("a", Operation.ADD, "a1")), true);
+
+        store.remove(SESSION);
+
+        assertNull(clusteredStore.get(STORE, SESSION));
+        assertTrue(clusteredStore.getMap(ATTRIBUTES).isEmpty());
+    }
+
+    @Test
+    public void otherValuesAreStoredAsIs() throws Exception {
+        HazelcastBackingStore<String, String> plain = new HazelcastBackingStore<>(null, STORE, clusteredStore);
+        plain.save(SESSION, "value", true);
+
+        assertEquals("value", plain.load(SESSION, null));
+        assertTrue(clusteredStore.getMap(ATTRIBUTES).isEmpty());
+        plain.remove(SESSION);
+        assertNull(clusteredStore.get(STORE, SESSION));
+    }
+
+    @Test
+    public void expiredSessionsLoseTheirStates() throws Exception {
+        store.save(SESSION, delta(1, state("full"), names("a")), true);
+        store.save(SESSION, delta(2, null, names("a"), entry("a", Operation.ADD, "a1")), true);
+        store.save("session-2", delta(1, state("other"), names()), true);
+
+        BiConsumer<Serializable, Serializable> cleaner = clusteredStore.companionStores.get(ATTRIBUTES);
+        assertNotNull(cleaner);
+        cleaner.accept(SESSION, clusteredStore.getAndRemove(STORE, SESSION));
+
+        assertNull(clusteredStore.get(ATTRIBUTES, SESSION));
+        assertNull(clusteredStore.get(ATTRIBUTES, attributeKey("a")));
+        assertNotNull(clusteredStore.get(ATTRIBUTES, "session-2"));
+    }
+
+    @Test
+    public void cleanerIgnoresOtherValues() throws Exception {
+        store.save(SESSION, delta(1, state("full"), names()), true);
+
+        clusteredStore.companionStores.get(ATTRIBUTES).accept(SESSION, "value");
+
+        assertNotNull(clusteredStore.get(ATTRIBUTES, SESSION));
+    }
+
+    @Test
+    public void onlyDeltaStoresRegisterTheCleaner() throws Exception {
+        new HazelcastBackingStore<String, String>(null, "plain", clusteredStore).save(SESSION, "value", true);
+        assertFalse(clusteredStore.companionStores.containsKey("plain-attributes"));
+
+        store.save(SESSION, delta(1, state("full"), names()), true);
+        store.save(SESSION, delta(2, state("full"), names()), true);
+        assertEquals(Collections.singleton(ATTRIBUTES), clusteredStore.companionStores.keySet());
+        assertEquals(STORE, clusteredStore.companionOf.get(ATTRIBUTES));
+    }
+
+    private static CompositeMetadata delta(long version, byte[] state, Set<String> attributeNames,
+            SessionAttributeMetadata... entries) {
+        CompositeMetadata delta = new CompositeMetadata(version, 0L, 60_000L, Arrays.asList(entries), state, null);
+        delta.setAttributeNames(attributeNames);
+        return delta;
+    }
+
+    private static SessionAttributeMetadata entry(String name, Operation operation, String value) {
+        return new SessionAttributeMetadata(name, operation, value == null ? null : state(value));
+    }
+
+    private static Map<String, SessionAttributeMetadata> byName(Collection<SessionAttributeMetadata> entries) {
+        Map<String, SessionAttributeMetadata> byName = new HashMap<>();
+        for (SessionAttributeMetadata entry : entries) {
+            byName.put(entry.getAttributeName(), entry);
+        }
+        return byName;
+    }
+
+    private static Set<String> names(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    private static byte[] state(String value) {
+        return value.getBytes();
+    }
+
+    private static String attributeKey(String attributeName) {
+        return SESSION + '\n' + attributeName;
+    }
+
+    /**
+     * Keeps the stores in maps, copying the values like Hazelcast does.
+     */
+    private static class MapClusteredStore extends ClusteredStore {
+
+        private final UUID instanceId = UUID.randomUUID();
+        private final Map<String, Map<Serializable, Serializable>> stores = new HashMap<>();
+        final Map<String, BiConsumer<Serializable, Serializable>> companionStores = new HashMap<>();
+        final Map<String, String> companionOf = new HashMap<>();
+
+        @Override
+        public UUID getInstanceId() {
+            return instanceId;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean set(String storeName, Serializable key, Serializable value) {
+            store(storeName).put(key, copy(value));
+            return true;
+        }
+
+        @Override
+        public boolean remove(String storeName, Serializable key) {
+            return store(storeName).remove(key) != null;
+        }
+
+        @Override
+        public boolean containsKey(String storeName, Serializable key) {
+            return store(storeName).containsKey(key);
+        }
+
+        @Override
+        public Serializable get(String storeName, Serializable key) {
+            return copy(store(storeName).get(key));
+        }
+
+        @Override
+        public Map<Serializable, Serializable> getAll(String storeName, Set<Serializable> keys) {
+            Map<Serializable, Serializable> values = new HashMap<>();
+            for (Serializable key : keys) {
+                Serializable value = get(storeName, key);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public boolean setAll(String storeName, Map<Serializable, Serializable> values) {
+            values.forEach((key, value) -> set(storeName, key, value));
+            return true;
+        }
+
+        @Override
+        public Serializable getAndRemove(String storeName, Serializable key) {
+            return store(storeName).remove(key);
+        }
+
+        @Override
+        public boolean removeAll(String storeName, Set<? extends Serializable> keys) {
+            store(storeName).keySet().removeAll(keys);
+            return true;
+        }
+
+        @Override
+        public Map<Serializable, Serializable> getMap(String storeName) {
+            return new HashMap<>(store(storeName));
+        }
+
+        @Override
+        public void addCompanionStore(String storeName, String companionStoreName,
+                BiConsumer<Serializable, Serializable> onRemoved) {
+            companionStores.putIfAbsent(companionStoreName, onRemoved);
+            companionOf.put(companionStoreName, storeName);
+        }
+
+        private Map<Serializable, Serializable> store(String storeName) {
+            return stores.computeIfAbsent(storeName, name -> new HashMap<>());
+        }
+
+        private static Serializable copy(Serializable value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(value);
+                }
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                    return (Serializable) in.readObject();
+                }
+            } catch (IOException | ClassNotFoundException ex) {
+                throw new UncheckedIOException(new IOException(ex));
+            }
+        }
+    }
+}
@@ -38,15 +38,14 @@
  * holder.
  */
 
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.monitoring;
 
 import com.sun.gjc.util.SQLTrace;
-import fish.payara.jdbc.stats.FrequentSQLTraceCache;
-import fish.payara.jdbc.stats.SlowSqlTrace;
-import fish.payara.jdbc.stats.SlowSqlTraceCache;
+import com.sun.gjc.util.SQLTraceCache;
 import java.util.List;
+import java.util.Objects;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
@@ -84,29 +83,27 @@ public class JdbcStatsProvider {
             "NumStatementCacheMiss", StatisticImpl.UNIT_COUNT,
             "The total number of Statement Cache misses.");
 
+    private CountStatisticImpl numStatementCacheEviction = new CountStatisticImpl(
+            "NumStatementCacheEviction", StatisticImpl.UNIT_COUNT,
+            "The total number of statements evicted from a full Statement Cache.");
+
     private CountStatisticImpl numPotentialStatementLeak = new CountStatisticImpl(
             "NumPotentialStatementLeak", StatisticImpl.UNIT_COUNT,
             "The total number of potential Statement leaks");
 
     private PoolInfo poolInfo;
-    private FrequentSQLTraceCache freqSqlTraceCache;
-    private SlowSqlTraceCache slowSqlTraceCache;
+    private SQLTraceCache sqlTraceCache;
 
     public JdbcStatsProvider(String poolName, String appName, String moduleName, int sqlTraceCacheSize,
             long timeToKeepQueries) {
-        poolInfo = new PoolInfo(poolName, appName, moduleName);
-        if(sqlTraceCacheSize > 0) {
-            this.freqSqlTraceCache = new FrequentSQLTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries);
-            this.slowSqlTraceCache = new SlowSqlTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries);
-        }
+        this(poolName, appName, moduleName, sqlTraceCacheSize, timeToKeepQueries, 10000);
     }
     
     public JdbcStatsProvider(String poolName, String appName, String moduleName, int sqlTraceCacheSize,
             long timeToKeepQueries, int maxStoredEntries) {
         poolInfo = new PoolInfo(poolName, appName, moduleName);
         if(sqlTraceCacheSize > 0) {
-            this.freqSqlTraceCache = new FrequentSQLTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries, maxStoredEntries);
-            this.slowSqlTraceCache = new SlowSqlTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries);
+            this.sqlTraceCache = new SQLTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries, maxStoredEntries);
         }
     }
 
@@ -142,11 +139,27 @@ public class JdbcStatsProvider {
         }
     }
 
+    /**
+     * Whenever a statement is evicted from a full statement cache, increment numStatementCacheEviction count.
+     * @param poolName JdbcConnectionPool that has got a statement cache eviction event.
+     */
+    @ProbeListener(JdbcRAConstants.STATEMENT_CACHE_DOTTED_NAME + JdbcRAConstants.STATEMENT_CACHE_EVICTION)
+    public void statementCacheEvictionEvent(@ProbeParam("poolName") String poolName,
+                                            @ProbeParam("appName") String appName,
+                                            @ProbeParam("moduleName") String moduleName
+                                            ) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)){
+            numStatementCacheEviction.increment();
+        }
+    }
+
     /**
      * Whenever a sql statement that is traced is to be cache for monitoring
-     * purpose, the SQLTrace object is created for the specified sql and
-     * updated in the SQLTraceCache. This is used to update the
-     * frequently used and slowest sql queries.
+     * purpose, its execution is recorded in the SQLTraceCache. This is used
+     * to update the frequently used and slowest sql queries and their
+     * execution time percentiles.
      *
      * @param poolName
      * @param appName
@@ -162,21 +175,11 @@ public class JdbcStatsProvider {
                                    @ProbeParam("sql") String sql,
                                    @ProbeParam("executionTime") long executionTime) {
 
-        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
-        if(this.poolInfo.equals(poolInfo)){
-            if(freqSqlTraceCache != null) {
-                if (sql != null) {
-                    SQLTrace cacheObj = new SQLTrace(sql, 1, System.currentTimeMillis());
-                    freqSqlTraceCache.checkAndUpdateCache(cacheObj);
-                }
-            }
-            
-            // If the slowSqlTraceCache has been initialised, create a new SlowSqlTrace object and add it to or update 
-            // the cache
-            if (slowSqlTraceCache != null && sql != null) {
-                SQLTrace cacheObj = new SlowSqlTrace(sql, 1, System.currentTimeMillis(), executionTime);
-                slowSqlTraceCache.checkAndUpdateCache(cacheObj);
-            }
+        // Called for every traced statement, so compare the names rather than allocating a PoolInfo
+        if (sqlTraceCache != null && sql != null && Objects.equals(this.poolInfo.getName(), poolName)
+                && Objects.equals(this.poolInfo.getApplicationName(), appName)
+                && Objects.equals(this.poolInfo.getModuleName(), moduleName)) {
+            sqlTraceCache.record(sql, executionTime);
         }
     }
 
@@ -207,10 +210,15 @@ public class JdbcStatsProvider {
         return numStatementCacheMiss;
     }
 
+    @ManagedAttribute(id="numstatementcacheeviction")
+    public CountStatistic getNumStatementCacheEviction() {
+        return numStatementCacheEviction;
+    }
+
     @ManagedAttribute(id="frequsedsqlqueries")
     public ListStatistic getfreqUsedSqlQueries() {
-        if (freqSqlTraceCache != null) {
-            List<SQLTrace> sqlTraces = freqSqlTraceCache.getTopQueries();
+        if (sqlTraceCache != null) {
+            List<SQLTrace> sqlTraces = sqlTraceCache.getTopQueries();
             freqUsedSqlQueries = new ListStatisticImpl("frequsedsqlqueries", "List", "Most frequently used sql queries");
 
             for (SQLTrace trace : sqlTraces) {
@@ -229,10 +237,10 @@ public class JdbcStatsProvider {
         slowSqlQueries.reset();
         slowSqlQueries.clear();
         
-        if (slowSqlTraceCache != null) {
+        if (sqlTraceCache != null) {
             //Get slow queries and process them
-            List<SlowSqlTrace> slowTraces = slowSqlTraceCache.getSlowestSqlQueries();
-            for (SlowSqlTrace trace : slowTraces) {
+            List<SQLTrace> slowTraces = sqlTraceCache.getSlowestSqlQueries();
+            for (SQLTrace trace : slowTraces) {
                 CountStatisticImpl stat = new CountStatisticImpl(trace.getQueryName(), StatisticImpl.UNIT_MILLISECOND, "Longest execution time");
                 stat.setCount(trace.getSlowestExecutionTime());
                 slowSqlQueries.add(stat);
@@ -242,24 +250,41 @@ public class JdbcStatsProvider {
         return slowSqlQueries;
     }
 
-    @ManagedAttribute(id="numpotentialstatementleak")
-    public CountStatistic getNumPotentialStatementLeak() {
-        return numPotentialStatementLeak;
+    @ManagedAttribute(id = "sqlqueryexecutiontimep50")
+    public ListStatistic getSqlQueryExecutionTimeP50() {
+        return getSqlQueryExecutionTimes("SqlQueryExecutionTimeP50", 50, "Median execution time");
     }
-    
+
+    @ManagedAttribute(id = "sqlqueryexecutiontimep99")
+    public ListStatistic getSqlQueryExecutionTimeP99() {
+        return getSqlQueryExecutionTimes("SqlQueryExecutionTimeP99", 99, "99th percentile execution time");
+    }
+
     /**
-     * Get the FrequentSQLTraceCache associated with this stats provider.
-     * @return FrequentSQLTraceCache The FrequentSQLTraceCache associated with this stats provider
+     * Lists the execution time percentile of the slowest queries
      */
-    public FrequentSQLTraceCache getFreqSqlTraceCache() {
-        return freqSqlTraceCache;
+    private ListStatistic getSqlQueryExecutionTimes(String name, double percentile, String description) {
+        ListStatisticImpl executionTimes = new ListStatisticImpl(name, "List", description + " of the slowest SQL queries");
+        if (sqlTraceCache != null) {
+            for (SQLTrace trace : sqlTraceCache.getSlowestSqlQueries()) {
+                CountStatisticImpl stat = new CountStatisticImpl(trace.getQueryName(), StatisticImpl.UNIT_MILLISECOND, description);
+                stat.setCount(trace.getExecutionTimePercentile(percentile));
+                executionTimes.add(stat);
+            }
+        }
+        return executionTimes;
+    }
+
+    @ManagedAttribute(id="numpotentialstatementleak")
+    public CountStatistic getNumPotentialStatementLeak() {
+        return numPotentialStatementLeak;
     }
     
     /**
-     * Get the SlowSqlTraceCache associated with this stats provider.
-     * @return SlowSqlTraceCache The SlowSqlTraceCache associated with this stats provider
+     * Get the SQLTraceCache associated with this stats provider.
+     * @return SQLTraceCache The SQLTraceCache associated with this stats provider
      */
-    public SlowSqlTraceCache getSlowSqlTraceCache() {
-        return slowSqlTraceCache;
+    public SQLTraceCache getSqlTraceCache() {
+        return sqlTraceCache;
     }
 }
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright 2016-2022 Payara Foundation and/or its affiliates
+// Portions Copyright 2016-2024 Payara Foundation and/or its affiliates
 package com.sun.gjc.spi;
 
 import com.sun.gjc.common.DataSourceObjectBuilder;
@@ -126,6 +126,13 @@ public abstract class JdbcObjectsFactory implements Serializable {
         InvocationHandler ih = new InvocationHandler() {
 
             public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (!sqlTraceDelegator.listenersRegistered()) {
+                    // only the monitoring statistics are interested, they do not need a record
+                    long startTime = System.currentTimeMillis();
+                    Object methodResult = method.invoke(actualObject, args);
+                    sqlTraceDelegator.traceSQL(method.getName(), args, System.currentTimeMillis() - startTime);
+                    return methodResult;
+                }
                 SQLTraceRecord record = new SQLTraceRecord();
                 record.setMethodName(method.getName());
                 record.setParams(args);
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright 2017-2022 Payara Foundation and/or its affiliates
+// Portions Copyright 2017-2024 Payara Foundation and/or its affiliates
 
 package com.sun.gjc.spi;
 
@@ -46,6 +46,7 @@ import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.common.DataSourceSpec;
 import com.sun.gjc.monitoring.JdbcStatsProvider;
+import com.sun.gjc.spi.base.datastructure.StatementMetaDataCache;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.gjc.util.SQLTraceLogger;
 import com.sun.gjc.util.SecurityUtils;
@@ -109,6 +110,7 @@ public abstract class ManagedConnectionFactoryImpl implements jakarta.resource.s
     private String statementCacheType = null;
     private long statementLeakTimeout = 0;
     private boolean statementLeakReclaim = false;
+    private volatile StatementMetaDataCache statementMetaDataCache;
 
     //Jdbc Stats provider that is created
     private JdbcStatsProvider jdbcStatsProvider = null;
@@ -1130,6 +1132,41 @@ public abstract class ManagedConnectionFactoryImpl implements jakarta.resource.s
         spec.setDetail(DataSourceSpec.MAXCACHESIZE, maxCacheSize);
     }
 
+    public String getStatementMetaDataCacheSize() {
+        return spec.getDetail(DataSourceSpec.STATEMENTMETADATACACHESIZE);
+    }
+
+    public void setStatementMetaDataCacheSize(String value) {
+        spec.setDetail(DataSourceSpec.STATEMENTMETADATACACHESIZE, value);
+        statementMetaDataCache = createStatementMetaDataCache(value);
+    }
+
+    private StatementMetaDataCache createStatementMetaDataCache(String size) {
+        if (size == null || size.equals("null")) {
+            return null;
+        }
+        int maxSize;
+        try {
+            maxSize = Integer.parseInt(size.trim());
+        } catch (NumberFormatException nfe) {
+            _logger.log(Level.WARNING, "jdbc.invalid_statement_metadata_cache_size", size);
+            maxSize = 0;
+        }
+        return maxSize > 0 ? new StatementMetaDataCache(maxSize) : null;
+    }
+
+    /**
+     * Gets the statement metadata cache shared by all connections created by
+     * this factory. The cache is created once, when StatementMetaDataCacheSize
+     * is set, so this is called on every prepare without locking.
+     *
+     * @return the shared cache, or null if StatementMetaDataCacheSize is not
+     * set to a positive value
+     */
+    public StatementMetaDataCache getStatementMetaDataCache() {
+        return statementMetaDataCache;
+    }
+
     public String getNumberOfTopQueriesToReport() {
         return spec.getDetail(DataSourceSpec.NUMBEROFTOPQUERIESTOREPORT);
     }
@@ -1471,11 +1508,8 @@ public abstract class ManagedConnectionFactoryImpl implements jakarta.resource.s
                 //Time-To-Keep-Queries property has been set
                 timeToKeepQueries = Integer.parseInt(getTimeToKeepQueriesInMinutes());
             } else {
-                //Default to 5 minutes after which cache is pruned.
+                //Default to 5 minutes after which unused queries are pruned.
                 timeToKeepQueries = 5;
-                //Time to keep queries is set to 5 minutes because the timer
-                //task will keep running till mcf is destroyed even if
-                //monitoring is turned OFF.
             }
             if (getMaxCacheSize() != null && !getMaxCacheSize().equals("null")){
                 maxCacheSize = Integer.parseInt(getMaxCacheSize());
@@ -1497,23 +1531,6 @@ public abstract class ManagedConnectionFactoryImpl implements jakarta.resource.s
                     "jdbc-connection-pool",
                     PluginPoint.SERVER,
                     poolMonitoringSubTreeRoot, jdbcStatsProvider);
-            if(jdbcStatsProvider.getFreqSqlTraceCache() != null) {
-                if(_logger.isLoggable(Level.FINEST)) {
-                    _logger.finest("Scheduling timer task for frequent sql trace caching");
-                }
-                Timer timer = ((com.sun.gjc.spi.ResourceAdapterImpl) ra).getTimer();
-                jdbcStatsProvider.getFreqSqlTraceCache().scheduleTimerTask(timer);
-            }
-            
-            if (jdbcStatsProvider.getSlowSqlTraceCache() != null) {
-                if (_logger.isLoggable(Level.FINEST)) {
-                    _logger.finest("Scheduling timer task for slow sql trace caching");
-                }
-                
-                Timer timer = ((com.sun.gjc.spi.ResourceAdapterImpl) ra).getTimer();
-                jdbcStatsProvider.getSlowSqlTraceCache().scheduleTimerTask(timer);
-            }
-            
             if(_logger.isLoggable(Level.FINEST)) {
                 _logger.finest("Registered JDBCRA Stats Provider");
             }
@@ -1526,20 +1543,6 @@ public abstract class ManagedConnectionFactoryImpl implements jakarta.resource.s
             _logger.finest("MCF Destroyed");
         }
         if(jdbcStatsProvider != null) {
-            if(jdbcStatsProvider.getFreqSqlTraceCache() != null) {
-                if(_logger.isLoggable(Level.FINEST)) {
-                    _logger.finest("Canceling timer task for frequent sql trace caching");
-                }
-                jdbcStatsProvider.getFreqSqlTraceCache().cancelTimerTask();
-            }
-            
-            if(jdbcStatsProvider.getSlowSqlTraceCache() != null) {
-                if(_logger.isLoggable(Level.FINEST)) {
-                    _logger.finest("Canceling timer task for slow sql trace caching");
-                }
-                jdbcStatsProvider.getSlowSqlTraceCache().cancelTimerTask();
-            }
-            
             StatsProviderManager.unregister(jdbcStatsProvider);
             jdbcStatsProvider = null;
             if(_logger.isLoggable(Level.FINEST)) {
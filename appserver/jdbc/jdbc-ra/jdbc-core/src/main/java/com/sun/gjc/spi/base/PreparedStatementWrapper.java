@@ -37,11 +37,13 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018] Payara Foundation and/or affiliates
+// Portions Copyright [2018-2024] Payara Foundation and/or affiliates
 
 package com.sun.gjc.spi.base;
 
 import com.sun.gjc.common.DataSourceObjectBuilder;
+import com.sun.gjc.spi.ManagedConnectionFactoryImpl;
+import com.sun.gjc.spi.base.datastructure.StatementMetaDataCache;
 import com.sun.gjc.util.ResultSetClosedEventListener;
 
 import java.io.InputStream;
@@ -71,6 +73,8 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
     private int currentFetchDirection;
     private int currentFetchSize;
     private boolean valid = true;
+    private final String sql;
+    private final StatementMetaDataCache metaDataCache;
 
     /**
      * Abstract class for wrapping PreparedStatement <br>
@@ -82,11 +86,33 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
     */
     public PreparedStatementWrapper(Connection con,
                                     PreparedStatement statement, boolean cachingEnabled) throws SQLException {
+        this(con, statement, cachingEnabled, null);
+    }
+
+    /**
+     * Abstract class for wrapping PreparedStatement <br>
+     *
+     * @param con       Connection Wrapper <br>
+     * @param statement PreparedStatement that is to be wrapped.<br>
+     * @param cachingEnabled boolean that enabled/ disables caching <br>
+     * @param sql       SQL the statement was prepared with, used to share its
+     *                  metadata across the connections of the pool <br>
+     * @throws SQLException Exception thrown from underlying statement<br>
+    */
+    public PreparedStatementWrapper(Connection con,
+                                    PreparedStatement statement, boolean cachingEnabled, String sql) throws SQLException {
         super(con, statement);
         preparedStatement = statement;
         cached = cachingEnabled;
+        this.sql = sql;
         ConnectionHolder wrappedCon = (ConnectionHolder) con;
         leakDetector = wrappedCon.getManagedConnection().getLeakDetector();
+        if (sql != null) {
+            metaDataCache = ((ManagedConnectionFactoryImpl) wrappedCon.getManagedConnection().getMcf())
+                    .getStatementMetaDataCache();
+        } else {
+            metaDataCache = null;
+        }
 
         if (cached) {
 
@@ -656,9 +682,28 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      */
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
+        if (metaDataCache != null) {
+            return metaDataCache.getResultSetMetaData(sql, preparedStatement::getMetaData);
+        }
         return preparedStatement.getMetaData();
     }
 
+    /**
+     * Retrieves the metadata of a <code>ResultSet</code> produced by executing
+     * this statement, sharing it with the other connections of the pool when
+     * statement metadata caching is enabled.
+     *
+     * @param rs <code>ResultSet</code> returned by <code>executeQuery</code>
+     * @return the metadata of the result set
+     * @throws SQLException if a database access error occurs
+     */
+    public ResultSetMetaData getResultSetMetaData(ResultSet rs) throws SQLException {
+        if (metaDataCache != null) {
+            return metaDataCache.getResultSetMetaData(sql, rs::getMetaData);
+        }
+        return rs.getMetaData();
+    }
+
     /**
      * Sets the designated parameter to the given <code>java.sql.Date</code> value,
      * using the given <code>Calendar</code> object.  The driver uses
@@ -785,6 +830,9 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      */
     @Override
     public ParameterMetaData getParameterMetaData() throws SQLException {
+        if (metaDataCache != null) {
+            return metaDataCache.getParameterMetaData(sql, preparedStatement::getParameterMetaData);
+        }
         return preparedStatement.getParameterMetaData();
     }
 
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018] Payara Foundation and/or affiliates
+// Portions Copyright [2018-2024] Payara Foundation and/or affiliates
 
 package com.sun.gjc.spi.base;
 
@@ -61,6 +61,7 @@ public abstract class ResultSetWrapper implements ResultSet {
 
     protected ResultSet resultSet = null;
     protected Statement statement = null;
+    private PreparedStatementWrapper metaDataSource;
     private MethodExecutor executor = null;
     protected final static Logger _logger;
     private ResultSetClosedEventListener eventListener = null;
@@ -796,9 +797,22 @@ public abstract class ResultSetWrapper implements ResultSet {
      */
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
+        if (metaDataSource != null) {
+            return metaDataSource.getResultSetMetaData(resultSet);
+        }
         return resultSet.getMetaData();
     }
 
+    /**
+     * Sets the statement whose query produced this result set, so that its
+     * metadata can be shared across the connections of the pool.
+     *
+     * @param metaDataSource statement that executed the query
+     */
+    public void setMetaDataSource(PreparedStatementWrapper metaDataSource) {
+        this.metaDataSource = metaDataSource;
+    }
+
     /**
      * <p>Gets the value of the designated column in the current row
      * of this <code>ResultSet</code> object as
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019-2021] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2024] Payara Foundation and/or affiliates
 
 package com.sun.gjc.spi.base.datastructure;
 
@@ -74,6 +74,9 @@ public class CacheFactory {
         } else if(cacheType.equals("FIXED")) {
             debug("Initializing FIXED Cache Implementation");
             stmtCacheStructure = new FIXEDCacheImpl(poolInfo, maxSize);
+        } else if(cacheType.equals("CONCURRENT_LRU")) {
+            debug("Initializing Concurrent LRU Cache Implementation");
+            stmtCacheStructure = new ConcurrentLRUCacheImpl(poolInfo, maxSize);
         } else { // consider the value of cacheType as a className
             stmtCacheStructure = initCustomCacheStructurePrivileged(cacheType,
                     maxSize);
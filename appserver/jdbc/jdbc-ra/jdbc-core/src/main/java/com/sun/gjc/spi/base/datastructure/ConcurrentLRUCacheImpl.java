@@ -0,0 +1,252 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.monitoring.StatementCacheProbeProvider;
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.PreparedStatementWrapper;
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Statement cache that does not need to be wrapped in a {@link SynchronizedCache}.
+ * <p>
+ * Lookups go to a {@link ConcurrentHashMap} and only mark the entry as referenced. Eviction uses the CLOCK
+ * approximation of LRU: entries are kept in a lock-free queue in insertion order, a referenced entry at the head of the
+ * queue gets its reference cleared and a second chance at the tail, the first unreferenced entry is evicted. This
+ * makes eviction constant time on average instead of walking the whole map.
+ * <p>
+ * Selected with the statement cache type {@code CONCURRENT_LRU}.
+ */
+public class ConcurrentLRUCacheImpl implements Cache {
+
+    protected static final Logger _logger = LogDomains.getLogger(ConcurrentLRUCacheImpl.class, LogDomains.RSR_LOGGER);
+
+    private final Map<CacheObjectKey, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<CacheEntry> clock = new ConcurrentLinkedQueue<>();
+    private final int maxSize;
+    private final PoolInfo poolInfo;
+    private StatementCacheProbeProvider probeProvider = null;
+
+    public ConcurrentLRUCacheImpl(PoolInfo poolInfo, int maxSize) {
+        this.maxSize = maxSize;
+        this.poolInfo = poolInfo;
+        try {
+            probeProvider = new StatementCacheProbeProvider();
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "Unable to create statement cache probe provider", ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object checkAndUpdateCache(CacheObjectKey key) {
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            if (_logger.isLoggable(Level.FINEST)) {
+                _logger.finest("Cache Hit");
+            }
+            if (probeProvider != null) {
+                probeProvider.statementCacheHitEvent(poolInfo.getName(), poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+            return entry.entryObj;
+        }
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.finest("Cache Miss");
+        }
+        if (probeProvider != null) {
+            probeProvider.statementCacheMissEvent(poolInfo.getName(), poolInfo.getApplicationName(), poolInfo.getModuleName());
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addToCache(CacheObjectKey key, Object o, boolean force) {
+        if (!force && entries.containsKey(key)) {
+            return;
+        }
+        while (entries.size() >= maxSize) {
+            if (!evict()) {
+                break;
+            }
+            if (probeProvider != null) {
+                probeProvider.statementCacheEvictionEvent(poolInfo.getName(), poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+        }
+        CacheEntry entry = new CacheEntry(key, o);
+        if (force) {
+            entries.put(key, entry);
+        } else if (entries.putIfAbsent(key, entry) != null) {
+            return;
+        }
+        clock.offer(entry);
+    }
+
+    /**
+     * Evicts the first entry that has not been referenced since it was last passed by the clock hand.
+     *
+     * @return false if there was nothing to evict
+     */
+    private boolean evict() {
+        CacheEntry candidate;
+        while ((candidate = clock.poll()) != null) {
+            if (entries.get(candidate.key) != candidate) {
+                // already removed or replaced
+                continue;
+            }
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                clock.offer(candidate);
+                continue;
+            }
+            if (entries.remove(candidate.key, candidate)) {
+                close(candidate);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearCache() {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("clearing objects in cache");
+        }
+        entries.clear();
+        clock.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushCache() {
+        Iterator<CacheEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CacheEntry entry = iterator.next();
+            iterator.remove();
+            close(entry);
+        }
+        clock.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void purge() {
+        evict();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void purge(Object obj) {
+        for (CacheEntry entry : entries.values()) {
+            if (entry.entryObj.equals(obj)) {
+                if (entries.remove(entry.key, entry)) {
+                    if (_logger.isLoggable(Level.FINEST)) {
+                        _logger.log(Level.FINEST, "Purging an entry from cache");
+                    }
+                    close(entry);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return true;
+    }
+
+    private static void close(CacheEntry entry) {
+        try {
+            PreparedStatementWrapper ps = (PreparedStatementWrapper) entry.entryObj;
+            ps.setCached(false);
+            ps.close();
+        } catch (SQLException e) {
+            //ignore
+        }
+    }
+
+    private static final class CacheEntry {
+
+        private final CacheObjectKey key;
+        private final Object entryObj;
+        private volatile boolean referenced;
+
+        CacheEntry(CacheObjectKey key, Object entryObj) {
+            this.key = key;
+            this.entryObj = entryObj;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.logging.LogDomains;
+
+import java.sql.ParameterMetaData;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool wide cache of statement metadata that does not depend on the physical connection it was obtained from.
+ * <p>
+ * The statement cache holds driver statements and is therefore scoped to a single connection. The result set column
+ * metadata and the parameter metadata of a SQL string are the same for every connection of a pool, so they are
+ * copied into detached, immutable snapshots once and shared by all connections created by the same
+ * {@code ManagedConnectionFactoryImpl}. Snapshots survive pool resizing, so new connections do not need to ask the
+ * database again.
+ * <p>
+ * The cache is filled up to its maximum size and then only serves what it holds. Metadata a driver cannot fully
+ * describe (a getter throws) is never cached. The cache assumes that the tables referenced by a SQL string do not
+ * change shape while the pool is running and that all connections of the pool resolve the same objects, which is why
+ * it is opt-in through the {@code StatementMetaDataCacheSize} pool property.
+ */
+public class StatementMetaDataCache {
+
+    protected static final Logger _logger = LogDomains.getLogger(StatementMetaDataCache.class, LogDomains.RSR_LOGGER);
+
+    private final ConcurrentHashMap<String, ResultSetMetaData> resultSetMetaData = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ParameterMetaData> parameterMetaData = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public StatementMetaDataCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Supplies metadata from the driver when it is not cached yet
+     *
+     * @param <T> type of metadata
+     */
+    @FunctionalInterface
+    public interface MetaDataSupplier<T> {
+        T get() throws SQLException;
+    }
+
+    /**
+     * Returns the shared result set metadata of the given SQL, obtaining and caching it from the driver if needed.
+     *
+     * @param sql      SQL string of the statement
+     * @param supplier obtains the metadata from the driver
+     * @return shared snapshot, or the driver's metadata if it cannot be cached
+     * @throws SQLException if the driver fails
+     */
+    public ResultSetMetaData getResultSetMetaData(String sql, MetaDataSupplier<ResultSetMetaData> supplier)
+            throws SQLException {
+        ResultSetMetaData cached = resultSetMetaData.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        ResultSetMetaData metaData = supplier.get();
+        if (metaData == null || resultSetMetaData.size() >= maxSize) {
+            return metaData;
+        }
+        try {
+            ResultSetMetaData snapshot = new ResultSetMetaDataSnapshot(metaData);
+            ResultSetMetaData existing = resultSetMetaData.putIfAbsent(sql, snapshot);
+            return existing == null ? snapshot : existing;
+        } catch (SQLException | RuntimeException e) {
+            logNotCached(e);
+            return metaData;
+        }
+    }
+
+    /**
+     * Returns the shared parameter metadata of the given SQL, obtaining and caching it from the driver if needed.
+     *
+     * @param sql      SQL string of the statement
+     * @param supplier obtains the metadata from the driver
+     * @return shared snapshot, or the driver's metadata if it cannot be cached
+     * @throws SQLException if the driver fails
+     */
+    public ParameterMetaData getParameterMetaData(String sql, MetaDataSupplier<ParameterMetaData> supplier)
+            throws SQLException {
+        ParameterMetaData cached = parameterMetaData.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        ParameterMetaData metaData = supplier.get();
+        if (metaData == null || parameterMetaData.size() >= maxSize) {
+            return metaData;
+        }
+        try {
+            ParameterMetaData snapshot = new ParameterMetaDataSnapshot(metaData);
+            ParameterMetaData existing = parameterMetaData.putIfAbsent(sql, snapshot);
+            return existing == null ? snapshot : existing;
+        } catch (SQLException | RuntimeException e) {
+            logNotCached(e);
+            return metaData;
+        }
+    }
+
+    /**
+     * Drops all cached metadata, to be used after schema changes.
+     */
+    public void clear() {
+        resultSetMetaData.clear();
+        parameterMetaData.clear();
+    }
+
+    public int getSize() {
+        return resultSetMetaData.size() + parameterMetaData.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private static void logNotCached(Exception e) {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Statement metadata cannot be cached", e);
+        }
+    }
+
+    private abstract static class Snapshot {
+
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return iface.cast(this);
+            }
+            throw new SQLException("Cached metadata does not wrap " + iface.getName());
+        }
+
+        public boolean isWrapperFor(Class<?> iface) {
+            return iface.isInstance(this);
+        }
+    }
+
+    /**
+     * Immutable copy of a {@link ResultSetMetaData}
+     */
+    private static final class ResultSetMetaDataSnapshot extends Snapshot implements ResultSetMetaData {
+
+        private final int columnCount;
+        private final boolean[] autoIncrement;
+        private final boolean[] caseSensitive;
+        private final boolean[] searchable;
+        private final boolean[] currency;
+        private final int[] nullable;
+        private final boolean[] signed;
+        private final int[] columnDisplaySize;
+        private final String[] columnLabel;
+        private final String[] columnName;
+        private final String[] schemaName;
+        private final int[] precision;
+        private final int[] scale;
+        private final String[] tableName;
+        private final String[] catalogName;
+        private final int[] columnType;
+        private final String[] columnTypeName;
+        private final boolean[] readOnly;
+        private final boolean[] writable;
+        private final boolean[] definitelyWritable;
+        private final String[] columnClassName;
+
+        ResultSetMetaDataSnapshot(ResultSetMetaData metaData) throws SQLException {
+            columnCount = metaData.getColumnCount();
+            autoIncrement = new boolean[columnCount];
+            caseSensitive = new boolean[columnCount];
+            searchable = new boolean[columnCount];
+            currency = new boolean[columnCount];
+            nullable = new int[columnCount];
+            signed = new boolean[columnCount];
+            columnDisplaySize = new int[columnCount];
+            columnLabel = new String[columnCount];
+            columnName = new String[columnCount];
+            schemaName = new String[columnCount];
+            precision = new int[columnCount];
+            scale = new int[columnCount];
+            tableName = new String[columnCount];
+            catalogName = new String[columnCount];
+            columnType = new int[columnCount];
+            columnTypeName = new String[columnCount];
+            readOnly = new boolean[columnCount];
+            writable = new boolean[columnCount];
+            definitelyWritable = new boolean[columnCount];
+            columnClassName = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                int column = i + 1;
+                autoIncrement[i] = metaData.isAutoIncrement(column);
+                caseSensitive[i] = metaData.isCaseSensitive(column);
+                searchable[i] = metaData.isSearchable(column);
+                currency[i] = metaData.isCurrency(column);
+                nullable[i] = metaData.isNullable(column);
+                signed[i] = metaData.isSigned(column);
+                columnDisplaySize[i] = metaData.getColumnDisplaySize(column);
+                columnLabel[i] = metaData.getColumnLabel(column);
+                columnName[i] = metaData.getColumnName(column);
+                schemaName[i] = metaData.getSchemaName(column);
+                precision[i] = metaData.getPrecision(column);
+                scale[i] = metaData.getScale(column);
+                tableName[i] = metaData.getTableName(column);
+                catalogName[i] = metaData.getCatalogName(column);
+                columnType[i] = metaData.getColumnType(column);
+                columnTypeName[i] = metaData.getColumnTypeName(column);
+                readOnly[i] = metaData.isReadOnly(column);
+                writable[i] = metaData.isWritable(column);
+                definitelyWritable[i] = metaData.isDefinitelyWritable(column);
+                columnClassName[i] = metaData.getColumnClassName(column);
+            }
+        }
+
+        private int index(int column) throws SQLException {
+            if (column < 1 || column > columnCount) {
+                throw new SQLException("Invalid column index: " + column);
+            }
+            return column - 1;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnCount;
+        }
+
+        @Override
+        public boolean isAutoIncrement(int column) throws SQLException {
+            return autoIncrement[index(column)];
+        }
+
+        @Override
+        public boolean isCaseSensitive(int column) throws SQLException {
+            return caseSensitive[index(column)];
+        }
+
+        @Override
+        public boolean isSearchable(int column) throws SQLException {
+            return searchable[index(column)];
+        }
+
+        @Override
+        public boolean isCurrency(int column) throws SQLException {
+            return currency[index(column)];
+        }
+
+        @Override
+        public int isNullable(int column) throws SQLException {
+            return nullable[index(column)];
+        }
+
+        @Override
+        public boolean isSigned(int column) throws SQLException {
+            return signed[index(column)];
+        }
+
+        @Override
+        public int getColumnDisplaySize(int column) throws SQLException {
+            return columnDisplaySize[index(column)];
+        }
+
+        @Override
+        public String getColumnLabel(int column) throws SQLException {
+            return columnLabel[index(column)];
+        }
+
+        @Override
+        public String getColumnName(int column) throws SQLException {
+            return columnName[index(column)];
+        }
+
+        @Override
+        public String getSchemaName(int column) throws SQLException {
+            return schemaName[index(column)];
+        }
+
+        @Override
+        public int getPrecision(int column) throws SQLException {
+            return precision[index(column)];
+        }
+
+        @Override
+        public int getScale(int column) throws SQLException {
+            return scale[index(column)];
+        }
+
+        @Override
+        public String getTableName(int column) throws SQLException {
+            return tableName[index(column)];
+        }
+
+        @Override
+        public String getCatalogName(int column) throws SQLException {
+            return catalogName[index(column)];
+        }
+
+        @Override
+        public int getColumnType(int column) throws SQLException {
+            return columnType[index(column)];
+        }
+
+        @Override
+        public String getColumnTypeName(int column) throws SQLException {
+            return columnTypeName[index(column)];
+        }
+
+        @Override
+        public boolean isReadOnly(int column) throws SQLException {
+            return readOnly[index(column)];
+        }
+
+        @Override
+        public boolean isWritable(int column) throws SQLException {
+            return writable[index(column)];
+        }
+
+        @Override
+        public boolean isDefinitelyWritable(int column) throws SQLException {
+            return definitelyWritable[index(column)];
+        }
+
+        @Override
+        public String getColumnClassName(int column) throws SQLException {
+            return columnClassName[index(column)];
+        }
+    }
+
+    /**
+     * Immutable copy of a {@link ParameterMetaData}
+     */
+    private static final class ParameterMetaDataSnapshot extends Snapshot implements ParameterMetaData {
+
+        private final int parameterCount;
+        private final int[] nullable;
+        private final boolean[] signed;
+        private final int[] precision;
+        private final int[] scale;
+        private final int[] parameterType;
+        private final String[] parameterTypeName;
+        private final String[] parameterClassName;
+        private final int[] parameterMode;
+
+        ParameterMetaDataSnapshot(ParameterMetaData metaData) throws SQLException {
+            parameterCount = metaData.getParameterCount();
+            nullable = new int[parameterCount];
+            signed = new boolean[parameterCount];
+            precision = new int[parameterCount];
+            scale = new int[parameterCount];
+            parameterType = new int[parameterCount];
+            parameterTypeName = new String[parameterCount];
+            parameterClassName = new String[parameterCount];
+            parameterMode = new int[parameterCount];
+            for (int i = 0; i < parameterCount; i++) {
+                int param = i + 1;
+                nullable[i] = metaData.isNullable(param);
+                signed[i] = metaData.isSigned(param);
+                precision[i] = metaData.getPrecision(param);
+                scale[i] = metaData.getScale(param);
+                parameterType[i] = metaData.getParameterType(param);
+                parameterTypeName[i] = metaData.getParameterTypeName(param);
+                parameterClassName[i] = metaData.getParameterClassName(param);
+                parameterMode[i] = metaData.getParameterMode(param);
+            }
+        }
+
+        private int index(int param) throws SQLException {
+            if (param < 1 || param > parameterCount) {
+                throw new SQLException("Invalid parameter index: " + param);
+            }
+            return param - 1;
+        }
+
+        @Override
+        public int getParameterCount() {
+            return parameterCount;
+        }
+
+        @Override
+        public int isNullable(int param) throws SQLException {
+            return nullable[index(param)];
+        }
+
+        @Override
+        public boolean isSigned(int param) throws SQLException {
+            return signed[index(param)];
+        }
+
+        @Override
+        public int getPrecision(int param) throws SQLException {
+            return precision[index(param)];
+        }
+
+        @Override
+        public int getScale(int param) throws SQLException {
+            return scale[index(param)];
+        }
+
+        @Override
+        public int getParameterType(int param) throws SQLException {
+            return parameterType[index(param)];
+        }
+
+        @Override
+        public String getParameterTypeName(int param) throws SQLException {
+            return parameterTypeName[index(param)];
+        }
+
+        @Override
+        public String getParameterClassName(int param) throws SQLException {
+            return parameterClassName[index(param)];
+        }
+
+        @Override
+        public int getParameterMode(int param) throws SQLException {
+            return parameterMode[index(param)];
+        }
+    }
+}
@@ -37,31 +37,42 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-
-// Portions Copyright [2016] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.util;
 
+import com.sun.enterprise.util.TimeHistogram;
 import java.util.Comparator;
 
 /**
  * Store the sql queries executed by applications along with the number of
- * times executed and the time stamp of the last usage.
+ * times executed, the time stamp of the last usage and a histogram of the
+ * execution times.
  * Used for monitoring information.
  * 
  * @author Shalini M
  */
 public class SQLTrace {
 
-    private String queryName;
-    private int numExecutions;
-    private long lastUsageTime;
+    private final String queryName;
+    private final TimeHistogram executionTimes = new TimeHistogram();
+    private volatile long lastUsageTime;
 
-    public SQLTrace(String query, int numExecutions, long time) {
+    public SQLTrace(String query, long time) {
         this.queryName = query;
-        this.numExecutions = numExecutions;
         this.lastUsageTime = time;
     }
+
+    /**
+     * Records an execution of this query
+     *
+     * @param executionTime the time the execution took, in milliseconds
+     * @param time the time stamp of the execution
+     */
+    public void record(long executionTime, long time) {
+        executionTimes.record(executionTime);
+        lastUsageTime = time;
+    }
     
     /**
      * Get the value of queryName
@@ -72,31 +83,13 @@ public class SQLTrace {
         return queryName;
     }
 
-    /**
-     * Set the value of queryName
-     *
-     * @param queryName new value of queryName
-     */
-    public void setQueryName(String queryName) {
-        this.queryName = queryName;
-    }
-
     /**
      * Get the value of numExecutions
      *
      * @return the value of numExecutions
      */
-    public int getNumExecutions() {
-        return numExecutions;
-    }
-
-    /**
-     * Set the value of numExecutions
-     *
-     * @param numExecutions new value of numExecutions
-     */
-    public void setNumExecutions(int numExecutions) {
-        this.numExecutions = numExecutions;
+    public long getNumExecutions() {
+        return executionTimes.getCount();
     }
 
     /**
@@ -109,12 +102,22 @@ public class SQLTrace {
     }
 
     /**
-     * Set the value of lastUsageTime
+     * Gets the slowest execution time for this SQL Trace
+     * @return The slowest execution time
+     */
+    public long getSlowestExecutionTime() {
+        return executionTimes.getMax();
+    }
+
+    /**
+     * Gets the execution time below which the given percentage of executions
+     * of this query completed
      *
-     * @param lastUsageTime new value of lastUsageTime
+     * @param percentile between 0 and 100
+     * @return the execution time in milliseconds
      */
-    public void setLastUsageTime(long lastUsageTime) {
-        this.lastUsageTime = lastUsageTime;
+    public long getExecutionTimePercentile(double percentile) {
+        return executionTimes.getPercentile(percentile);
     }
     
     // Comparator that orders based upon the number of executions and the last usage time.
@@ -122,32 +125,32 @@ public class SQLTrace {
         
         @Override
         public int compare(SQLTrace sqlTrace1, SQLTrace sqlTrace2) {
-            final int sqlTrace1Frequency = sqlTrace1.getNumExecutions();
-            final int sqlTrace2Frequency = sqlTrace2.getNumExecutions();
-            
-            // Initialise the comparison variable to be equal
-            int compare = 0;
-            
             // Compare the number of executions
-            if (sqlTrace1Frequency < sqlTrace2Frequency) {
-                compare = 1;
-            } else if (sqlTrace1Frequency > sqlTrace2Frequency) {
-                compare = -1;
-            }
+            int compare = Long.compare(sqlTrace2.getNumExecutions(), sqlTrace1.getNumExecutions());
             
             // If the number of executions are the same, compare the last usage time
             if (compare == 0) {
-                final long sqlTrace1LastUsageTime = sqlTrace1.getLastUsageTime();
-                final long sqlTrace2LastUsageTime = sqlTrace2.getLastUsageTime();
-                
-                if (sqlTrace1LastUsageTime < sqlTrace2LastUsageTime) {
-                    compare = 1;
-                } else if (sqlTrace1LastUsageTime > sqlTrace2LastUsageTime) {
-                    compare = -1;
-                }
+                compare = Long.compare(sqlTrace2.getLastUsageTime(), sqlTrace1.getLastUsageTime());
             }
             
             return compare;
         }
     };
+
+    // Comparator that orders based on the slowest execution time, the number of executions, and the last usage time.
+    public static Comparator<SQLTrace> SQLTraceSlowestExecutionComparator = new Comparator<SQLTrace>() {
+
+        @Override
+        public int compare(SQLTrace sqlTrace1, SQLTrace sqlTrace2) {
+            // Compare the execution times
+            int compare = Long.compare(sqlTrace2.getSlowestExecutionTime(), sqlTrace1.getSlowestExecutionTime());
+
+            // If the execution times are equal, fall back to the frequency ordering
+            if (compare == 0) {
+                compare = SQLTraceFrequencyComparator.compare(sqlTrace1, sqlTrace2);
+            }
+
+            return compare;
+        }
+    };
 }
@@ -37,43 +37,58 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2017] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.util;
 
 import com.sun.logging.LogDomains;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Timer;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 /**
- * Base class for Sql Tracing Caches used to store SQL statements used by applications.
+ * Sql Tracing Cache used to store statistics of the SQL statements used by
+ * applications.
+ * <p>
+ * Statements are grouped by their fingerprint, the SQL with its literals
+ * replaced by <code>?</code>, so statements that only differ in their values
+ * share one {@link SQLTrace}. The SQL strings already seen are mapped directly
+ * to their trace, so recording an execution of a known statement does not
+ * allocate. Queries that have not been used for <code>timeToKeepQueries</code>
+ * are dropped when the statistics are read or when the cache is full, there is
+ * no background task purging it.
  *
  * @author Shalini M
  */
-public abstract class SQLTraceCache {
+public class SQLTraceCache {
 
-    //Maximum size of the cache.
-    protected int numTopQueriesToReport = 10;
-    protected long timeToKeepQueries = 60000;
-    protected final String poolName;
-    protected ConcurrentSkipListMap<String, SQLTrace> cache;
-    
-    private SQLTraceTimerTask sqlTraceTimerTask;
     protected final static Logger _logger = LogDomains.getLogger(SQLTraceCache.class,
             LogDomains.RSR_LOGGER);
-    protected static final String LINE_BREAK = "%%%EOL%%%";
 
-    public SQLTraceCache(String poolName, int maxSize, long timeToKeepQueries) {
-        this.cache = new ConcurrentSkipListMap<>();
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(?:, ?\\?)+\\)");
+
+    //Number of queries to report
+    protected final int numTopQueriesToReport;
+    protected final long timeToKeepQueries;
+    //Maximum size of the cache.
+    protected final long maxStoredEntries;
+    protected final String poolName;
+
+    protected final ConcurrentHashMap<String, SQLTrace> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SQLTrace> sqlTraces = new ConcurrentHashMap<>();
+    private volatile long nextPurgeTime;
+    private volatile boolean fullReported;
+
+    public SQLTraceCache(String poolName, int numTopQueriesToReport, long timeToKeepQueries, long maxStoredEntries) {
         this.poolName = poolName;
-        this.numTopQueriesToReport = maxSize;
+        this.numTopQueriesToReport = numTopQueriesToReport;
         this.timeToKeepQueries = timeToKeepQueries * 60 * 1000;
+        this.maxStoredEntries = maxStoredEntries;
     }
 
     public Collection<String> getSqlTraceList() {
@@ -83,80 +98,175 @@ public abstract class SQLTraceCache {
     public String getPoolName() {
         return poolName;
     }
-    
+
     /**
-     * Schedule timer to perform purgeEntries on the cache after the
-     * specified timeToKeepQueries delay and period.
-     * @param timer
+     * Records an execution of the given sql query. If the query is already
+     * found in the cache, its statistics are updated; if it is a new one, it
+     * is added to the cache as long as the cache is not full.
+     *
+     * @param sql the sql query
+     * @param executionTime the time the execution took, in milliseconds
      */
-    public void scheduleTimerTask(Timer timer) {
-        if(sqlTraceTimerTask != null) {
-            sqlTraceTimerTask.cancel();
-            sqlTraceTimerTask = null;
+    public void record(String sql, long executionTime) {
+        long now = System.currentTimeMillis();
+        SQLTrace trace = sqlTraces.get(sql);
+        if (trace == null) {
+            trace = lookup(sql, now);
+            if (trace == null) {
+                return;
+            }
         }
+        trace.record(executionTime, now);
+    }
 
-        sqlTraceTimerTask = initializeTimerTask();
-
-        if(timer != null && timeToKeepQueries > 0) {
-
-            timer.scheduleAtFixedRate(sqlTraceTimerTask, timeToKeepQueries, timeToKeepQueries);
+    private SQLTrace lookup(String sql, long now) {
+        String fingerprint = fingerprint(sql);
+        SQLTrace trace = cache.get(fingerprint);
+        if (trace == null) {
+            if (cache.size() >= maxStoredEntries && now >= nextPurgeTime) {
+                purgeEntries(now);
+            }
+            if (cache.size() >= maxStoredEntries) {
+                if (!fullReported) {
+                    fullReported = true;
+                    _logger.log(Level.INFO, "SQL Trace Cache of pool {0} is full, new queries are not traced.", poolName);
+                }
+                if (_logger.isLoggable(Level.CONFIG)) {
+                    _logger.log(Level.CONFIG, "SQL Trace Cache full, {0} not stored.", fingerprint);
+                }
+                return null;
+            }
+            trace = cache.computeIfAbsent(fingerprint, key -> new SQLTrace(key, now));
         }
-        if(_logger.isLoggable(Level.FINEST)) {
-            _logger.finest("Scheduled Sql Trace Caching timer task");
+        if (sqlTraces.size() < maxStoredEntries) {
+            sqlTraces.putIfAbsent(sql, trace);
         }
+        return trace;
     }
 
     /**
-     * Cancel the timer task used to perform a purgeEntries on the cache.
+     * Gets the most frequently used queries, ordered by the number of
+     * executions followed by the usage timestamp. Only the top 'n' queries
+     * represented by numTopQueriesToReport are returned.
+     *
+     * @return the most frequently used queries
      */
-    public synchronized void cancelTimerTask() {
-        if(_logger.isLoggable(Level.FINEST)) {
-            _logger.finest("Cancelling Sql Trace Caching timer task");
-        }
-        if (sqlTraceTimerTask != null) {
-            sqlTraceTimerTask.cancel();
-        }
-        sqlTraceTimerTask = null;
+    public List<SQLTrace> getTopQueries() {
+        return getQueries(SQLTrace.SQLTraceFrequencyComparator);
     }
 
     /**
-     * Instantiate the timer task used to perform a purgeEntries on the cache
+     * Gets the slowest queries, ordered by their slowest execution time. Only
+     * the top 'n' queries represented by numTopQueriesToReport are returned.
      *
-     * @return SQLTraceTimerTask
+     * @return the slowest queries
      */
-    private SQLTraceTimerTask initializeTimerTask() {
-        if(_logger.isLoggable(Level.FINEST)) {
-            _logger.finest("Initializing Sql Trace Caching timer task");
+    public List<SQLTrace> getSlowestSqlQueries() {
+        return getQueries(SQLTrace.SQLTraceSlowestExecutionComparator);
+    }
+
+    private List<SQLTrace> getQueries(Comparator<SQLTrace> order) {
+        purgeEntries(System.currentTimeMillis());
+        List<SQLTrace> sqlTraceList = new ArrayList<>(cache.values());
+        sqlTraceList.sort(order);
+        if (sqlTraceList.size() > numTopQueriesToReport) {
+            return new ArrayList<>(sqlTraceList.subList(0, numTopQueriesToReport));
         }
-        return new SQLTraceTimerTask(this);
+        return sqlTraceList;
     }
 
     /**
-     * Request for adding a sql query in the form of SQLTrace to this cache.
-     * If the query is already found
-     * in the list, the number of times it is executed is incremented by one
-     * along with the timestamp.
-     * If the query is a new one, it is added to the list.
-     * 
-     * @param cacheObj
+     * Removes the queries which have not been used for timeToKeepQueries.
+     *
+     * @param now the current time
      */
-    public abstract void checkAndUpdateCache(SQLTrace cacheObj);
+    protected void purgeEntries(long now) {
+        if (timeToKeepQueries <= 0) {
+            return;
+        }
+        nextPurgeTime = now + timeToKeepQueries;
+        long expiry = now - timeToKeepQueries;
+        if (cache.values().removeIf(trace -> trace.getLastUsageTime() < expiry)) {
+            fullReported = false;
+        }
+        if (sqlTraces.size() >= maxStoredEntries) {
+            sqlTraces.clear();
+        } else {
+            sqlTraces.values().removeIf(trace -> cache.get(trace.getQueryName()) != trace);
+        }
+    }
 
     /**
-     * Entries are removed from the list after sorting
-     * them in the least frequently used order. Only numTopQueriesToReport number of
-     * entries are maintained in the list after the purgeEntries.
+     * Gets the fingerprint of a sql query, that is the query with its string
+     * and numeric literals replaced by <code>?</code>, lists of parameters
+     * collapsed into one and whitespace normalised.
+     *
+     * @param sql the sql query
+     * @return the fingerprint of the query
      */
-    public void purgeEntries() {
-        List<SQLTrace> sqlTraceList = new ArrayList(cache.values());
-        Collections.sort(sqlTraceList, SQLTrace.SQLTraceFrequencyComparator);
-        
-        int elementCount = sqlTraceList.size();        
-        while (elementCount > numTopQueriesToReport) {
-            SQLTrace sqlTrace = sqlTraceList.get(elementCount - 1);
-            cache.remove(sqlTrace.getQueryName());
-            sqlTraceList.remove(sqlTrace);
-            elementCount --;
+    public static String fingerprint(String sql) {
+        int length = sql.length();
+        StringBuilder fingerprint = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = fingerprint.length() > 0;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                char last = fingerprint.charAt(fingerprint.length() - 1);
+                if (last != '(' && c != ')' && c != ',') {
+                    fingerprint.append(' ');
+                }
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                // string literal, quotes inside are escaped by doubling them
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                fingerprint.append('?');
+                i++;
+            } else if (c == '"' || c == '`') {
+                // quoted identifier, kept as is
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                fingerprint.append(sql, i, end);
+                i = end;
+            } else if (isNumberStart(sql, i, fingerprint)) {
+                i++;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                fingerprint.append('?');
+            } else {
+                fingerprint.append(c);
+                i++;
+            }
+        }
+        return PARAMETER_LIST.matcher(fingerprint).replaceAll("(?)");
+    }
+
+    private static boolean isNumberStart(String sql, int index, StringBuilder fingerprint) {
+        char c = sql.charAt(index);
+        boolean digit = Character.isDigit(c)
+                || (c == '.' && index + 1 < sql.length() && Character.isDigit(sql.charAt(index + 1)));
+        if (!digit || fingerprint.length() == 0) {
+            return digit;
         }
+        // digits that are part of an identifier are not literals
+        char previous = fingerprint.charAt(fingerprint.length() - 1);
+        return !(Character.isLetterOrDigit(previous) || previous == '_' || previous == '$');
     }
 }
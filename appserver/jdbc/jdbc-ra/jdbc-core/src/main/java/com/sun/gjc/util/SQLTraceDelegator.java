@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-//Portions Copyright [2017] [Payara Foundation and/or its affiliates]
+//Portions Copyright [2017-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.util;
 
@@ -126,7 +126,7 @@ public class SQLTraceDelegator implements SQLTraceListener {
      * @return true if there are listeners registered.
      */
     public boolean listenersRegistered() {
-        return !sqlTraceListeners.isEmpty();
+        return sqlTraceListeners != null && !sqlTraceListeners.isEmpty();
     }
         
     @Override
@@ -143,23 +143,24 @@ public class SQLTraceDelegator implements SQLTraceListener {
                 }
             }
 
-            String methodName = record.getMethodName();
-            //Check if the method name is one in which sql query is used
-            if (isMethodValidForCaching(methodName)) {
-                Object[] params = record.getParams();
-                if (params != null && params.length > 0) {
-                    String sqlQuery = null;
-                    for (Object param : params) {
-                        if (param instanceof String) {
-                            sqlQuery = param.toString();
-                        }
-                        break;
-                    }
-                    if (sqlQuery != null) {
-                        probeProvider.traceSQLEvent(poolName, appName, moduleName, sqlQuery, record.getExecutionTime());
-                    }
-                }
-            }
+            traceSQL(record.getMethodName(), record.getParams(), record.getExecutionTime());
+        }
+    }
+
+    /**
+     * Passes the sql query of a traced call on to the monitoring statistics.
+     * Unlike {@link #sqlTrace(SQLTraceRecord)} this does not need a record, so
+     * it can be used without allocating when no listeners are registered.
+     *
+     * @param methodName the name of the method called
+     * @param params the parameters of the call
+     * @param executionTime the time the call took, in milliseconds
+     */
+    public void traceSQL(String methodName, Object[] params, long executionTime) {
+        //Check if the method name is one in which sql query is used
+        if (isMethodValidForCaching(methodName) && params != null && params.length > 0
+                && params[0] instanceof String) {
+            probeProvider.traceSQLEvent(poolName, appName, moduleName, (String) params[0], executionTime);
         }
     }
     
@@ -1,119 +0,0 @@
-/*
- * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
- *
- * Copyright (c) 2016 Payara Foundation and/or its affiliates. All rights reserved.
- *
- * The contents of this file are subject to the terms of either the GNU
- * General Public License Version 2 only ("GPL") or the Common Development
- * and Distribution License("CDDL") (collectively, the "License").  You
- * may not use this file except in compliance with the License.  You can
- * obtain a copy of the License at
- * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
- * or packager/legal/LICENSE.txt.  See the License for the specific
- * language governing permissions and limitations under the License.
- *
- * When distributing the software, include this License Header Notice in each
- * file and include the License file at packager/legal/LICENSE.txt.
- *
- * GPL Classpath Exception:
- * Oracle designates this particular file as subject to the "Classpath"
- * exception as provided by Oracle in the GPL Version 2 section of the License
- * file that accompanied this code.
- *
- * Modifications:
- * If applicable, add the following below the License Header, with the fields
- * enclosed by brackets [] replaced by your own identifying information:
- * "Portions Copyright [year] [name of copyright owner]"
- *
- * Contributor(s):
- * If you wish your version of this file to be governed by only the CDDL or
- * only the GPL Version 2, indicate your decision by adding "[Contributor]
- * elects to include this software in this distribution under the [CDDL or GPL
- * Version 2] license."  If you don't indicate a single choice of license, a
- * recipient has the option to distribute your version of this file under
- * either the CDDL, the GPL Version 2 or to extend the choice of license to
- * its licensees as provided above.  However, if you add GPL Version 2 code
- * and therefore, elected the GPL Version 2 license, then the option applies
- * only if the new code is made subject to such option by the copyright
- * holder.
- */
-package fish.payara.jdbc.stats;
-
-import com.sun.gjc.util.SQLTrace;
-import java.util.Comparator;
-
-/**
- * Extends the SQLTrace class to also store the slowest SQL execution times.
- * @author Andrew Pielage
- */
-public class SlowSqlTrace extends SQLTrace {
-    
-    private long slowestExecutionTime;
-    
-    public SlowSqlTrace(String query, int numExecutions, long time, long executionTime) {
-        super(query, numExecutions, time);
-        this.slowestExecutionTime = executionTime;
-    }
-    
-    /**
-     * Gets the slowest execution time for this SQL Trace
-     * @return The slowest execution time
-     */
-    public long getSlowestExecutionTime() {
-        return slowestExecutionTime;
-    }
-    
-    /**
-     * Sets the slowest execution time for this SQL trace
-     * @param slowestExecutionTime The execution time to set
-     */
-    public void setSlowestExecutionTime(long slowestExecutionTime) {
-        this.slowestExecutionTime = slowestExecutionTime;
-    }
-    
-    // Comparator that orders based on the slowest execution time, the number of executions, and the last usage time.
-    public static Comparator<SlowSqlTrace> SlowSqlTraceSlowestExecutionComparator = new Comparator<SlowSqlTrace>() {
-        
-        @Override
-        public int compare(SlowSqlTrace sqlTrace1, SlowSqlTrace sqlTrace2) {
-            final long sqlTrace1SlowestExecution = sqlTrace1.getSlowestExecutionTime();
-            final long sqlTrace2SlowestExecution = sqlTrace2.getSlowestExecutionTime();
-            
-            // Initialise the comparison variable to be equal
-            int compare = 0;
-            
-            // Compare the execution times
-            if (sqlTrace1SlowestExecution < sqlTrace2SlowestExecution) {
-                compare = 1;
-            } else if (sqlTrace1SlowestExecution > sqlTrace2SlowestExecution) {
-                compare = -1;
-            }
-            
-            // If the execution times are equal, compare against the number of executions
-            if (compare == 0) {
-                final int sqlTrace1Frequency = sqlTrace1.getNumExecutions();
-                final int sqlTrace2Frequency = sqlTrace2.getNumExecutions();
-                
-                if (sqlTrace1Frequency < sqlTrace2Frequency) {
-                    compare = 1;
-                } else if (sqlTrace1Frequency > sqlTrace2Frequency) {
-                    compare = -1;
-                }
-                
-                // If the number of executions is also the same, compare the last usage times
-                if (compare == 0) {
-                    final long sqlTrace1LastUsageTime = sqlTrace1.getLastUsageTime();
-                    final long sqlTrace2LastUsageTime = sqlTrace2.getLastUsageTime();
-                    
-                    if (sqlTrace1LastUsageTime < sqlTrace2LastUsageTime) {
-                        compare = 1;
-                    } else if (sqlTrace1LastUsageTime > sqlTrace2LastUsageTime) {
-                        compare = -1;
-                    }
-                }
-            }
-            
-            return compare;
-        }
-    };
-}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright 2020-2022 Payara Foundation and/or affiliates
+// Portions Copyright 2020-2024 Payara Foundation and/or affiliates
 
 package com.sun.gjc.spi.jdbc40;
 
@@ -267,7 +267,7 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
             int resultSetType, int resultSetConcurrency, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this, super.prepareStatement(sql,
-                resultSetType, resultSetConcurrency), enableCaching);
+                resultSetType, resultSetConcurrency), enableCaching, sql);
     }
 
     @Override
@@ -275,7 +275,7 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
             String[] columnNames, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, columnNames), enableCaching);
+                super.prepareStatement(sql, columnNames), enableCaching, sql);
     }
 
     @Override
@@ -284,7 +284,7 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
             boolean enableCaching) throws SQLException {
         return new PreparedStatementWrapper40(this,
                 super.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability),
-                enableCaching);
+                enableCaching, sql);
     }
 
     @Override
@@ -292,7 +292,7 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
             int[] columnIndexes, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, columnIndexes), enableCaching);
+                super.prepareStatement(sql, columnIndexes), enableCaching, sql);
     }
 
     @Override
@@ -300,7 +300,7 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
             int autoGeneratedKeys, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, autoGeneratedKeys), enableCaching);
+                super.prepareStatement(sql, autoGeneratedKeys), enableCaching, sql);
     }
 
     @Override
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2017-2020] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2017-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.spi.jdbc40;
 
@@ -66,6 +66,21 @@ public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
         super(con, statement, statementCaching);
     }
 
+    /**
+     * Creates a new instance of PreparedStatement Wrapper for JDBC 4.0 that
+     * shares the metadata of its SQL with the other connections of the pool<br>
+     *
+     * @param con       ConnectionWrapper<br>
+     * @param statement PreparedStatement that is wrapped<br>
+     * @param statementCaching boolean that enabled/disables caching
+     * @param sql       SQL the statement was prepared with<br>
+     * @throws java.sql.SQLException Exception thrown from underlying statement 
+     */
+    public PreparedStatementWrapper40(Connection con, PreparedStatement statement, boolean statementCaching, String sql)
+            throws SQLException {
+        super(con, statement, statementCaching, sql);
+    }
+
     /**
      * Sets the designated parameter to the given <code>java.sql.RowId</code> object. The
      * driver converts this to a SQL <code>ROWID</code> value when it sends it
@@ -657,7 +672,9 @@ public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
     public java.sql.ResultSet executeQuery() throws java.sql.SQLException {
         ResultSet rs = preparedStatement.executeQuery();
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, rs);
+        ResultSetWrapper40 wrapper = new ResultSetWrapper40(this, rs);
+        wrapper.setMetaDataSource(this);
+        return wrapper;
     }
 
     /**
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright 2016-2022 Payara Foundation and/or affiliates
+// Portions Copyright 2016-2024 Payara Foundation and/or affiliates
 
 package com.sun.gjc.spi.jdbc40;
 
@@ -382,7 +382,7 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             int resultSetType, int resultSetConcurrency, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this, super.prepareStatement(sql,
-                resultSetType, resultSetConcurrency), enableCaching);
+                resultSetType, resultSetConcurrency), enableCaching, sql);
     }
 
     @Override
@@ -390,7 +390,7 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             String[] columnNames, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, columnNames), enableCaching);
+                super.prepareStatement(sql, columnNames), enableCaching, sql);
     }
 
     @Override
@@ -399,7 +399,7 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             boolean enableCaching) throws SQLException {
         return new PreparedStatementWrapper40(this,
                 super.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability),
-                enableCaching);
+                enableCaching, sql);
     }
 
     @Override
@@ -407,7 +407,7 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             int[] columnIndexes, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, columnIndexes), enableCaching);
+                super.prepareStatement(sql, columnIndexes), enableCaching, sql);
     }
 
     @Override
@@ -415,7 +415,7 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             int autoGeneratedKeys, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, autoGeneratedKeys), enableCaching);
+                super.prepareStatement(sql, autoGeneratedKeys), enableCaching, sql);
     }
 
     @Override
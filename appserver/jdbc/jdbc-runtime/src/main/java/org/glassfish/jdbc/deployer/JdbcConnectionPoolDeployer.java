@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright 2016-2022 Payara Foundation and/or affiliates
+// Portions Copyright 2016-2024 Payara Foundation and/or affiliates
 
 package org.glassfish.jdbc.deployer;
 
@@ -545,6 +545,11 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer {
                     propList.add(new ConnectorConfigProperty("MaxCacheSize",
                             rp.getValue(), "MaxCacheSize", "java.lang.String"));
                     
+                } else if ("STATEMENTMETADATACACHESIZE".equals(name.toUpperCase(Locale.getDefault())) || "STATEMENT-METADATA-CACHE-SIZE".equals(name.toUpperCase(Locale.getDefault()))) {
+
+                    propList.add(new ConnectorConfigProperty("StatementMetaDataCacheSize",
+                            rp.getValue(), "StatementMetaDataCacheSize", "java.lang.String"));
+
                 } else if (mcfConPropKeys.containsKey(name.toUpperCase(Locale.getDefault()))) {
 
                     propList.add(new ConnectorConfigProperty(
@@ -37,12 +37,13 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-//Portions Copyright [2016-2019] [Payara Foundation]
+//Portions Copyright [2016-2024] [Payara Foundation]
 
 package org.glassfish.jdbc.pool.monitor;
 
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.resource.pool.PoolLifeCycleListenerRegistry;
+import com.sun.enterprise.resource.pool.PoolManager;
 import com.sun.enterprise.resource.pool.PoolStatus;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
@@ -138,6 +139,15 @@ public class JdbcConnPoolStatsProvider {
     private CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT,
             "Number of connection requests in the queue waiting to be serviced.");
+    private CountStatisticImpl connRequestWaitTimeP50 = new CountStatisticImpl(
+            "ConnRequestWaitTimeP50", StatisticImpl.UNIT_MILLISECOND,
+            "Median time connection requests spent in the wait queue. Only collected by the hand-off wait queue.");
+    private CountStatisticImpl connRequestWaitTimeP95 = new CountStatisticImpl(
+            "ConnRequestWaitTimeP95", StatisticImpl.UNIT_MILLISECOND,
+            "95th percentile of the time connection requests spent in the wait queue. Only collected by the hand-off wait queue.");
+    private CountStatisticImpl connRequestWaitTimeP99 = new CountStatisticImpl(
+            "ConnRequestWaitTimeP99", StatisticImpl.UNIT_MILLISECOND,
+            "99th percentile of the time connection requests spent in the wait queue. Only collected by the hand-off wait queue.");
     private static final String JDBC_PROBE_LISTENER = "glassfish:jdbc:connection-pool:";
 
 
@@ -467,7 +477,9 @@ public class JdbcConnPoolStatsProvider {
         if(logger.isLoggable(Level.FINEST)) {
             logger.finest("Reset event received - poolInfo = " + poolInfo);
         }
-        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        PoolManager poolManager = ConnectorRuntime.getRuntime().getPoolManager();
+        poolManager.resetPoolStatistics(poolInfo);
+        PoolStatus status = poolManager.getPoolStatus(poolInfo);
         numConnUsed.setCurrent(status.getNumConnUsed());
         numConnFree.setCurrent(status.getNumConnFree());
         numConnCreated.reset();
@@ -711,4 +723,31 @@ public class JdbcConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittimep50")
+    public CountStatistic getConnRequestWaitTimeP50() {
+        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        if (status != null) {
+            connRequestWaitTimeP50.setCount(status.getWaitTimeP50());
+        }
+        return connRequestWaitTimeP50;
+    }
+
+    @ManagedAttribute(id="connrequestwaittimep95")
+    public CountStatistic getConnRequestWaitTimeP95() {
+        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        if (status != null) {
+            connRequestWaitTimeP95.setCount(status.getWaitTimeP95());
+        }
+        return connRequestWaitTimeP95;
+    }
+
+    @ManagedAttribute(id="connrequestwaittimep99")
+    public CountStatistic getConnRequestWaitTimeP99() {
+        PoolStatus status = ConnectorRuntime.getRuntime().getPoolManager().getPoolStatus(poolInfo);
+        if (status != null) {
+            connRequestWaitTimeP99.setCount(status.getWaitTimeP99());
+        }
+        return connRequestWaitTimeP99;
+    }
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,6 +40,8 @@
 package fish.payara.ejb.timer.hazelcast;
 
 import com.sun.ejb.PersistentTimerService;
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
 import fish.payara.nucleus.hazelcast.HazelcastCore;
 import jakarta.inject.Inject;
 import org.jvnet.hk2.annotations.Service;
@@ -49,7 +51,7 @@ import org.jvnet.hk2.annotations.Service;
  * @author steve
  */
 @Service
-public class DataGridEJBTimerService implements PersistentTimerService {
+public class DataGridEJBTimerService implements PersistentTimerService, MonitoringDataSource {
     
     
     @Inject
@@ -57,9 +59,19 @@ public class DataGridEJBTimerService implements PersistentTimerService {
     
     
 
+    private volatile HazelcastTimerStore store;
+
     @Override
     public void initPersistentTimerService(String target) {
-            HazelcastTimerStore.init(hazelcast);
+            store = HazelcastTimerStore.init(hazelcast);
+    }
+
+    @Override
+    public void collect(MonitoringDataCollector collector) {
+        HazelcastTimerStore timerStore = store;
+        if (timerStore != null) {
+            timerStore.collect(collector);
+        }
     }
     
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,6 +41,7 @@ package fish.payara.ejb.timer.hazelcast;
 
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
+import com.hazelcast.multimap.MultiMap;
 import com.hazelcast.cp.lock.FencedLock;
 import com.sun.ejb.containers.BaseContainer;
 import com.sun.ejb.containers.EJBTimerSchedule;
@@ -52,6 +53,7 @@ import com.sun.enterprise.deployment.MethodDescriptor;
 import com.sun.logging.LogDomains;
 import fish.payara.appserver.micro.services.PayaraInstanceImpl;
 import fish.payara.micro.data.InstanceDescriptor;
+import fish.payara.monitoring.collect.MonitoringDataCollector;
 import fish.payara.nucleus.cluster.ClusterListener;
 import fish.payara.nucleus.cluster.MemberEvent;
 import fish.payara.nucleus.cluster.PayaraCluster;
@@ -70,6 +72,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jakarta.ejb.EJBException;
@@ -82,6 +88,11 @@ import org.glassfish.internal.api.Globals;
 
 /**
  * Store for EJB timers that exist across a Hazelcast cluster.
+ * <p>
+ * Besides the container and application caches the ids of the timers are indexed by their owner and by the member
+ * they run on, so that migration and failover only load the timers of the affected instance instead of scanning all
+ * timers of the cluster. Index entries of timers that were removed or moved in the meantime are pruned when they are
+ * read.
  * @author steve
  * @since 4.1.1.163
  */
@@ -91,24 +102,40 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
     private static final String EJB_TIMER_CACHE_NAME = "HZEjbTmerCache";
     private static final String EJB_TIMER_CONTAINER_CACHE_NAME = "HZEjbTmerContainerCache";
     private static final String EJB_TIMER_APPLICAION_CACHE_NAME = "HZEjbTmerApplicationCache";
+    private static final String EJB_TIMER_OWNER_INDEX_NAME = "HZEjbTmerOwnerIndex";
+    private static final String EJB_TIMER_MEMBER_INDEX_NAME = "HZEjbTmerMemberIndex";
+
+    /**
+     * The number of timers loaded or stored with one operation during migration and restoration.
+     */
+    private static final int BATCH_SIZE = 1000;
 
     private final IMap<String, HZTimer> pkCache;
     private final IMap<Long, Set<TimerPrimaryKey>> containerCache;
     private final IMap<Long, Set<TimerPrimaryKey>> applicationCache;
+    private final MultiMap<String, String> ownerIndex;
+    private final MultiMap<String, String> memberIndex;
     private final String serverName;
     private final HazelcastInstance hazelcast;
 
+    private final AtomicLong migrationCount = new AtomicLong();
+    private final AtomicLong migratedTimerCount = new AtomicLong();
+    private final AtomicLong migrationDurationTotal = new AtomicLong();
+    private volatile long lastMigrationDuration;
+
     private static final Logger logger = LogDomains.getLogger(HazelcastTimerStore.class, LogDomains.EJB_LOGGER);
 
-    static void init(HazelcastCore core) {
+    static HazelcastTimerStore init(HazelcastCore core) {
         try {
             HazelcastTimerStore store = new HazelcastTimerStore(core);
             Globals.getDefaultBaseServiceLocator().getService(PayaraCluster.class).addClusterListener(store);
             EJBTimerService.setPersistentTimerService(store);
             Globals.getDefaultBaseServiceLocator().getService(PayaraCluster.class).getEventBus().addMessageReceiver(
                     EjbTimerEvent.EJB_TIMER_EVENTS_TOPIC, store);
+            return store;
         } catch (Exception ex) {
             Logger.getLogger(HazelcastTimerStore.class.getName()).log(Level.WARNING, "Problem when initialising Timer Store", ex);
+            return null;
         }
     }
 
@@ -121,10 +148,149 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         pkCache = hazelcast.getMap(EJB_TIMER_CACHE_NAME);
         containerCache = hazelcast.getMap(EJB_TIMER_CONTAINER_CACHE_NAME);
         applicationCache = hazelcast.getMap(EJB_TIMER_APPLICAION_CACHE_NAME);
+        ownerIndex = hazelcast.getMultiMap(EJB_TIMER_OWNER_INDEX_NAME);
+        memberIndex = hazelcast.getMultiMap(EJB_TIMER_MEMBER_INDEX_NAME);
         serverName = core.getAttribute(core.getInstance().getCluster().getLocalMember().getUuid(), HazelcastCore.INSTANCE_ATTRIBUTE);
         this.ownerIdOfThisServer_ = serverName;
         this.domainName_ = core.getInstance().getConfig().getClusterName();
         super.enableRescheduleTimers();
+        buildIndexes();
+    }
+
+    /**
+     * Indexes the timers stored by a version without the owner and member indexes.
+     */
+    private void buildIndexes() {
+        if (ownerIndex.size() > 0 || pkCache.isEmpty()) {
+            return;
+        }
+        FencedLock hazelcastLock = hazelcast.getCPSubsystem().getLock("EJB-TIMER-LOCK");
+        hazelcastLock.lock();
+        try {
+            if (ownerIndex.size() == 0) {
+                int indexed = 0;
+                for (HZTimer timer : pkCache.values()) {
+                    index(timer);
+                    indexed++;
+                }
+                logger.log(Level.INFO, "Indexed {0} timers by owner and member", indexed);
+            }
+        } finally {
+            hazelcastLock.unlock();
+        }
+    }
+
+    private void index(HZTimer timer) {
+        String timerId = timer.getKey().timerId;
+        if (timer.getOwnerId() != null) {
+            ownerIndex.put(timer.getOwnerId(), timerId);
+        }
+        if (timer.getMemberName() != null) {
+            memberIndex.put(timer.getMemberName(), timerId);
+        }
+    }
+
+    private void unindex(HZTimer timer) {
+        String timerId = timer.getKey().timerId;
+        if (timer.getOwnerId() != null) {
+            ownerIndex.remove(timer.getOwnerId(), timerId);
+        }
+        if (timer.getMemberName() != null) {
+            memberIndex.remove(timer.getMemberName(), timerId);
+        }
+    }
+
+    /**
+     * Updates the indexes of a timer whose owner or member changed.
+     */
+    private void reindex(HZTimer timer, String previousOwnerId, String previousMemberName) {
+        String timerId = timer.getKey().timerId;
+        if (previousOwnerId != null && !previousOwnerId.equals(timer.getOwnerId())) {
+            ownerIndex.remove(previousOwnerId, timerId);
+            ownerIndex.put(timer.getOwnerId(), timerId);
+        }
+        if (previousMemberName != null && !previousMemberName.equals(timer.getMemberName())) {
+            memberIndex.remove(previousMemberName, timerId);
+            memberIndex.put(timer.getMemberName(), timerId);
+        }
+    }
+
+    /**
+     * Loads the timers listed in an index in batches. Index entries of timers that no longer exist or no longer have
+     * the indexed value are removed.
+     *
+     * @param index the owner or member index
+     * @param indexKey the owner or member
+     * @param indexedValue the value of a timer the index is based on
+     * @return the timers by id
+     */
+    private Map<String, HZTimer> findIndexedTimers(MultiMap<String, String> index, String indexKey,
+            Function<HZTimer, String> indexedValue) {
+        Map<String, HZTimer> result = new HashMap<>();
+        Set<String> batch = new HashSet<>();
+        for (String timerId : index.get(indexKey)) {
+            batch.add(timerId);
+            if (batch.size() == BATCH_SIZE) {
+                loadIndexedTimers(index, indexKey, indexedValue, batch, result);
+                batch = new HashSet<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            loadIndexedTimers(index, indexKey, indexedValue, batch, result);
+        }
+        return result;
+    }
+
+    private void loadIndexedTimers(MultiMap<String, String> index, String indexKey,
+            Function<HZTimer, String> indexedValue, Set<String> timerIds, Map<String, HZTimer> result) {
+        Map<String, HZTimer> timers = pkCache.getAll(timerIds);
+        for (String timerId : timerIds) {
+            HZTimer timer = timers.get(timerId);
+            if (timer != null && indexKey.equals(indexedValue.apply(timer))) {
+                result.put(timerId, timer);
+            } else {
+                index.remove(indexKey, timerId);
+            }
+        }
+    }
+
+    /**
+     * Stores the timers in parallel batches and waits until all are stored.
+     */
+    private void putTimers(Map<String, HZTimer> timers) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        Map<String, HZTimer> batch = new HashMap<>();
+        for (Entry<String, HZTimer> entry : timers.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == BATCH_SIZE) {
+                pending.add(pkCache.putAllAsync(batch).toCompletableFuture());
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            pending.add(pkCache.putAllAsync(batch).toCompletableFuture());
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void migrationCompleted(long startNanos, int migratedTimers) {
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        lastMigrationDuration = duration;
+        migrationDurationTotal.addAndGet(duration);
+        migrationCount.incrementAndGet();
+        migratedTimerCount.addAndGet(migratedTimers);
+        logger.log(Level.INFO, "Migrated {0} timers in {1} ms", new Object[]{migratedTimers, duration});
+    }
+
+    /**
+     * Collects the number and duration of the timer migrations and failovers handled by this instance.
+     */
+    void collect(MonitoringDataCollector collector) {
+        collector.in("ejb-timer")
+                .collect("MigrationCount", migrationCount.get())
+                .collect("MigratedTimerCount", migratedTimerCount.get())
+                .collect("MigrationDurationTotal", migrationDurationTotal.get())
+                .collect("LastMigrationDuration", lastMigrationDuration);
     }
 
     private void removeTimers(Set<TimerPrimaryKey> timerIdsToRemove) {
@@ -137,7 +303,9 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
     protected void _createTimer(TimerPrimaryKey timerId, long containerId, long applicationId, Object timedObjectPrimaryKey, String server_name, Date initialExpiration, long intervalDuration, EJBTimerSchedule schedule, TimerConfig timerConfig) throws Exception {
         if (timerConfig.isPersistent()) {
 
-            pkCache.put(timerId.timerId, new HZTimer(timerId, containerId, applicationId, timedObjectPrimaryKey, server_name, server_name, initialExpiration, intervalDuration, schedule, timerConfig));
+            HZTimer timer = new HZTimer(timerId, containerId, applicationId, timedObjectPrimaryKey, server_name, server_name, initialExpiration, intervalDuration, schedule, timerConfig);
+            pkCache.put(timerId.timerId, timer);
+            index(timer);
 
             // add to container cache
             Set<TimerPrimaryKey> keysForContainer = containerCache.get(containerId);
@@ -190,7 +358,10 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         }
 
         for (TimerPrimaryKey timerId : timerIds) {
-            pkCache.remove(timerId.timerId);
+            HZTimer timer = pkCache.remove(timerId.timerId);
+            if (timer != null) {
+                unindex(timer);
+            }
         }
         logger.log(Level.INFO, "Destroyed {0} timers for application {1}", new Object[]{timerIds.size(), applicationId});
         timerIds.clear();
@@ -516,7 +687,11 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
 
     @Override
     public String[] listTimers(String[] serverIds) {
-        return listTimers(pkCache.values(), serverIds);
+        String[] result = new String[serverIds.length];
+        for (int i = 0; i < serverIds.length; i++) {
+            result[i] = Integer.toString(memberIndex.valueCount(serverIds[i]));
+        }
+        return result;
     }
 
     @Override
@@ -532,23 +707,24 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         logger.log(Level.INFO, "Beginning timer migration process from owner {0} to {1}", new Object[]{fromOwnerId, ownerIdOfThisServer});
 
         TransactionManager tm = ejbContainerUtil.getTransactionManager();
+        long start = System.nanoTime();
 
-        HashMap<String, HZTimer> toRestore = new HashMap<>();
-        int totalTimersMigrated = 0;
+        Map<String, HZTimer> toRestore = findIndexedTimers(ownerIndex, fromOwnerId, HZTimer::getOwnerId);
 
-        for (String pk : pkCache.keySet()) {
-            HZTimer hZTimer = pkCache.get(pk);
-            if (hZTimer.getOwnerId().equals(fromOwnerId)) {
-                toRestore.put(pk, hZTimer);
-                hZTimer.setOwnerId(ownerIdOfThisServer);
-                hZTimer.setMemberName(serverName);
-            }
+        Map<String, String> previousMemberNames = new HashMap<>();
+        for (HZTimer hZTimer : toRestore.values()) {
+            previousMemberNames.put(hZTimer.getKey().timerId, hZTimer.getMemberName());
+            hZTimer.setOwnerId(ownerIdOfThisServer);
+            hZTimer.setMemberName(serverName);
         }
 
-        for (Entry<String, HZTimer> entry : toRestore.entrySet()) {
-            pkCache.put(entry.getKey(), entry.getValue());
-            totalTimersMigrated++;
+        // Store before reindexing, so that a concurrent index lookup never finds a new index entry
+        // while the stored timer still has its old owner, and prunes it as stale
+        putTimers(toRestore);
+        for (HZTimer hZTimer : toRestore.values()) {
+            reindex(hZTimer, fromOwnerId, previousMemberNames.get(hZTimer.getKey().timerId));
         }
+        int totalTimersMigrated = toRestore.size();
 
         if (totalTimersMigrated > 0) {
 
@@ -565,6 +741,7 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
 
                 // Inform fromServer that timers have been migrated and it needs to clear its local cache
                 _notifyMigratedFromInstance(fromOwnerId);
+                migrationCompleted(start, totalTimersMigrated);
             } catch (Exception e) {
 
                 logger.log(Level.FINE, "timer restoration error", e);
@@ -760,6 +937,7 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
 
     private void removeTimer(HZTimer timer) {
         pkCache.remove(timer.getKey().timerId);
+        unindex(timer);
 
         Set<TimerPrimaryKey> keys = applicationCache.get(timer.getApplicationId());
         if (keys != null) {
@@ -1135,13 +1313,7 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
     }
 
     private Collection<HZTimer> findActiveTimersOwnedByThisServer() {
-        HashSet<HZTimer> result = new HashSet<>();
-        for (HZTimer timer : pkCache.values()) {
-            if (timer.getMemberName().equals(this.serverName)) {
-                result.add(timer);
-            }
-        }
-        return result;
+        return new HashSet<>(findIndexedTimers(memberIndex, serverName, HZTimer::getMemberName).values());
     }
 
     private boolean restoreEJBTimers() {
@@ -1179,23 +1351,24 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         FencedLock hazelcastLock = hazelcast.getCPSubsystem().getLock("EJB-TIMER-LOCK");
         hazelcastLock.lock();
         try {
-            Collection<HZTimer> allTimers = pkCache.values();
-            Collection<HZTimer> removedTimers = new HashSet<>();
-            for (HZTimer timer : allTimers) {
-                if (timer.getMemberName().equals(event.getServer())) {
-                    removedTimers.add(timer);
-                }
-            }
-
-
+            long start = System.nanoTime();
+            String removedMemberName = event.getServer();
+            Collection<HZTimer> removedTimers = findIndexedTimers(memberIndex, removedMemberName,
+                    HZTimer::getMemberName).values();
 
             if (!removedTimers.isEmpty()) {
                 logger.log(Level.INFO, "==> Restoring Timers ... ");
                 Collection<HZTimer> restored = _restoreTimers(removedTimers);
+                Map<String, HZTimer> toStore = new HashMap<>();
                 for (HZTimer timer : restored) {
-                    pkCache.put(timer.getKey().getTimerId(), timer);
+                    toStore.put(timer.getKey().getTimerId(), timer);
+                }
+                putTimers(toStore);
+                for (HZTimer timer : toStore.values()) {
+                    reindex(timer, timer.getOwnerId(), removedMemberName);
                 }
                 logger.log(Level.INFO, "<== ... Timers Restored.");
+                migrationCompleted(start, toStore.size());
             }
         } finally {
             hazelcastLock.unlock();
@@ -1206,9 +1379,23 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
      * Remove all local timers that are no longer owned by this instance.
      */
     private void removeLocalTimers() {
-        Collection<HZTimer> allTimers = pkCache.values();
-        for (HZTimer timer : allTimers) {
-            removeLocalTimer(timer);
+        // Only the local timers which are no longer listed under this owner can have been migrated away
+        Set<String> candidates = new HashSet<>();
+        for (TimerPrimaryKey timerId : timerCache_.getPersistentTimerIds()) {
+            candidates.add(timerId.timerId);
+        }
+        candidates.removeAll(ownerIndex.get(getOwnerIdOfThisServer()));
+
+        Set<String> batch = new HashSet<>();
+        for (String timerId : candidates) {
+            batch.add(timerId);
+            if (batch.size() == BATCH_SIZE) {
+                pkCache.getAll(batch).values().forEach(this::removeLocalTimer);
+                batch = new HashSet<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            pkCache.getAll(batch).values().forEach(this::removeLocalTimer);
         }
     }
 
@@ -0,0 +1,375 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ejb.timer.hazelcast;
+
+import com.hazelcast.cluster.Cluster;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.cp.CPSubsystem;
+import com.hazelcast.cp.lock.FencedLock;
+import com.hazelcast.map.IMap;
+import com.hazelcast.multimap.MultiMap;
+import com.sun.ejb.containers.BaseContainer;
+import com.sun.ejb.containers.EjbContainerUtilImpl;
+import com.sun.ejb.containers.TimerPrimaryKey;
+import com.sun.enterprise.transaction.api.JavaEETransactionManager;
+import fish.payara.nucleus.cluster.MemberEvent;
+import fish.payara.nucleus.hazelcast.HazelcastCore;
+import jakarta.ejb.TimerConfig;
+import jakarta.transaction.Transaction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.internal.api.Globals;
+import org.glassfish.server.ServerEnvironmentImpl;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests how {@link HazelcastTimerStore} maintains the owner and member indexes of the timers. The Hazelcast maps are
+ * backed by local maps that copy the values, so that changes to a timer only become visible once it is stored.
+ */
+public class HazelcastTimerStoreIndexTest {
+  private static final String TIMER_CACHE = "HZEjbTmerCache";
+  private static final String OWNER_INDEX = "HZEjbTmerOwnerIndex";
+  private static final String MEMBER_INDEX = "HZEjbTmerMemberIndex";
+
+  private static final String THIS_INSTANCE = "instance1";
+  private static final String OTHER_INSTANCE = "instance2";
+  private static final long CONTAINER_ID = 1L;
+  private static final long APPLICATION_ID = 2L;
+
+  private static ServiceLocator previousLocator;
+  private static Timer jdkTimer;
+
+  private final Map<Object, Object> timers = new HashMap<>();
+  private final Map<String, Set<String>> ownerIndex = new HashMap<>();
+  private final Map<String, Set<String>> memberIndex = new HashMap<>();
+  private final List<String> staleIndexEntries = new ArrayList<>();
+
+  private HazelcastTimerStore store;
+
+  @BeforeClass
+  public static void setUpContainer() throws Exception {
+    jdkTimer = new Timer(true);
+    JavaEETransactionManager transactionManager = mock(JavaEETransactionManager.class);
+    when(transactionManager.getTransaction()).thenReturn(mock(Transaction.class));
+    EjbContainerUtilImpl containerUtil = mock(EjbContainerUtilImpl.class);
+    when(containerUtil.getTransactionManager()).thenReturn(transactionManager);
+    when(containerUtil.getServerEnvironment()).thenReturn(mock(ServerEnvironmentImpl.class));
+    when(containerUtil.getContainer(anyLong())).thenReturn(mock(BaseContainer.class));
+    when(containerUtil.getTimer()).thenReturn(jdkTimer);
+
+    ServiceLocator locator = mock(ServiceLocator.class);
+    when(locator.getService(EjbContainerUtilImpl.class)).thenReturn(containerUtil);
+    previousLocator = Globals.getDefaultHabitat();
+    Globals.setDefaultHabitat(locator);
+  }
+
+  @AfterClass
+  public static void tearDownContainer() {
+    Globals.setDefaultHabitat(previousLocator);
+    jdkTimer.cancel();
+  }
+
+  @Before
+  public void createStore() throws Exception {
+    UUID localUuid = UUID.randomUUID();
+    Member localMember = mock(Member.class);
+    when(localMember.getUuid()).thenReturn(localUuid);
+    Cluster cluster = mock(Cluster.class);
+    when(cluster.getLocalMember()).thenReturn(localMember);
+    CPSubsystem cpSubsystem = mock(CPSubsystem.class);
+    when(cpSubsystem.getLock(anyString())).thenReturn(mock(FencedLock.class));
+
+    HazelcastInstance hazelcast = mock(HazelcastInstance.class);
+    when(hazelcast.getCluster()).thenReturn(cluster);
+    when(hazelcast.getConfig()).thenReturn(new Config());
+    when(hazelcast.getCPSubsystem()).thenReturn(cpSubsystem);
+    when(hazelcast.getMap(anyString())).thenAnswer(call ->
+        map(TIMER_CACHE.equals(call.getArgument(0)) ? timers : new HashMap<>()));
+    when(hazelcast.getMultiMap(OWNER_INDEX)).thenAnswer(call -> multiMap(ownerIndex, HZTimer::getOwnerId));
+    when(hazelcast.getMultiMap(MEMBER_INDEX)).thenAnswer(call -> multiMap(memberIndex, HZTimer::getMemberName));
+
+    HazelcastCore core = mock(HazelcastCore.class);
+    when(core.isEnabled()).thenReturn(true);
+    when(core.getInstance()).thenReturn(hazelcast);
+    when(core.getAttribute(localUuid, HazelcastCore.INSTANCE_ATTRIBUTE)).thenReturn(THIS_INSTANCE);
+
+    store = new HazelcastTimerStore(core);
+  }
+
+  @Test
+  public void createdTimerIsIndexedByOwnerAndMember() throws Exception {
+    createTimer("t1", THIS_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+
+    assertEquals(ids("t1"), ownerIndex.get(THIS_INSTANCE));
+    assertEquals(ids("t1"), memberIndex.get(THIS_INSTANCE));
+    assertEquals(ids("t2"), ownerIndex.get(OTHER_INSTANCE));
+    assertEquals(ids("t2"), memberIndex.get(OTHER_INSTANCE));
+    assertTrue(staleIndexEntries.isEmpty());
+  }
+
+  @Test
+  public void cancelledTimerIsRemovedFromTheIndexes() throws Exception {
+    TimerPrimaryKey cancelled = createTimer("t1", THIS_INSTANCE);
+    createTimer("t2", THIS_INSTANCE);
+
+    store.cancelTimer(cancelled);
+
+    assertNull(timers.get("t1"));
+    assertEquals(ids("t2"), ownerIndex.get(THIS_INSTANCE));
+    assertEquals(ids("t2"), memberIndex.get(THIS_INSTANCE));
+  }
+
+  @Test
+  public void destroyedApplicationTimersAreRemovedFromTheIndexes() throws Exception {
+    createTimer("t1", THIS_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+
+    store.destroyAllTimers(APPLICATION_ID);
+
+    assertTrue(timers.isEmpty());
+    assertEquals(ids(), ownerIndex.get(THIS_INSTANCE));
+    assertEquals(ids(), memberIndex.get(OTHER_INSTANCE));
+  }
+
+  @Test
+  public void listTimersCountsTheTimersOfEachMember() throws Exception {
+    createTimer("t1", THIS_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+    createTimer("t3", OTHER_INSTANCE);
+
+    assertArrayEquals(new String[] {"2", "0", "1"},
+        store.listTimers(new String[] {OTHER_INSTANCE, "instance3", THIS_INSTANCE}));
+  }
+
+  @Test
+  public void migratedTimersAreReindexedUnderThisInstance() throws Exception {
+    createTimer("t1", OTHER_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+    createTimer("t3", THIS_INSTANCE);
+
+    assertEquals(2, store.migrateTimers(OTHER_INSTANCE));
+
+    assertEquals(ids("t1", "t2", "t3"), ownerIndex.get(THIS_INSTANCE));
+    assertEquals(ids("t1", "t2", "t3"), memberIndex.get(THIS_INSTANCE));
+    assertEquals(ids(), ownerIndex.get(OTHER_INSTANCE));
+    assertEquals(ids(), memberIndex.get(OTHER_INSTANCE));
+    assertEquals(THIS_INSTANCE, storedTimer("t1").getOwnerId());
+    assertEquals(THIS_INSTANCE, storedTimer("t1").getMemberName());
+  }
+
+  @Test
+  public void migratedTimersAreStoredBeforeTheyAreReindexed() throws Exception {
+    createTimer("t1", OTHER_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+
+    store.migrateTimers(OTHER_INSTANCE);
+
+    assertEquals("Index entries added before their timers were stored", Collections.emptyList(),
+        staleIndexEntries);
+  }
+
+  @Test
+  public void migrationPrunesIndexEntriesOfRemovedTimers() throws Exception {
+    createTimer("t1", OTHER_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+    timers.remove("t2");
+
+    assertEquals(1, store.migrateTimers(OTHER_INSTANCE));
+
+    assertEquals(ids("t1"), ownerIndex.get(THIS_INSTANCE));
+    assertEquals(ids(), ownerIndex.get(OTHER_INSTANCE));
+  }
+
+  @Test
+  public void timersOfARemovedMemberAreReindexedUnderThisInstance() throws Exception {
+    createTimer("t1", OTHER_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+
+    store.memberRemoved(memberRemovedEvent(OTHER_INSTANCE));
+
+    assertEquals(ids("t1", "t2"), memberIndex.get(THIS_INSTANCE));
+    assertEquals(ids(), memberIndex.get(OTHER_INSTANCE));
+    assertEquals("The owner stays until the timers are migrated", ids("t1", "t2"), ownerIndex.get(OTHER_INSTANCE));
+    assertEquals(THIS_INSTANCE, storedTimer("t1").getMemberName());
+    assertEquals(OTHER_INSTANCE, storedTimer("t1").getOwnerId());
+  }
+
+  @Test
+  public void timersOfARemovedMemberAreStoredBeforeTheyAreReindexed() throws Exception {
+    createTimer("t1", OTHER_INSTANCE);
+    createTimer("t2", OTHER_INSTANCE);
+
+    store.memberRemoved(memberRemovedEvent(OTHER_INSTANCE));
+
+    assertEquals("Index entries added before their timers were stored", Collections.emptyList(),
+        staleIndexEntries);
+  }
+
+  private TimerPrimaryKey createTimer(String timerId, String instance) throws Exception {
+    TimerPrimaryKey key = new TimerPrimaryKey(timerId);
+    store._createTimer(key, CONTAINER_ID, APPLICATION_ID, null, instance,
+        new Date(System.currentTimeMillis() + 3_600_000L), 0, null, new TimerConfig(null, true));
+    return key;
+  }
+
+  private HZTimer storedTimer(String timerId) {
+    return (HZTimer) timers.get(timerId);
+  }
+
+  private MemberEvent memberRemovedEvent(String instance) {
+    MemberEvent event = mock(MemberEvent.class);
+    when(event.getServer()).thenReturn(instance);
+    return event;
+  }
+
+  private static Set<String> ids(String... timerIds) {
+    return new HashSet<>(asList(timerIds));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static IMap<Object, Object> map(Map<Object, Object> entries) {
+    IMap<Object, Object> map = mock(IMap.class);
+    when(map.get(any())).thenAnswer(call -> copy(entries.get(call.getArgument(0))));
+    when(map.put(any(), any())).thenAnswer(call -> entries.put(call.getArgument(0), copy(call.getArgument(1))));
+    when(map.remove(any())).thenAnswer(call -> entries.remove(call.getArgument(0)));
+    when(map.isEmpty()).thenAnswer(call -> entries.isEmpty());
+    when(map.size()).thenAnswer(call -> entries.size());
+    when(map.values()).thenAnswer(call -> copy(new ArrayList<>(entries.values())));
+    when(map.getAll(anySet())).thenAnswer(call -> {
+      Map<Object, Object> result = new HashMap<>();
+      for (Object key : (Set<Object>) call.getArgument(0)) {
+        if (entries.containsKey(key)) {
+          result.put(key, copy(entries.get(key)));
+        }
+      }
+      return result;
+    });
+    when(map.putAllAsync(anyMap())).thenAnswer(call -> {
+      entries.putAll(copy((Map<Object, Object>) call.getArgument(0)));
+      return CompletableFuture.completedFuture(null);
+    });
+    return map;
+  }
+
+  /**
+   * Creates an index that records each entry added while the stored timer does not have the indexed value yet.
+   */
+  @SuppressWarnings("unchecked")
+  private MultiMap<String, String> multiMap(Map<String, Set<String>> entries, Function<HZTimer, String> indexedValue) {
+    MultiMap<String, String> multiMap = mock(MultiMap.class);
+    when(multiMap.put(anyString(), anyString())).thenAnswer(call -> {
+      String key = call.getArgument(0);
+      String timerId = call.getArgument(1);
+      HZTimer stored = storedTimer(timerId);
+      if (stored == null || !key.equals(indexedValue.apply(stored))) {
+        staleIndexEntries.add(key + "=" + timerId);
+      }
+      return entries.computeIfAbsent(key, k -> new HashSet<>()).add(timerId);
+    });
+    when(multiMap.remove(any(), any())).thenAnswer(call -> {
+      Set<String> values = entries.get(call.<String>getArgument(0));
+      return values != null && values.remove(call.<String>getArgument(1));
+    });
+    when(multiMap.get(anyString())).thenAnswer(call ->
+        new ArrayList<>(entries.getOrDefault(call.<String>getArgument(0), Collections.emptySet())));
+    when(multiMap.valueCount(anyString())).thenAnswer(call ->
+        entries.getOrDefault(call.<String>getArgument(0), Collections.emptySet()).size());
+    when(multiMap.size()).thenAnswer(call -> entries.values().stream().mapToInt(Collection::size).sum());
+    return multiMap;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T copy(T value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+        out.writeObject(value);
+      }
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+        return (T) in.readObject();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020-2023 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -74,6 +74,12 @@ public interface MetricsService {
      */
     void refresh();
 
+    /**
+     * @return the number of milliseconds the output of the metrics endpoint may be reused for following requests, 0 if
+     *         the metrics are exported for every request
+     */
+    long getExportCacheTtl();
+
     /**
      * @return a set of all {@link MetricsContext} that currently exist. When applications are undeployed their
      *         {@link MetricsContext} equally are removed which means a name from the set of names returned may indeed
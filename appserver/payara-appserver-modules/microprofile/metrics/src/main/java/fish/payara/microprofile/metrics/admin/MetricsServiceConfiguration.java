@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  * 
- *    Copyright (c) [2018-2019] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2024] Payara Foundation and/or its affiliates. All rights reserved.
  * 
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -107,4 +107,20 @@ public interface MetricsServiceConfiguration extends ConfigBeanProxy, ConfigExte
     String getRoles();
     void setRoles(String value) throws PropertyVetoException;
 
+    /**
+     * @return a String value defines the reservoir of histograms and timers, either exponentially-decaying or
+     * striped-histogram.
+     */
+    @Attribute(defaultValue = "exponentially-decaying", dataType = String.class)
+    String getReservoir();
+    void setReservoir(String value) throws PropertyVetoException;
+
+    /**
+     * @return a String value defines how many milliseconds the output of the metrics endpoint is reused by following
+     * requests, 0 to export the metrics for every request.
+     */
+    @Attribute(defaultValue = "0", dataType = Integer.class)
+    String getExportCacheTtl();
+    void setExportCacheTtl(String value) throws PropertyVetoException;
+
 }
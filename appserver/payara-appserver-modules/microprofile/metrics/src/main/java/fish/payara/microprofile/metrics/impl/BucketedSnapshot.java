@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *    Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/main/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ * 
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ * 
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.microprofile.metrics.Snapshot;
+
+/**
+ * A {@link Snapshot} of a {@link StripedHistogramReservoir}.
+ * <p>
+ * Percentiles are computed by {@link WeightedSnapshot} from one sample per non-empty bucket weighted by the number of
+ * values in the bucket. Count, mean and maximum are exact.
+ */
+public class BucketedSnapshot extends WeightedSnapshot {
+
+    private final long[] bucketUpperBounds;
+    private final long[] bucketCounts;
+    private final long count;
+    private final double mean;
+    private final long max;
+    private final ConfigurationProperties configurationProperties;
+
+    BucketedSnapshot(List<WeightedSample> samples, long[] bucketUpperBounds, long[] bucketCounts, long count,
+            long sum, long max, ConfigurationProperties configurationProperties) {
+        super(samples, configurationProperties);
+        this.bucketUpperBounds = bucketUpperBounds;
+        this.bucketCounts = bucketCounts;
+        this.count = count;
+        this.mean = count == 0 ? 0d : (double) sum / count;
+        this.max = max;
+        this.configurationProperties = configurationProperties;
+    }
+
+    @Override
+    public long size() {
+        return count;
+    }
+
+    @Override
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @param bound a value in the unit of the recorded values
+     * @return the number of recorded values in buckets whose values are all less than or equal to the bound
+     */
+    public long countAtOrBelow(double bound) {
+        long result = 0;
+        for (int i = 0; i < bucketCounts.length && bucketUpperBounds[i] <= bound; i++) {
+            result += bucketCounts[i];
+        }
+        return result;
+    }
+
+    @Override
+    public HistogramBucket[] bucketValues() {
+        if (configurationProperties == null) {
+            return new HistogramBucket[0];
+        }
+        Double[] buckets = configurationProperties.bucketValues();
+        Arrays.sort(buckets);
+        HistogramBucket[] histogramBuckets = new HistogramBucket[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            histogramBuckets[i] = new HistogramBucket(buckets[i], countAtOrBelow(buckets[i]));
+        }
+        return histogramBuckets;
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot[" + size() + "]";
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2023] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -77,7 +77,7 @@ import static fish.payara.microprofile.metrics.impl.MetricRegistryImpl.METRIC_HI
 @Vetoed
 public class HistogramImpl implements Histogram {
 
-    private final ExponentiallyDecayingReservoir reservoir;
+    private final Reservoir reservoir;
     private final LongAdder count;
     private final AtomicLong sum;
     private ConfigurationProperties configurationProperties;
@@ -85,7 +85,13 @@ public class HistogramImpl implements Histogram {
     public HistogramImpl(String metricName, 
                          Map<String, Collection<MetricsCustomPercentiles>> percentilesConfigMap,
                          Map<String, Collection<MetricsCustomBuckets>> bucketsConfigMap) {
-        this();
+        this(metricName, new ExponentiallyDecayingReservoir(), percentilesConfigMap, bucketsConfigMap);
+    }
+
+    public HistogramImpl(String metricName, Reservoir reservoir,
+                         Map<String, Collection<MetricsCustomPercentiles>> percentilesConfigMap,
+                         Map<String, Collection<MetricsCustomBuckets>> bucketsConfigMap) {
+        this(reservoir);
         validateMetricsConfiguration(metricName, percentilesConfigMap, bucketsConfigMap);
     }
 
@@ -102,7 +108,7 @@ public class HistogramImpl implements Histogram {
      *
      * @param reservoir the reservoir to create a histogram from
      */
-    public HistogramImpl(ExponentiallyDecayingReservoir reservoir) {
+    public HistogramImpl(Reservoir reservoir) {
         this.reservoir = reservoir;
         this.count = new LongAdder();
         this.sum = new AtomicLong();
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2023] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -111,6 +111,7 @@ public class MetricRegistryImpl implements MetricRegistry {
     private final ConcurrentMap<String, MetricFamily<?>> metricsFamiliesByName = new ConcurrentHashMap<>();
     private final Clock clock;
     private final List<MetricRegistrationListener> listeners = new ArrayList<>();
+    private volatile ReservoirType reservoirType = ReservoirType.EXPONENTIALLY_DECAYING;
 
     public static final String METRIC_PERCENTILES_PROPERTY = "mp.metrics.distribution.percentiles";
 
@@ -141,6 +142,21 @@ public class MetricRegistryImpl implements MetricRegistry {
         this.clock = clock;
     }
 
+    /**
+     * Sets the type of {@link Reservoir} used by histograms and timers created after this call.
+     *
+     * @param reservoirType the reservoir type, null for the default
+     * @return this registry
+     */
+    public MetricRegistryImpl setReservoirType(ReservoirType reservoirType) {
+        this.reservoirType = reservoirType == null ? ReservoirType.EXPONENTIALLY_DECAYING : reservoirType;
+        return this;
+    }
+
+    public ReservoirType getReservoirType() {
+        return reservoirType;
+    }
+
     public MetricRegistryImpl addListener(MetricRegistrationListener listener) {
         listeners.add(listener);
         return this;
@@ -214,19 +230,19 @@ public class MetricRegistryImpl implements MetricRegistry {
 
     @Override
     public Histogram histogram(String name, Tag... tags) {
-        return findMetricOrCreate(name, Histogram.class.getTypeName(), new HistogramImpl(name, percentilesConfigMap, histogramBucketsConfigMap), tags);
+        return findMetricOrCreate(name, Histogram.class.getTypeName(), new HistogramImpl(name, reservoirType.createReservoir(), percentilesConfigMap, histogramBucketsConfigMap), tags);
     }
 
     @Override
     public Histogram histogram(Metadata metadata, Tag... tags) {
         return findMetricOrCreate(metadata, Histogram.class.getTypeName(),new HistogramImpl(metadata.getName(), 
-                percentilesConfigMap, histogramBucketsConfigMap), tags);
+                reservoirType.createReservoir(), percentilesConfigMap, histogramBucketsConfigMap), tags);
     }
 
     @Override
     public Histogram histogram(String name) {
         return findMetricOrCreate(name, Histogram.class.getTypeName(), 
-                new HistogramImpl(name, percentilesConfigMap, histogramBucketsConfigMap),
+                new HistogramImpl(name, reservoirType.createReservoir(), percentilesConfigMap, histogramBucketsConfigMap),
                 new Tag[0]);
     }
 
@@ -238,7 +254,7 @@ public class MetricRegistryImpl implements MetricRegistry {
     @Override
     public Histogram histogram(MetricID metricID) {
         return findMetricOrCreate(metricID.getName(), Histogram.class.getTypeName(), new HistogramImpl(metricID.getName(), 
-                        percentilesConfigMap, histogramBucketsConfigMap), 
+                        reservoirType.createReservoir(), percentilesConfigMap, histogramBucketsConfigMap), 
                 metricID.getTagsAsArray());
     }
 
@@ -592,11 +608,11 @@ public class MetricRegistryImpl implements MetricRegistry {
         }
 
         if(Histogram.class.getName().equals(metricType)) {
-            return new HistogramImpl();
+            return new HistogramImpl(reservoirType.createReservoir());
         }
 
         if(Timer.class.getName().equals(metricType)) {
-            return new TimerImpl(name, percentilesConfigMap, timerBucketsConfigMap, clock);
+            return new TimerImpl(name, percentilesConfigMap, timerBucketsConfigMap, reservoirType.createReservoir(), clock);
         }
 
         throw new IllegalArgumentException("Invalid metric type : "+metricType);
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2023] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -149,12 +149,14 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         private final MetricRegistryImpl base;
         private final MetricRegistryImpl vendor;
         private final MetricRegistryImpl application;
+        private final ReservoirType reservoirType;
 
         private final ConcurrentMap<String, MetricRegistry> registries = new ConcurrentHashMap<>();
         private final Queue<RegisteredMetric> newlyRegistered = new ConcurrentLinkedQueue<>();
 
-        public MetricsContextImpl(String name) {
+        public MetricsContextImpl(String name, ReservoirType reservoirType) {
             this.name = name;
+            this.reservoirType = reservoirType;
             this.base = (MetricRegistryImpl) getOrCreateRegistry(MetricRegistry.BASE_SCOPE);
             this.vendor = (MetricRegistryImpl)getOrCreateRegistry(MetricRegistry.VENDOR_SCOPE);
             this.application = isServerContext() ? null : (MetricRegistryImpl)getOrCreateRegistry(MetricRegistry.APPLICATION_SCOPE);
@@ -177,7 +179,7 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         public MetricRegistry getOrCreateRegistry(String registryName) throws NoSuchRegistryException {
             MetricRegistry registry = registries.get(registryName);
             if(registry == null) {
-                MetricRegistry created = new MetricRegistryImpl(registryName);
+                MetricRegistry created = new MetricRegistryImpl(registryName).setReservoirType(reservoirType);
                 MetricRegistry referenced = add(registryName, created);
                 if(referenced == null) {
                     return created;
@@ -241,7 +243,7 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         if (!createIfNotExists) {
             return contextByName.get(name);
         }
-        return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key));
+        return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key, getReservoirType()));
     }
 
     @Override
@@ -251,7 +253,7 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         }
         name = appKeyOf(name);
         if (MetricsContext.SERVER_CONTEXT_NAME.equals(name)) {
-            return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key));
+            return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key, getReservoirType()));
         }
         return contextByName.get(name);
     }
@@ -483,6 +485,27 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         return metricsEnabled;
     }
 
+    /**
+     * @return the type of reservoir used by histograms and timers of newly created registries
+     */
+    public ReservoirType getReservoirType() {
+        return metricsServiceConfiguration == null
+                ? ReservoirType.EXPONENTIALLY_DECAYING
+                : ReservoirType.fromConfigValue(metricsServiceConfiguration.getReservoir());
+    }
+
+    @Override
+    public long getExportCacheTtl() {
+        if (metricsServiceConfiguration == null) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(metricsServiceConfiguration.getExportCacheTtl()));
+        } catch (NumberFormatException ex) {
+            return 0L;
+        }
+    }
+
     public void resetMetricsEnabledProperty() {
         metricsEnabled = null;
     }
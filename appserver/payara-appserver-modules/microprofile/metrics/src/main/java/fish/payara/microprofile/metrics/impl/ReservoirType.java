@@ -0,0 +1,99 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *    Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/main/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ * 
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ * 
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import java.util.Locale;
+
+/**
+ * The {@link Reservoir} implementations available for histograms and timers.
+ */
+public enum ReservoirType {
+
+    /**
+     * {@link ExponentiallyDecayingReservoir}, a sample of the values biased towards the last 5 minutes.
+     */
+    EXPONENTIALLY_DECAYING("exponentially-decaying"),
+
+    /**
+     * {@link StripedHistogramReservoir}, counts of all values of the last 5 minutes in logarithmic buckets.
+     */
+    STRIPED_HISTOGRAM("striped-histogram");
+
+    private final String configValue;
+
+    ReservoirType(String configValue) {
+        this.configValue = configValue;
+    }
+
+    /**
+     * @return the value of this type in the metrics service configuration
+     */
+    public String getConfigValue() {
+        return configValue;
+    }
+
+    /**
+     * Creates a new reservoir of this type using the default {@link Clock}.
+     *
+     * @return the new reservoir
+     */
+    public Reservoir createReservoir() {
+        if (this == STRIPED_HISTOGRAM) {
+            return new StripedHistogramReservoir();
+        }
+        return new ExponentiallyDecayingReservoir();
+    }
+
+    /**
+     * @param configValue the value in the metrics service configuration, may be null
+     * @return the type with the given configuration value or name, {@link #EXPONENTIALLY_DECAYING} if there is none
+     */
+    public static ReservoirType fromConfigValue(String configValue) {
+        if (configValue != null) {
+            String value = configValue.trim();
+            for (ReservoirType type : values()) {
+                if (type.configValue.equalsIgnoreCase(value) || type.name().equals(value.toUpperCase(Locale.ENGLISH))) {
+                    return type;
+                }
+            }
+        }
+        return EXPONENTIALLY_DECAYING;
+    }
+}
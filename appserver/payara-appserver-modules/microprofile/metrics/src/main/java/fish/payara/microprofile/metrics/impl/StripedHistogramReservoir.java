@@ -0,0 +1,242 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *    Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/main/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ * 
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ * 
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import fish.payara.microprofile.metrics.impl.WeightedSnapshot.WeightedSample;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.microprofile.metrics.Snapshot;
+
+/**
+ * A {@link Reservoir} counting the values of roughly the last 5 minutes in logarithmic buckets.
+ * <p>
+ * Unlike {@link ExponentiallyDecayingReservoir} this reservoir never takes a lock. Each value increments a counter in
+ * one of 960 buckets, every power of two range being split into 16 buckets so that the relative error of a percentile
+ * is at most 1/16. Counters start in a single stripe; a stripe is added (up to {@value #MAX_STRIPES}) whenever
+ * concurrent updates contend on a counter. The stripes are only merged when a snapshot is taken.
+ * <p>
+ * Values are collected in intervals of 2.5 minutes. A snapshot covers the current and the previous interval.
+ */
+public class StripedHistogramReservoir implements Reservoir {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    static final int MAX_STRIPES = 8;
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(150);
+
+    private static final AtomicReferenceFieldUpdater<StripedHistogramReservoir, Window> WINDOW
+            = AtomicReferenceFieldUpdater.newUpdater(StripedHistogramReservoir.class, Window.class, "window");
+
+    private final Clock clock;
+    private final long interval;
+    private volatile Window window;
+    private volatile ConfigurationProperties configurationProperties;
+
+    public StripedHistogramReservoir() {
+        this(Clock.defaultClock());
+    }
+
+    public StripedHistogramReservoir(Clock clock) {
+        this(clock, INTERVAL);
+    }
+
+    StripedHistogramReservoir(Clock clock, long intervalNanos) {
+        this.clock = clock;
+        this.interval = intervalNanos;
+        this.window = new Window(new Interval(), new Interval(), clock.getTick() + intervalNanos);
+    }
+
+    @Override
+    public int size() {
+        Window current = currentWindow();
+        return (int) Math.min(Integer.MAX_VALUE, current.previous.count() + current.current.count());
+    }
+
+    @Override
+    public void update(long value) {
+        long v = Math.max(0L, value);
+        currentWindow().current.record(bucketIndex(v), v);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        Window current = currentWindow();
+        long[] counts = new long[BUCKET_COUNT];
+        current.previous.addCountsTo(counts);
+        current.current.addCountsTo(counts);
+        List<WeightedSample> samples = new ArrayList<>();
+        long[] upperBounds = new long[BUCKET_COUNT];
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] > 0) {
+                long lower = bucketLowerBound(i);
+                long upper = bucketUpperBound(i);
+                samples.add(new WeightedSample(lower + (upper - lower) / 2, counts[i]));
+                upperBounds[samples.size() - 1] = upper;
+                bucketCounts[samples.size() - 1] = counts[i];
+                count += counts[i];
+            }
+        }
+        int used = samples.size();
+        long max = count == 0 ? 0L : Math.max(current.previous.max.get(), current.current.max.get());
+        return new BucketedSnapshot(samples, Arrays.copyOf(upperBounds, used), Arrays.copyOf(bucketCounts, used),
+                count, current.previous.sum.sum() + current.current.sum.sum(), max, configurationProperties);
+    }
+
+    @Override
+    public void setConfigAdapter(ConfigurationProperties configurationProperties) {
+        this.configurationProperties = configurationProperties;
+    }
+
+    /**
+     * @return the window of the current time, rotating the intervals if the current one has ended
+     */
+    private Window currentWindow() {
+        Window current = window;
+        long tick = clock.getTick();
+        while (tick - current.end >= 0) {
+            Window next = tick - current.end < interval
+                    ? new Window(current.current, new Interval(), current.end + interval)
+                    : new Window(new Interval(), new Interval(), tick + interval);
+            if (WINDOW.compareAndSet(this, current, next)) {
+                return next;
+            }
+            current = window;
+        }
+        return current;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        return (long) ((index & (SUB_BUCKETS - 1)) | SUB_BUCKETS) << shift;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        return ((long) ((index & (SUB_BUCKETS - 1)) | SUB_BUCKETS) + 1 << shift) - 1;
+    }
+
+    private static final class Window {
+
+        final Interval previous;
+        final Interval current;
+        final long end;
+
+        Window(Interval previous, Interval current, long end) {
+            this.previous = previous;
+            this.current = current;
+            this.end = end;
+        }
+    }
+
+    private static final class Interval {
+
+        private static final AtomicReferenceFieldUpdater<Interval, AtomicLongArray[]> STRIPES
+                = AtomicReferenceFieldUpdater.newUpdater(Interval.class, AtomicLongArray[].class, "stripes");
+
+        volatile AtomicLongArray[] stripes = { new AtomicLongArray(BUCKET_COUNT) };
+        final LongAdder sum = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        void record(int bucket, long value) {
+            AtomicLongArray[] current = stripes;
+            AtomicLongArray counts = current[stripe() & (current.length - 1)];
+            long count = counts.get(bucket);
+            if (!counts.compareAndSet(bucket, count, count + 1)) {
+                counts.incrementAndGet(bucket);
+                if (current.length < MAX_STRIPES) {
+                    AtomicLongArray[] grown = Arrays.copyOf(current, current.length << 1);
+                    for (int i = current.length; i < grown.length; i++) {
+                        grown[i] = new AtomicLongArray(BUCKET_COUNT);
+                    }
+                    STRIPES.compareAndSet(this, current, grown);
+                }
+            }
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        void addCountsTo(long[] counts) {
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += stripe.get(i);
+                }
+            }
+        }
+
+        long count() {
+            long count = 0;
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    count += stripe.get(i);
+                }
+            }
+            return count;
+        }
+
+        private static int stripe() {
+            int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2023] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -41,10 +41,13 @@
 package fish.payara.microprofile.metrics.rest;
 
 import fish.payara.microprofile.metrics.MetricsService;
+import fish.payara.microprofile.metrics.MetricsService.MetricsContext;
 import fish.payara.microprofile.metrics.cdi.MetricUtils;
 import fish.payara.microprofile.metrics.exception.NoSuchMetricException;
 import fish.payara.microprofile.metrics.exception.NoSuchRegistryException;
 import fish.payara.microprofile.metrics.writer.MetricsWriter;
+import fish.payara.microprofile.metrics.writer.ExpositionCache;
+import fish.payara.microprofile.metrics.writer.ExpositionCache.Exposition;
 import fish.payara.microprofile.metrics.writer.MetricsWriterImpl;
 import fish.payara.microprofile.metrics.writer.OpenMetricsExporter;
 import jakarta.servlet.ServletException;
@@ -53,7 +56,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.core.MediaType;
 import java.io.IOException;
-import java.io.Writer;
 import java.util.Optional;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -67,6 +69,9 @@ import static jakarta.servlet.http.HttpServletResponse.*;
 import static jakarta.ws.rs.HttpMethod.GET;
 import static jakarta.ws.rs.HttpMethod.OPTIONS;
 import static jakarta.ws.rs.core.HttpHeaders.ACCEPT;
+import static jakarta.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static jakarta.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static jakarta.ws.rs.core.HttpHeaders.VARY;
 import static jakarta.ws.rs.core.MediaType.TEXT_PLAIN;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -81,6 +86,9 @@ public class MetricsResource extends HttpServlet {
     private static final Logger LOG = Logger.getLogger(MetricsResource.class.getName());
     private static final String APPLICATION_WILDCARD = "application/*";
     private static final Pattern PATTERN_Q_PART = Pattern.compile("\\s*q\\s*=\\s*(.+)");
+    private static final String GZIP = "gzip";
+
+    private final ExpositionCache exportCache = new ExpositionCache();
 
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>OPTIONS</code>
@@ -117,8 +125,7 @@ public class MetricsResource extends HttpServlet {
             if (contentType != null) {
                 response.setContentType(contentType);
                 response.setCharacterEncoding(UTF_8.name());
-                MetricsWriter outputWriter = getOutputWriter(request, response, metricsService, contentType);
-                if (outputWriter != null) {
+                if (GET.equalsIgnoreCase(request.getMethod()) && TEXT_PLAIN.equals(contentType)) {
                     if (scopeParameter != null && !scopeParameter.isEmpty()) {
                         String scope;
                         try {
@@ -150,34 +157,103 @@ public class MetricsResource extends HttpServlet {
                         }
 
                         if (availableScope && scope != null && metricName != null) {
-                            outputWriter.write(scope, metricName);
+                            export(request, response, metricsService, scope, metricName);
                         } else if (availableScope) {
-                            outputWriter.write(scope);
+                            export(request, response, metricsService, scope, null);
                         }
                     } else {
-                        outputWriter.write();
+                        export(request, response, metricsService, null, null);
                     }
                 }
             }
         } catch (NoSuchRegistryException ex) {
+            resetContentEncoding(response);
             response.sendError(SC_NOT_FOUND, String.format("[%s] registry not found", scopeParameter));
         } catch (NoSuchMetricException ex) {
+            resetContentEncoding(response);
             response.sendError(SC_NOT_FOUND, String.format("[%s] metric not found", metricName));
         }
     }
 
-    @SuppressWarnings("resource")
-    private static MetricsWriter getOutputWriter(HttpServletRequest request,
-            HttpServletResponse response, MetricsService service, String contentType) throws IOException {
-        Writer writer = response.getWriter();
-        String method = request.getMethod();
-        if (GET.equalsIgnoreCase(method)) {
-            if (TEXT_PLAIN.equals(contentType)) {
-                return new MetricsWriterImpl(new OpenMetricsExporter(writer),
+    /**
+     * Writes the OpenMetrics exposition of the given scope and metric name (null for all) to the response, gzip
+     * compressed if the client accepts it. When the export cache is enabled the exposition is shared with other
+     * requests for the same scope and name.
+     */
+    private void export(HttpServletRequest request, HttpServletResponse response, MetricsService service,
+            String scope, String metricName) throws IOException, NoSuchMetricException {
+        if (scope != null) {
+            // fail before anything is written, the response can not be turned into a 404 once streaming started
+            checkExists(service, scope, metricName);
+        }
+        Exposition exposition = out -> {
+            MetricsWriter writer = new MetricsWriterImpl(new OpenMetricsExporter(out),
                     service.getContextNames(), service::getContext, MetricUtils.resolveGlobalTagsConfiguration());
+            if (scope == null) {
+                writer.write();
+            } else if (metricName == null) {
+                writer.write(scope);
+            } else {
+                writer.write(scope, metricName);
+            }
+        };
+        boolean gzip = acceptsGzip(request.getHeader(ACCEPT_ENCODING));
+        response.addHeader(VARY, ACCEPT_ENCODING);
+        long cacheTtl = service.getExportCacheTtl();
+        if (cacheTtl > 0) {
+            byte[] content = exportCache.get(scope + '/' + metricName, cacheTtl, gzip, exposition);
+            if (gzip) {
+                response.setHeader(CONTENT_ENCODING, GZIP);
             }
+            response.setContentLength(content.length);
+            response.getOutputStream().write(content);
+        } else {
+            if (gzip) {
+                response.setHeader(CONTENT_ENCODING, GZIP);
+            }
+            ExpositionCache.writeTo(response.getOutputStream(), gzip, exposition);
         }
-        return null;
+    }
+
+    /**
+     * Resolves the registries of the given scope in all contexts the way the {@link MetricsWriterImpl} does and checks
+     * that at least one of them has a metric of the given name (if not null).
+     */
+    private static void checkExists(MetricsService service, String scope, String metricName)
+            throws NoSuchRegistryException, NoSuchMetricException {
+        boolean found = false;
+        for (String name : service.getContextNames()) {
+            MetricsContext context = service.getContext(name);
+            if (scope.equals(MetricRegistry.APPLICATION_SCOPE) && context.isServerContext()) {
+                continue;
+            }
+            MetricRegistry registry = context.getOrCreateRegistry(scope);
+            if (metricName != null && registry.getMetadata(metricName) != null) {
+                found = true;
+            }
+        }
+        if (metricName != null && !found) {
+            throw new NoSuchMetricException(metricName);
+        }
+    }
+
+    private static void resetContentEncoding(HttpServletResponse response) {
+        if (!response.isCommitted() && response.containsHeader(CONTENT_ENCODING)) {
+            response.reset();
+        }
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String name = coding.split(";")[0].trim();
+            if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                return parseQValue(coding) > 0;
+            }
+        }
+        return false;
     }
     
     private static String getContentType(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -0,0 +1,205 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *    Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/main/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ * 
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ * 
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ */
+package fish.payara.microprofile.metrics.writer;
+
+import fish.payara.microprofile.metrics.exception.NoSuchMetricException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the encoded output of a metrics export for a short time so that concurrent or closely following scrapes of
+ * the same output share one export instead of each walking all registries.
+ * <p>
+ * While an export is in progress other requests for the same output wait for it to complete. A failed export is not
+ * cached, each waiting request gets the failure.
+ */
+public final class ExpositionCache {
+
+    /**
+     * Writes the exposition of metrics to a {@link Writer}.
+     */
+    @FunctionalInterface
+    public interface Exposition {
+
+        void writeTo(Writer out) throws IOException, NoSuchMetricException;
+    }
+
+    private static final class Entry {
+
+        final long expires;
+        final CompletableFuture<byte[]> content = new CompletableFuture<>();
+
+        Entry(long expires) {
+            this.expires = expires;
+        }
+
+        boolean isExpired(long now) {
+            return now - expires >= 0;
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongSupplier currentTimeMillis;
+
+    public ExpositionCache() {
+        this(System::currentTimeMillis);
+    }
+
+    ExpositionCache(LongSupplier currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * Returns the encoded exposition for the given key, exporting it if there is no cached exposition that is younger
+     * than the given time to live.
+     *
+     * @param key identifies the exposition, for example by scope and metric name
+     * @param timeToLiveMillis how long the exposition may be reused
+     * @param gzip true to return the exposition gzip compressed
+     * @param exposition writes the exposition in case it needs to be exported
+     * @return the UTF-8 encoded, possibly compressed, exposition
+     * @throws IOException if the export failed
+     * @throws NoSuchMetricException if the export failed
+     */
+    public byte[] get(String key, long timeToLiveMillis, boolean gzip, Exposition exposition)
+            throws IOException, NoSuchMetricException {
+        String entryKey = gzip ? key + "\u0000gzip" : key;
+        long now = currentTimeMillis.getAsLong();
+        Entry entry = entries.get(entryKey);
+        if (entry == null || entry.isExpired(now)) {
+            Entry created = new Entry(now + timeToLiveMillis);
+            boolean exporting = entry == null
+                    ? entries.putIfAbsent(entryKey, created) == null
+                    : entries.replace(entryKey, entry, created);
+            if (exporting) {
+                return export(entryKey, created, now, gzip, exposition);
+            }
+            entry = entries.get(entryKey);
+            if (entry == null) {
+                return encode(gzip, exposition);
+            }
+        }
+        try {
+            return entry.content.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for metrics export");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof NoSuchMetricException) {
+                throw (NoSuchMetricException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Metrics export failed", cause);
+        }
+    }
+
+    /**
+     * Removes all cached expositions.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private byte[] export(String entryKey, Entry entry, long now, boolean gzip, Exposition exposition)
+            throws IOException, NoSuchMetricException {
+        try {
+            byte[] content = encode(gzip, exposition);
+            entry.content.complete(content);
+            removeExpired(now);
+            return content;
+        } catch (Throwable ex) {
+            entries.remove(entryKey, entry);
+            entry.content.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private void removeExpired(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now) && entry.content.isDone());
+    }
+
+    /**
+     * Writes the exposition to the given stream encoded as UTF-8 and closes the stream once it has been written. If
+     * the exposition fails the stream is left open, so that the caller can still report the error, though anything
+     * written before the failure may already have been passed on to it.
+     *
+     * @param out the stream to write to
+     * @param gzip true to compress the exposition with gzip
+     * @param exposition the exposition to write
+     * @throws IOException if writing fails
+     * @throws NoSuchMetricException if the exposition refers to a metric that does not exist
+     */
+    public static void writeTo(OutputStream out, boolean gzip, Exposition exposition)
+            throws IOException, NoSuchMetricException {
+        Utf8StreamWriter writer = new Utf8StreamWriter(gzip ? new GZIPOutputStream(out, 8192) : out);
+        boolean written = false;
+        try {
+            exposition.writeTo(writer);
+            written = true;
+        } finally {
+            if (written) {
+                writer.close();
+            } else {
+                writer.discard();
+            }
+        }
+    }
+
+    private static byte[] encode(boolean gzip, Exposition exposition) throws IOException, NoSuchMetricException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        writeTo(bytes, gzip, exposition);
+        return bytes.toByteArray();
+    }
+}
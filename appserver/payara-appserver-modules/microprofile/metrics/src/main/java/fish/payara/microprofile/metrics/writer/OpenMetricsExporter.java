@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020-2023 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,10 +41,13 @@ package fish.payara.microprofile.metrics.writer;
 
 import static fish.payara.microprofile.metrics.MetricUnitsUtils.scaleToBaseUnit;
 
+import fish.payara.microprofile.metrics.impl.BucketedSnapshot;
 import fish.payara.microprofile.metrics.impl.HistogramImpl;
 import fish.payara.microprofile.metrics.impl.TimerImpl;
 import fish.payara.microprofile.metrics.impl.WeightedSnapshot;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -57,6 +60,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
 
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -98,6 +102,8 @@ public class OpenMetricsExporter implements MetricExporter {
     private static final String GC_TOTAL_ID = "gc_total";
     
     private static final String GC_TIME_SECONDS_TOTAL_ID = "gc_time_seconds_total";
+    private static final Pattern INVALID_NAME_CHARS = Pattern.compile("[^a-zA-Z0-9_]+");
+    private static final Pattern COLON_UNDERSCORE = Pattern.compile(":_");
 
     public OpenMetricsExporter(Writer out) {
         this(null, out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out), new HashSet<>(), new HashSet<>());
@@ -220,6 +226,10 @@ public class OpenMetricsExporter implements MetricExporter {
 
     public long evaluateBucketCount(double bucket, Sampling sampling) {
         Snapshot snapshot = sampling.getSnapshot();
+        if (snapshot instanceof BucketedSnapshot) {
+            BucketedSnapshot bucketedSnapshot = (BucketedSnapshot) snapshot;
+            return bucketedSnapshot.countAtOrBelow(sampling instanceof TimerImpl ? bucket * 1000000000D : bucket);
+        }
         if (snapshot instanceof WeightedSnapshot) {
             WeightedSnapshot weightedSnapshot = (WeightedSnapshot) snapshot;
             double[] conversionArray = null;
@@ -302,7 +312,7 @@ public class OpenMetricsExporter implements MetricExporter {
 
     protected void appendValue(String globalName, Tag[] tags, Number value) {
         out.append(globalName);
-        out.append(tagsToString(tags));
+        appendTags(out, tags);
         if(globalName.equals(GC_TOTAL_ID) || globalName.equals(GC_TIME_SECONDS_TOTAL_ID)) {
             out.append(' ').append(value.toString()).append('\n');
         } else {
@@ -333,19 +343,30 @@ public class OpenMetricsExporter implements MetricExporter {
         if (tags.length == 0) {
             return "";
         }
-        String result = "";
-        result += "{";
-        for (int i = 0; i < tags.length; i++) {
-            if (i > 0) {
-                result += ",";
+        StringBuilder result = new StringBuilder();
+        appendTags(result, tags);
+        return result.toString();
+    }
+
+    private static void appendTags(Appendable out, Tag[] tags) {
+        if (tags.length == 0) {
+            return;
+        }
+        try {
+            out.append('{');
+            for (int i = 0; i < tags.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(sanitizeMetricName(tags[i].getTagName())).append("=\"");
+                appendEscapedTagValue(out, tags[i].getTagValue());
+                out.append('"');
             }
-            result += sanitizeMetricName(tags[i].getTagName())
-                    + "=\""
-                    + escapeTagValue(tags[i].getTagValue())
-                    + '"';
+            out.append('}');
+        } catch (IOException ex) {
+            // PrintWriter and StringBuilder do not throw
+            throw new UncheckedIOException(ex);
         }
-        result += "}";
-        return result;
     }
 
     private String globalName(MetricID metricID, Metadata unit) {
@@ -404,8 +425,7 @@ public class OpenMetricsExporter implements MetricExporter {
                 : name + suffix);
     }
 
-    private static CharSequence escapeTagValue(String name) {
-        StringBuilder str = new StringBuilder(name.length());
+    private static void appendEscapedTagValue(Appendable str, String name) throws IOException {
         for (int i = 0; i < name.length(); i++) {
             char c = name.charAt(i);
             if (c == '\n') {
@@ -417,16 +437,28 @@ public class OpenMetricsExporter implements MetricExporter {
                 str.append(c);
             }
         }
-        return str;
     }
 
     public static String sanitizeMetricName(String name) {
+        if (isSanitized(name)) {
+            return name;
+        }
         //Translation rules :
         //All characters not in the range a-z A-Z or 0-9 are translated to underscore (_)
         //Double underscore is translated to single underscore
-        String out = name.replaceAll("[^a-zA-Z0-9_]+", "_");
+        String out = INVALID_NAME_CHARS.matcher(name).replaceAll("_");
         //Colon-underscore (:_) is translated to single colon
-        return out.replaceAll(":_", ":");
+        return COLON_UNDERSCORE.matcher(out).replaceAll(":");
+    }
+
+    private static boolean isSanitized(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private static Tag[] tags(String name, String value, Tag[] rest) {
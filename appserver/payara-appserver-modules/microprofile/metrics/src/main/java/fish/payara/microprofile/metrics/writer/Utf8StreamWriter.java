@@ -0,0 +1,195 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *    Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/main/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ * 
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ * 
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ */
+package fish.payara.microprofile.metrics.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A {@link Writer} that encodes characters as UTF-8 directly into an {@link OutputStream}.
+ * <p>
+ * Unlike an {@link java.io.OutputStreamWriter} no intermediate {@link String} or {@link java.nio.CharBuffer} is
+ * created per write and the byte buffer is taken from a small pool and returned on {@link #close()}, so that exporting
+ * the metrics of a scrape does not allocate buffers proportional to the size of the output.
+ */
+public final class Utf8StreamWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final ArrayBlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(16);
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int position;
+    private char highSurrogate;
+
+    public Utf8StreamWriter(OutputStream out) {
+        this.out = out;
+        byte[] pooled = BUFFERS.poll();
+        this.buffer = pooled != null ? pooled : new byte[BUFFER_SIZE];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+        ensureOpen();
+        for (int i = off; i < off + len; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        int i = off;
+        int end = off + len;
+        while (i < end) {
+            // fast path for ASCII which is what almost all of the exposition consists of
+            int limit = Math.min(end, i + buffer.length - position);
+            while (i < limit && highSurrogate == 0) {
+                char c = str.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                buffer[position++] = (byte) c;
+                i++;
+            }
+            if (i < end) {
+                if (position == buffer.length) {
+                    flushBuffer();
+                } else {
+                    encode(str.charAt(i++));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                encode('?');
+            }
+            flushBuffer();
+            out.close();
+        } finally {
+            BUFFERS.offer(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Returns the buffer to the pool without writing what is left in it and without closing the underlying stream,
+     * for when the output is abandoned part way through.
+     */
+    public void discard() {
+        if (buffer != null) {
+            BUFFERS.offer(buffer);
+            buffer = null;
+            position = 0;
+            highSurrogate = 0;
+        }
+    }
+
+    private void encode(char c) throws IOException {
+        if (buffer.length - position < 4) {
+            flushBuffer();
+        }
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            buffer[position++] = '?';
+            encode(c);
+            return;
+        }
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (buffer == null) {
+            throw new IOException("Writer closed");
+        }
+    }
+}
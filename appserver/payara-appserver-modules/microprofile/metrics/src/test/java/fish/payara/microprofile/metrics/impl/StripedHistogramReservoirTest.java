@@ -0,0 +1,150 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *  Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/main/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ *
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ *
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ *
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ *
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.junit.Test;
+
+/**
+ * Tests the {@link StripedHistogramReservoir} and its {@link BucketedSnapshot}.
+ */
+public class StripedHistogramReservoirTest {
+
+    @Test
+    public void bucketsCoverAllValuesWithoutGaps() {
+        assertEquals(0, StripedHistogramReservoir.bucketIndex(0));
+        assertEquals(StripedHistogramReservoir.BUCKET_COUNT - 1, StripedHistogramReservoir.bucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, StripedHistogramReservoir.bucketUpperBound(StripedHistogramReservoir.BUCKET_COUNT - 1));
+        for (int i = 1; i < StripedHistogramReservoir.BUCKET_COUNT; i++) {
+            long lower = StripedHistogramReservoir.bucketLowerBound(i);
+            assertEquals(StripedHistogramReservoir.bucketUpperBound(i - 1) + 1, lower);
+            assertEquals(i, StripedHistogramReservoir.bucketIndex(lower));
+            assertEquals(i, StripedHistogramReservoir.bucketIndex(StripedHistogramReservoir.bucketUpperBound(i)));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        StripedHistogramReservoir reservoir = new StripedHistogramReservoir();
+        for (long i = 1; i <= 100_000; i++) {
+            reservoir.update(i);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(100_000, snapshot.size());
+        assertEquals(100_000d, snapshot.getMax(), 0d);
+        assertEquals(50_000.5d, snapshot.getMean(), 0.001d);
+        for (Snapshot.PercentileValue percentile : snapshot.percentileValues()) {
+            double expected = percentile.getPercentile() * 100_000;
+            assertEquals(expected, percentile.getValue(), expected / 16);
+        }
+    }
+
+    @Test
+    public void bucketCountsAreExact() {
+        StripedHistogramReservoir reservoir = new StripedHistogramReservoir();
+        ConfigurationProperties properties = new ConfigurationProperties();
+        properties.setBucketValuesFromConfig(new Double[] { 1023d, 10d, 31d });
+        reservoir.setConfigAdapter(properties);
+        for (long i = 0; i < 1000; i++) {
+            reservoir.update(i);
+        }
+        reservoir.update(-5);
+        BucketedSnapshot snapshot = (BucketedSnapshot) reservoir.getSnapshot();
+        Snapshot.HistogramBucket[] buckets = snapshot.bucketValues();
+        assertEquals(3, buckets.length);
+        assertEquals(12, buckets[0].getCount());
+        assertEquals(33, buckets[1].getCount());
+        assertEquals(1001, buckets[2].getCount());
+    }
+
+    @Test
+    public void valuesExpireAfterTwoIntervals() {
+        AtomicLong tick = new AtomicLong();
+        StripedHistogramReservoir reservoir = new StripedHistogramReservoir(tick::get, 100);
+        reservoir.update(1);
+        tick.set(150);
+        reservoir.update(2);
+        assertEquals(2, reservoir.size());
+        tick.set(250);
+        assertEquals(1, reservoir.size());
+        assertEquals(2d, reservoir.getSnapshot().getMax(), 0d);
+        tick.set(1000);
+        reservoir.update(3);
+        assertEquals(1, reservoir.size());
+        assertEquals(3d, reservoir.getSnapshot().getMax(), 0d);
+    }
+
+    @Test
+    public void concurrentUpdatesAreAllCounted() throws InterruptedException {
+        StripedHistogramReservoir reservoir = new StripedHistogramReservoir();
+        int threads = 8;
+        int updates = 100_000;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < updates; i++) {
+                        reservoir.update(i % 64);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(threads * updates, reservoir.size());
+        assertEquals(threads * updates, reservoir.getSnapshot().size());
+    }
+}
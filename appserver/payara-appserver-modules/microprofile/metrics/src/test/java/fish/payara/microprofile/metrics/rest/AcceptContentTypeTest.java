@@ -1,7 +1,7 @@
 /*
  *    DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2020-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2020-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *    The contents of this file are subject to the terms of either the GNU
  *    General Public License Version 2 only ("GPL") or the Common Development
@@ -45,8 +45,11 @@ import org.junit.Test;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.Optional;
 
+import static fish.payara.microprofile.metrics.rest.MetricsResource.acceptsGzip;
 import static fish.payara.microprofile.metrics.rest.MetricsResource.parseMetricsAcceptHeader;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class AcceptContentTypeTest {
     @Test
@@ -82,4 +85,14 @@ public class AcceptContentTypeTest {
         assertEquals(Optional.of("text/plain"),
                 parseMetricsAcceptHeader("text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8"));
     }
+
+    @Test
+    public void gzipEncoding() {
+        assertTrue(acceptsGzip("gzip"));
+        assertTrue(acceptsGzip("deflate, gzip;q=1.0, *;q=0.5"));
+        assertTrue(acceptsGzip("x-gzip"));
+        assertFalse(acceptsGzip(null));
+        assertFalse(acceptsGzip("identity"));
+        assertFalse(acceptsGzip("br, gzip;q=0"));
+    }
 }
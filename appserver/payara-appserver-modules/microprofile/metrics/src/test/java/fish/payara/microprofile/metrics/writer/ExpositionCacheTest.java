@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.metrics.writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import fish.payara.microprofile.metrics.exception.NoSuchMetricException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link ExpositionCache} and the {@link Utf8StreamWriter} it uses.
+ */
+public class ExpositionCacheTest {
+
+    private static final String TEXT = "# TYPE visitors counter\nvisitors{app=\"ä€😀\"} 80\n";
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger exports = new AtomicInteger();
+    private final ExpositionCache cache = new ExpositionCache(now::get);
+
+    @Test
+    public void writesUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExpositionCache.writeTo(out, false, writer -> writer.write(TEXT));
+        assertArrayEquals(TEXT.getBytes(UTF_8), out.toByteArray());
+    }
+
+    @Test
+    public void writesUtf8LargerThanBuffer() throws Exception {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 50_000) {
+            text.append(TEXT);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExpositionCache.writeTo(out, false, writer -> writer.write(text.toString()));
+        assertArrayEquals(text.toString().getBytes(UTF_8), out.toByteArray());
+    }
+
+    @Test
+    public void closesStreamOnlyWhenWritten() throws Exception {
+        ClosingOutputStream out = new ClosingOutputStream();
+        try {
+            ExpositionCache.writeTo(out, true, writer -> {
+                writer.write(TEXT);
+                throw new NoSuchMetricException("visitors");
+            });
+            fail("Expected NoSuchMetricException");
+        } catch (NoSuchMetricException ex) {
+            assertEquals("visitors", ex.getMessage());
+        }
+        assertFalse(out.closed);
+
+        ExpositionCache.writeTo(out, false, this::export);
+        assertTrue(out.closed);
+    }
+
+    @Test
+    public void writesGzip() throws Exception {
+        byte[] content = cache.get("all", 1000, true, this::export);
+        assertEquals(TEXT, gunzip(content));
+    }
+
+    @Test
+    public void reusesExpositionUntilExpired() throws Exception {
+        byte[] first = cache.get("all", 1000, false, this::export);
+        now.set(999);
+        assertSame(first, cache.get("all", 1000, false, this::export));
+        assertEquals(1, exports.get());
+        assertNotSame(first, cache.get("all", 1000, true, this::export));
+        assertEquals(2, exports.get());
+        now.set(1000);
+        assertEquals(TEXT, new String(cache.get("all", 1000, false, this::export), UTF_8));
+        assertEquals(3, exports.get());
+    }
+
+    @Test
+    public void failedExportIsNotCached() throws Exception {
+        try {
+            cache.get("all", 1000, false, writer -> {
+                throw new IOException("failed");
+            });
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            assertEquals("failed", ex.getMessage());
+        }
+        assertEquals(TEXT, new String(cache.get("all", 1000, false, this::export), UTF_8));
+    }
+
+    private void export(Writer writer) throws IOException {
+        exports.incrementAndGet();
+        writer.write(TEXT);
+    }
+
+    private static final class ClosingOutputStream extends ByteArrayOutputStream {
+
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static String gunzip(byte[] content) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), UTF_8);
+        }
+    }
+}
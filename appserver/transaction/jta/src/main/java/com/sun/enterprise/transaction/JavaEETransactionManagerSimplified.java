@@ -38,7 +38,7 @@
  * holder.
  */
 
-// Portions Copyright [2016-2021] [Payara Foundation and/or its affiliates.]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates.]
 
 package com.sun.enterprise.transaction;
 
@@ -145,7 +145,10 @@ public class JavaEETransactionManagerSimplified
 
     // admin and monitoring related parameters
     private  static final Map<Integer, String> statusMap = new HashMap<>();
-    private final List<Transaction> activeTransactions = Collections.synchronizedList(new ArrayList<>());
+    // Keyed by the transactions' own id based hashCode, so begin/complete only contend
+    // on a single bin and removal is O(1). Iteration is weakly consistent and never
+    // blocks the threads registering or completing transactions.
+    private final Set<Transaction> activeTransactions = ConcurrentHashMap.newKeySet();
     private boolean monitoringEnabled = false;
     private ScheduledFuture<?> statisticsMonitoringFuture;
 
@@ -1267,7 +1270,7 @@ public class JavaEETransactionManagerSimplified
     public ArrayList getActiveTransactions() {
         ArrayList<TransactionAdminBean> tranBeans = new ArrayList<>();
         txnTable = new ConcurrentHashMap<>();
-        Transaction[] activeCopy = activeTransactions.toArray(new Transaction[0]); // get the clone of the active transactions
+        Transaction[] activeCopy = activeTransactions.toArray(new Transaction[0]); // non-blocking snapshot of the active transactions
         for (Transaction tran : activeCopy) {
             try {
                 TransactionAdminBean tBean = getDelegate().getTransactionAdminBean(tran);
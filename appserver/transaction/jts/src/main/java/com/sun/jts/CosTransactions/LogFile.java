@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 //----------------------------------------------------------------------------
 //
@@ -102,6 +103,13 @@ class LogFile {
     final static int KEYPOINT_START = 1;
     final static int KEYPOINT_END   = 2;
     final static int REWRITE        = 3;
+
+    /**When set, forced writes from concurrent transactions are forced to
+     * the storage device together (group commit) instead of one at a time.
+     */
+    final static String GROUP_COMMIT_PROPERTY = "com.sun.appserv.transaction.groupcommit";
+
+    static final boolean groupCommit = Boolean.getBoolean(GROUP_COMMIT_PROPERTY);
 	
 	/*
 		Logger to log transaction messages
@@ -137,6 +145,10 @@ class LogFile {
      * <p>
      * The LSN of the written log record is an output parameter.
      * <p>
+     * In group commit mode a forced write only holds the log lock while the
+     * record is buffered, and then waits for a force shared with the records of
+     * other transactions.
+     * <p>
      * Returns true if the write completed successfully and false if the write
      * did not complete.
      *
@@ -149,21 +161,28 @@ class LogFile {
      *
      * @see
      */
-    synchronized boolean write( int    writeType,
-                                byte[] record,
-                                int    recordType,
-                                LogLSN recordLSN ) {
+    boolean write( int    writeType,
+                   byte[] record,
+                   int    recordType,
+                   LogLSN recordLSN ) {
 
         boolean result = true;
+        boolean groupForce = groupCommit && writeType == LogFile.FORCED;
 
         // Write the record.
         // Set the result based on return code from log write.
 
         try {
-            LogLSN resultLSN = handle.writeRecord(record,recordType,
-                                                  (writeType==LogFile.FORCED ? LogHandle.FORCE : LogHandle.BUFFER));
-            if( recordLSN != null )
-                recordLSN.copy(resultLSN);
+            long sequence;
+            synchronized( this ) {
+                LogLSN resultLSN = handle.writeRecord(record,recordType,
+                                                      (writeType==LogFile.FORCED && !groupForce ? LogHandle.FORCE : LogHandle.BUFFER));
+                sequence = handle.getWriteSequence();
+                if( recordLSN != null )
+                    recordLSN.copy(resultLSN);
+            }
+            if( groupForce )
+                handle.groupForce(sequence);
         } catch( LogException le ) {
 			_logger.log(Level.SEVERE,"jts.log_error",le.toString());
 			 String msg = LogFormatter.getLocalizedMessage(_logger,"jts.log_error",
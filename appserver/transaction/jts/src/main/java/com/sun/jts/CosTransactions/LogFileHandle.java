@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 //----------------------------------------------------------------------------
 //
@@ -66,6 +67,7 @@ package com.sun.jts.CosTransactions;
 
 import com.sun.enterprise.util.i18n.StringManager;
 import java.io.*;
+import java.nio.ByteBuffer;
 import org.glassfish.hk2.utilities.CleanerFactory;
 import java.sql.SQLException;
 
@@ -146,6 +148,11 @@ class LogFileHandle {
     int bufferUpdateEnd   = -1;
     int buffPos = 0;
 
+    /**Set when buffered data has been written to the file by fileFlush
+     * but not yet forced to the storage device.
+     */
+    private volatile boolean flushedSinceForce = false;
+
     static {
         dsyncProp = System.getProperty(DSYNC_PROPERTY);
         if (dsyncProp != null) {
@@ -410,12 +417,14 @@ class LogFileHandle {
             // If buffered, then ensure that the buffer is stored and synced with the
             // file system.
 
-            if( bufferUpdateStart != -1 )
+            if( bufferUpdateStart != -1 || flushedSinceForce )
                 fileSync();
 
             // Close the file.
 
-            fhandle.close();
+            synchronized( this ) {
+                fhandle.close();
+            }
         } catch( Throwable e ) {
             throw new LogException(LogException.LOG_CLOSE_FAILURE,1,
                     sm.getString("jts.log_close_failed"), e);
@@ -482,18 +491,23 @@ class LogFileHandle {
      *
      * @see
      */
-    void fileSync() throws LogException {
+    synchronized void fileSync() throws LogException {
 
         // Synchronization is only done for buffered files which have been updated.
         // Non-buffered files have every write synchronized with the file system.
+        // This is synchronized with fileForce, so that a group commit leader
+        // cannot find flushedSinceForce cleared before this sync has completed.
 
-        if( bufferUpdateStart != -1 )
+        if( bufferUpdateStart != -1 || flushedSinceForce )
             try {
-                fhandle.seek(bufferUpdateStart);
-                fhandle.write(bufferData,bufferUpdateStart,bufferUpdateEnd-bufferUpdateStart);
+                if( bufferUpdateStart != -1 ) {
+                    fhandle.seek(bufferUpdateStart);
+                    fhandle.write(bufferData,bufferUpdateStart,bufferUpdateEnd-bufferUpdateStart);
+                }
                 if (dsyncProp == null)
                     fd.sync();
 
+                flushedSinceForce = false;
                 bufferUpdateStart = -1;
                 bufferUpdateEnd   = -1;
             } catch (Throwable e) {
@@ -503,6 +517,90 @@ class LogFileHandle {
 
     }
 
+    /**Writes the updated part of the buffer to the file with a single
+     * positional FileChannel write, without forcing it to the storage device.
+     * <p>
+     * This is the part of a group commit done while the log is locked; the
+     * expensive fileForce is done afterwards without the log lock, so that
+     * other transactions can add their records in the meantime.
+     *
+     * @param
+     *
+     * @return  true if anything was written and needs forcing.
+     *
+     * @exception LogException The write failed
+     *
+     * @see
+     */
+    boolean fileFlush() throws LogException {
+
+        // Non-buffered files have every write synchronized with the file system.
+
+        if( !buffered )
+            return false;
+
+        if( bufferUpdateStart != -1 )
+            try {
+                ByteBuffer data = ByteBuffer.wrap(bufferData,bufferUpdateStart,bufferUpdateEnd-bufferUpdateStart);
+                long position = bufferUpdateStart;
+                while( data.hasRemaining() )
+                    position += fhandle.getChannel().write(data,position);
+
+                flushedSinceForce = true;
+                bufferUpdateStart = -1;
+                bufferUpdateEnd   = -1;
+            } catch (Throwable e) {
+                throw new LogException(LogException.LOG_WRITE_FAILURE,1,
+                        sm.getString("jts.log_write_failed"), e);
+            }
+
+        return flushedSinceForce;
+    }
+
+    /**Checks whether the file has data which is not yet on the storage device.
+     *
+     * @param
+     *
+     * @return  true if buffered or flushed data still has to be forced.
+     *
+     * @see
+     */
+    boolean isForceNeeded() {
+        return bufferUpdateStart != -1 || flushedSinceForce;
+    }
+
+    /**Forces data written by fileFlush to the storage device.
+     * <p>
+     * This may be called without holding the log lock. It is synchronized
+     * with fileSync and fileClose, so a cleared flushedSinceForce always means
+     * the data is already on the storage device, and the file is not closed
+     * underneath it; a file closed in the meantime has already been synced.
+     * The flag is cleared before forcing because fileFlush may set it again
+     * concurrently for data that this force might not cover.
+     *
+     * @param
+     *
+     * @return
+     *
+     * @exception LogException The force failed
+     *
+     * @see
+     */
+    synchronized void fileForce() throws LogException {
+        if( fhandle == null || !flushedSinceForce )
+            return;
+
+        flushedSinceForce = false;
+        try {
+            if (dsyncProp == null)
+                fhandle.getChannel().force(true);
+        } catch (Throwable e) {
+            flushedSinceForce = true;
+            throw new LogException(LogException.LOG_READ_FAILURE,1,
+                    sm.getString("jts.log_file_sync_failed"), e);
+        }
+    }
+
     /**Reads a vector of records from the file.
      *
      * @param vector  The vector to contain the records to be read.
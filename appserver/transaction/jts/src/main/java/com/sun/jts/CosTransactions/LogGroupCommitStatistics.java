@@ -0,0 +1,133 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.logging.LogDomains;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+
+/**
+ * Collects batch size and force latency of group commits, for all logs of
+ * the server.
+ */
+final class LogGroupCommitStatistics implements LogGroupCommitMXBean {
+
+    static final String OBJECT_NAME = "com.sun.jts:type=LogGroupCommit";
+
+    private static final Logger _logger = LogDomains.getLogger(LogGroupCommitStatistics.class,
+            LogDomains.TRANSACTION_LOGGER);
+
+    private long forceCount;
+    private long recordsForced;
+    private long maxBatchSize;
+    private long forceNanos;
+    private long maxForceNanos;
+
+    private static final class Holder {
+        static final LogGroupCommitStatistics INSTANCE = register(new LogGroupCommitStatistics());
+    }
+
+    /**Returns the statistics, registering them as an MBean on first use.
+     */
+    static LogGroupCommitStatistics getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static LogGroupCommitStatistics register(LogGroupCommitStatistics statistics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            _logger.log(Level.FINE, "Unable to register the transaction log group commit MBean", e);
+        }
+        return statistics;
+    }
+
+    /**Records a group force.
+     *
+     * @param records  The number of records made durable by the force.
+     * @param nanos    The time taken by the flush and force.
+     */
+    synchronized void forced(long records, long nanos) {
+        forceCount++;
+        recordsForced += records;
+        maxBatchSize = Math.max(maxBatchSize, records);
+        forceNanos += nanos;
+        maxForceNanos = Math.max(maxForceNanos, nanos);
+
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.log(Level.FINEST, "Forced {0} transaction log records in {1} us",
+                    new Object[] {records, TimeUnit.NANOSECONDS.toMicros(nanos)});
+        }
+    }
+
+    @Override
+    public synchronized long getForceCount() {
+        return forceCount;
+    }
+
+    @Override
+    public synchronized long getRecordsForced() {
+        return recordsForced;
+    }
+
+    @Override
+    public synchronized double getAverageBatchSize() {
+        return forceCount == 0 ? 0 : (double) recordsForced / forceCount;
+    }
+
+    @Override
+    public synchronized long getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public synchronized double getAverageForceLatencyMicros() {
+        return forceCount == 0 ? 0 : forceNanos / 1000.0 / forceCount;
+    }
+
+    @Override
+    public synchronized long getMaxForceLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxForceNanos);
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018] [Payara Foundation]
+// Portions Copyright [2018-2024] [Payara Foundation and/or its affiliates]
 
 //----------------------------------------------------------------------------
 //
@@ -239,6 +239,17 @@ class LogHandle {
     LogControlDescriptor logControlDescriptor = null;
     LogControl           logControl = null;
 
+    /**Number of records written to the log, used as the group commit ticket.
+     */
+    long                 writeSequence = 0;
+
+    /**Group commit state, guarded by forceLock rather than this LogHandle so
+     * that records can be written while a group force is in progress.
+     */
+    private final Object forceLock = new Object();
+    private long         durableSequence = 0;
+    private boolean      forceInProgress = false;
+
 
     /**Creates a LogHandle object for the given log instance.
      *
@@ -589,6 +600,7 @@ class LogHandle {
         // Increment the RecordsWritten counter in Log_FileDescriptor block
 
         recordsWritten++;
+        writeSequence++;
 
         // IF RecordsWritten = LOG_CONTROL_FORCE_INTERVAL or LOG_FORCE was specified
         //   Write the Log_ControlDescriptor structure (embedded in the
@@ -614,6 +626,128 @@ class LogHandle {
         return result;
     }
 
+    /**Returns the group commit ticket of the last record written.
+     *
+     * @param
+     *
+     * @return  The number of records written to the log.
+     *
+     * @see
+     */
+    synchronized long getWriteSequence() {
+        return writeSequence;
+    }
+
+    /**Returns the group commit ticket up to which records have been forced
+     * by groupForce.
+     *
+     * @param
+     *
+     * @return  The number of records known to be on the storage device.
+     *
+     * @see
+     */
+    long getDurableSequence() {
+        synchronized( forceLock ) {
+            return durableSequence;
+        }
+    }
+
+    /**Waits until the record with the given group commit ticket is on the
+     * storage device.
+     * <p>
+     * If no other thread is forcing the log, the caller forces every record
+     * written so far, including those of other transactions, with one flush
+     * and one force per dirty extent. Otherwise it waits for the force in
+     * progress and returns as soon as a force has covered its record. Only
+     * the flush holds this LogHandle's lock, so other transactions can write
+     * their records while the force runs and join the next group.
+     *
+     * @param sequence  The ticket returned by getWriteSequence after writing.
+     *
+     * @return
+     *
+     * @exception LogException The force failed.
+     *
+     * @see
+     */
+    void groupForce( long sequence )
+        throws LogException {
+
+        boolean interrupted = false;
+        try {
+            synchronized( forceLock ) {
+                while( durableSequence < sequence && forceInProgress ) {
+                    try {
+                        forceLock.wait();
+                    } catch( InterruptedException e ) {
+                        // The record must be durable before returning, keep waiting.
+                        interrupted = true;
+                    }
+                }
+                if( durableSequence >= sequence )
+                    return;
+                forceInProgress = true;
+            }
+
+            long startTime = System.nanoTime();
+            long target = 0;
+            boolean forced = false;
+            List<LogExtent> flushed = new ArrayList<>();
+            try {
+
+                // Write the buffered records of every dirty extent to the file while
+                // holding the log lock, then force them without it.
+
+                synchronized( this ) {
+                    target = writeSequence;
+
+                    // A closed log has already forced its extents.
+
+                    Enumeration extents = extentTable.elements();
+                    while( blockValid == this && extents.hasMoreElements() ) {
+                        LogExtent nextEDP = (LogExtent)extents.nextElement();
+                        if( nextEDP.writtenSinceLastForce ) {
+                            if( nextEDP.fileHandle.fileFlush() )
+                                flushed.add(nextEDP);
+                            else
+                                nextEDP.writtenSinceLastForce = false;
+                        }
+                    }
+                }
+
+                for( LogExtent nextEDP : flushed )
+                    nextEDP.fileHandle.fileForce();
+
+                // Records written during the force keep their extent marked as
+                // written, and are forced by the next group.
+
+                synchronized( this ) {
+                    for( LogExtent nextEDP : flushed )
+                        if( !nextEDP.fileHandle.isForceNeeded() )
+                            nextEDP.writtenSinceLastForce = false;
+                }
+                forced = true;
+            } catch( LogException le ) {
+                throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14,
+                        sm.getString("jts.log_file_sync_failed"), le);
+            } finally {
+                synchronized( forceLock ) {
+                    if( forced ) {
+                        LogGroupCommitStatistics.getInstance().forced(target - durableSequence,
+                                System.nanoTime() - startTime);
+                        durableSequence = Math.max(durableSequence, target);
+                    }
+                    forceInProgress = false;
+                    forceLock.notifyAll();
+                }
+            }
+        } finally {
+            if( interrupted )
+                Thread.currentThread().interrupt();
+        }
+    }
+
     /**Reads a record from the log.
      *
      * @param readLSN  The LSN of the record to be read.
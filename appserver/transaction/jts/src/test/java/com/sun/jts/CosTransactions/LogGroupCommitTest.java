@@ -0,0 +1,309 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.jts.CosTransactions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the group commit of forced transaction log writes by {@link LogHandle#groupForce(long)}.
+ */
+public class LogGroupCommitTest {
+
+    private static final String LOG_NAME = "groupcommit";
+
+    private File directory;
+    private LogFile logFile;
+    private LogHandle handle;
+
+    @Before
+    public void openLog() throws IOException {
+        directory = Files.createTempDirectory("jts-group-commit").toFile();
+        logFile = open();
+        handle = logFile.handle;
+    }
+
+    @After
+    public void deleteLog() throws IOException {
+        if (handle.blockValid == handle) {
+            logFile.close(true);
+        }
+        // Closing the log with deleteFile set normally removes it already
+        if (!directory.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void forceCoversEveryRecordWrittenBefore() throws LogException {
+        long first = write("first");
+        write("second");
+        long last = write("third");
+        long forces = LogGroupCommitStatistics.getInstance().getForceCount();
+        long records = LogGroupCommitStatistics.getInstance().getRecordsForced();
+
+        handle.groupForce(first);
+
+        assertEquals(last, handle.getDurableSequence());
+        assertEquals(forces + 1, LogGroupCommitStatistics.getInstance().getForceCount());
+        assertEquals(records + 3, LogGroupCommitStatistics.getInstance().getRecordsForced());
+        assertNothingToForce();
+    }
+
+    @Test
+    public void durableRecordsAreNotForcedAgain() throws LogException {
+        handle.groupForce(write("record"));
+        long forces = LogGroupCommitStatistics.getInstance().getForceCount();
+
+        handle.groupForce(handle.getWriteSequence());
+
+        assertEquals(forces, LogGroupCommitStatistics.getInstance().getForceCount());
+    }
+
+    @Test
+    public void recordsWrittenAfterAForceAreForcedByTheNext() throws LogException {
+        long first = write("first");
+        handle.groupForce(first);
+        long second = write("second");
+
+        assertEquals(first, handle.getDurableSequence());
+        assertTrue(isForceNeeded());
+
+        handle.groupForce(second);
+
+        assertEquals(second, handle.getDurableSequence());
+        assertNothingToForce();
+    }
+
+    @Test
+    public void concurrentForcesReturnOnlyOnceTheirRecordIsDurable() throws Exception {
+        int threads = 16;
+        int recordsPerThread = 200;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        // The durable sequence must only ever grow, and never pass the records written.
+        Thread observer = new Thread(() -> {
+            long previous = 0;
+            while (running.get()) {
+                long durable = handle.getDurableSequence();
+                if (durable < previous || durable > handle.getWriteSequence()) {
+                    failure.compareAndSet(null, new AssertionError(
+                            "Durable sequence moved from " + previous + " to " + durable));
+                }
+                previous = durable;
+            }
+        });
+        observer.start();
+
+        List<Thread> committers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String prefix = "t" + t + "-";
+            committers.add(start(() -> {
+                for (int i = 0; i < recordsPerThread; i++) {
+                    long ticket = write(prefix + i);
+                    handle.groupForce(ticket);
+                    long durable = handle.getDurableSequence();
+                    if (durable < ticket) {
+                        throw new AssertionError("Ticket " + ticket + " returned at " + durable);
+                    }
+                }
+                return null;
+            }, failure));
+        }
+        for (Thread committer : committers) {
+            committer.join(TimeUnit.MINUTES.toMillis(1));
+        }
+        running.set(false);
+        observer.join();
+
+        assertNull(String.valueOf(failure.get()), failure.get());
+        long total = (long) threads * recordsPerThread;
+        assertEquals(total, handle.getWriteSequence());
+        assertEquals(total, handle.getDurableSequence());
+        assertNothingToForce();
+        assertEquals(total, logFile.getLogRecords().size());
+    }
+
+    @Test
+    public void forcesRaceWithSyncsAndClose() throws Exception {
+        int threads = 8;
+        Set<String> acknowledged = ConcurrentHashMap.newKeySet();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(threads + 1);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String prefix = "t" + t + "-";
+            writers.add(start(() -> {
+                started.countDown();
+                for (int i = 0; ; i++) {
+                    String record = prefix + i;
+                    long ticket;
+                    try {
+                        ticket = write(record);
+                    } catch (LogException e) {
+                        // The log has been closed.
+                        return null;
+                    }
+                    handle.groupForce(ticket);
+                    acknowledged.add(record);
+                }
+            }, failure));
+        }
+
+        // Forced writes sync each extent in fileSync while group forces are running.
+        writers.add(start(() -> {
+            started.countDown();
+            for (int i = 0; ; i++) {
+                String record = "sync-" + i;
+                try {
+                    synchronized (logFile) {
+                        handle.writeRecord(bytes(record), LogFile.NORMAL, LogHandle.FORCE);
+                    }
+                } catch (LogException e) {
+                    return null;
+                }
+                acknowledged.add(record);
+            }
+        }, failure));
+
+        started.await();
+        Thread.sleep(500);
+        synchronized (logFile) {
+            handle.closeFile(false);
+        }
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.MINUTES.toMillis(1));
+            assertFalse(writer.isAlive());
+        }
+        assertNull(String.valueOf(failure.get()), failure.get());
+        assertFalse(acknowledged.isEmpty());
+
+        // Every acknowledged record is in the log when it is opened again.
+        logFile = open();
+        handle = logFile.handle;
+        Set<String> logged = new HashSet<>();
+        for (Object record : logFile.getLogRecords()) {
+            logged.add(new String((byte[]) record, StandardCharsets.UTF_8));
+        }
+        assertTrue(logged.containsAll(acknowledged));
+    }
+
+    private LogFile open() {
+        Log log = new Log(directory.getAbsolutePath());
+        log.initialise();
+        return log.open(LOG_NAME, null);
+    }
+
+    /**
+     * Buffers a record like a forced {@link LogFile#write} in group commit mode.
+     *
+     * @return the group commit ticket of the record
+     */
+    private long write(String record) throws LogException {
+        synchronized (logFile) {
+            handle.writeRecord(bytes(record), LogFile.NORMAL, LogHandle.BUFFER);
+            return handle.getWriteSequence();
+        }
+    }
+
+    private boolean isForceNeeded() {
+        synchronized (handle) {
+            Enumeration extents = handle.extentTable.elements();
+            while (extents.hasMoreElements()) {
+                LogExtent extent = (LogExtent) extents.nextElement();
+                if (extent.writtenSinceLastForce || extent.fileHandle.isForceNeeded()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void assertNothingToForce() {
+        assertFalse(isForceNeeded());
+    }
+
+    private static byte[] bytes(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Thread start(java.util.concurrent.Callable<Void> task, AtomicReference<Throwable> failure) {
+        Thread thread = new Thread(() -> {
+            try {
+                task.call();
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.web.admin.monitor;
+
+import java.util.function.LongSupplier;
+
+import org.glassfish.external.statistics.CountStatistic;
+import org.glassfish.external.statistics.RangeStatistic;
+import org.glassfish.external.statistics.impl.CountStatisticImpl;
+import org.glassfish.external.statistics.impl.RangeStatisticImpl;
+import org.glassfish.external.statistics.impl.StatisticImpl;
+import org.glassfish.gmbal.AMXMetadata;
+import org.glassfish.gmbal.Description;
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedObject;
+
+/**
+ * Provides the statistics of the static resource cache of a web module.
+ * <p>
+ * The cache is polled when the statistics are read, so that lookups do not
+ * fire probe events.
+ */
+@AMXMetadata(type="resource-cache-mon", group="monitoring")
+@ManagedObject
+@Description("Web Module Resource Cache Statistics")
+public class ResourceCacheStatsProvider {
+
+    private static final String ACCESS_COUNT_DESCRIPTION =
+        "Total number of lookups in the resource cache";
+    private static final String HIT_COUNT_DESCRIPTION =
+        "Total number of lookups answered by the resource cache";
+    private static final String HIT_RATIO_DESCRIPTION =
+        "Percentage of the lookups answered by the resource cache";
+    private static final String CACHE_SIZE_DESCRIPTION =
+        "Current size of the resource cache in KB";
+
+    private final LongSupplier accessCount;
+    private final LongSupplier hitCount;
+    private final LongSupplier cacheSize;
+
+    private final CountStatisticImpl accessCountStatistic;
+    private final CountStatisticImpl hitCountStatistic;
+    private final RangeStatisticImpl hitRatioStatistic;
+    private final RangeStatisticImpl cacheSizeStatistic;
+
+    public ResourceCacheStatsProvider(LongSupplier accessCount,
+            LongSupplier hitCount, LongSupplier cacheSize) {
+        this.accessCount = accessCount;
+        this.hitCount = hitCount;
+        this.cacheSize = cacheSize;
+        long curTime = System.currentTimeMillis();
+        accessCountStatistic = new CountStatisticImpl(
+                "ResourceCacheAccessCount", StatisticImpl.UNIT_COUNT,
+                ACCESS_COUNT_DESCRIPTION);
+        hitCountStatistic = new CountStatisticImpl(
+                "ResourceCacheHitCount", StatisticImpl.UNIT_COUNT,
+                HIT_COUNT_DESCRIPTION);
+        hitRatioStatistic = new RangeStatisticImpl(
+                0L, 0L, 0L, "ResourceCacheHitRatio", StatisticImpl.UNIT_COUNT,
+                HIT_RATIO_DESCRIPTION, curTime, curTime);
+        cacheSizeStatistic = new RangeStatisticImpl(
+                0L, 0L, 0L, "ResourceCacheSize", StatisticImpl.UNIT_COUNT,
+                CACHE_SIZE_DESCRIPTION, curTime, curTime);
+    }
+
+    @ManagedAttribute(id="resourcecacheaccesscount")
+    @Description(ACCESS_COUNT_DESCRIPTION)
+    public CountStatistic getAccessCount() {
+        accessCountStatistic.setCount(accessCount.getAsLong());
+        return accessCountStatistic;
+    }
+
+    @ManagedAttribute(id="resourcecachehitcount")
+    @Description(HIT_COUNT_DESCRIPTION)
+    public CountStatistic getHitCount() {
+        hitCountStatistic.setCount(hitCount.getAsLong());
+        return hitCountStatistic;
+    }
+
+    @ManagedAttribute(id="resourcecachehitratio")
+    @Description(HIT_RATIO_DESCRIPTION)
+    public RangeStatistic getHitRatio() {
+        long accesses = accessCount.getAsLong();
+        long hits = hitCount.getAsLong();
+        synchronized (hitRatioStatistic) {
+            hitRatioStatistic.setCurrent(accesses > 0 ? hits * 100 / accesses : 0L);
+        }
+        return hitRatioStatistic;
+    }
+
+    @ManagedAttribute(id="resourcecachesize")
+    @Description(CACHE_SIZE_DESCRIPTION)
+    public RangeStatistic getCacheSize() {
+        synchronized (cacheSizeStatistic) {
+            cacheSizeStatistic.setCurrent(cacheSize.getAsLong());
+        }
+        return cacheSizeStatistic;
+    }
+}
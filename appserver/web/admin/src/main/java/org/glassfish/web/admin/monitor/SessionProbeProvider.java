@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.web.admin.monitor;
 
@@ -86,6 +87,14 @@ public class SessionProbeProvider {
         @ProbeParam("appName") String appName,
         @ProbeParam("hostName") String hostName) {}
 
+    @Probe(name="sessionReplicatedEvent")
+    public void sessionReplicatedEvent(
+        @ProbeParam("sessionId") String sessionId,
+        @ProbeParam("replicatedBytes") long replicatedBytes,
+        @ProbeParam("savedBytes") long savedBytes,
+        @ProbeParam("appName") String appName,
+        @ProbeParam("hostName") String hostName) {}
+
     @Probe(name="sessionActivatedStartEvent")
     public void sessionActivatedStartEvent(
         @ProbeParam("sessionId") String sessionId,
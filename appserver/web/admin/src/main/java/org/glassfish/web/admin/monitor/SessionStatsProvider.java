@@ -38,7 +38,7 @@
  * holder.
  */
 
-// Portions Copyright [2016] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.web.admin.monitor;
 
@@ -82,6 +82,14 @@ public class SessionStatsProvider{
         "Total number of sessions ever passivated";
     private static final String ACTIVATED_SESSIONS_DESCRIPTION =
         "Total number of sessions ever activated";
+    private static final String REPLICATED_BYTES_DESCRIPTION =
+        "Total number of bytes of session state replicated by saves of changed attributes";
+    private static final String REPLICATION_SAVED_BYTES_DESCRIPTION =
+        "Estimated total number of bytes not replicated because only changed attributes were replicated or the state was compressed";
+    private static final String SESSION_CREATION_RATE_DESCRIPTION =
+        "Number of sessions created per second";
+    private static final String SESSION_EXPIRATION_RATE_DESCRIPTION =
+        "Number of sessions expired per second";
 
     private String moduleName;
     private String vsName;
@@ -93,6 +101,10 @@ public class SessionStatsProvider{
     private CountStatisticImpl persistedSessionsTotal;
     private CountStatisticImpl passivatedSessionsTotal;
     private CountStatisticImpl activatedSessionsTotal;
+    private CountStatisticImpl replicatedBytesTotal;
+    private CountStatisticImpl replicationSavedBytesTotal;
+    private ThroughputStatistic sessionCreationRate;
+    private ThroughputStatistic sessionExpirationRate;
     private ThreadLocal<String> sessionIdThreadLocal;
         
     public SessionStatsProvider(String moduleName, String vsName) {      
@@ -120,6 +132,16 @@ public class SessionStatsProvider{
         activatedSessionsTotal = new CountStatisticImpl(
                 "ActivatedSessionsTotal", StatisticImpl.UNIT_COUNT,
                 ACTIVATED_SESSIONS_DESCRIPTION);
+        replicatedBytesTotal = new CountStatisticImpl(
+                "ReplicatedBytesTotal", StatisticImpl.UNIT_COUNT,
+                REPLICATED_BYTES_DESCRIPTION);
+        replicationSavedBytesTotal = new CountStatisticImpl(
+                "ReplicationSavedBytesTotal", StatisticImpl.UNIT_COUNT,
+                REPLICATION_SAVED_BYTES_DESCRIPTION);
+        sessionCreationRate = new ThroughputStatistic(sessionsTotal,
+                "SessionCreationRate", SESSION_CREATION_RATE_DESCRIPTION, curTime);
+        sessionExpirationRate = new ThroughputStatistic(expiredSessionsTotal,
+                "SessionExpirationRate", SESSION_EXPIRATION_RATE_DESCRIPTION, curTime);
     }
     
     @ManagedAttribute(id="activesessionscurrent")
@@ -164,6 +186,30 @@ public class SessionStatsProvider{
         return activatedSessionsTotal;
     }
    
+    @ManagedAttribute(id="replicatedbytestotal")
+    @Description(REPLICATED_BYTES_DESCRIPTION)
+    public CountStatistic getReplicatedBytesTotal() {
+        return replicatedBytesTotal;
+    }
+
+    @ManagedAttribute(id="replicationsavedbytestotal")
+    @Description(REPLICATION_SAVED_BYTES_DESCRIPTION)
+    public CountStatistic getReplicationSavedBytesTotal() {
+        return replicationSavedBytesTotal;
+    }
+
+    @ManagedAttribute(id="sessioncreationrate")
+    @Description(SESSION_CREATION_RATE_DESCRIPTION)
+    public RangeStatistic getSessionCreationRate() {
+        return sessionCreationRate.update();
+    }
+
+    @ManagedAttribute(id="sessionexpirationrate")
+    @Description(SESSION_EXPIRATION_RATE_DESCRIPTION)
+    public RangeStatistic getSessionExpirationRate() {
+        return sessionExpirationRate.update();
+    }
+
     @ProbeListener("glassfish:web:session:sessionCreatedEvent")
     public void sessionCreatedEvent(
             @ProbeParam("sessionId") String sessionId,
@@ -263,6 +309,26 @@ public class SessionStatsProvider{
         }
     }
 
+    @ProbeListener("glassfish:web:session:sessionReplicatedEvent")
+    public void sessionReplicatedEvent(
+            @ProbeParam("sessionId") String sessionId,
+            @ProbeParam("replicatedBytes") long replicatedBytes,
+            @ProbeParam("savedBytes") long savedBytes,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("hostName") String hostName){
+
+        if (logger.isLoggable(Level.FINEST)) {
+            logger.finest("[TM]sessionReplicatedEvent received - session = " + 
+                          sessionId + ": replicatedBytes = " + replicatedBytes +
+                          ": savedBytes = " + savedBytes + ": appname = " + appName +
+                          ": hostName = " + hostName);
+        }
+        if (isValidEvent(appName, hostName)) {
+            replicatedBytesTotal.increment(replicatedBytes);
+            replicationSavedBytesTotal.increment(savedBytes);
+        }
+    }
+
     @ProbeListener("glassfish:web:session:sessionActivatedStartEvent")
     public void sessionActivatedStartEvent(
             @ProbeParam("sessionId") String sessionId,
@@ -351,6 +417,40 @@ public class SessionStatsProvider{
         }
     }
 
+    /**
+     * The rate of change per second of a count, computed over the time
+     * since the rate was read the last time.
+     */
+    private static final class ThroughputStatistic {
+
+        private static final long MIN_INTERVAL_MILLIS = 1000L;
+
+        private final CountStatisticImpl count;
+        private final RangeStatisticImpl rate;
+        private long lastCount;
+        private long lastTime;
+
+        ThroughputStatistic(CountStatisticImpl count, String name,
+                String description, long curTime) {
+            this.count = count;
+            this.rate = new RangeStatisticImpl(0L, 0L, 0L, name,
+                    StatisticImpl.UNIT_COUNT, description, curTime, curTime);
+            this.lastTime = curTime;
+        }
+
+        synchronized RangeStatistic update() {
+            long now = System.currentTimeMillis();
+            long elapsed = now - lastTime;
+            if (elapsed >= MIN_INTERVAL_MILLIS) {
+                long current = count.getCount();
+                rate.setCurrent(Math.max(0L, current - lastCount) * 1000L / elapsed);
+                lastCount = current;
+                lastTime = now;
+            }
+            return rate;
+        }
+    }
+
     private boolean isValidEvent(String mName, String hostName) {
         //Temp fix, get the appname from the context root
         if ((moduleName == null) || (vsName == null)) {
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019-2021] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2024] Payara Foundation and/or affiliates
 /*
  * To change this template, choose Tools | Templates
  * and open the template in the editor.
@@ -50,6 +50,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
 import org.glassfish.external.probe.provider.PluginPoint;
 import org.glassfish.external.probe.provider.StatsProviderManager;
 import org.glassfish.external.statistics.CountStatistic;
@@ -173,6 +174,28 @@ public class WebStatsProviderBootstrap implements PostConstruct, MonitoringDataS
         statspList.add(websp);
     }
 
+    /**
+     * Register the statistics of the static resource cache of an
+     * application, which are unregistered along with its other providers.
+     */
+    public void registerResourceCacheStatsProvider(String monitoringName,
+            String vsName, LongSupplier accessCount, LongSupplier hitCount,
+            LongSupplier cacheSize) {
+        ConcurrentMap<String, Queue<Object>> statsProviderMap = vsNameToStatsProviderMap.get(vsName);
+        Queue<Object> statspList = statsProviderMap == null ? null : statsProviderMap.get(monitoringName);
+        if (statspList == null) {
+            // Application stats providers are not registered
+            return;
+        }
+        ResourceCacheStatsProvider resourceCacheStatsProvider =
+                new ResourceCacheStatsProvider(accessCount, hitCount, cacheSize);
+        StatsProviderManager.register(
+                WEB_CONTAINER, PluginPoint.APPLICATIONS,
+                getNodeString(monitoringName, vsName),
+                resourceCacheStatsProvider);
+        statspList.add(resourceCacheStatsProvider);
+    }
+
     public void unregisterApplicationStatsProviders(String monitoringName,
             String vsName) {
 
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2017] [Payara Foundation]
+// Portions Copyright [2017-2024] [Payara Foundation]
 
 package org.glassfish.web.config.serverbeans;
 
@@ -140,8 +140,8 @@ public interface WebContainerAvailability extends ConfigBeanProxy,
      *
      * The persistence scope used by the session persistence framework, when
      * persistence-type = "ha". Values may be "session", "modified-session",
-     * "modified-attribute". If it is missing, then the persistence-type will
-     * revert to "memory".
+     * "modified-attribute", "delta-attribute". If it is missing, then the
+     * persistence-type will revert to "memory".
      * 
      * @return possible object is
      *         {@link String }
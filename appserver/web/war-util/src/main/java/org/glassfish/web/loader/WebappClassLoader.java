@@ -126,6 +126,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -138,6 +139,8 @@ import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
@@ -275,7 +278,7 @@ public class WebappClassLoader
     /**
      * Last time a JAR was accessed.
      */
-    protected long lastJarAccessed = 0L;
+    protected volatile long lastJarAccessed = 0L;
 
     /**
      * The list of local repositories, in the order they should be searched
@@ -306,6 +309,23 @@ public class WebappClassLoader
      */
     protected final Object jarFilesLock = new Object();
 
+    /**
+     * Lock shared by lookups in the JARs and taken exclusively, before
+     * {@link #jarFilesLock}, to add, close or release them.
+     */
+    private final ReentrantReadWriteLock jarFilesAccessLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether all the entries of {@link #jarFiles} are currently open.
+     */
+    private volatile boolean jarFilesOpen = true;
+
+    /**
+     * Positions in {@link #jarFiles} of the JARs containing each directory,
+     * built on the first lookup after JARs have been added.
+     */
+    private volatile Map<String, int[]> jarDirectoryIndex;
+
     /**
      * The list of JARs, in the order they should be searched
      * for locally loaded classes or resources.
@@ -446,8 +466,11 @@ public class WebappClassLoader
     private static final Object CONSTRUCTOR_ARGUMENTS;
     private static final Boolean isMultiReleaseJar;
     private static final Name MULTI_RELEASE = new Name("Multi-Release");
+    private static final String VERSIONED_ENTRY_PREFIX = "META-INF/versions/";
 
     static {
+        registerAsParallelCapable();
+
         Class<?>[] constructorArgsTypes;
         Object constructorArguments;
 
@@ -635,7 +658,9 @@ public class WebappClassLoader
         Class clazz = null;
         if (!this.resourceEntries.containsKey(name)) {
             definePackage(name, entry);
-            clazz = defineLoadedClass(name, entry);
+            synchronized (getClassLoadingLock(name)) {
+                clazz = defineLoadedClass(name, entry);
+            }
             this.resourceEntries.put(name, entry);
             for (Map.Entry<String, GeneratedResourceEntry> e : entry.generatedResources.entrySet()) {
                 String generatedClassName = e.getKey();
@@ -1019,57 +1044,65 @@ public class WebappClassLoader
             logger.log(Level.FINER, "addJar({0})", jar);
         }
 
-        synchronized (jarFilesLock) {
-            // See IT 11417
-            super.addURL(getURL(file));
+        Lock addLock = jarFilesAccessLock.writeLock();
+        addLock.lock();
+        try {
+            synchronized (jarFilesLock) {
+                jarDirectoryIndex = null;
+
+                // See IT 11417
+                super.addURL(getURL(file));
 
-            if ((jarPath != null) && (jar.startsWith(jarPath))) {
+                if ((jarPath != null) && (jar.startsWith(jarPath))) {
 
-                String jarName = jar.substring(jarPath.length());
-                while (jarName.startsWith("/")) {
-                    jarName = jarName.substring(1);
+                    String jarName = jar.substring(jarPath.length());
+                    while (jarName.startsWith("/")) {
+                        jarName = jarName.substring(1);
+                    }
+                    jarNames.add(jarName);
                 }
-                jarNames.add(jarName);
-            }
 
-            try {
-                // Register the JAR for tracking
+                try {
+                    // Register the JAR for tracking
 
-                long lastModified = ((ResourceAttributes) resources.getAttributes(jar))
-                        .getLastModified();
+                    long lastModified = ((ResourceAttributes) resources.getAttributes(jar))
+                            .getLastModified();
 
-                String[] result = new String[paths.length + 1];
-                for (int i = 0; i < paths.length; i++) {
-                    result[i] = paths[i];
-                }
-                result[paths.length] = jar;
-                paths = result;
+                    String[] result = new String[paths.length + 1];
+                    for (int i = 0; i < paths.length; i++) {
+                        result[i] = paths[i];
+                    }
+                    result[paths.length] = jar;
+                    paths = result;
 
-                long[] result3 = new long[lastModifiedDates.length + 1];
-                for (int i = 0; i < lastModifiedDates.length; i++) {
-                    result3[i] = lastModifiedDates[i];
-                }
-                result3[lastModifiedDates.length] = lastModified;
-                lastModifiedDates = result3;
+                    long[] result3 = new long[lastModifiedDates.length + 1];
+                    for (int i = 0; i < lastModifiedDates.length; i++) {
+                        result3[i] = lastModifiedDates[i];
+                    }
+                    result3[lastModifiedDates.length] = lastModified;
+                    lastModifiedDates = result3;
 
-            } catch (NamingException e) {
-                // Ignore
-            }
+                } catch (NamingException e) {
+                    // Ignore
+                }
 
-            JarFile[] result2 = new JarFile[jarFiles.length + 1];
-            for (int i = 0; i < jarFiles.length; i++) {
-                result2[i] = jarFiles[i];
-            }
-            result2[jarFiles.length] = jarFile;
-            jarFiles = result2;
+                JarFile[] result2 = new JarFile[jarFiles.length + 1];
+                for (int i = 0; i < jarFiles.length; i++) {
+                    result2[i] = jarFiles[i];
+                }
+                result2[jarFiles.length] = jarFile;
+                jarFiles = result2;
 
-            // Add the file to the list
-            File[] result4 = new File[jarRealFiles.length + 1];
-            for (int i = 0; i < jarRealFiles.length; i++) {
-                result4[i] = jarRealFiles[i];
+                // Add the file to the list
+                File[] result4 = new File[jarRealFiles.length + 1];
+                for (int i = 0; i < jarRealFiles.length; i++) {
+                    result4[i] = jarRealFiles[i];
+                }
+                result4[jarRealFiles.length] = file;
+                jarRealFiles = result4;
             }
-            result4[jarRealFiles.length] = file;
-            jarRealFiles = result4;
+        } finally {
+            addLock.unlock();
         }
     }
 
@@ -1256,7 +1289,7 @@ public class WebappClassLoader
             try {
                 ResourceEntry entry = findClassInternal(name);
 
-                synchronized (this) {
+                synchronized (getClassLoadingLock(name)) {
                     if (entry.loadedClass == null) {
                         clazz = defineLoadedClass(name, entry);
                     } else {
@@ -1389,10 +1422,12 @@ public class WebappClassLoader
         List<URL> result = new ArrayList<>();
 
         if (repositories != null) {
-            synchronized (jarFilesLock) {
+            Lock lookupLock = jarFilesAccessLock.readLock();
+            lookupLock.lock();
+            try {
                 // resources.lookup(fullPath) calls through WebDirContext the method getJarFiles().
                 // It returns the jarFiles but those should not be modified (like closed) so
-                // we protect changes using this synchronized block.
+                // we keep them from being closed while holding the lookup lock.
                 int repositoriesLength = repositories.length;
 
                 // Looking at the repositories
@@ -1410,6 +1445,8 @@ public class WebappClassLoader
                     } catch (NamingException e) {
                     }
                 }
+            } finally {
+                lookupLock.unlock();
             }
         }
 
@@ -1739,13 +1776,21 @@ public class WebappClassLoader
      * @exception ClassNotFoundException if the class was not found
      */
     @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve)
+    protected Class<?> loadClass(String name, boolean resolve)
         throws ClassNotFoundException {
 
         if (logger.isLoggable(Level.FINER)) {
             logger.log(Level.FINER, "loadClass({0})", name);
         }
 
+        synchronized (getClassLoadingLock(name)) {
+            return loadClassLocked(name, resolve);
+        }
+    }
+
+    private Class<?> loadClassLocked(String name, boolean resolve)
+        throws ClassNotFoundException {
+
         Class<?> clazz = null;
 
         // Don't load classes if class loader is stopped
@@ -2054,58 +2099,65 @@ public class WebappClassLoader
         clearBeanELResolverCache();
         clearJaxRSCache();
 
-        synchronized(jarFilesLock) {
-            started = false;
+        Lock stopLock = jarFilesAccessLock.writeLock();
+        stopLock.lock();
+        try {
+            synchronized(jarFilesLock) {
+                started = false;
 
-            int length = files.length;
-            for (int i = 0; i < length; i++) {
-                files[i] = null;
-            }
+                int length = files.length;
+                for (int i = 0; i < length; i++) {
+                    files[i] = null;
+                }
 
-            length = jarFiles.length;
-            for (int i = 0; i < length; i++) {
-                try {
-                    if (jarFiles[i] != null) {
-                        jarFiles[i].close();
+                length = jarFiles.length;
+                for (int i = 0; i < length; i++) {
+                    try {
+                        if (jarFiles[i] != null) {
+                            jarFiles[i].close();
+                        }
+                    } catch (IOException e) {
+                        // Ignore
                     }
-                } catch (IOException e) {
-                    // Ignore
+                    jarFiles[i] = null;
                 }
-                jarFiles[i] = null;
-            }
 
-            try {
-                close();
-            } catch (Exception e) {
-                // ignore
-            }
+                try {
+                    close();
+                } catch (Exception e) {
+                    // ignore
+                }
 
-            notFoundResources.clear();
-            resourceEntries.clear();
-            resources = null;
-            repositories = null;
-            repositoryURLs = null;
-            files = null;
-            jarFiles = null;
-            jarRealFiles = null;
-            jarPath = null;
-            jarNames.clear();
-            lastModifiedDates = null;
-            paths = null;
-            hasExternalRepositories = false;
-            parent = null;
+                notFoundResources.clear();
+                resourceEntries.clear();
+                resources = null;
+                repositories = null;
+                repositoryURLs = null;
+                files = null;
+                jarFiles = null;
+                jarRealFiles = null;
+                jarDirectoryIndex = null;
+                jarPath = null;
+                jarNames.clear();
+                lastModifiedDates = null;
+                paths = null;
+                hasExternalRepositories = false;
+                parent = null;
 
-            permissionList.clear();
-            permissionsHolder = null;
-            loaderPC.clear();
+                permissionList.clear();
+                permissionsHolder = null;
+                loaderPC.clear();
 
-            if (loaderDir != null) {
-                deleteDir(loaderDir);
-            }
+                if (loaderDir != null) {
+                    deleteDir(loaderDir);
+                }
 
-            DirContextURLStreamHandler.unbind(this);
+                DirContextURLStreamHandler.unbind(this);
 
-            HotSwapHelper.closeClassLoader(this);
+                HotSwapHelper.closeClassLoader(this);
+            }
+        } finally {
+            stopLock.unlock();
         }
     }
 
@@ -2116,46 +2168,58 @@ public class WebappClassLoader
      */
     public void closeJARs(boolean force) {
         if (jarFiles.length > 0) {
-            synchronized (jarFilesLock) {
-                if (force || (System.currentTimeMillis() > (lastJarAccessed + 90000))) {
-                    for (int i = 0; i < jarFiles.length; i++) {
-                        try {
-                            if (jarFiles[i] != null) {
-                                jarFiles[i].close();
-                                jarFiles[i] = null;
-                            }
-                        } catch (IOException e) {
-                            if (logger.isLoggable(Level.FINE)) {
-                                logger.log(Level.FINE, "Failed to close JAR", e);
+            Lock closeLock = jarFilesAccessLock.writeLock();
+            if (force) {
+                closeLock.lock();
+            } else if (!closeLock.tryLock()) {
+                // The JARs are being looked up, so they are not idle
+                return;
+            }
+            try {
+                synchronized (jarFilesLock) {
+                    if (force || (System.currentTimeMillis() > (lastJarAccessed + 90000))) {
+                        jarFilesOpen = false;
+                        for (int i = 0; i < jarFiles.length; i++) {
+                            try {
+                                if (jarFiles[i] != null) {
+                                    jarFiles[i].close();
+                                }
+                            } catch (IOException e) {
+                                if (logger.isLoggable(Level.FINE)) {
+                                    logger.log(Level.FINE, "Failed to close JAR", e);
+                                }
                             }
+                            jarFiles[i] = null;
                         }
-                    }
 
-                    try {
-                        // aggressively close parent jars
-
-                        WeakHashMap<Closeable, Void> closeables;
-                        Field closeField = URLClassLoader.class.getDeclaredField("closeables");
-                        closeField.setAccessible(true);
-                        closeables = (WeakHashMap<Closeable, Void>) closeField.get(this);
-                        synchronized (closeables) {
-                            Set<Closeable> keys = closeables.keySet();
-                            for (Closeable c : keys) {
-                                try {
-                                    if (c instanceof JarFile) {
-                                        c.close();
+                        try {
+                            // aggressively close parent jars
+
+                            WeakHashMap<Closeable, Void> closeables;
+                            Field closeField = URLClassLoader.class.getDeclaredField("closeables");
+                            closeField.setAccessible(true);
+                            closeables = (WeakHashMap<Closeable, Void>) closeField.get(this);
+                            synchronized (closeables) {
+                                Set<Closeable> keys = closeables.keySet();
+                                for (Closeable c : keys) {
+                                    try {
+                                        if (c instanceof JarFile) {
+                                            c.close();
+                                        }
+                                    } catch (IOException ioex) {
+                                        //Do nothing
                                     }
-                                } catch (IOException ioex) {
-                                    //Do nothing
                                 }
+                                closeables.clear();
                             }
-                            closeables.clear();
-                        }
 
-                    } catch (Exception ex) {
-                        Logger.getLogger(WebappClassLoader.class.getName()).log(Level.SEVERE, null, ex);
+                        } catch (Exception ex) {
+                            Logger.getLogger(WebappClassLoader.class.getName()).log(Level.SEVERE, null, ex);
+                        }
                     }
                 }
+            } finally {
+                closeLock.unlock();
             }
         }
     }
@@ -2819,10 +2883,16 @@ public class WebappClassLoader
      */
     protected boolean openJARs() {
         if (started && (jarFiles.length > 0)) {
+            lastJarAccessed = System.currentTimeMillis();
+            if (jarFilesOpen) {
+                return true;
+            }
             synchronized (jarFilesLock) {
-                lastJarAccessed = System.currentTimeMillis();
-                if (jarFiles[0] == null) {
+                if (!jarFilesOpen) {
                     for (int i = 0; i < jarFiles.length; i++) {
+                        if (jarFiles[i] != null) {
+                            continue;
+                        }
                         try {
                             jarFiles[i] = newJarFile(jarRealFiles[i]);
                         } catch (IOException e) {
@@ -2835,10 +2905,12 @@ public class WebappClassLoader
                                 } catch (Throwable t) {
                                     // Ignore
                                 }
+                                jarFiles[j] = null;
                             }
                             return false;
                         }
                     }
+                    jarFilesOpen = true;
                 }
             }
         }
@@ -2869,7 +2941,7 @@ public class WebappClassLoader
             throw new ClassNotFoundException(name);
         }
 
-        synchronized (this) {
+        synchronized (getClassLoadingLock(name)) {
             Class<?> clazz = entry.loadedClass;
             if (clazz != null) {
                 return entry;
@@ -2929,8 +3001,12 @@ public class WebappClassLoader
         entry = findResourceInternalFromRepositories(name, path);
 
         if (entry == null) {
-            synchronized (jarFilesLock) {
+            Lock lookupLock = jarFilesAccessLock.readLock();
+            lookupLock.lock();
+            try {
                 entry = findResourceInternalFromJars(name, path);
+            } finally {
+                lookupLock.unlock();
             }
         }
 
@@ -3057,9 +3133,14 @@ public class WebappClassLoader
             return null;
         }
 
-        int jarFilesLength = jarFiles.length;
+        // Only probe the JARs having entries in the same directory
+        int[] candidates = getJarDirectoryIndex().get(getDirectoryPath(path));
+        if (candidates == null) {
+            return null;
+        }
 
-        for (int i=0; (entry == null) && (i < jarFilesLength); i++) {
+        for (int c = 0; (entry == null) && (c < candidates.length); c++) {
+            int i = candidates[c];
             jarEntry = jarFiles[i].getJarEntry(path);
 
             if (jarEntry != null) {
@@ -3101,16 +3182,75 @@ public class WebappClassLoader
         return entry;
     }
 
-    private synchronized void extractResources() {
-        if (!antiJARLocking || resourcesExtracted) {
-            return;
+    /**
+     * Returns the index of the JARs containing each directory, building it
+     * from the entries of the currently open JARs if needed.
+     */
+    private Map<String, int[]> getJarDirectoryIndex() {
+        Map<String, int[]> index = jarDirectoryIndex;
+        if (index == null) {
+            synchronized (jarFilesLock) {
+                index = jarDirectoryIndex;
+                if (index == null) {
+                    index = new HashMap<>();
+                    for (int i = 0; i < jarFiles.length; i++) {
+                        Enumeration<JarEntry> entries = jarFiles[i].entries();
+                        while (entries.hasMoreElements()) {
+                            String entryName = entries.nextElement().getName();
+                            if (entryName.startsWith(VERSIONED_ENTRY_PREFIX)) {
+                                // Versioned entries are also found by their base name
+                                int versionEnd = entryName.indexOf('/', VERSIONED_ENTRY_PREFIX.length());
+                                if (versionEnd > 0) {
+                                    addToJarDirectoryIndex(index, entryName.substring(versionEnd + 1), i);
+                                }
+                            }
+                            addToJarDirectoryIndex(index, entryName, i);
+                        }
+                    }
+                    jarDirectoryIndex = index;
+                }
+            }
         }
+        return index;
+    }
 
-        for (int i = jarFiles.length - 1; i >= 0; i--) {
-            extractResource(jarFiles[i]);
+    private static void addToJarDirectoryIndex(Map<String, int[]> index, String entryName, int jar) {
+        String directory = getDirectoryPath(entryName);
+        int[] jars = index.get(directory);
+        if (jars == null) {
+            index.put(directory, new int[] { jar });
+        } else if (jars[jars.length - 1] != jar) {
+            int[] newJars = Arrays.copyOf(jars, jars.length + 1);
+            newJars[jars.length] = jar;
+            index.put(directory, newJars);
         }
+    }
 
-        resourcesExtracted = true;
+    /**
+     * Returns the directory part of a JAR entry name, ignoring the trailing
+     * slash of directory entries since those are also found without it.
+     */
+    static String getDirectoryPath(String path) {
+        int end = path.length();
+        if (end > 0 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        int slash = path.lastIndexOf('/', end - 1);
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    private void extractResources() {
+        synchronized (jarFilesLock) {
+            if (!antiJARLocking || resourcesExtracted) {
+                return;
+            }
+
+            for (int i = jarFiles.length - 1; i >= 0; i--) {
+                extractResource(jarFiles[i]);
+            }
+
+            resourcesExtracted = true;
+        }
     }
 
     private void extractResource(JarFile jarFile) {
@@ -3285,9 +3425,7 @@ public class WebappClassLoader
 
         ResourceEntry entry = resourceEntries.get(name);
         if (entry != null) {
-            synchronized(this) {
-                return entry.loadedClass;
-            }
+            return entry.loadedClass;
         }
         return null;  // FIXME - findLoadedResource()
 
@@ -3565,7 +3703,11 @@ public class WebappClassLoader
 
     }
 
-    private synchronized Class<?> defineLoadedClass(String name, ResourceEntry entry) {
+    /**
+     * Defines the class of the given entry. Callers hold the class loading
+     * lock of <code>name</code>.
+     */
+    private Class<?> defineLoadedClass(String name, ResourceEntry entry) {
         Class<?> clazz;
         // Create the code source object
         CodeSource codeSource
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,6 +39,9 @@
  */
 package org.glassfish.web.loader;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -158,6 +161,39 @@ public class WebappClassLoaderTest {
         }
     }
 
+    @Test
+    public void check_registered_as_parallel_capable() {
+        assertTrue(new WebappClassLoader(getClass().getClassLoader(), null).isRegisteredAsParallelCapable());
+    }
+
+    @Test
+    public void check_findResource_through_jar_directory_index() throws Exception {
+        final WebappClassLoader webappClassLoader = new WebappClassLoader(getClass().getClassLoader(), null);
+        webappClassLoader.start();
+        webappClassLoader.setResources(new FileDirContext());
+        webappClassLoader.addJar(junitJarFile.getName(), new JarFile(junitJarFile), junitJarFile);
+        webappClassLoader.closeJARs(true);
+
+        try (JarFile jarFile = new JarFile(junitJarFile)) {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                assertNotNull(entry.getName(), webappClassLoader.findResource(entry.getName()));
+            }
+            assertNull(webappClassLoader.findResource("org/junit/DoesNotExist.class"));
+            assertNull(webappClassLoader.findResource("does/not/exist/Test.class"));
+        } finally {
+            webappClassLoader.close();
+        }
+    }
+
+    @Test
+    public void check_getDirectoryPath() {
+        assertEquals("", WebappClassLoader.getDirectoryPath("Test.class"));
+        assertEquals("", WebappClassLoader.getDirectoryPath("org/"));
+        assertEquals("org", WebappClassLoader.getDirectoryPath("org/junit"));
+        assertEquals("org", WebappClassLoader.getDirectoryPath("org/junit/"));
+        assertEquals("org/junit", WebappClassLoader.getDirectoryPath("org/junit/Test.class"));
+    }
+
     private void add(WebappClassLoader webappClassLoader) throws IOException {
         List<JarFile> jarFiles = findJarFiles();
 
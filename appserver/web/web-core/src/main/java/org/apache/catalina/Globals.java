@@ -55,6 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+// Portions Copyright [2024] Payara Foundation and/or its affiliates
 
 package org.apache.catalina;
 
@@ -305,6 +306,34 @@ public final class Globals {
     public static final String CONSTRAINT_URI =
         "org.apache.catalina.CONSTRAINT_URI";
 
+    /**
+     * The request attribute that is set to <code>Boolean.TRUE</code> when the
+     * connector is able to write a file region with sendfile.
+     */
+    public static final String SENDFILE_SUPPORTED_ATTR =
+        "org.apache.tomcat.sendfile.support";
+
+    /**
+     * The request attribute under which a servlet stores the canonical path
+     * of the file the connector should send once the servlet returns.
+     */
+    public static final String SENDFILE_FILENAME_ATTR =
+        "org.apache.tomcat.sendfile.filename";
+
+    /**
+     * The request attribute holding the first byte of the file region to
+     * send (value stored as an object of type Long).
+     */
+    public static final String SENDFILE_FILE_START_ATTR =
+        "org.apache.tomcat.sendfile.start";
+
+    /**
+     * The request attribute holding the end (exclusive) of the file region
+     * to send (value stored as an object of type Long).
+     */
+    public static final String SENDFILE_FILE_END_ATTR =
+        "org.apache.tomcat.sendfile.end";
+
     public static final String META_INF_RESOURCES = "META-INF/resources";
 
     public static final String ISO_8859_1_ENCODING = "ISO-8859-1";
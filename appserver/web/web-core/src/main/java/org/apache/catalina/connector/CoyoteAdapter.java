@@ -55,9 +55,10 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2022] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2022-2024] [Payara Foundation and/or its affiliates]
 package org.apache.catalina.connector;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.security.cert.CertificateException;
@@ -245,6 +246,35 @@ public class CoyoteAdapter extends HttpHandler {
         }
     }
 
+    /**
+     * Write the file region a servlet (usually the DefaultServlet) recorded
+     * in the sendfile request attributes instead of copying it itself.
+     */
+    private void sendFile(final Request request, final Response response) {
+        final Object filename = request.getAttribute(Globals.SENDFILE_FILENAME_ATTR);
+        if (filename == null || request.isAsyncStarted() || response.isError()) {
+            return;
+        }
+
+        final Long start = (Long) request.getAttribute(Globals.SENDFILE_FILE_START_ATTR);
+        final Long end = (Long) request.getAttribute(Globals.SENDFILE_FILE_END_ATTR);
+        if (start == null || end == null) {
+            return;
+        }
+
+        try {
+            if (!response.sendfile(new File(filename.toString()), start, end)
+                    && log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, "Response already has content, not sending {0}", filename);
+            }
+        } catch (IOException e) {
+            // Most likely the client went away during the transfer
+            if (log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, "Unable to send " + filename, e);
+            }
+        }
+    }
+
     private void enteringServletContainer(Request req, Response res) {
         if (interceptors == null)
             return;
@@ -381,11 +411,17 @@ public class CoyoteAdapter extends HttpHandler {
                 }
             } finally {
                 try {
-                    connector.requestEndEvent(request.getRequest(),
-                        request.getHost(), request.getContext(),
-                        response.getStatus());
+                    // A servlet may have left a file region for the connector;
+                    // write it before the end event so its size is reported
+                    sendFile(request, response);
                 } finally {
-                    leavingServletContainer(request, response);
+                    try {
+                        connector.requestEndEvent(request.getRequest(),
+                            request.getHost(), request.getContext(),
+                            response.getStatus());
+                    } finally {
+                        leavingServletContainer(request, response);
+                    }
                 }
             }
         }
@@ -55,7 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019-2021] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2024] Payara Foundation and/or affiliates
 
 package org.apache.catalina.connector;
 
@@ -64,6 +64,7 @@ import org.apache.catalina.LogFacade;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.WriteListener;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ResourceBundle;
 
 /**
@@ -159,6 +160,22 @@ public class CoyoteOutputStream
     }
 
 
+    /**
+     * Write the remaining content of the given buffer, handing it to the
+     * connector as is rather than copying it through a byte array.
+     * The buffer must not be modified until the response is complete.
+     */
+    public void write(ByteBuffer b)
+        throws IOException {
+        // Disallow operation if the object has gone out of scope
+        if (ob == null) {
+            throw new IllegalStateException(rb.getString(LogFacade.OBJECT_INVALID_SCOPE_EXCEPTION));
+        }
+
+        ob.writeByteBuffer(b);
+    }
+
+
     /**
      * Will send the buffer to the client.
      */
@@ -55,13 +55,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019-2021] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2024] Payara Foundation and/or affiliates
 
 package org.apache.catalina.connector;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.InterruptedByTimeoutException;
+import java.nio.file.StandardOpenOption;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Map;
@@ -355,6 +359,30 @@ public class OutputBuffer extends Writer
     }
 
 
+    /**
+     * Write the remaining content of the given buffer without copying it
+     * into a heap array first. The buffer must not be modified until the
+     * response has been completed.
+     *
+     * @param b the buffer to write
+     * @throws IOException An underlying IOException occurred
+     */
+    public void writeByteBuffer(ByteBuffer b)
+        throws IOException {
+
+        if (suspended || grizzlyOutputBuffer.isClosed())
+            return;
+
+        int len = b.remaining();
+        try {
+            grizzlyOutputBuffer.writeByteBuffer(b);
+        } catch (IOException e) {
+            throw new ClientAbortException(e);
+        }
+        bytesWritten += len;
+    }
+
+
     // ------------------------------------------------- Chars Handling Methods
 
 
@@ -463,6 +491,77 @@ public class OutputBuffer extends Writer
     }
 
 
+    /**
+     * Write a region of the given file as the response body.
+     * <p>
+     * The region is handed to the Grizzly output buffer, which writes it
+     * with <code>FileChannel.transferTo</code> once the headers have been
+     * flushed, so the content is never copied through the heap. When the
+     * connector cannot do that the region is streamed through this buffer
+     * instead.
+     *
+     * @param file the file to send
+     * @param offset the position of the first byte to send
+     * @param length the number of bytes to send
+     *
+     * @return <code>false</code> if content has already been written to
+     * this buffer, in which case nothing is sent
+     * @throws IOException An underlying IOException occurred
+     */
+    public boolean sendfile(File file, long offset, long length)
+        throws IOException {
+
+        if (suspended || !isNew() || grizzlyOutputBuffer.isClosed())
+            return false;
+
+        if (grizzlyOutputBuffer.getBufferedDataSize() == 0) {
+            try {
+                grizzlyOutputBuffer.sendfile(file, offset, length, null);
+                bytesWritten += (int) Math.min(length, Integer.MAX_VALUE);
+                return true;
+            } catch (IllegalStateException e) {
+                // sendfile is not available on this connection
+                if (log.isLoggable(Level.FINE))
+                    log.log(Level.FINE, "sendfile unavailable, copying " + file, e);
+            }
+        }
+
+        copyFile(file, offset, length);
+        return true;
+
+    }
+
+
+    private void copyFile(File file, long offset, long length)
+        throws IOException {
+
+        byte[] buf = new byte[(int) Math.min(Math.max(size, DEFAULT_BUFFER_SIZE), length)];
+        ByteBuffer bb = ByteBuffer.wrap(buf);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                bb.clear();
+                if (remaining < buf.length) {
+                    bb.limit((int) remaining);
+                }
+                int n = channel.read(bb, position);
+                if (n < 0) {
+                    break;
+                }
+                try {
+                    writeBytes(buf, 0, n);
+                } catch (IOException e) {
+                    throw new ClientAbortException(e);
+                }
+                position += n;
+                remaining -= n;
+            }
+        }
+
+    }
+
+
     public void setBufferSize(int size) {
         if (size > grizzlyOutputBuffer.getBufferSize()) {
             grizzlyOutputBuffer.setBufferSize(size);
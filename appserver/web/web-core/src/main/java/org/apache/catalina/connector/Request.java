@@ -1157,6 +1157,8 @@ public class Request implements HttpRequest, HttpServletRequest {
             case Globals.CONSTRAINT_URI:
                 return getRequestPathMB() != null
                         ? getRequestPathMB().toString() : null;
+            case Globals.SENDFILE_SUPPORTED_ATTR:
+                return isSendfileSupported();
         }
 
         Object attr = attributes.get(name);
@@ -1196,6 +1198,20 @@ public class Request implements HttpRequest, HttpServletRequest {
                 Globals.SSL_SESSION_ID_ATTR.equals(name);
     }
 
+    /**
+     * Sendfile can only be used on plain HTTP/1.x connections where the
+     * Grizzly listener has it enabled: a file region cannot be transferred
+     * through the TLS engine or multiplexed onto an HTTP/2 stream.
+     */
+    private Boolean isSendfileSupported() {
+        if (isSecure() || coyoteRequest.getProtocol() == Protocol.HTTP_2_0) {
+            return Boolean.FALSE;
+        }
+        return Boolean.TRUE.equals(coyoteRequest.getAttribute(
+                org.glassfish.grizzly.http.server.Request.SEND_FILE_ENABLED_ATTR));
+    }
+
+
     /**
      * Return the names of all request attributes for this Request, or an
      * empty <code>Enumeration</code> if there are none.
@@ -1710,7 +1726,7 @@ public class Request implements HttpRequest, HttpServletRequest {
 
         // Do the security check before any updates are made
         if (Globals.IS_SECURITY_ENABLED &&
-                name.equals("org.apache.tomcat.sendfile.filename")) {
+                name.equals(Globals.SENDFILE_FILENAME_ATTR)) {
             // Use the canonical file name to avoid any possible symlink and
             // relative path issues
             String canonicalPath;
@@ -55,13 +55,14 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019-2023] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2024] Payara Foundation and/or affiliates
 
 package org.apache.catalina.connector;
 
 
 import static org.apache.catalina.util.RequestUtil.createSessionVersionString;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
@@ -396,10 +397,20 @@ public class Response
 
     /**
      * Return the number of bytes actually written to the output stream.
+     * A file region a servlet has left for the connector to send counts as
+     * written, so that valves running before it is sent see the full size.
      * @return the number of bytes
      */
     @Override
     public int getContentCount() {
+        if (outputBuffer.isNew() && request != null && !isError() && !request.isAsyncStarted()) {
+            Object start = request.getAttribute(Globals.SENDFILE_FILE_START_ATTR);
+            Object end = request.getAttribute(Globals.SENDFILE_FILE_END_ATTR);
+            if (start instanceof Long && end instanceof Long
+                    && request.getAttribute(Globals.SENDFILE_FILENAME_ATTR) != null) {
+                return (int) Math.min((Long) end - (Long) start, Integer.MAX_VALUE);
+            }
+        }
         return outputBuffer.getContentWritten();
     }
 
@@ -423,7 +434,7 @@ public class Response
     public boolean isAppCommitted() {
         return this.appCommitted || isCommitted() || isSuspended()
                 || getContentLength() > 0
-                    && getContentCount() >= getContentLength();
+                    && outputBuffer.getContentWritten() >= getContentLength();
     }
 
 
@@ -610,6 +621,20 @@ public class Response
     }
 
 
+    /**
+     * Send the <code>[start, end)</code> region of the given file as the
+     * body of this response, using the connector's sendfile support when it
+     * is available.
+     *
+     * @return <code>false</code> if the response already carries content
+     * @exception IOException if an input/output error occurs
+     */
+    public boolean sendfile(File file, long start, long end)
+            throws IOException {
+        return outputBuffer.sendfile(file, start, end - start);
+    }
+
+
     /**
      * Perform whatever actions are required to flush and close the output
      * stream or writer, in a single operation.
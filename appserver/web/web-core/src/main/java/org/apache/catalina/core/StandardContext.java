@@ -680,6 +680,11 @@ public class StandardContext
      */
     protected int cacheTTL = 5000;
 
+    /**
+     * Class name of the resource cache, <code>null</code> for the default.
+     */
+    protected String cacheClassName = null;
+
     /**
      * Non proxied resources.
      */
@@ -947,6 +952,21 @@ public class StandardContext
         this.cacheMaxSize = cacheMaxSize;
     }
 
+    /**
+     * Return the class name of the resource cache.
+     */
+    public String getCacheClassName() {
+        return cacheClassName;
+    }
+
+    /**
+     * Set the class name of the resource cache, which must extend
+     * <code>org.apache.naming.resources.ResourceCache</code>.
+     */
+    public void setCacheClassName(String cacheClassName) {
+        this.cacheClassName = cacheClassName;
+    }
+
     /**
      * Return the "follow standard delegation model" flag used to configure
      * our ClassLoader.
@@ -1936,6 +1956,7 @@ public class StandardContext
             baseDirContext.setCached(isCachingAllowed());
             baseDirContext.setCacheTTL(getCacheTTL());
             baseDirContext.setCacheMaxSize(getCacheMaxSize());
+            baseDirContext.setCacheClassName(getCacheClassName());
         }
         if (resources instanceof FileDirContext) {
             filesystemBased = true;
@@ -1972,6 +1993,7 @@ public class StandardContext
             ((BaseDirContext) resources).setCached(isCachingAllowed());
             ((BaseDirContext) resources).setCacheTTL(getCacheTTL());
             ((BaseDirContext) resources).setCacheMaxSize(getCacheMaxSize());
+            ((BaseDirContext) resources).setCacheClassName(getCacheClassName());
         }
         if (resources instanceof FileDirContext) {
             filesystemBased = true;
@@ -5417,6 +5439,9 @@ public class StandardContext
                 if (resources instanceof Lifecycle) {
                     ((Lifecycle) resources).stop();
                 }
+                if (resources instanceof ProxyDirContext) {
+                    ((ProxyDirContext) resources).release();
+                }
                 if (webappResources instanceof BaseDirContext) {
                     ((BaseDirContext) webappResources).release();
                 }
@@ -5457,6 +5482,9 @@ public class StandardContext
                     ok = false;
                 }
             }
+            if(alternateResources instanceof ProxyDirContext) {
+                ((ProxyDirContext)alternateResources).release();
+            }
             final DirContext alternateWebappResources = ContextsAdapterUtility.unwrap(
                 alternateDocBase.getWebappResources());
             if(alternateWebappResources instanceof BaseDirContext) {
@@ -7870,6 +7898,17 @@ public class StandardContext
         // Deliberate noop
     }
 
+    /**
+     * Trigger for monitoring
+     * @see org.glassfish.web.admin.monitor.SessionStatsProvider#sessionReplicatedEvent
+     * @param session
+     * @param replicatedBytes the number of bytes replicated by a save of the session
+     * @param savedBytes the estimated number of bytes a replication of the whole session would have taken in addition
+     */
+    public void sessionReplicatedEvent(HttpSession session, long replicatedBytes, long savedBytes) {
+        // Deliberate noop
+    }
+
     /**
      * Trigger for monitoring
      * @see org.glassfish.web.admin.monitor.SessionStatsProvider#sessionActivatedStartEvent
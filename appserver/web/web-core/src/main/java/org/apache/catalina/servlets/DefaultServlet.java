@@ -56,7 +56,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019-2023] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2024] Payara Foundation and/or affiliates
 
 package org.apache.catalina.servlets;
 
@@ -265,6 +265,33 @@ public class DefaultServlet extends HttpServlet {
     protected int sendfileSize = 48 * 1024;
 
 
+    /**
+     * Maximum total size in bytes of the memory-mapped hot files, 0 (the
+     * default) to disable the hot file cache. A mapping is only released
+     * when it is garbage collected, which on Windows keeps the file from
+     * being deleted or replaced until then.
+     */
+    protected long hotFileCacheSize = 0;
+
+
+    /**
+     * Maximum size in bytes of a single memory-mapped hot file.
+     */
+    protected long hotFileMaxSize = 1024 * 1024;
+
+
+    /**
+     * Number of requests for a file before it is memory-mapped.
+     */
+    protected int hotFileHitThreshold = 3;
+
+
+    /**
+     * Memory-mapped files served when sendfile cannot be used.
+     */
+    private HotFileCache hotFileCache;
+
+
     /**
      * Should the Accept-Ranges: bytes header be send with static resources?
      */
@@ -335,7 +362,9 @@ public class DefaultServlet extends HttpServlet {
      */
     @Override
     public void destroy() {
-        // NOOP
+        if (hotFileCache != null) {
+            hotFileCache.clear();
+        }
     }
 
 
@@ -368,6 +397,23 @@ public class DefaultServlet extends HttpServlet {
             sendfileSize =
                 Integer.parseInt(sc.getInitParameter("sendfileSize")) * 1024;
 
+        if (sc.getInitParameter("hotFileCacheSize") != null)
+            hotFileCacheSize =
+                Long.parseLong(sc.getInitParameter("hotFileCacheSize")) * 1024;
+
+        if (sc.getInitParameter("hotFileMaxSize") != null)
+            hotFileMaxSize =
+                Long.parseLong(sc.getInitParameter("hotFileMaxSize")) * 1024;
+
+        if (sc.getInitParameter("hotFileHitThreshold") != null)
+            hotFileHitThreshold =
+                Integer.parseInt(sc.getInitParameter("hotFileHitThreshold"));
+
+        if (hotFileCacheSize > 0 && hotFileMaxSize > 0) {
+            hotFileCache = new HotFileCache(hotFileCacheSize, hotFileMaxSize,
+                                            hotFileHitThreshold);
+        }
+
         if (sc.getInitParameter("maxHeaderRangeItems") != null) {
             maxHeaderRangeItems =
                 Integer.parseInt(sc.getInitParameter("maxHeaderRangeItems"));
@@ -876,6 +922,7 @@ public class DefaultServlet extends HttpServlet {
 
         ArrayList<Range> ranges = null;
         long contentLength = -1L;
+        HotFileCache.Entry hotFile = null;
 
         if (cacheEntry.context != null) {
 
@@ -902,12 +949,19 @@ public class DefaultServlet extends HttpServlet {
             // Parse range specifier
             ranges = parseRange(request, response, cacheEntry.attributes);
 
-            // ETag header
-            response.setHeader("ETag", cacheEntry.attributes.getETag());
+            hotFile = getHotFile(request, cacheEntry);
+            if (hotFile != null) {
+                response.setHeader("ETag", hotFile.getETag());
+                response.setHeader("Last-Modified",
+                        hotFile.getLastModifiedHttp());
+            } else {
+                // ETag header
+                response.setHeader("ETag", cacheEntry.attributes.getETag());
 
-            // Last-Modified header
-            response.setHeader("Last-Modified",
-                    cacheEntry.attributes.getLastModifiedHttp());
+                // Last-Modified header
+                response.setHeader("Last-Modified",
+                        cacheEntry.attributes.getLastModifiedHttp());
+            }
 
             // Get content length
             contentLength = cacheEntry.attributes.getContentLength();
@@ -985,7 +1039,9 @@ public class DefaultServlet extends HttpServlet {
                     // Silent catch
                 }
                 if (ostream != null) {
-                    if (!checkSendfile(request, response, cacheEntry, contentLength, null))
+                    if (hotFile != null)
+                        hotFile.writeTo(ostream, 0, hotFile.getLength() - 1, output);
+                    else if (!checkSendfile(request, response, cacheEntry, contentLength, null))
                         copy(cacheEntry, renderResult, ostream);
                 } else {
                     copy(cacheEntry, renderResult, writer);
@@ -1035,7 +1091,9 @@ public class DefaultServlet extends HttpServlet {
                         // Silent catch
                     }
                     if (ostream != null) {
-                        if (!checkSendfile(request, response, cacheEntry, range.end - range.start + 1, range))
+                        if (hotFile != null)
+                            hotFile.writeTo(ostream, range.start, range.end, output);
+                        else if (!checkSendfile(request, response, cacheEntry, range.end - range.start + 1, range))
                             copy(cacheEntry, ostream, range);
                     } else {
                         copy(cacheEntry, writer, range);
@@ -1872,6 +1930,24 @@ public class DefaultServlet extends HttpServlet {
     // -------------------------------------------------------- protected Methods
 
 
+    /**
+     * Return the memory-mapped copy of a file on disk whose content is not
+     * held by the resource cache, if sendfile cannot be used to serve it.
+     */
+    private HotFileCache.Entry getHotFile(HttpServletRequest request,
+                                          CacheEntry entry) {
+        if ((hotFileCache == null)
+            || (entry.resource == null)
+            || (entry.resource.getContent() != null)
+            || (entry.attributes.getCanonicalPath() == null)
+            || (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR)))) {
+            return null;
+        }
+        return hotFileCache.get(entry.attributes.getCanonicalPath(),
+                                entry.attributes);
+    }
+
+
     /**
      * Check if sendfile can be used.
      */
@@ -1883,16 +1959,17 @@ public class DefaultServlet extends HttpServlet {
             && (entry.resource != null)
             && ((length > sendfileSize) || (entry.resource.getContent() == null))
             && (entry.attributes.getCanonicalPath() != null)
-            && (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support")))
+            && (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR)))
             && (request.getClass().getName().equals("org.apache.catalina.connector.RequestFacade"))
             && (response.getClass().getName().equals("org.apache.catalina.connector.ResponseFacade"))) {
-            request.setAttribute("org.apache.tomcat.sendfile.filename", entry.attributes.getCanonicalPath());
+            // The connector transfers the region once this servlet returns
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, entry.attributes.getCanonicalPath());
             if (range == null) {
-                request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
-                request.setAttribute("org.apache.tomcat.sendfile.end", length);
+                request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+                request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, length);
             } else {
-                request.setAttribute("org.apache.tomcat.sendfile.start", range.start);
-                request.setAttribute("org.apache.tomcat.sendfile.end", range.end + 1);
+                request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, range.start);
+                request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, range.end + 1);
             }
             request.setAttribute("org.apache.tomcat.sendfile.token", this);
             return true;
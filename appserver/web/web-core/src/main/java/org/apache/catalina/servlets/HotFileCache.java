@@ -0,0 +1,257 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.catalina.servlets;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.apache.naming.resources.ResourceAttributes;
+
+/**
+ * Keeps frequently requested static files memory-mapped, together with the
+ * header values the {@link DefaultServlet} sends for them.
+ * <p>
+ * A file is only mapped once it has been requested <code>hitThreshold</code>
+ * times, so one-off downloads do not displace the hot set. Mapped regions
+ * live in the page cache rather than on the heap; the total mapped size is
+ * bounded and the least recently served files are dropped first. Entries are
+ * validated against the length and modification time of the resource
+ * attributes on every lookup.
+ * <p>
+ * Dropping an entry does not unmap it, as a response may still be writing
+ * from it; the mapping, and the open file behind it, goes away once the
+ * buffer is garbage collected.
+ */
+final class HotFileCache {
+
+    /**
+     * Upper bound on the number of files being counted towards the hit
+     * threshold before the counters are reset.
+     */
+    private static final int MAX_CANDIDATES = 1024;
+
+    private final long maxSize;
+    private final long maxFileSize;
+    private final int hitThreshold;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> candidates = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+
+    HotFileCache(long maxSize, long maxFileSize, int hitThreshold) {
+        this.maxSize = maxSize;
+        this.maxFileSize = Math.min(maxFileSize, Integer.MAX_VALUE);
+        this.hitThreshold = Math.max(hitThreshold, 1);
+    }
+
+    /**
+     * Return the mapped entry for the given file, mapping it if it has
+     * become hot, or <code>null</code> if it should be served the usual way.
+     *
+     * @param path the canonical path of the file
+     * @param attributes the current attributes of the resource
+     */
+    Entry get(String path, ResourceAttributes attributes) {
+        long length = attributes.getContentLength();
+        long lastModified = attributes.getLastModified();
+
+        Entry entry = entries.get(path);
+        if (entry != null) {
+            if (entry.length == length && entry.lastModified == lastModified) {
+                entry.lastAccess = System.nanoTime();
+                return entry;
+            }
+            remove(path, entry);
+        }
+
+        if (length <= 0 || length > maxFileSize || length > maxSize) {
+            return null;
+        }
+
+        if (candidates.size() >= MAX_CANDIDATES) {
+            candidates.clear();
+        }
+        int hits = candidates.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+        if (hits < hitThreshold) {
+            return null;
+        }
+        candidates.remove(path);
+
+        return map(path, attributes, length, lastModified);
+    }
+
+    /**
+     * Drop all mapped files.
+     */
+    void clear() {
+        entries.clear();
+        candidates.clear();
+        size.set(0);
+    }
+
+    long getSize() {
+        return size.get();
+    }
+
+    int getEntryCount() {
+        return entries.size();
+    }
+
+    private Entry map(String path, ResourceAttributes attributes, long length, long lastModified) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            if (channel.size() != length) {
+                // Changed on disk since the attributes were read
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+
+        Entry entry = new Entry(buffer, length, lastModified,
+                attributes.getETag(), attributes.getLastModifiedHttp());
+        Entry previous = entries.putIfAbsent(path, entry);
+        if (previous != null) {
+            return previous;
+        }
+        size.addAndGet(length);
+        evict(path);
+        return entry;
+    }
+
+    /**
+     * Drop the least recently served entries, other than the one just
+     * added, until the cache fits within its bounds again.
+     */
+    private void evict(String added) {
+        while (size.get() > maxSize) {
+            String oldestPath = null;
+            Entry oldest = null;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (!e.getKey().equals(added)
+                        && (oldest == null || e.getValue().lastAccess < oldest.lastAccess)) {
+                    oldestPath = e.getKey();
+                    oldest = e.getValue();
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            remove(oldestPath, oldest);
+        }
+    }
+
+    private void remove(String path, Entry entry) {
+        if (entries.remove(path, entry)) {
+            size.addAndGet(-entry.length);
+        }
+    }
+
+
+    /**
+     * A mapped file with its precomputed validators.
+     */
+    static final class Entry {
+
+        private final ByteBuffer buffer;
+        private final long length;
+        private final long lastModified;
+        private final String eTag;
+        private final String lastModifiedHttp;
+        private volatile long lastAccess = System.nanoTime();
+
+        Entry(ByteBuffer buffer, long length, long lastModified, String eTag, String lastModifiedHttp) {
+            this.buffer = buffer;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.eTag = eTag;
+            this.lastModifiedHttp = lastModifiedHttp;
+        }
+
+        String getETag() {
+            return eTag;
+        }
+
+        String getLastModifiedHttp() {
+            return lastModifiedHttp;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Write the <code>[start, end]</code> byte range of the file. The
+         * connector's own stream is handed the mapped region itself; any
+         * other stream is fed through a heap buffer.
+         */
+        void writeTo(OutputStream out, long start, long end, int bufferSize) throws IOException {
+            ByteBuffer source = buffer.duplicate();
+            source.position((int) start);
+            source.limit((int) end + 1);
+            if (out instanceof CoyoteOutputStream) {
+                ((CoyoteOutputStream) out).write(source.slice());
+                return;
+            }
+            byte[] chunk = new byte[Math.min(bufferSize, source.remaining())];
+            while (source.hasRemaining()) {
+                int len = Math.min(chunk.length, source.remaining());
+                try {
+                    source.get(chunk, 0, len);
+                } catch (InternalError e) {
+                    // The file was truncated underneath the mapping
+                    throw new IOException(e);
+                }
+                out.write(chunk, 0, len);
+            }
+        }
+    }
+}
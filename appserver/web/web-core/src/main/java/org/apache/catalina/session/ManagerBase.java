@@ -55,12 +55,11 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2016-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package org.apache.catalina.session;
 
 import com.sun.enterprise.util.uuid.UuidGenerator;
-import com.sun.enterprise.util.uuid.UuidGeneratorImpl;
 import org.apache.catalina.*;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.core.StandardHost;
@@ -179,7 +178,7 @@ public abstract class ManagerBase implements Manager {
     /**
      * A random number generator to use when generating session identifiers.
      */
-    private SecureRandom random = null;
+    private volatile SecureRandom random = null;
     
     
     /**
@@ -187,7 +186,14 @@ public abstract class ManagerBase implements Manager {
      * when generating universally unique session identifiers.
      * HERCULES: add
      */
-    protected UuidGenerator uuidGenerator = new UuidGeneratorImpl();     
+    protected UuidGenerator uuidGenerator = new SecureRandomSessionIdGenerator();
+
+
+    /**
+     * The wheel used to find the sessions that may have expired, null if
+     * the expiry checks all sessions.
+     */
+    protected SessionExpiryWheel expiryWheel = null;
 
 
     /**
@@ -470,6 +476,9 @@ public abstract class ManagerBase implements Manager {
 
         int oldSessionIdLength = this.sessionIdLength;
         this.sessionIdLength = idLength;
+        if (uuidGenerator instanceof SecureRandomSessionIdGenerator) {
+            ((SecureRandomSessionIdGenerator) uuidGenerator).setSessionIdLength(idLength);
+        }
         support.firePropertyChange("sessionIdLength",
                                    Integer.valueOf(oldSessionIdLength),
                                    Integer.valueOf(this.sessionIdLength));
@@ -564,7 +573,17 @@ public abstract class ManagerBase implements Manager {
      * generating session identifiers.  If there is no such generator
      * currently defined, construct and seed a new one.
      */
-    public synchronized SecureRandom getRandom() {
+    public SecureRandom getRandom() {
+        SecureRandom current = this.random;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            return initRandom();
+        }
+    }
+
+    private SecureRandom initRandom() {
         if (this.random == null) {
             // Calculate the new random number generator seed
             long seed = System.currentTimeMillis();
@@ -574,19 +593,22 @@ public abstract class ManagerBase implements Manager {
                  long update = ((byte) entropy[i]) << ((i % 8) * 8);
                  seed ^= update;
             }
+            SecureRandom created;
             try {
                  // Construct and seed a new random number generator
                  Class<?> clazz = Class.forName(randomClass);
-                 this.random = (SecureRandom) clazz.newInstance();
-                 this.random.setSeed(seed);
+                 created = (SecureRandom) clazz.newInstance();
+                 created.setSeed(seed);
             } catch (Exception e) {
                  // Fall back to the simple case
                 String msg = MessageFormat.format(rb.getString(LogFacade.INIT_RANDOM_NUMBER_GENERATOR_EXCEPTION),
                                                   randomClass);
                  log.log(Level.SEVERE, msg, e);
-                 this.random = new SecureRandom();
-                 this.random.setSeed(seed);
+                 created = new SecureRandom();
+                 created.setSeed(seed);
             }
+            // only publish the generator once it is seeded
+            this.random = created;
             long t2=System.currentTimeMillis();
             if( (t2-t1) > 100 )
                  if (log.isLoggable(Level.FINE)) {
@@ -623,6 +645,9 @@ public abstract class ManagerBase implements Manager {
     public void setRandomClass(String randomClass) {
         String oldRandomClass = this.randomClass;
         this.randomClass = randomClass;
+        if (uuidGenerator instanceof SecureRandomSessionIdGenerator) {
+            ((SecureRandomSessionIdGenerator) uuidGenerator).setRandomClass(randomClass);
+        }
         support.firePropertyChange("randomClass", oldRandomClass,
                                    this.randomClass);
     }
@@ -709,6 +734,9 @@ public abstract class ManagerBase implements Manager {
     @Override
     public void add(Session session) {
         sessions.put(session.getIdInternal(), session);
+        if (expiryWheel != null) {
+            expiryWheel.schedule(session, System.currentTimeMillis());
+        }
         int size = sessions.size();
         if (size > maxActive) {
             synchronized(maxActiveUpdateLock) {
@@ -893,6 +921,9 @@ public abstract class ManagerBase implements Manager {
      */
     public void clearSessions() {
         sessions.clear();
+        if (expiryWheel != null) {
+            expiryWheel.clear();
+        }
     }    
 
 
@@ -912,6 +943,22 @@ public abstract class ManagerBase implements Manager {
     @Override
     public void remove(Session session) {
         sessions.remove(session.getIdInternal());
+        if (expiryWheel != null) {
+            expiryWheel.unschedule(session);
+        }
+    }
+
+
+    /**
+     * Notifies this Manager that the inactivity timeout of the given session
+     * was changed so that it is checked for expiry at the right time.
+     *
+     * @param session the session whose timeout changed
+     */
+    protected void sessionTimeoutChanged(Session session) {
+        if (expiryWheel != null && sessions.get(session.getIdInternal()) == session) {
+            expiryWheel.schedule(session, System.currentTimeMillis());
+        }
     }
 
     @Override
@@ -981,7 +1028,7 @@ public abstract class ManagerBase implements Manager {
      * Generate and return a new session identifier.
      * Hercules:added
      */
-    protected synchronized String generateSessionId(Object obj) {
+    protected String generateSessionId(Object obj) {
         return uuidGenerator.generateUuid(obj);
     }   
     
@@ -989,7 +1036,7 @@ public abstract class ManagerBase implements Manager {
      * Generate and return a new session identifier.
      * Hercules:modified
      */
-    protected synchronized String generateSessionId() {
+    protected String generateSessionId() {
         return generateSessionId(new Object());
     }    
 
@@ -0,0 +1,141 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.apache.catalina.session;
+
+import com.sun.enterprise.util.uuid.UuidGenerator;
+import java.security.SecureRandom;
+import java.text.MessageFormat;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.catalina.LogFacade;
+
+/**
+ * Generates session identifiers from a pool of {@link SecureRandom} instances.
+ * <p>
+ * A thread takes an instance from the pool, or creates one if the pool is empty, and returns it once the bytes for
+ * the identifier have been generated. Concurrent session creation therefore never waits for another thread, and the
+ * pool grows to no more instances than there are threads creating sessions at the same time.
+ */
+public class SecureRandomSessionIdGenerator implements UuidGenerator {
+
+    private static final Logger log = LogFacade.getLogger();
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Queue<SecureRandom> randoms = new ConcurrentLinkedQueue<>();
+    private volatile int sessionIdLength = 16;
+    private volatile String randomClass = SecureRandom.class.getName();
+
+    /**
+     * @param sessionIdLength the number of random bytes of a session identifier, the identifier has twice as many
+     *                        characters
+     */
+    public void setSessionIdLength(int sessionIdLength) {
+        this.sessionIdLength = sessionIdLength;
+    }
+
+    public int getSessionIdLength() {
+        return sessionIdLength;
+    }
+
+    /**
+     * @param randomClass the name of the {@link SecureRandom} class to use, pooled instances of a previous class are
+     *                    discarded
+     */
+    public void setRandomClass(String randomClass) {
+        if (randomClass != null && !randomClass.equals(this.randomClass)) {
+            this.randomClass = randomClass;
+            randoms.clear();
+        }
+    }
+
+    public String getRandomClass() {
+        return randomClass;
+    }
+
+    @Override
+    public String generateUuid() {
+        byte[] bytes = new byte[sessionIdLength];
+        SecureRandom random = randoms.poll();
+        if (random == null) {
+            random = createRandom();
+        }
+        try {
+            random.nextBytes(bytes);
+        } finally {
+            randoms.offer(random);
+        }
+        char[] id = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            id[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            id[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(id);
+    }
+
+    @Override
+    public String generateUuid(Object obj) {
+        return generateUuid();
+    }
+
+    private SecureRandom createRandom() {
+        String className = randomClass;
+        long t1 = System.currentTimeMillis();
+        SecureRandom random;
+        try {
+            random = (SecureRandom) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            String msg = MessageFormat.format(log.getResourceBundle().getString(
+                    LogFacade.INIT_RANDOM_NUMBER_GENERATOR_EXCEPTION), className);
+            log.log(Level.SEVERE, msg, e);
+            random = new SecureRandom();
+        }
+        // Force seeding now rather than on the first identifier
+        random.nextInt();
+        long t2 = System.currentTimeMillis();
+        if ((t2 - t1) > 100 && log.isLoggable(Level.FINE)) {
+            String msg = MessageFormat.format(log.getResourceBundle().getString(
+                    LogFacade.SEEDING_RANDOM_NUMBER_GENERATOR_CLASS), className);
+            log.log(Level.FINE, "{0} {1}", new Object[]{msg, t2 - t1});
+        }
+        return random;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.apache.catalina.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.catalina.Session;
+
+/**
+ * A timing wheel of the sessions of a manager ordered by the time they may expire.
+ * <p>
+ * Each session is placed in the slot of the tick its inactivity timeout would end if it was not accessed again. The
+ * background expiry only visits the slots of the ticks that passed since it ran the last time instead of all sessions.
+ * Accessing a session does not move it. When its slot comes due the session is checked and, if it is still valid,
+ * scheduled again based on its current last access time.
+ * <p>
+ * Sessions that would expire further in the future than the wheel spans, or never, are placed in the last slot of the
+ * span and are checked once per rotation.
+ */
+public final class SessionExpiryWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Set<Session>[] slots;
+    private final ConcurrentMap<Session, Long> scheduledTicks = new ConcurrentHashMap<>();
+    private volatile long sweptTick;
+
+    /**
+     * @param tickMillis the length of one tick in milliseconds
+     * @param slots the number of ticks the wheel spans, rounded up to the next power of two
+     * @param currentTimeMillis the current time
+     */
+    @SuppressWarnings("unchecked")
+    public SessionExpiryWheel(long tickMillis, int slots, long currentTimeMillis) {
+        int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.slots = new Set[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.sweptTick = currentTimeMillis / tickMillis;
+    }
+
+    /**
+     * Places the session in the slot of the tick its timeout ends, replacing an earlier placement.
+     *
+     * @param session the session to schedule
+     * @param currentTimeMillis the current time
+     */
+    public void schedule(Session session, long currentTimeMillis) {
+        long tick = tickOf(session, currentTimeMillis);
+        scheduledTicks.compute(session, (s, previous) -> {
+            if (previous != null) {
+                slots[slot(previous)].remove(s);
+            }
+            slots[slot(tick)].add(s);
+            return tick;
+        });
+    }
+
+    /**
+     * Removes the session from the wheel.
+     *
+     * @param session the session to remove
+     */
+    public void unschedule(Session session) {
+        scheduledTicks.computeIfPresent(session, (s, previous) -> {
+            slots[slot(previous)].remove(s);
+            return null;
+        });
+    }
+
+    /**
+     * Removes and returns all sessions whose tick has passed.
+     *
+     * @param currentTimeMillis the current time
+     * @return the sessions that might have expired, they are no longer in the wheel
+     */
+    public List<Session> pollDue(long currentTimeMillis) {
+        long nowTick = currentTimeMillis / tickMillis;
+        long fromTick = sweptTick + 1;
+        sweptTick = Math.max(sweptTick, nowTick);
+        List<Session> due = new ArrayList<>();
+        long toTick = Math.min(nowTick, fromTick + mask);
+        for (long tick = fromTick; tick <= toTick; tick++) {
+            Set<Session> slot = slots[slot(tick)];
+            for (Session session : slot) {
+                scheduledTicks.computeIfPresent(session, (s, scheduled) -> {
+                    if (scheduled > nowTick) {
+                        return scheduled;
+                    }
+                    slot.remove(s);
+                    due.add(s);
+                    return null;
+                });
+            }
+        }
+        return due;
+    }
+
+    /**
+     * @return the number of sessions in the wheel
+     */
+    public int size() {
+        return scheduledTicks.size();
+    }
+
+    /**
+     * Removes all sessions from the wheel.
+     */
+    public void clear() {
+        scheduledTicks.clear();
+        for (Set<Session> slot : slots) {
+            slot.clear();
+        }
+    }
+
+    private long tickOf(Session session, long currentTimeMillis) {
+        long nowTick = currentTimeMillis / tickMillis;
+        long lastTick = nowTick + mask;
+        int maxInactiveInterval = session.getMaxInactiveInterval();
+        if (maxInactiveInterval < 0) {
+            return lastTick;
+        }
+        long expires = session.getThisAccessedTime() + maxInactiveInterval * 1000L;
+        long tick = (expires + tickMillis - 1) / tickMillis;
+        return Math.max(sweptTick + 1, Math.min(tick, lastTick));
+    }
+
+    private int slot(long tick) {
+        return (int) (tick & mask);
+    }
+}
@@ -56,7 +56,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2016-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package org.apache.catalina.session;
 
@@ -179,6 +179,25 @@ public class StandardManager extends ManagerBase implements Lifecycle, PropertyC
 
     long processingTime=0;
 
+    /**
+     * Length in milliseconds of one tick of the session expiry wheel.
+     */
+    private static final long EXPIRY_TICK_MILLIS = 1000L;
+
+    /**
+     * Number of ticks spanned by the session expiry wheel.
+     */
+    private static final int EXPIRY_TICKS = 1024;
+
+
+    // ----------------------------------------------------------- Constructors
+
+
+    public StandardManager() {
+        expiryWheel = new SessionExpiryWheel(EXPIRY_TICK_MILLIS, EXPIRY_TICKS,
+                System.currentTimeMillis());
+    }
+
 
     // ------------------------------------------------------------- Properties
 
@@ -494,6 +513,9 @@ public class StandardManager extends ManagerBase implements Lifecycle, PropertyC
                         StandardSession.deserialize(ois, this);
                     session.setManager(this);
                     sessions.put(session.getIdInternal(), session);
+                    if (expiryWheel != null) {
+                        expiryWheel.schedule(session, System.currentTimeMillis());
+                    }
                     session.activate();
                 }
             } catch (ClassNotFoundException e) {
@@ -977,11 +999,33 @@ public class StandardManager extends ManagerBase implements Lifecycle, PropertyC
 
     /**
      * Invalidate all sessions that have expired.
+     *
+     * Only the sessions of the expiry wheel that are due are checked,
+     * sessions that are still valid are scheduled again.
      */
     public void processExpires() {
 
         long timeNow = System.currentTimeMillis();
 
+        if (expiryWheel != null) {
+            for (final Session session : expiryWheel.pollDue(timeNow)) {
+                final StandardSession sess = (StandardSession) session;
+                if (sess.lockBackground()) {
+                    try {
+                        sess.isValid();
+                    } finally {
+                        sess.unlockBackground();
+                    }
+                }
+                if (sess.getIsValid()
+                        && sessions.get(sess.getIdInternal()) == sess) {
+                    expiryWheel.schedule(sess, System.currentTimeMillis());
+                }
+            }
+            processingTime += (System.currentTimeMillis() - timeNow);
+            return;
+        }
+
         final List<Session> sessions = findSessions();
         for (final Session session : sessions) {
             final StandardSession sess = (StandardSession) session;
@@ -639,6 +639,8 @@ public class StandardSession implements HttpSession, Session, Serializable {
         this.maxInactiveInterval = interval;
         if (isValid && interval == 0) {
             expire();
+        } else if (manager instanceof ManagerBase) {
+            ((ManagerBase) manager).sessionTimeoutChanged(this);
         }
 
     }
@@ -0,0 +1,175 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.catalina.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.naming.resources.ResourceAttributes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests {@link HotFileCache}.
+ */
+public class HotFileCacheTest {
+
+    private File dir;
+
+    @Before
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("hotfiles").toFile();
+    }
+
+    @After
+    public void deleteDir() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static ResourceAttributes attributes(File file) {
+        ResourceAttributes attributes = new ResourceAttributes();
+        attributes.setContentLength(file.length());
+        attributes.setLastModified(file.lastModified());
+        return attributes;
+    }
+
+    private static String read(HotFileCache.Entry entry, long start, long end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entry.writeTo(out, start, end, 4);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void fileIsMappedOnceItIsHot() throws IOException {
+        HotFileCache cache = new HotFileCache(1024, 1024, 3);
+        File file = file("a.css", "body { color: red }");
+        String path = file.getCanonicalPath();
+
+        assertNull(cache.get(path, attributes(file)));
+        assertNull(cache.get(path, attributes(file)));
+        HotFileCache.Entry entry = cache.get(path, attributes(file));
+        assertNotNull(entry);
+        assertSame(entry, cache.get(path, attributes(file)));
+        assertEquals(file.length(), cache.getSize());
+        assertEquals(attributes(file).getETag(), entry.getETag());
+
+        assertEquals("body { color: red }", read(entry, 0, entry.getLength() - 1));
+        assertEquals("color", read(entry, 7, 11));
+    }
+
+    @Test
+    public void modifiedFileIsRemapped() throws IOException {
+        HotFileCache cache = new HotFileCache(1024, 1024, 1);
+        File file = file("a.js", "var a = 1;");
+        String path = file.getCanonicalPath();
+        HotFileCache.Entry entry = cache.get(path, attributes(file));
+        assertNotNull(entry);
+
+        file("a.js", "var a = 12;");
+        ResourceAttributes changed = attributes(file);
+        changed.setLastModified(file.lastModified() + 1000);
+        HotFileCache.Entry remapped = cache.get(path, changed);
+        assertNotSame(entry, remapped);
+        assertEquals("var a = 12;", read(remapped, 0, remapped.getLength() - 1));
+        assertEquals(file.length(), cache.getSize());
+    }
+
+    @Test
+    public void leastRecentlyServedFileIsEvicted() throws IOException {
+        HotFileCache cache = new HotFileCache(20, 20, 1);
+        File first = file("first", "0123456789");
+        File second = file("second", "0123456789");
+        File third = file("third", "0123456789");
+
+        assertNotNull(cache.get(first.getCanonicalPath(), attributes(first)));
+        assertNotNull(cache.get(second.getCanonicalPath(), attributes(second)));
+        assertNotNull(cache.get(first.getCanonicalPath(), attributes(first)));
+        assertNotNull(cache.get(third.getCanonicalPath(), attributes(third)));
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(20, cache.getSize());
+        assertNotNull(cache.get(first.getCanonicalPath(), attributes(first)));
+    }
+
+    @Test
+    public void filesAboveTheLimitAreNotMapped() throws IOException {
+        HotFileCache cache = new HotFileCache(1024, 4, 1);
+        File file = file("big", "0123456789");
+        assertNull(cache.get(file.getCanonicalPath(), attributes(file)));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void writesInChunks() throws IOException {
+        HotFileCache cache = new HotFileCache(1024, 1024, 1);
+        byte[] content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        File file = new File(dir, "bin");
+        Files.write(file.toPath(), content);
+        HotFileCache.Entry entry = cache.get(file.getCanonicalPath(), attributes(file));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entry.writeTo(out, 0, 99, 7);
+        assertArrayEquals(content, out.toByteArray());
+    }
+}
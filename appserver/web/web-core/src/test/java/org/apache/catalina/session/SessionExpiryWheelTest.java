@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.catalina.session;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.catalina.Session;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests {@link SessionExpiryWheel} and {@link SecureRandomSessionIdGenerator}.
+ */
+public class SessionExpiryWheelTest {
+
+    private static final long TICK = 1000;
+
+    private static Session session(long accessed, int maxInactiveSeconds) {
+        Session session = mock(Session.class);
+        when(session.getThisAccessedTime()).thenReturn(accessed);
+        when(session.getMaxInactiveInterval()).thenReturn(maxInactiveSeconds);
+        return session;
+    }
+
+    @Test
+    public void sessionIsDueOnlyAfterItsTimeout() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(TICK, 64, 0);
+        Session session = session(0, 10);
+        wheel.schedule(session, 0);
+
+        assertTrue(wheel.pollDue(9_000).isEmpty());
+        List<Session> due = wheel.pollDue(10_000);
+        assertEquals(1, due.size());
+        assertSame(session, due.get(0));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void rescheduleReplacesEarlierPlacement() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(TICK, 64, 0);
+        Session session = session(0, 5);
+        wheel.schedule(session, 0);
+        when(session.getThisAccessedTime()).thenReturn(4_000L);
+        wheel.schedule(session, 4_000);
+
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.pollDue(5_000).isEmpty());
+        assertEquals(1, wheel.pollDue(9_000).size());
+    }
+
+    @Test
+    public void unscheduledSessionIsNeverDue() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(TICK, 64, 0);
+        Session session = session(0, 1);
+        wheel.schedule(session, 0);
+        wheel.unschedule(session);
+
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.pollDue(60_000).isEmpty());
+    }
+
+    @Test
+    public void timeoutBeyondSpanIsCheckedOncePerRotation() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(TICK, 16, 0);
+        Session session = session(0, -1);
+        wheel.schedule(session, 0);
+
+        assertTrue(wheel.pollDue(14_000).isEmpty());
+        assertEquals(1, wheel.pollDue(15_000).size());
+    }
+
+    @Test
+    public void missedTicksAreSweptTogether() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(TICK, 64, 0);
+        Set<Session> sessions = new HashSet<>();
+        for (int i = 1; i <= 20; i++) {
+            Session session = session(0, i);
+            sessions.add(session);
+            wheel.schedule(session, 0);
+        }
+
+        assertEquals(sessions, new HashSet<>(wheel.pollDue(30_000)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void generatedIdsAreUniqueHex() {
+        SecureRandomSessionIdGenerator generator = new SecureRandomSessionIdGenerator();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String id = generator.generateUuid();
+            assertEquals(32, id.length());
+            assertTrue(id.matches("[0-9A-F]+"));
+            assertTrue(ids.add(id));
+        }
+        assertFalse(ids.isEmpty());
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.web;
 
@@ -77,6 +77,7 @@ public abstract class BasePersistenceStrategyBuilder
     // END CR 6275709
     protected String _persistenceFrequency = null;
     protected String _persistenceScope = null;
+    protected String replicationCompression = null;
     protected String _passedInPersistenceType = null;
     protected int maxSessions = -1;
     protected static final int DEFAULT_REAP_INTERVAL = 60;   // 1 minute
@@ -364,6 +365,8 @@ public abstract class BasePersistenceStrategyBuilder
                         directory = value;
                     } else if (name.equalsIgnoreCase("persistenceScope")) {
                         _persistenceScope = value;
+                    } else if (name.equalsIgnoreCase("compression")) {
+                        replicationCompression = value;
                     } else if (name.equalsIgnoreCase("cookieName")) {
                         persistentCookieName = value;                     
                     } else {
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.web;
 
@@ -80,6 +80,8 @@ import org.apache.catalina.*;
 import org.apache.catalina.connector.Request;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.core.StandardEngine;
+import org.apache.naming.resources.ProxyDirContext;
+import org.apache.naming.resources.ResourceCache;
 import org.apache.catalina.startup.ContextConfig;
 import org.apache.catalina.util.RequestUtil;
 import org.apache.catalina.util.ServerInfo;
@@ -123,12 +125,14 @@ import org.xml.sax.EntityResolver;
 
 import javax.imageio.ImageIO;
 import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
 import java.io.File;
 import java.net.BindException;
 import java.net.MalformedURLException;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -1809,6 +1813,11 @@ public class WebContainer implements org.glassfish.api.container.Container, Post
         webModule.setMonitoringNodeName(monitoringNodeName);
 
         webStatsProviderBootstrap.registerApplicationStatsProviders(monitoringNodeName, virtualServer.getName(), getServletNames(webBundleDescriptor));
+        final WebModule monitoredModule = webModule;
+        webStatsProviderBootstrap.registerResourceCacheStatsProvider(monitoringNodeName, virtualServer.getName(),
+                () -> getResourceCacheStatistic(monitoredModule, ResourceCache::getAccessCount),
+                () -> getResourceCacheStatistic(monitoredModule, ResourceCache::getHitsCount),
+                () -> getResourceCacheStatistic(monitoredModule, ResourceCache::getCacheSize));
 
         virtualServer.addChild(webModule);
 
@@ -1865,6 +1874,21 @@ public class WebContainer implements org.glassfish.api.container.Container, Post
         }
     }
 
+    /**
+     * Read a statistic of the static resource cache of the given module, 0 while
+     * the module is stopped or does not cache its resources.
+     */
+    private static long getResourceCacheStatistic(WebModule webModule, ToLongFunction<ResourceCache> statistic) {
+        DirContext resources = webModule.findStaticResources();
+        if (resources instanceof ProxyDirContext) {
+            ResourceCache cache = ((ProxyDirContext) resources).getCache();
+            if (cache != null) {
+                return statistic.applyAsLong(cache);
+            }
+        }
+        return 0L;
+    }
+
     private List<String> getServletNames(WebBundleDescriptor webBundleDescriptor) {
         List<String> servletNames = new ArrayList<>();
 
@@ -1533,6 +1533,8 @@ public class WebModule extends PwcWebModule implements Context {
             // END RIMOD 4642650
         } else if("fileEncoding".equalsIgnoreCase(name)) {
             setFileEncoding(value);
+        } else if("cacheClassName".equalsIgnoreCase(name)) {
+            setCacheClassName(value);
         } else if("enableTldValidation".equalsIgnoreCase(name)
             && ConfigBeansUtilities.toBoolean(value)) {
             setTldValidation(true);
@@ -2220,6 +2222,12 @@ public class WebModule extends PwcWebModule implements Context {
             monitoringNodeName, vsId);
     }
 
+    @Override
+    public void sessionReplicatedEvent(HttpSession session, long replicatedBytes, long savedBytes) {
+        sessionProbeProvider.sessionReplicatedEvent(session.getId(),
+            replicatedBytes, savedBytes, monitoringNodeName, vsId);
+    }
+
     @Override
     public void sessionActivatedStartEvent(HttpSession session) {
         sessionProbeProvider.sessionActivatedStartEvent(session.getId(),
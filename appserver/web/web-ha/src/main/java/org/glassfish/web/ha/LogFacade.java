@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.web.ha;
 
@@ -114,4 +115,9 @@ public class LogFacade {
             level = "WARNING")
     public static final String COULD_NOT_CREATE_BACKING_STORE = prefix + "00008";
 
+    @LogMessageInfo(
+            message = "Attribute {0} of session {1} could not be serialized, the last replicated value is kept",
+            level = "WARNING")
+    public static final String ATTRIBUTE_NOT_REPLICATED = prefix + "00009";
+
 }
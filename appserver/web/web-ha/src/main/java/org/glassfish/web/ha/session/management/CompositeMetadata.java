@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.web.ha.session.management;
 
@@ -73,6 +74,8 @@ public final class CompositeMetadata implements Storeable {
 
     private transient Collection<SessionAttributeMetadata> entries;
 
+    private Set<String> attributeNames;
+
     private transient Set<String> _dirtyAttributeNames = new HashSet<String>();
 
     private transient static String[] _attributeNames = new String[]{
@@ -155,6 +158,41 @@ public final class CompositeMetadata implements Storeable {
         return attributesMap.values();
     }
 
+    /**
+     * Returns the attribute changes this metadata was constructed with, which
+     * are the entries to store when the metadata is a delta.
+     *
+     * @return a collection of the added, updated and deleted SessionAttributeMetadata
+     */
+    public Collection<SessionAttributeMetadata> getModifiedEntries() {
+        return entries == null ? Collections.<SessionAttributeMetadata>emptyList() : entries;
+    }
+
+    /**
+     * Adds the stored state of an attribute to a loaded metadata.
+     *
+     * @param entry the attribute metadata
+     */
+    public void putEntry(SessionAttributeMetadata entry) {
+        attributesMap.put(entry.getAttributeName(), entry);
+    }
+
+    /**
+     * Returns the names of all attributes of the session when this metadata is
+     * a delta that only holds the changed attributes, and the session state only
+     * when it was replicated in full.
+     *
+     * @return the names of all session attributes or <code>null</code> if this
+     * metadata is not a delta
+     */
+    public Set<String> getAttributeNames() {
+        return attributeNames;
+    }
+
+    public void setAttributeNames(Set<String> attributeNames) {
+        this.attributeNames = attributeNames;
+    }
+
     public long getVersion() {
         return version;
     }
@@ -0,0 +1,195 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The compression applied to the replicated state of a session.
+ * <p>
+ * Encoded states are frames starting with the id of the compression that was used, so a frame can always be decoded
+ * whatever compression the reading instance is configured with. States too small to benefit, or that do not get
+ * smaller, are stored uncompressed.
+ */
+public enum ReplicationCompression {
+
+    NONE(0, "none") {
+        @Override
+        OutputStream compressing(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        InputStream decompressing(InputStream in) {
+            return in;
+        }
+    },
+
+    DEFLATE(1, "deflate") {
+        @Override
+        OutputStream compressing(OutputStream out) {
+            return new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+
+        @Override
+        InputStream decompressing(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+    },
+
+    GZIP(2, "gzip") {
+        @Override
+        OutputStream compressing(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out);
+        }
+
+        @Override
+        InputStream decompressing(InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+    };
+
+    /**
+     * States smaller than this are never compressed.
+     */
+    static final int MIN_COMPRESSED_SIZE = 256;
+
+    private final byte id;
+    private final String configName;
+
+    ReplicationCompression(int id, String configName) {
+        this.id = (byte) id;
+        this.configName = configName;
+    }
+
+    abstract OutputStream compressing(OutputStream out) throws IOException;
+
+    abstract InputStream decompressing(InputStream in) throws IOException;
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Compresses the state into a frame.
+     *
+     * @param state the serialized state
+     * @return the frame holding the state
+     * @throws IOException if the state could not be compressed
+     */
+    public byte[] encode(byte[] state) throws IOException {
+        if (this != NONE && state.length >= MIN_COMPRESSED_SIZE) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(state.length / 2 + 16);
+            bos.write(id);
+            try (OutputStream out = compressing(bos)) {
+                out.write(state);
+            }
+            if (bos.size() <= state.length) {
+                return bos.toByteArray();
+            }
+        }
+        byte[] frame = new byte[state.length + 1];
+        frame[0] = NONE.id;
+        System.arraycopy(state, 0, frame, 1, state.length);
+        return frame;
+    }
+
+    /**
+     * Restores the state held by a frame.
+     *
+     * @param frame a frame created by {@link #encode(byte[])}, an empty or {@code null} frame is returned as is
+     * @return the serialized state
+     * @throws IOException if the frame is corrupt or uses an unknown compression
+     */
+    public static byte[] decode(byte[] frame) throws IOException {
+        if (frame == null || frame.length == 0) {
+            return frame;
+        }
+        ReplicationCompression compression = forId(frame[0]);
+        try (InputStream in = compression.decompressing(new ByteArrayInputStream(frame, 1, frame.length - 1))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * @param configName the configured name, {@code null} or empty for the default
+     * @return the compression of the given name, {@link #DEFLATE} by default
+     * @throws IllegalArgumentException if there is no compression of the given name
+     */
+    public static ReplicationCompression fromConfigName(String configName) {
+        if (configName == null || configName.isEmpty()) {
+            return DEFLATE;
+        }
+        for (ReplicationCompression compression : values()) {
+            if (compression.configName.equalsIgnoreCase(configName.trim())) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException(configName);
+    }
+
+    private static ReplicationCompression forId(byte id) throws IOException {
+        for (ReplicationCompression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IOException("Unknown replication compression: " + id);
+    }
+}
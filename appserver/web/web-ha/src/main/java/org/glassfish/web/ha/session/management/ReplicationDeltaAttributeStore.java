@@ -0,0 +1,274 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.web.ha.session.management;
+
+import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
+import com.sun.web.security.RealmAdapter;
+import org.apache.catalina.Container;
+import org.apache.catalina.Session;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.session.StandardSession;
+import org.glassfish.ha.store.api.BackingStore;
+import org.glassfish.ha.store.api.BackingStoreException;
+import org.glassfish.web.ha.LogFacade;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Replicates only the attributes of a session that changed since it was last saved.
+ * <p>
+ * The session itself, including its attributes at that time, is only replicated when it is saved for the first time.
+ * Later saves replicate the added and modified attributes, the names of the deleted attributes and the names of all
+ * attributes, so that the backing store can keep the session up to date without receiving it as a whole again. All
+ * states are compressed with the configured {@link ReplicationCompression}.
+ * <p>
+ * An attribute that can not be serialized is not replicated: the backing store keeps its last replicated value, and
+ * an attribute that was never replicated is left out of the attribute names.
+ * <p>
+ * The number of bytes replicated and an estimate of the bytes saved compared to replicating the whole session are
+ * reported for each save to the session monitoring of the web module and summed up in {@link #getReplicatedBytes()}
+ * and {@link #getSavedBytes()}.
+ */
+public class ReplicationDeltaAttributeStore extends ReplicationAttributeStore {
+
+    /**
+     * The vendor specific setting of the backing store configuration that tells the backing store it receives the
+     * deltas of this store.
+     */
+    public static final String DELTA_ATTRIBUTE_SETTING = "delta.attribute";
+
+    private static final String REPLICATED_SIZES_NOTE = ReplicationDeltaAttributeStore.class.getName() + ".sizes";
+
+    /**
+     * The key of the session state in the replicated sizes, attribute names are never empty.
+     */
+    private static final String SESSION_STATE_SIZE = "";
+
+    private final ReplicationCompression compression;
+    private final LongAdder replicatedBytes = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public ReplicationDeltaAttributeStore(JavaEEIOUtils ioUtils, ReplicationCompression compression) {
+        super(ioUtils);
+        this.compression = compression;
+    }
+
+    public ReplicationCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return the number of bytes of session and attribute states replicated by this store
+     */
+    public long getReplicatedBytes() {
+        return replicatedBytes.sum();
+    }
+
+    /**
+     * @return the estimated number of bytes not replicated by this store because the sessions were not replicated in
+     *         full or were compressed
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    @Override
+    public void doValveSave(Session session) throws IOException {
+        doSave(session);
+    }
+
+    @Override
+    public void doSave(Session session) throws IOException {
+        if (!((StandardSession) session).getIsValid() || !(session instanceof ModifiedAttributeHASession)) {
+            return;
+        }
+        ModifiedAttributeHASession modAttrSession = (ModifiedAttributeHASession) session;
+        if (session.getPrincipal() != null) {
+            modAttrSession.setUserName(session.getPrincipal().getName());
+        }
+        Map<String, Integer> sizes = getReplicatedSizes(modAttrSession);
+        Set<String> attributeNames = new HashSet<>(Collections.list(modAttrSession.privateGetAttributeList()));
+        byte[] sessionState = null;
+        long replicated = 0;
+        List<SessionAttributeMetadata> entries = new ArrayList<>();
+        if (!modAttrSession.isPersistent()) {
+            // the session state includes all attributes
+            byte[] state = getByteArray(modAttrSession);
+            sessionState = compression.encode(state);
+            replicated += sessionState.length;
+            sizes.clear();
+            sizes.put(SESSION_STATE_SIZE, state.length);
+        } else {
+            replicated += addToEntries(modAttrSession, entries, SessionAttributeMetadata.Operation.ADD,
+                    modAttrSession.getAddedAttributes(), sizes, attributeNames);
+            replicated += addToEntries(modAttrSession, entries, SessionAttributeMetadata.Operation.UPDATE,
+                    modAttrSession.getModifiedAttributes(), sizes, attributeNames);
+            replicated += addToEntries(modAttrSession, entries, SessionAttributeMetadata.Operation.DELETE,
+                    modAttrSession.getDeletedAttributes(), sizes, attributeNames);
+        }
+        CompositeMetadata compositeMetadata = new CompositeMetadata(modAttrSession.getVersion(),
+                modAttrSession.getLastAccessedTimeInternal(), modAttrSession.getMaxInactiveInterval() * 1000L,
+                entries, sessionState, modAttrSession.getUserName());
+        compositeMetadata.setAttributeNames(attributeNames);
+        try {
+            getCompositeMetadataBackingStore().save(session.getIdInternal(), compositeMetadata,
+                    !modAttrSession.isPersistent());
+        } catch (BackingStoreException ex) {
+            throw new IOException("Error during save: " + ex.getMessage(), ex);
+        }
+        modAttrSession.resetAttributeState();
+
+        long full = 0;
+        for (int size : sizes.values()) {
+            full += size;
+        }
+        long saved = Math.max(0, full - replicated);
+        replicatedBytes.add(replicated);
+        savedBytes.add(saved);
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("ReplicationDeltaAttributeStore>>doSave: id=" + session.getIdInternal()
+                    + ", entries=" + entries.size() + ", replicatedBytes=" + replicated + ", savedBytes=" + saved);
+        }
+        Container container = manager == null ? null : manager.getContainer();
+        if (container instanceof StandardContext) {
+            ((StandardContext) container).sessionReplicatedEvent((StandardSession) session, replicated, saved);
+        }
+    }
+
+    private long addToEntries(ModifiedAttributeHASession modAttrSession, List<SessionAttributeMetadata> entries,
+            SessionAttributeMetadata.Operation op, List<String> attrList, Map<String, Integer> sizes,
+            Set<String> attributeNames) throws IOException {
+        long replicated = 0;
+        for (String attrName : attrList) {
+            byte[] frame = null;
+            if (op == SessionAttributeMetadata.Operation.DELETE) {
+                sizes.remove(attrName);
+            } else {
+                byte[] state;
+                try {
+                    state = getByteArray(((StandardSession) modAttrSession).getAttribute(attrName));
+                } catch (IOException ex) {
+                    _logger.log(Level.WARNING, LogFacade.ATTRIBUTE_NOT_REPLICATED,
+                            new Object[] { attrName, modAttrSession.getIdInternal() });
+                    _logger.log(Level.FINE, "Serialization failure", ex);
+                    if (op == SessionAttributeMetadata.Operation.ADD
+                            || !sizes.containsKey(attrName) && !sizes.containsKey(SESSION_STATE_SIZE)) {
+                        // never replicated, there is no value to keep
+                        attributeNames.remove(attrName);
+                    }
+                    continue;
+                }
+                frame = compression.encode(state);
+                replicated += frame.length;
+                sizes.put(attrName, state.length);
+            }
+            replicated += attrName.length();
+            entries.add(new SessionAttributeMetadata(attrName, op, frame));
+        }
+        return replicated;
+    }
+
+    @Override
+    public Session getSession(CompositeMetadata metadata) throws IOException {
+        if (metadata == null || metadata.getState() == null) {
+            return null;
+        }
+        metadata.setState(ReplicationCompression.decode(metadata.getState()));
+        Session session = super.getSession(metadata);
+        StandardSession standardSession = (StandardSession) session;
+
+        // the session state may be older than the attributes and the access time
+        Set<String> attributeNames = metadata.getAttributeNames();
+        if (attributeNames != null) {
+            for (String attrName : Collections.list(((ModifiedAttributeHASession) session).privateGetAttributeList())) {
+                if (!attributeNames.contains(attrName)) {
+                    standardSession.removeAttribute(attrName, false, false);
+                }
+            }
+        }
+        standardSession.setLastAccessedTime(metadata._storeable_getLastAccessTime());
+        standardSession.setThisAccessedTime(metadata._storeable_getLastAccessTime());
+        standardSession.setMaxInactiveInterval((int) (metadata._storeable_getMaxIdleTime() / 1000L));
+        String userName = metadata.getStringExtraParam();
+        HASession haSession = (HASession) session;
+        if (userName != null && !userName.isEmpty() && !userName.equals(haSession.getUserName())) {
+            haSession.setUserName(userName);
+            Container container = manager.getContainer();
+            Principal principal = ((RealmAdapter) container.getRealm()).createFailOveredPrincipal(userName);
+            if (principal != null) {
+                session.setPrincipal(principal);
+            }
+        }
+        haSession.setDirty(false);
+        return session;
+    }
+
+    @Override
+    protected Object getAttributeValue(byte[] state) throws IOException, ClassNotFoundException {
+        return super.getAttributeValue(ReplicationCompression.decode(state));
+    }
+
+    @SuppressWarnings("unchecked")
+    private BackingStore<String, CompositeMetadata> getCompositeMetadataBackingStore() {
+        ReplicationManagerBase<CompositeMetadata> mgr = (ReplicationManagerBase<CompositeMetadata>) this.getManager();
+        return mgr.getBackingStore();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Integer> getReplicatedSizes(Session session) {
+        Map<String, Integer> sizes = (Map<String, Integer>) session.getNote(REPLICATED_SIZES_NOTE);
+        if (sizes == null) {
+            sizes = new ConcurrentHashMap<>();
+            session.setNote(REPLICATED_SIZES_NOTE, sizes);
+        }
+        return sizes;
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018-2021] Payara Foundation and/or affiliates
+// Portions Copyright [2018-2024] Payara Foundation and/or affiliates
 
 package org.glassfish.web.ha.strategy.builder;
 
@@ -100,6 +100,12 @@ public class ReplicatedWebMethodSessionStrategyBuilder extends BasePersistenceSt
                     new ModifiedAttributeSessionFactory(),
                     new ReplicationAttributeStore(ioUtils),
                     ctx, serverConfigLookup);
+        } else if (this.getPersistenceScope().equals("delta-attribute")) {
+            setupReplicationWebEventPersistentManager(CompositeMetadata.class,
+                    new ModifiedAttributeSessionFactory(),
+                    new ReplicationDeltaAttributeStore(ioUtils,
+                            ReplicationCompression.fromConfigName(replicationCompression)),
+                    ctx, serverConfigLookup);
         } else {
             throw new IllegalArgumentException(this.getPersistenceScope());
         }
@@ -119,6 +125,8 @@ public class ReplicatedWebMethodSessionStrategyBuilder extends BasePersistenceSt
         vendorMap.put("async.replication", asyncReplicationValue);
         vendorMap.put("broadcast.remove.expired", false);
         vendorMap.put("value.class.is.thread.safe", true);
+        vendorMap.put(ReplicationDeltaAttributeStore.DELTA_ATTRIBUTE_SETTING,
+                store instanceof ReplicationDeltaAttributeStore);
         ReplicationWebEventPersistentManager<T> rwepMgr = getReplicationWebEventPersistentManager();
         rwepMgr.setSessionFactory(sessionFactory);
         rwepMgr.createBackingStore(this.getPassedInPersistenceType(), ctx.getPath(), metadataClass, vendorMap);
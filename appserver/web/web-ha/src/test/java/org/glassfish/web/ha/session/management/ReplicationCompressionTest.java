@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.web.ha.session.management;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the frames written and read by {@link ReplicationCompression}.
+ */
+public class ReplicationCompressionTest {
+
+    private static final byte NONE_ID = 0;
+    private static final byte DEFLATE_ID = 1;
+    private static final byte GZIP_ID = 2;
+
+    @Test
+    public void compressesLargeStates() throws IOException {
+        byte[] state = compressible(4096);
+        assertRoundTrip(ReplicationCompression.DEFLATE, state, DEFLATE_ID);
+        assertRoundTrip(ReplicationCompression.GZIP, state, GZIP_ID);
+    }
+
+    @Test
+    public void compressedFramesAreSmaller() throws IOException {
+        byte[] state = compressible(4096);
+        assertTrue(ReplicationCompression.DEFLATE.encode(state).length < state.length);
+        assertTrue(ReplicationCompression.GZIP.encode(state).length < state.length);
+    }
+
+    @Test
+    public void smallStatesAreNotCompressed() throws IOException {
+        byte[] state = compressible(ReplicationCompression.MIN_COMPRESSED_SIZE - 1);
+        assertRoundTrip(ReplicationCompression.DEFLATE, state, NONE_ID);
+        assertRoundTrip(ReplicationCompression.GZIP, state, NONE_ID);
+    }
+
+    @Test
+    public void incompressibleStatesAreNotCompressed() throws IOException {
+        byte[] state = new byte[4096];
+        new Random(42).nextBytes(state);
+        assertRoundTrip(ReplicationCompression.DEFLATE, state, NONE_ID);
+        assertRoundTrip(ReplicationCompression.GZIP, state, NONE_ID);
+    }
+
+    @Test
+    public void noneNeverCompresses() throws IOException {
+        assertRoundTrip(ReplicationCompression.NONE, compressible(4096), NONE_ID);
+    }
+
+    @Test
+    public void emptyStateHasAFrame() throws IOException {
+        byte[] frame = ReplicationCompression.DEFLATE.encode(new byte[0]);
+        assertArrayEquals(new byte[] { NONE_ID }, frame);
+        assertArrayEquals(new byte[0], ReplicationCompression.decode(frame));
+    }
+
+    @Test
+    public void missingFramesAreReturnedAsIs() throws IOException {
+        assertNull(ReplicationCompression.decode(null));
+        byte[] empty = new byte[0];
+        assertSame(empty, ReplicationCompression.decode(empty));
+    }
+
+    @Test
+    public void framesAreReadWhateverTheConfiguredCompression() throws IOException {
+        byte[] state = compressible(1024);
+        byte[] gzipped = ReplicationCompression.GZIP.encode(state);
+        byte[] deflated = ReplicationCompression.DEFLATE.encode(state);
+        assertArrayEquals(state, ReplicationCompression.decode(gzipped));
+        assertArrayEquals(state, ReplicationCompression.decode(deflated));
+    }
+
+    @Test
+    public void unknownCompressionIsRejected() {
+        try {
+            ReplicationCompression.decode(new byte[] { 42, 1, 2, 3 });
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("42"));
+        }
+    }
+
+    @Test
+    public void configNames() {
+        assertSame(ReplicationCompression.DEFLATE, ReplicationCompression.fromConfigName(null));
+        assertSame(ReplicationCompression.DEFLATE, ReplicationCompression.fromConfigName(""));
+        assertSame(ReplicationCompression.GZIP, ReplicationCompression.fromConfigName(" GZip "));
+        assertSame(ReplicationCompression.NONE, ReplicationCompression.fromConfigName("none"));
+        for (ReplicationCompression compression : ReplicationCompression.values()) {
+            assertSame(compression, ReplicationCompression.fromConfigName(compression.getConfigName()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownConfigNameIsRejected() {
+        ReplicationCompression.fromConfigName("lz4");
+    }
+
+    private static void assertRoundTrip(ReplicationCompression compression, byte[] state, byte expectedId)
+            throws IOException {
+        byte[] frame = compression.encode(state);
+        assertEquals(expectedId, frame[0]);
+        if (expectedId == NONE_ID) {
+            assertEquals(state.length + 1, frame.length);
+        }
+        assertArrayEquals(state, ReplicationCompression.decode(frame));
+    }
+
+    private static byte[] compressible(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("attribute value ").append(text.length() % 7).append(';');
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -55,6 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package org.apache.naming.resources;
 
@@ -148,6 +149,12 @@ public abstract class BaseDirContext implements DirContext {
     protected int cacheMaxSize = 10240; // 10 MB
 
 
+    /**
+     * Class name of the resource cache, <code>null</code> for the default.
+     */
+    protected String cacheClassName = null;
+
+
     // ------------------------------------------------------------- Properties
 
 
@@ -248,6 +255,23 @@ public abstract class BaseDirContext implements DirContext {
     }
 
 
+    /**
+     * Return the class name of the resource cache.
+     */
+    public String getCacheClassName() {
+        return cacheClassName;
+    }
+
+
+    /**
+     * Set the class name of the resource cache, which must extend
+     * {@link ResourceCache}.
+     */
+    public void setCacheClassName(String cacheClassName) {
+        this.cacheClassName = cacheClassName;
+    }
+
+
     // --------------------------------------------------------- Public Methods
 
 
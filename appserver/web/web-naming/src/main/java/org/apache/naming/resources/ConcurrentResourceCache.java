@@ -0,0 +1,479 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.naming.resources;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchKey;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resource cache for highly concurrent access, selected by setting the
+ * <code>cacheClassName</code> property of the web module to this class.
+ * <p>
+ * Lookups never lock. Entries are weighed by the size in bytes of their
+ * cached content, and the least recently used entries are evicted with a
+ * second chance (clock) policy once the cache exceeds its maximum size.
+ * Resources that were not found are kept in a separate, bounded map so
+ * that probing for missing files cannot evict the content cache.
+ * <p>
+ * Instead of being revalidated against the file system once their TTL has
+ * expired, entries backed by files are dropped when their directory
+ * reports a change. Entries read from an archive never change while it is
+ * deployed. Other entries keep the TTL based revalidation.
+ */
+public class ConcurrentResourceCache extends ResourceCache {
+
+
+    // -------------------------------------------------------------- Constants
+
+
+    /**
+     * Weight in bytes of an entry besides its content.
+     */
+    private static final long ENTRY_OVERHEAD = 512;
+
+
+    /**
+     * Timestamp of the entries which need no revalidation.
+     */
+    private static final long TRACKED = Long.MAX_VALUE;
+
+
+    // ----------------------------------------------------- Instance Variables
+
+
+    private final Map<String, Node> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, CacheEntry> notFoundEntries = new ConcurrentHashMap<>();
+
+    /**
+     * Eviction order, may hold nodes which have already been removed.
+     */
+    private final Queue<Node> clock = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger staleNodes = new AtomicInteger();
+
+    private final AtomicLong weight = new AtomicLong();
+
+    private final LongAdder accesses = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Watched directories, by resource name.
+     */
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+
+    private final ResourceChangeWatcher.Listener listener = new ChangeListener();
+
+    private volatile boolean archive;
+
+
+    // ------------------------------------------------------------- Properties
+
+
+    /**
+     * Set whether the cached resources are read from an archive, which
+     * cannot change while it is deployed.
+     */
+    public void setArchive(boolean archive) {
+        this.archive = archive;
+    }
+
+
+    @Override
+    public long getAccessCount() {
+        return accesses.sum();
+    }
+
+
+    @Override
+    public long getHitsCount() {
+        return hits.sum();
+    }
+
+
+    @Override
+    public int getCacheSize() {
+        return (int) (weight.get() / 1024);
+    }
+
+
+    /**
+     * Return the number of cached resources that were not found.
+     */
+    public int getNotFoundCount() {
+        return notFoundEntries.size();
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+
+    @Override
+    public boolean allocate(int space) {
+        // Space is reclaimed when entries are added
+        return true;
+    }
+
+
+    @Override
+    public CacheEntry lookup(String name) {
+        accesses.increment();
+        Node node = entries.get(name);
+        CacheEntry cacheEntry = (node != null) ? node.entry : notFoundEntries.get(name);
+        if (cacheEntry != null) {
+            hits.increment();
+        }
+        return cacheEntry;
+    }
+
+
+    @Override
+    public void load(CacheEntry entry) {
+        loadIfAbsent(entry);
+    }
+
+
+    @Override
+    public boolean loadIfAbsent(CacheEntry entry) {
+        if (!entry.exists) {
+            if (notFoundEntries.putIfAbsent(entry.name, entry) != null) {
+                return false;
+            }
+            trackNotFound(entry);
+            trimNotFound();
+            return true;
+        }
+
+        long maxWeight = cacheMaxSize * 1024L;
+        Node node = new Node(entry, weigh(entry));
+        if (node.weight > maxWeight || entries.putIfAbsent(entry.name, node) != null) {
+            return false;
+        }
+        clock.add(node);
+        weight.addAndGet(node.weight);
+        track(entry);
+
+        if (weight.get() > maxWeight || staleNodes.get() > entries.size() + 64) {
+            evict(maxWeight);
+        }
+        return true;
+    }
+
+
+    @Override
+    public boolean unload(String name) {
+        Node node = entries.remove(name);
+        if (node != null) {
+            weight.addAndGet(-node.weight);
+            staleNodes.incrementAndGet();
+            return true;
+        }
+        return notFoundEntries.remove(name) != null;
+    }
+
+
+    @Override
+    public boolean remove(String name) {
+        return unload(name);
+    }
+
+
+    @Override
+    public boolean isTracked(CacheEntry entry) {
+        return entry.timestamp == TRACKED;
+    }
+
+
+    @Override
+    public void release() {
+        if (!watches.isEmpty()) {
+            ResourceChangeWatcher watcher = ResourceChangeWatcher.getInstance();
+            for (Watch watch : watches.values()) {
+                watcher.unregister(watch.key, listener);
+            }
+            watches.clear();
+        }
+        entries.clear();
+        notFoundEntries.clear();
+        clock.clear();
+        staleNodes.set(0);
+        weight.set(0);
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    private static long weigh(CacheEntry entry) {
+        byte[] content = (entry.resource != null) ? entry.resource.getContent() : null;
+        return ENTRY_OVERHEAD + ((content != null) ? content.length : 0);
+    }
+
+
+    /**
+     * Drop the entries which have not been used since the clock hand last
+     * passed over them, until the cache fits again.
+     */
+    private void evict(long maxWeight) {
+        if (!evictionLock.tryLock()) {
+            // Another thread is already evicting
+            return;
+        }
+        try {
+            if (staleNodes.get() > entries.size()) {
+                clock.removeIf(node -> entries.get(node.entry.name) != node);
+                staleNodes.set(0);
+            }
+            int budget = 2 * entries.size() + staleNodes.get();
+            while (weight.get() > maxWeight && budget-- > 0) {
+                Node node = clock.poll();
+                if (node == null) {
+                    break;
+                }
+                if (entries.get(node.entry.name) != node) {
+                    staleNodes.decrementAndGet();
+                    continue;
+                }
+                long accessCount = node.entry.accessCount;
+                if (accessCount != node.seenAccessCount) {
+                    // Second chance
+                    node.seenAccessCount = accessCount;
+                    clock.add(node);
+                    continue;
+                }
+                if (entries.remove(node.entry.name, node)) {
+                    weight.addAndGet(-node.weight);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+
+    private void trimNotFound() {
+        int max = Math.max(spareNotFoundEntries, 1);
+        if (notFoundEntries.size() <= max) {
+            return;
+        }
+        Iterator<String> names = notFoundEntries.keySet().iterator();
+        int toRemove = notFoundEntries.size() - (max * 3 / 4);
+        while (toRemove-- > 0 && names.hasNext()) {
+            names.next();
+            names.remove();
+        }
+    }
+
+
+    /**
+     * Watch the directory of a file backed entry so that it does not need
+     * to be revalidated.
+     */
+    private void track(CacheEntry entry) {
+        if (archive) {
+            entry.timestamp = TRACKED;
+            return;
+        }
+        String canonicalPath = (entry.attributes != null) ? entry.attributes.getCanonicalPath() : null;
+        if (canonicalPath == null) {
+            return;
+        }
+
+        Path path;
+        try {
+            path = Paths.get(canonicalPath);
+        } catch (InvalidPathException e) {
+            return;
+        }
+        Watch watch;
+        if (entry.context != null) {
+            watch = watch(entry.name, path);
+        } else {
+            Path fileName = path.getFileName();
+            if (fileName == null || !fileName.toString().equals(lastSegment(entry.name))) {
+                // Linked under another name, changes to the link are not seen
+                return;
+            }
+            watch = watch(parentName(entry.name), path.getParent());
+        }
+        if (watch == null) {
+            return;
+        }
+
+        // A change before the directory was watched would have been missed
+        try {
+            if (entry.context == null
+                    && (Files.size(path) != entry.attributes.getContentLength()
+                        || Files.getLastModifiedTime(path).toMillis() != entry.attributes.getLastModified())) {
+                return;
+            }
+        } catch (IOException e) {
+            return;
+        }
+        entry.timestamp = TRACKED;
+    }
+
+
+    private void trackNotFound(CacheEntry entry) {
+        if (archive) {
+            entry.timestamp = TRACKED;
+            return;
+        }
+        Watch watch = watches.get(parentName(entry.name));
+        if (watch != null && !Files.exists(watch.directory.resolve(lastSegment(entry.name)))) {
+            entry.timestamp = TRACKED;
+        }
+    }
+
+
+    private Watch watch(String directoryName, Path directory) {
+        if (directory == null) {
+            return null;
+        }
+        Watch watch = watches.get(directoryName);
+        if (watch != null) {
+            return watch;
+        }
+        ResourceChangeWatcher watcher = ResourceChangeWatcher.getInstance();
+        if (watcher == null) {
+            return null;
+        }
+        return watches.computeIfAbsent(directoryName, name -> {
+            WatchKey key = watcher.register(directory, name, listener);
+            return (key != null) ? new Watch(key, directory) : null;
+        });
+    }
+
+
+    private void unloadTree(String name) {
+        unload(name);
+        String prefix = name.endsWith("/") ? name : name + "/";
+        for (String key : entries.keySet()) {
+            if (key.startsWith(prefix)) {
+                unload(key);
+            }
+        }
+        notFoundEntries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+
+    private static String parentName(String name) {
+        int slash = name.lastIndexOf('/');
+        return (slash <= 0) ? "/" : name.substring(0, slash);
+    }
+
+
+    private static String lastSegment(String name) {
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+
+    // --------------------------------------------------------- Inner Classes
+
+
+    private static final class Node {
+
+        private final CacheEntry entry;
+        private final long weight;
+        private long seenAccessCount;
+
+        Node(CacheEntry entry, long weight) {
+            this.entry = entry;
+            this.weight = weight;
+            this.seenAccessCount = entry.accessCount;
+        }
+    }
+
+
+    private static final class Watch {
+
+        private final WatchKey key;
+        private final Path directory;
+
+        Watch(WatchKey key, Path directory) {
+            this.key = key;
+            this.directory = directory;
+        }
+    }
+
+
+    private final class ChangeListener implements ResourceChangeWatcher.Listener {
+
+        @Override
+        public void changed(String directoryName, String name) {
+            unloadTree(name);
+            // The directory listing changed as well
+            unload(directoryName);
+            if (directoryName.length() > 1 && !directoryName.endsWith("/")) {
+                unload(directoryName + "/");
+            }
+        }
+
+        @Override
+        public void invalidated(String directoryName) {
+            if (directoryName == null) {
+                for (String key : entries.keySet()) {
+                    unload(key);
+                }
+                notFoundEntries.clear();
+            } else {
+                watches.remove(directoryName);
+                unloadTree(directoryName);
+            }
+        }
+    }
+}
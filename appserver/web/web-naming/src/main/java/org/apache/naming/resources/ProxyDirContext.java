@@ -55,6 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+// Portions Copyright [2024] [Payara Foundation and/or its affiliates]
 
 package org.apache.naming.resources;
 
@@ -110,8 +111,15 @@ public class ProxyDirContext implements DirContext {
             // the caching policy.
             BaseDirContext baseDirContext = (BaseDirContext) dirContext;
             if (baseDirContext.isCached()) {
+                if (baseDirContext.getCacheClassName() != null) {
+                    cacheClassName = baseDirContext.getCacheClassName();
+                }
                 cache = (ResourceCache) 
                     Class.forName(cacheClassName).newInstance();
+                if (cache instanceof ConcurrentResourceCache) {
+                    ((ConcurrentResourceCache) cache).setArchive(
+                        dirContext instanceof WARDirContext);
+                }
                 cache.setCacheMaxSize(baseDirContext.getCacheMaxSize());
                 cacheTTL = baseDirContext.getCacheTTL();
                 cacheObjectMaxSize = baseDirContext.getCacheMaxSize() / 20;
@@ -192,6 +200,16 @@ public class ProxyDirContext implements DirContext {
     }
 
 
+    /**
+     * Release the cache once the owning context is stopped.
+     */
+    public void release() {
+        if (cache != null) {
+            cache.release();
+        }
+    }
+
+
     /**
      * Return the actual directory context we are wrapping.
      */
@@ -1474,6 +1492,10 @@ public class ProxyDirContext implements DirContext {
      * Validate entry.
      */
     protected boolean validate(CacheEntry entry) {
+        if (cache.isTracked(entry)) {
+            // Dropped by the cache when the resource changes
+            return true;
+        }
         if (((!entry.exists)
              || (entry.context != null)
              || ((entry.resource != null) 
@@ -1601,13 +1623,8 @@ public class ProxyDirContext implements DirContext {
         // Set timestamp
         entry.timestamp = System.currentTimeMillis() + cacheTTL;
 
-        // Add new entry to cache
-        synchronized (cache) {
-            // Check cache size, and remove elements if too big
-            if ((cache.lookup(name) == null) && cache.allocate(entry.size)) {
-                cache.load(entry);
-            }
-        }
+        // Add new entry to cache, unless it is too big
+        cache.loadIfAbsent(entry);
 
     }
 
@@ -1618,9 +1635,7 @@ public class ProxyDirContext implements DirContext {
     protected boolean cacheUnload(String name) {
         if (cache == null)
             return false;
-        synchronized (cache) {
-            return cache.unload(name);
-        }
+        return cache.remove(name);
     }
 
 
@@ -55,7 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2017] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2017-2024] [Payara Foundation and/or its affiliates]
 package org.apache.naming.resources;
 
 import java.util.HashMap;
@@ -379,6 +379,56 @@ public class ResourceCache {
     }
 
 
+    /**
+     * Add the given entry, unless an entry of the same name is already
+     * cached, after making space for it. Concurrent callers are serialized on
+     * this cache.
+     *
+     * @return <code>true</code> if the entry was added
+     */
+    public boolean loadIfAbsent(CacheEntry entry) {
+        synchronized (this) {
+            if ((lookup(entry.name) == null) && allocate(entry.size)) {
+                load(entry);
+                return true;
+            }
+            return false;
+        }
+    }
+
+
+    /**
+     * Remove the named entry. Concurrent callers are serialized on this
+     * cache.
+     *
+     * @return <code>true</code> if an entry was removed
+     */
+    public boolean remove(String name) {
+        synchronized (this) {
+            return unload(name);
+        }
+    }
+
+
+    /**
+     * Return <code>true</code> if the cache removes the given entry by
+     * itself when the underlying resource changes, in which case the entry
+     * does not have to be revalidated once its TTL has expired.
+     */
+    public boolean isTracked(CacheEntry entry) {
+        return false;
+    }
+
+
+    /**
+     * Release any resource held by the cache once the owning context is
+     * stopped.
+     */
+    public void release() {
+        // NOOP
+    }
+
+
     /**
      * Find a map elemnt given its name in a sorted array of map elements.
      * This will return the index for the closest inferior or equal item in the
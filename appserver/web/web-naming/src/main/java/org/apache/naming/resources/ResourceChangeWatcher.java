@@ -0,0 +1,235 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.naming.resources;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.naming.LogFacade;
+
+/**
+ * Watches the directories holding cached resources and notifies the caches
+ * when their content changes.
+ * <p>
+ * A single watch service and daemon thread are shared by all the web
+ * applications; a directory watched on behalf of several caches is
+ * registered once.
+ */
+final class ResourceChangeWatcher implements Runnable {
+
+    private static final Logger logger = LogFacade.getLogger();
+
+    /**
+     * Receives the changes in a watched directory.
+     */
+    interface Listener {
+
+        /**
+         * An entry of the directory bound to the given resource name was
+         * created, modified or deleted.
+         *
+         * @param directoryName the resource name of the directory
+         * @param name the resource name of the changed entry
+         */
+        void changed(String directoryName, String name);
+
+        /**
+         * Changes may have been lost, or the directory bound to the given
+         * resource name is no longer watched.
+         *
+         * @param directoryName the resource name of the directory, or
+         * <code>null</code> if all the directories are affected
+         */
+        void invalidated(String directoryName);
+    }
+
+    private static volatile ResourceChangeWatcher instance;
+
+    private final WatchService watchService;
+
+    private final Map<WatchKey, List<Registration>> registrations = new ConcurrentHashMap<>();
+
+    private ResourceChangeWatcher(WatchService watchService) {
+        this.watchService = watchService;
+    }
+
+    /**
+     * Return the shared watcher, or <code>null</code> if the default file
+     * system does not support watching.
+     */
+    static ResourceChangeWatcher getInstance() {
+        ResourceChangeWatcher watcher = instance;
+        if (watcher == null) {
+            synchronized (ResourceChangeWatcher.class) {
+                watcher = instance;
+                if (watcher == null) {
+                    try {
+                        watcher = new ResourceChangeWatcher(FileSystems.getDefault().newWatchService());
+                    } catch (IOException | UnsupportedOperationException e) {
+                        logger.log(Level.FINE, "Resource change watching is not available", e);
+                        return null;
+                    }
+                    Thread thread = new Thread(watcher, "resource-change-watcher");
+                    thread.setDaemon(true);
+                    thread.start();
+                    instance = watcher;
+                }
+            }
+        }
+        return watcher;
+    }
+
+    /**
+     * Start watching the given directory.
+     *
+     * @param directory the directory on disk
+     * @param directoryName the resource name bound to the directory
+     * @param listener the listener to notify
+     * @return the key to pass to {@link #unregister}, or <code>null</code> if
+     * the directory cannot be watched
+     */
+    WatchKey register(Path directory, String directoryName, Listener listener) {
+        WatchKey key;
+        try {
+            key = directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Unable to watch " + directory, e);
+            }
+            return null;
+        }
+        registrations.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>())
+                .add(new Registration(directoryName, listener));
+        return key;
+    }
+
+    /**
+     * Stop notifying the given listener about the directory of the key.
+     */
+    void unregister(WatchKey key, Listener listener) {
+        registrations.computeIfPresent(key, (k, list) -> {
+            list.removeIf(registration -> registration.listener == listener);
+            if (list.isEmpty()) {
+                k.cancel();
+                return null;
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // ClosedWatchServiceException
+                return;
+            }
+
+            List<Registration> list = registrations.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (list == null) {
+                    continue;
+                }
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    for (Registration registration : list) {
+                        registration.listener.invalidated(null);
+                    }
+                    continue;
+                }
+                String child = ((Path) event.context()).getFileName().toString();
+                for (Registration registration : list) {
+                    registration.listener.changed(registration.directoryName,
+                            childName(registration.directoryName, child));
+                }
+            }
+
+            if (!key.reset()) {
+                // The directory is gone
+                List<Registration> removed = registrations.remove(key);
+                if (removed != null) {
+                    for (Registration registration : removed) {
+                        registration.listener.invalidated(registration.directoryName);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the resource name of an entry of the named directory.
+     */
+    static String childName(String directoryName, String child) {
+        if (directoryName.endsWith("/")) {
+            return directoryName + child;
+        }
+        return directoryName + "/" + child;
+    }
+
+    private static final class Registration {
+
+        private final String directoryName;
+        private final Listener listener;
+
+        Registration(String directoryName, Listener listener) {
+            this.directoryName = directoryName;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the bucketing and percentiles of the {@link TimeHistogram}.
+ */
+public class TimeHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        TimeHistogram histogram = new TimeHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        TimeHistogram histogram = new TimeHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getPercentile(50));
+        assertEquals(10, histogram.getPercentile(100));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void largeValuesAreWithinRelativeError() {
+        long[] values = { 17, 100, 1_000, 12_345, 1_000_000, 123_456_789_012L, Long.MAX_VALUE / 3 };
+        for (long value : values) {
+            TimeHistogram histogram = new TimeHistogram();
+            histogram.record(value);
+            histogram.record(value * 2 > 0 ? value * 2 : Long.MAX_VALUE);
+            long percentile = histogram.getPercentile(50);
+            assertTrue(value + " -> " + percentile, percentile >= value);
+            assertTrue(value + " -> " + percentile, percentile <= value + value / 8);
+        }
+    }
+
+    @Test
+    public void percentileNeverExceedsMax() {
+        TimeHistogram histogram = new TimeHistogram();
+        histogram.record(1_000);
+        assertEquals(1_000, histogram.getPercentile(50));
+        assertEquals(1_000, histogram.getMax());
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        TimeHistogram histogram = new TimeHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void resetDiscardsValues() {
+        TimeHistogram histogram = new TimeHistogram();
+        histogram.record(42);
+        histogram.record(4_200);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+        histogram.record(3);
+        assertEquals(3, histogram.getPercentile(50));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Buffers the formatters reuse for each record formatted by a thread that formats records continuously, instead of
+ * allocating a new {@link StringBuilder} and {@link SimpleDateFormat} per record. Only a thread that
+ * {@link #attach() attached} buffers reuses them, such as the pump thread of the {@link GFFileHandler}. Formatting on
+ * any other thread, for example by a console handler on the logging thread, allocates per record as before, so that
+ * application threads do not retain formatting memory.
+ */
+final class FormattingBuffers {
+
+    // do not keep the memory of an exceptionally large record (e.g. a long stack trace) forever
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final int INITIAL_CAPACITY = 512;
+
+    private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<>();
+
+    private static final class Buffers {
+        StringBuilder record = new StringBuilder(INITIAL_CAPACITY);
+        boolean recordInUse;
+        String datePattern;
+        SimpleDateFormat dateFormat;
+        final Date date = new Date();
+    }
+
+    private FormattingBuffers() {
+        // utility class
+    }
+
+    /**
+     * Lets the records formatted by the current thread reuse buffers until {@link #detach()} is called.
+     */
+    static void attach() {
+        if (BUFFERS.get() == null) {
+            BUFFERS.set(new Buffers());
+        }
+    }
+
+    /**
+     * Releases the buffers of the current thread.
+     */
+    static void detach() {
+        BUFFERS.remove();
+    }
+
+    /**
+     * @return an empty buffer for the record, which must be given back by {@link #releaseRecordBuffer(StringBuilder)}
+     */
+    static StringBuilder acquireRecordBuffer() {
+        Buffers current = BUFFERS.get();
+        if (current == null || current.recordInUse) {
+            // not a formatting thread, or formatting a record caused another record to be formatted on this thread
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+        current.recordInUse = true;
+        if (current.record.capacity() > MAX_RETAINED_CAPACITY) {
+            current.record = new StringBuilder(INITIAL_CAPACITY);
+        }
+        current.record.setLength(0);
+        return current.record;
+    }
+
+    static void releaseRecordBuffer(StringBuilder buffer) {
+        Buffers current = BUFFERS.get();
+        if (current != null && buffer == current.record) {
+            current.recordInUse = false;
+        }
+    }
+
+    /**
+     * @param pattern the {@link SimpleDateFormat} pattern
+     * @param millis the time to format
+     * @return the formatted time
+     */
+    static String formatDate(String pattern, long millis) {
+        Buffers current = BUFFERS.get();
+        if (current == null) {
+            return new SimpleDateFormat(pattern).format(new Date(millis));
+        }
+        if (current.dateFormat == null || !pattern.equals(current.datePattern)) {
+            current.dateFormat = new SimpleDateFormat(pattern);
+            current.datePattern = pattern;
+        }
+        current.date.setTime(millis);
+        return current.dateFormat.format(current.date);
+    }
+}
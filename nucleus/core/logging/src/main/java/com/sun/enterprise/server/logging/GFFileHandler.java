@@ -47,12 +47,15 @@ import com.sun.common.util.logging.GFLogRecord;
 import com.sun.common.util.logging.LoggingOutputStream;
 import com.sun.enterprise.admin.monitor.callflow.Agent;
 import com.sun.enterprise.module.bootstrap.EarlyLogHandler;
+import com.sun.enterprise.server.logging.logviewer.backend.LogFileIndex;
+import com.sun.enterprise.server.logging.logviewer.backend.LogFileIndexWriter;
 import com.sun.enterprise.util.LocalStringManagerImpl;
 import com.sun.enterprise.util.io.FileUtils;
 import com.sun.enterprise.v3.logging.AgentFormatterDelegate;
 import fish.payara.enterprise.server.logging.JSONLogFormatter;
 import fish.payara.enterprise.server.logging.PayaraNotificationLogRotationTimer;
 import java.io.*;
+import java.nio.file.Files;
 import java.security.PrivilegedAction;
 import java.text.FieldPosition;
 import java.text.ParseException;
@@ -148,6 +151,17 @@ public class GFFileHandler extends StreamHandler implements
 
     private BlockingQueue<LogRecord> pendingRecords = new ArrayBlockingQueue<>(10000);
 
+    /** Replaces the pending records queue when a ring buffer size is configured */
+    private LogRecordRingBuffer ringBuffer;
+    private long reportedDroppedRecordCount;
+    private static final int RING_BUFFER_WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long RING_BUFFER_POLL_MILLIS = 1000;
+
+    /** Writes the sidecar index used by the log viewer when indexLogFile is set */
+    private boolean indexLogFile;
+    private LogFileIndexWriter logIndex;
+    private static final int MAX_RECORDS_PER_INDEX_BLOCK = 256;
+
     /**Rotation can be done in 3 ways: <ol>
      * <li> Based on the Size: Rotate when some Threshold number of bytes are
      *    written to server.log </li>
@@ -183,6 +197,10 @@ public class GFFileHandler extends StreamHandler implements
     @Override
     public void postConstruct() {
 
+        // must be known before the file is opened and the pump is started
+        configureRingBuffer();
+        indexLogFile = Boolean.parseBoolean(manager.getProperty(className + ".indexLogFile"));
+
         String filename = evaluateFileName();
 
         File logFile = new File(filename);
@@ -327,6 +345,51 @@ public class GFFileHandler extends StreamHandler implements
 
     }
 
+    private void configureRingBuffer() {
+        String propertyValue = manager.getProperty(className + ".ringBufferSize");
+        if (propertyValue == null || propertyValue.trim().isEmpty()) {
+            return;
+        }
+        int ringBufferSize;
+        try {
+            ringBufferSize = Integer.parseInt(propertyValue.trim());
+        } catch (NumberFormatException e) {
+            addInvalidAttributeValueMessage(propertyValue, "ringBufferSize");
+            return;
+        }
+        if (ringBufferSize <= 0) {
+            return;
+        }
+        LogRecordRingBuffer.FullPolicy fullPolicy = LogRecordRingBuffer.FullPolicy.BLOCK;
+        propertyValue = manager.getProperty(className + ".ringBufferFullPolicy");
+        if (propertyValue != null && !propertyValue.trim().isEmpty()) {
+            try {
+                fullPolicy = LogRecordRingBuffer.FullPolicy.valueOf(propertyValue.trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                addInvalidAttributeValueMessage(propertyValue, "ringBufferFullPolicy");
+            }
+        }
+        Level dropLevel = Level.WARNING;
+        propertyValue = manager.getProperty(className + ".ringBufferDropLevel");
+        if (propertyValue != null && !propertyValue.trim().isEmpty()) {
+            try {
+                dropLevel = Level.parse(propertyValue.trim());
+            } catch (IllegalArgumentException e) {
+                addInvalidAttributeValueMessage(propertyValue, "ringBufferDropLevel");
+            }
+        }
+        ringBuffer = new LogRecordRingBuffer(ringBufferSize, fullPolicy, dropLevel);
+    }
+
+    private void addInvalidAttributeValueMessage(String propertyValue, String attributeName) {
+        LogRecord invalidValueRecord = new LogRecord(Level.WARNING, LogFacade.INVALID_ATTRIBUTE_VALUE);
+        invalidValueRecord.setParameters(new Object[]{propertyValue, attributeName});
+        invalidValueRecord.setResourceBundle(ResourceBundle.getBundle(LogFacade.LOGGING_RB_NAME));
+        invalidValueRecord.setThreadID((int) Thread.currentThread().getId());
+        invalidValueRecord.setLoggerName(LogFacade.LOGGING_LOGGER_NAME);
+        EarlyLogHandler.earlyMessages.add(invalidValueRecord);
+    }
+
     private void configureLogFormatter(String formatterName, String excludeFields, boolean multiLineMode) {
         if (UniformLogFormatter.class.getName().equals(formatterName)) {
             configureUniformLogFormatter(excludeFields, multiLineMode);
@@ -576,7 +639,10 @@ public class GFFileHandler extends StreamHandler implements
         pump = new Thread() { //Not using the PayaraExecutorService here as it prevents shutdown happening quickly, see PAYARA-4118
             @Override
             public void run() {
-                while (!done.isSignalled() && logToFile) {
+                // the pump formats every record written to the file, so it reuses the formatting buffers
+                FormattingBuffers.attach();
+                try {
+                    while (!done.isSignalled() && logToFile) {
                         try {
                             log();
                         } catch (Exception e) {
@@ -584,7 +650,10 @@ public class GFFileHandler extends StreamHandler implements
                             // Continue the loop without exiting
                         }
                     }
+                } finally {
+                    FormattingBuffers.detach();
                 }
+            }
         };
         pump.setName("GFFileHandler log pump");
         pump.setDaemon(true);
@@ -624,9 +693,72 @@ public class GFFileHandler extends StreamHandler implements
     }
 
     private void drainAllPendingRecords() {
+        if (ringBuffer != null) {
+            ringBuffer.close();
+            ringBuffer.drainTo(this::publishRecord, 0);
+        }
         drainPendingRecords(0);
     }
 
+    private synchronized void publishRecord(LogRecord record) {
+        super.publish(record);
+        if (logIndex != null && isLoggable(record)) {
+            logIndex.recordWritten(record);
+            if (logIndex.getPendingRecordCount() >= MAX_RECORDS_PER_INDEX_BLOCK) {
+                endLogIndexBlock();
+            }
+        }
+    }
+
+    /**
+     * Flushes the log file and ends the current block of the log file index. Blocks are only ended when they are
+     * full and when the log file is closed or rotated, not on every flush, so that a block covers many records.
+     */
+    private void endLogIndexBlock() {
+        super.flush();
+        if (meter != null) {
+            try {
+                logIndex.flushed(meter.written);
+            } catch (IOException ix) {
+                new ErrorManager().error("Could not write log file index, indexing stopped", ix, ErrorManager.WRITE_FAILURE);
+                closeLogIndex();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        closeLogIndex();
+    }
+
+    private synchronized void openLogIndex(File file) {
+        try {
+            if (indexLogFile) {
+                logIndex = LogFileIndexWriter.open(file);
+            } else {
+                // an index left from an earlier run would not cover what is written now
+                Files.deleteIfExists(LogFileIndex.getIndexFile(file).toPath());
+            }
+        } catch (IOException ix) {
+            new ErrorManager().error("Could not open log file index", ix, ErrorManager.OPEN_FAILURE);
+        }
+    }
+
+    private synchronized void closeLogIndex() {
+        if (logIndex != null) {
+            try {
+                // the end of the last block must be in the log file
+                super.flush();
+                logIndex.flushed(meter.written);
+                logIndex.close();
+            } catch (IOException ix) {
+                new ErrorManager().error("Could not close log file index", ix, ErrorManager.CLOSE_FAILURE);
+            }
+            logIndex = null;
+        }
+    }
+
     /**
      * Drains the amount of {@link LogRecord}s in the pending records queue.
      * If passed in the amount <= 0 all of the records get drained.
@@ -643,7 +775,7 @@ public class GFFileHandler extends StreamHandler implements
                 pendingRecords.drainTo(records);
             }
             for (LogRecord record : records) {
-                super.publish(record);
+                publishRecord(record);
             }
         }
     }
@@ -776,10 +908,15 @@ public class GFFileHandler extends StreamHandler implements
             throw new IOException(LOCAL_STRINGS.getLocalString("parent.dir.create.failed",
                     "Failed to create the parent dir {0}", parent.getAbsolutePath()));
         }
+        // ends the index of the previous file while its meter is still in place
+        closeLogIndex();
         FileOutputStream fout = new FileOutputStream(file, true);
-        BufferedOutputStream bout = new BufferedOutputStream(fout);
+        OutputStream bout = ringBuffer == null
+                ? new BufferedOutputStream(fout)
+                : new FileChannelOutputStream(fout.getChannel(), RING_BUFFER_WRITE_BUFFER_SIZE);
         meter = new MeteredStream(bout, file.length());
         setOutputStream(meter);
+        openLogIndex(file);
     }
 
     /**
@@ -809,7 +946,8 @@ public class GFFileHandler extends StreamHandler implements
             List<String> candidates = new ArrayList<>();
             for (int i = 0; fset != null && i < fset.length; i++) {
                 if (!logFileName.equals(fset[i].getName()) && fset[i].isFile()
-                        && fset[i].getName().startsWith(logFileName)) {
+                        && fset[i].getName().startsWith(logFileName)
+                        && !fset[i].getName().endsWith(LogFileIndex.INDEX_FILE_SUFFIX)) {
                     candidates.add(fset[i].getAbsolutePath());
                 }
             }
@@ -825,6 +963,7 @@ public class GFFileHandler extends StreamHandler implements
                         throw new IOException("Could not delete log file: "
                                 + logFile.getAbsolutePath());
                     }
+                    Files.deleteIfExists(LogFileIndex.getIndexFile(logFile).toPath());
                 }
             } catch (Exception e) {
                 new ErrorManager().error(
@@ -879,6 +1018,12 @@ public class GFFileHandler extends StreamHandler implements
                                             freshServerLogFile);
                                     fo.close();
                                 }
+                                // the index stays with the rotated file
+                                File indexFile = LogFileIndex.getIndexFile(oldFile);
+                                if (indexFile.exists()
+                                        && !indexFile.renameTo(LogFileIndex.getIndexFile(rotatedFile))) {
+                                    Files.deleteIfExists(indexFile.toPath());
+                                }
                                 FileOutputStream oldFileFO = new FileOutputStream(oldFile);
                                 oldFileFO.close();
                                 openFile(getLogFileName());
@@ -890,6 +1035,8 @@ public class GFFileHandler extends StreamHandler implements
                                 if (compressionOnRotation) {
                                     boolean compressed = gzipFile(rotatedFile);
                                     if (compressed) {
+                                        // offsets of the uncompressed file are of no use for the compressed one
+                                        Files.deleteIfExists(LogFileIndex.getIndexFile(rotatedFile).toPath());
                                         boolean deleted = rotatedFile.delete();
                                         if (!deleted) {
                                              throw new IOException("Could not delete uncompressed log file: "
@@ -939,13 +1086,15 @@ public class GFFileHandler extends StreamHandler implements
      */
     public void log() {
 
-        if (logToFile) {
+        if (logToFile && ringBuffer != null) {
+            logFromRingBuffer();
+        } else if (logToFile) {
             LogRecord record;
 
             // take is blocking so we take one record off the queue
             try {
                 record = pendingRecords.take();
-                super.publish(record);
+                publishRecord(record);
             } catch (InterruptedException e) {
                 return;
             }
@@ -956,20 +1105,53 @@ public class GFFileHandler extends StreamHandler implements
             }
 
             flush();
-            if ((rotationRequested.get())
-                    || ((limitForFileRotation > 0)
-                    && (meter.written >= limitForFileRotation))) {
-                // If we have written more than the limit set for the
-                // file, or rotation requested from the Timer Task or LogMBean
-                // start fresh with a new file after renaming the old file.
-                synchronized (rotationLock) {
-                    rotate();
-                    rotationRequested.set(false);
-                }
+            rotateIfNeeded();
+        }
+    }
+
+    /**
+     * Writes all records available in the ring buffer as one batch, waiting for records if there are none.
+     */
+    private void logFromRingBuffer() {
+        try {
+            ringBuffer.awaitRecords(RING_BUFFER_POLL_MILLIS);
+        } catch (InterruptedException e) {
+            return;
+        }
+        if (ringBuffer.drainTo(this::publishRecord, ringBuffer.getCapacity()) == 0) {
+            return;
+        }
+        flush();
+        long droppedRecordCount = ringBuffer.getDroppedRecordCount();
+        if (droppedRecordCount > reportedDroppedRecordCount) {
+            new ErrorManager().error("GFFileHandler: " + (droppedRecordCount - reportedDroppedRecordCount)
+                    + " log records were discarded because the ring buffer was full.", null, ErrorManager.GENERIC_FAILURE);
+            reportedDroppedRecordCount = droppedRecordCount;
+        }
+        rotateIfNeeded();
+    }
+
+    private void rotateIfNeeded() {
+        if ((rotationRequested.get())
+                || ((limitForFileRotation > 0)
+                && (meter.written >= limitForFileRotation))) {
+            // If we have written more than the limit set for the
+            // file, or rotation requested from the Timer Task or LogMBean
+            // start fresh with a new file after renaming the old file.
+            synchronized (rotationLock) {
+                rotate();
+                rotationRequested.set(false);
             }
         }
     }
 
+    /**
+     * @return the number of records discarded because the ring buffer was full, always 0 without ring buffer
+     */
+    public long getDroppedRecordCount() {
+        return ringBuffer == null ? 0L : ringBuffer.getDroppedRecordCount();
+    }
+
     /**
      * Publishes the logrecord storing it in our queue
      */
@@ -990,7 +1172,9 @@ public class GFFileHandler extends StreamHandler implements
         // and just cast the passed record if it is
         GFLogRecord wrappedRecord = GFLogRecord.wrap(record, true);
 
-        if (logToFile) {
+        if (logToFile && ringBuffer != null) {
+            ringBuffer.publish(wrappedRecord);
+        } else if (logToFile) {
             try {
                 pendingRecords.add(wrappedRecord);
             } catch (IllegalStateException e) {
@@ -0,0 +1,236 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Bounded lock-free queue of {@link LogRecord}s between the logging threads and the {@link GFFileHandler} pump.
+ * <p>
+ * All slots are allocated up front. Each slot has a sequence number telling whether it is free for the producer of
+ * a certain position or holds the record for the consumer of that position, so that producers only contend on a
+ * single compare-and-set and never on a lock. What happens when all slots are taken is decided by the
+ * {@link FullPolicy}.
+ */
+final class LogRecordRingBuffer {
+
+    /**
+     * What a logging thread does when the ring buffer is full.
+     */
+    enum FullPolicy {
+        /** Wait until the pump made room for the record. */
+        BLOCK,
+        /** Discard records below the drop level, wait for room for all others. */
+        DROP_BELOW_LEVEL,
+        /** Discard the record. */
+        DISCARD
+    }
+
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LogRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final FullPolicy fullPolicy;
+    private final int dropLevel;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder droppedRecordCount = new LongAdder();
+
+    private final Object consumerLock = new Object();
+    private volatile int waitingConsumers;
+    private volatile boolean closed;
+    // only read and written while holding the consumer lock
+    private long head;
+
+    /**
+     * @param minCapacity the minimal number of slots, rounded up to the next power of two
+     * @param fullPolicy what to do with records published while the buffer is full
+     * @param dropLevel with {@link FullPolicy#DROP_BELOW_LEVEL}, the level below which records are discarded
+     */
+    LogRecordRingBuffer(int minCapacity, FullPolicy fullPolicy, Level dropLevel) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+        this.records = new LogRecord[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.fullPolicy = fullPolicy;
+        this.dropLevel = dropLevel.intValue();
+    }
+
+    int getCapacity() {
+        return records.length;
+    }
+
+    /**
+     * @return number of records discarded because the buffer was full
+     */
+    long getDroppedRecordCount() {
+        return droppedRecordCount.sum();
+    }
+
+    /**
+     * Adds the record, applying the {@link FullPolicy} when the buffer is full.
+     *
+     * @param record the record to add
+     * @return true if the record was added, false if it was discarded
+     */
+    boolean publish(LogRecord record) {
+        if (offer(record)) {
+            return true;
+        }
+        if (fullPolicy == FullPolicy.DISCARD
+                || fullPolicy == FullPolicy.DROP_BELOW_LEVEL && record.getLevel().intValue() < dropLevel
+                || Thread.holdsLock(consumerLock)) {
+            // the pump itself must never wait for room as only the pump makes room
+            droppedRecordCount.increment();
+            return false;
+        }
+        long backoffNanos = 1000;
+        while (!closed) {
+            LockSupport.parkNanos(backoffNanos);
+            if (offer(record)) {
+                return true;
+            }
+            backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+        }
+        droppedRecordCount.increment();
+        return false;
+    }
+
+    /**
+     * @param record the record to add
+     * @return true if the record was added, false if the buffer is full
+     */
+    boolean offer(LogRecord record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    records[index] = record;
+                    sequences.set(index, position + 1);
+                    if (waitingConsumers > 0) {
+                        synchronized (consumerLock) {
+                            consumerLock.notifyAll();
+                        }
+                    }
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Passes the available records to the consumer, oldest first.
+     *
+     * @param consumer receives the records
+     * @param maxRecords maximum number of records to pass, 0 or less for all available records
+     * @return the number of records passed to the consumer
+     */
+    int drainTo(Consumer<LogRecord> consumer, int maxRecords) {
+        synchronized (consumerLock) {
+            int count = 0;
+            while (maxRecords <= 0 || count < maxRecords) {
+                int index = (int) (head & mask);
+                if (sequences.get(index) != head + 1) {
+                    return count;
+                }
+                LogRecord record = records[index];
+                records[index] = null;
+                sequences.set(index, head + records.length);
+                head++;
+                count++;
+                consumer.accept(record);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Waits until a record is available, the timeout elapsed or the buffer is closed.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @throws InterruptedException when the waiting thread is interrupted
+     */
+    void awaitRecords(long timeoutMillis) throws InterruptedException {
+        synchronized (consumerLock) {
+            waitingConsumers++;
+            try {
+                if (!closed && isEmpty()) {
+                    consumerLock.wait(timeoutMillis);
+                }
+            } finally {
+                waitingConsumers--;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        synchronized (consumerLock) {
+            return sequences.get((int) (head & mask)) != head + 1;
+        }
+    }
+
+    /**
+     * Releases waiting consumers and producers. Records published afterwards are only added if there is room.
+     */
+    void close() {
+        closed = true;
+        synchronized (consumerLock) {
+            consumerLock.notifyAll();
+        }
+    }
+}
@@ -38,7 +38,7 @@
  * holder.
  */
 
-// Portions Copyright [2017-2021] [Payara Foundation and/or affiliates]
+// Portions Copyright [2017-2024] [Payara Foundation and/or affiliates]
 
 package com.sun.enterprise.server.logging;
 
@@ -48,7 +48,6 @@ import com.sun.common.util.logging.GFLogRecord;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.logging.*;
 
@@ -155,6 +154,7 @@ public class ODLLogFormatter extends AnsiColorFormatter implements LogEventBroad
      */
     private String odlLogFormat(LogRecord record) {
 
+        StringBuilder recordBuffer = FormattingBuffers.acquireRecordBuffer();
         try {
             LogEventImpl logEvent = new LogEventImpl();
 
@@ -167,16 +167,11 @@ public class ODLLogFormatter extends AnsiColorFormatter implements LogEventBroad
 
             // Starting formatting message
             // Adding record begin marker
-            StringBuilder recordBuffer = new StringBuilder();
-
-            // A Dummy Container Date Object is used to format the date
-            Date date = new Date();
 
             // Adding timestamp
-            SimpleDateFormat dateFormatter = new SimpleDateFormat(getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT);
-            date.setTime(record.getMillis());
             recordBuffer.append(FIELD_BEGIN_MARKER);
-            String timestamp=dateFormatter.format(date);
+            String timestamp = FormattingBuffers.formatDate(
+                    getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT, record.getMillis());
             logEvent.setTimestamp(timestamp);
             recordBuffer.append(timestamp);
             recordBuffer.append(FIELD_END_MARKER);
@@ -319,8 +314,9 @@ public class ODLLogFormatter extends AnsiColorFormatter implements LogEventBroad
                 recordBuffer.append(FIELD_END_MARKER).append(FIELD_END_MARKER);
             }
             recordBuffer.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+            String formatted = recordBuffer.toString();
             informLogEventListeners(logEvent);
-            return recordBuffer.toString();
+            return formatted;
         } catch (Exception ex) {
             new ErrorManager().error(
                     "Error in formatting Logrecord", ex,
@@ -328,6 +324,8 @@ public class ODLLogFormatter extends AnsiColorFormatter implements LogEventBroad
             // We've already notified the exception, the following
             // return is to keep javac happy
             return "";
+        } finally {
+            FormattingBuffers.releaseRecordBuffer(recordBuffer);
         }
     }
 
@@ -38,7 +38,7 @@
  * holder.
  */
 
-// Portions Copyright [2016-2021] [Payara Foundation]
+// Portions Copyright [2016-2024] [Payara Foundation]
 
 package com.sun.enterprise.server.logging;
 
@@ -47,7 +47,6 @@ import com.sun.common.util.logging.GFLogRecord;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.function.Function;
 import java.util.logging.*;
@@ -82,9 +81,6 @@ public class UniformLogFormatter extends AnsiColorFormatter implements LogEventB
     // and can be searched using the LoggerName as the key
     private HashMap loggerResourceBundleTable;
     private LogManager logManager;
-    // A Dummy Container Date Object is used to format the date
-    private Date date = new Date();
-
     private static boolean LOG_SOURCE_IN_KEY_VALUE = false;
 
     private static boolean RECORD_NUMBER_IN_KEY_VALUE = false;
@@ -234,19 +230,16 @@ public class UniformLogFormatter extends AnsiColorFormatter implements LogEventB
      */
     private String uniformLogFormat(LogRecord record) {
 
+        StringBuilder recordBuffer = FormattingBuffers.acquireRecordBuffer();
         try {
 
             LogEventImpl logEvent = new LogEventImpl();
 
-            SimpleDateFormat dateFormatter = new SimpleDateFormat(getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT);
-
-            StringBuilder recordBuffer = new StringBuilder(getRecordBeginMarker() != null ? getRecordBeginMarker() : RECORD_BEGIN_MARKER);
+            recordBuffer.append(getRecordBeginMarker() != null ? getRecordBeginMarker() : RECORD_BEGIN_MARKER);
             // The following operations are to format the date and time in a
             // human readable  format.
-            // _REVISIT_: Use HiResolution timer to analyze the number of
-            // Microseconds spent on formatting date object
-            date.setTime(record.getMillis());
-            String timestamp = dateFormatter.format(date);
+            String timestamp = FormattingBuffers.formatDate(
+                    getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT, record.getMillis());
             logEvent.setTimestamp(timestamp);
             recordBuffer.append(timestamp);
             if (color()) {
@@ -398,8 +391,9 @@ public class UniformLogFormatter extends AnsiColorFormatter implements LogEventB
                 recordBuffer.append(logMessage);
             }
             recordBuffer.append(getRecordEndMarker() != null ? getRecordEndMarker() : RECORD_END_MARKER).append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+            String formatted = recordBuffer.toString();
             informLogEventListeners(logEvent);
-            return recordBuffer.toString();
+            return formatted;
 
         } catch (Exception ex) {
             new ErrorManager().error(
@@ -408,6 +402,8 @@ public class UniformLogFormatter extends AnsiColorFormatter implements LogEventB
             // We've already notified the exception, the following
             // return is to keep javac happy
             return "";
+        } finally {
+            FormattingBuffers.releaseRecordBuffer(recordBuffer);
         }
     }
 
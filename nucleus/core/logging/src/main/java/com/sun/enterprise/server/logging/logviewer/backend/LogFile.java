@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.server.logging.logviewer.backend;
 
@@ -49,6 +49,10 @@ import com.sun.enterprise.server.logging.parser.LogParserListener;
 import com.sun.enterprise.server.logging.parser.ParsedLogRecord;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.zip.GZIPInputStream;
@@ -61,6 +65,10 @@ import java.util.zip.GZIPInputStream;
  * getIndexSize() returns the number of records between each index.
  * getLastIndexNumber returns the last index.</P>
  *
+ * <P>If the log file has a sidecar {@link LogFileIndex}, records are located
+ * through it and read from the memory mapped log file instead of building an
+ * index by parsing the whole file.</P>
+ *
  * @AUTHOR: Hemanth Puttaswamy and Ken Paulsen
  * <p/>
  * <P>This class also contains an inner class for storing LogEntry
@@ -73,6 +81,9 @@ public class LogFile implements java.io.Serializable {
     private final long _indexSize = 10;
     private final String _logFileName;
     private final List<Long> _recordIdx = new ArrayList<>();
+    private transient LogFileIndex _sidecarIndex;
+
+    private static final long MAX_MAPPED_CHUNK_SIZE = Integer.MAX_VALUE;
 
     /**
      * Constructor
@@ -104,49 +115,17 @@ public class LogFile implements java.io.Serializable {
             return null;
         }
 
+        LogFileIndex sidecarIndex = getSidecarIndex();
+        if (sidecarIndex != null) {
+            return getIndexedLogEntries(sidecarIndex, startingRecord, maxRecords);
+        }
+
         // Open the file at the desired starting Record
         final long recordsToIgnore = (startingRecord % getIndexSize());
         return getFilePosition(startingRecord - recordsToIgnore).map(
             rdr -> {
                 try (BufferedReader reader = rdr) {
-                    List<LogEntry> results = new ArrayList<>();
-                    File logFile = new File(getLogFileName());
-                    LogParser logParser = LogParserFactory.getInstance().createLogParser(logFile );
-                    logParser.parseLog(reader, new LogParserListener() {
-
-                        long counter = 0;
-
-                        @Override
-                        public void outputSummary(BufferedWriter writer, Object... objects)
-                                throws IOException {
-                        }
-
-                        @Override
-                        public void foundLogRecord(long position, ParsedLogRecord logRecord) {
-                            counter++;
-                            if (counter <= recordsToIgnore) {
-                                return;
-                            }
-                            if (results.size() < maxRecords) {
-                                LogEntry entry = new LogEntry(logRecord.getFormattedLogRecord(),
-                                        startingRecord + results.size());
-                                entry.setLoggedDateTime(new Date(logRecord.getTimeMillis()));
-                                entry.setLoggedLevel(logRecord.getLevel());
-                                entry.setLoggedLoggerName(logRecord.getLogger());
-                                entry.setLoggedMessage(logRecord.getMessage());
-                                entry.setLoggedNameValuePairs(logRecord.getSupplementalAttributes().toString());
-                                entry.setLoggedProduct(logRecord.getComponentId());
-                                entry.setMessageId(logRecord.getMessageId());
-                                results.add(entry);
-                            }
-                        }
-
-                        @Override
-                        public void close() throws IOException {
-                        }
-                    });
-                    // Return the results
-                    return results;
+                    return parseLogEntries(reader, recordsToIgnore, startingRecord, maxRecords);
                 } catch (Exception ex) {
                     throw new RuntimeException(ex);
                 }
@@ -154,6 +133,107 @@ public class LogFile implements java.io.Serializable {
         ).orElse(Collections.emptyList());
     }
 
+    /**
+     * Reads the records from the blocks of the sidecar index containing the
+     * requested records, mapping only that part of the log file.
+     */
+    private List<LogEntry> getIndexedLogEntries(LogFileIndex sidecarIndex, long startingRecord, long maxRecords) {
+        long startOffset = sidecarIndex.getIndexedEndOffset();
+        long firstRecord = sidecarIndex.getIndexedRecordCount();
+        int firstBlock = sidecarIndex.findBlock(startingRecord);
+        if (firstBlock >= 0) {
+            startOffset = sidecarIndex.getStartOffset(firstBlock);
+            firstRecord = sidecarIndex.getFirstRecord(firstBlock);
+        }
+        // records after the indexed part of the file are read up to the end of the file
+        int lastBlock = sidecarIndex.findBlock(startingRecord + maxRecords - 1);
+        long endOffset = lastBlock >= 0 ? sidecarIndex.getEndOffset(lastBlock) : -1;
+        try (BufferedReader reader = getMappedLogFileReader(startOffset, endOffset)) {
+            return parseLogEntries(reader, startingRecord - firstRecord, startingRecord, maxRecords);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private List<LogEntry> parseLogEntries(BufferedReader reader, long recordsToIgnore,
+            long startingRecord, long maxRecords) throws Exception {
+        List<LogEntry> results = new ArrayList<>();
+        File logFile = new File(getLogFileName());
+        LogParser logParser = LogParserFactory.getInstance().createLogParser(logFile );
+        logParser.parseLog(reader, new LogParserListener() {
+
+            long counter = 0;
+
+            @Override
+            public void outputSummary(BufferedWriter writer, Object... objects)
+                    throws IOException {
+            }
+
+            @Override
+            public void foundLogRecord(long position, ParsedLogRecord logRecord) {
+                counter++;
+                if (counter <= recordsToIgnore) {
+                    return;
+                }
+                if (results.size() < maxRecords) {
+                    LogEntry entry = new LogEntry(logRecord.getFormattedLogRecord(),
+                            startingRecord + results.size());
+                    entry.setLoggedDateTime(new Date(logRecord.getTimeMillis()));
+                    entry.setLoggedLevel(logRecord.getLevel());
+                    entry.setLoggedLoggerName(logRecord.getLogger());
+                    entry.setLoggedMessage(logRecord.getMessage());
+                    entry.setLoggedNameValuePairs(logRecord.getSupplementalAttributes().toString());
+                    entry.setLoggedProduct(logRecord.getComponentId());
+                    entry.setMessageId(logRecord.getMessageId());
+                    results.add(entry);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        });
+        // Return the results
+        return results;
+    }
+
+    /**
+     * Uses the sidecar index, if there is one, to skip records that cannot
+     * match a query. Records not covered by the index are always candidates.
+     *
+     * @param recordNumber the record to start looking from
+     * @param forward true to look at records after recordNumber, false for records before it
+     * @param fromMillis start of the queried time range or {@link Long#MIN_VALUE}
+     * @param toMillis end of the queried time range or {@link Long#MAX_VALUE}
+     * @param minLevel minimal queried level value or {@link Integer#MIN_VALUE}
+     * @param exactLevel exact queried level value or {@link Integer#MIN_VALUE}
+     * @param loggerBits logger bits of the queried loggers or 0 for any logger
+     * @return the first candidate at or after recordNumber when looking forward, the
+     * last candidate at or before recordNumber or -1 if there is none when looking backward
+     */
+    long findCandidateRecord(long recordNumber, boolean forward, long fromMillis, long toMillis,
+            int minLevel, int exactLevel, long loggerBits) {
+        LogFileIndex sidecarIndex = getSidecarIndex();
+        if (sidecarIndex == null || recordNumber < 0 || recordNumber >= sidecarIndex.getIndexedRecordCount()) {
+            return recordNumber;
+        }
+        int block = sidecarIndex.findBlock(recordNumber);
+        if (forward) {
+            for (; block < sidecarIndex.getBlockCount(); block++) {
+                if (sidecarIndex.mayMatch(block, fromMillis, toMillis, minLevel, exactLevel, loggerBits)) {
+                    return Math.max(recordNumber, sidecarIndex.getFirstRecord(block));
+                }
+            }
+            return sidecarIndex.getIndexedRecordCount();
+        }
+        for (; block >= 0; block--) {
+            if (sidecarIndex.mayMatch(block, fromMillis, toMillis, minLevel, exactLevel, loggerBits)) {
+                return Math.min(recordNumber,
+                        sidecarIndex.getFirstRecord(block) + sidecarIndex.getRecordCount(block) - 1);
+            }
+        }
+        return -1;
+    }
 
     /**
      * This method builds the file index in the beginning.  The index is for
@@ -254,6 +334,72 @@ public class LogFile implements java.io.Serializable {
         return Optional.empty();
     }
 
+    /**
+     * @return the sidecar index of the log file if there is a usable one, otherwise null
+     */
+    private synchronized LogFileIndex getSidecarIndex() {
+        if (LogFormatHelper.isCompressedFile(getLogFileName())) {
+            return null;
+        }
+        File logFile = new File(getLogFileName());
+        if (_sidecarIndex == null || _sidecarIndex.isStale(logFile)) {
+            _sidecarIndex = LogFileIndex.open(logFile);
+        }
+        if (_sidecarIndex != null && _sidecarIndex.getIndexedEndOffset() > logFile.length()) {
+            // the log file was replaced without its index
+            _sidecarIndex = null;
+        }
+        return _sidecarIndex;
+    }
+
+    /**
+     * Maps the log file from startOffset to endOffset, or to the end of the
+     * file if endOffset is negative, and returns a reader for it.
+     */
+    private BufferedReader getMappedLogFileReader(long startOffset, long endOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(getLogFileName()), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long end = endOffset < 0 ? fileSize : Math.min(endOffset, fileSize);
+            long start = Math.min(startOffset, end);
+            // a single mapping is limited to Integer.MAX_VALUE bytes, larger ranges are mapped in chunks
+            List<ByteBuffer> chunks = new ArrayList<>();
+            for (long chunkStart = start; chunkStart < end; chunkStart += MAX_MAPPED_CHUNK_SIZE) {
+                long length = Math.min(end - chunkStart, MAX_MAPPED_CHUNK_SIZE);
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, length));
+            }
+            return new BufferedReader(new InputStreamReader(new MappedInputStream(chunks)));
+        }
+    }
+
+    /**
+     * Counts the records from the given offset to the end of the log file.
+     */
+    private long countRecords(long fromOffset) {
+        try (BufferedReader reader = getMappedLogFileReader(fromOffset, -1)) {
+            long[] counter = new long[1];
+            LogParser logParser = LogParserFactory.getInstance().createLogParser(new File(getLogFileName()));
+            logParser.parseLog(reader, new LogParserListener() {
+
+                @Override
+                public void outputSummary(BufferedWriter writer, Object... objects)
+                        throws IOException {
+                }
+
+                @Override
+                public void foundLogRecord(long position, ParsedLogRecord object) {
+                    counter[0]++;
+                }
+
+                @Override
+                public void close() throws IOException {
+                }
+            });
+            return counter[0];
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      *
      */
@@ -266,6 +412,12 @@ public class LogFile implements java.io.Serializable {
      * will ensure that the indexes are up-to-date.
      */
     public long getLastIndexNumber() {
+        LogFileIndex sidecarIndex = getSidecarIndex();
+        if (sidecarIndex != null) {
+            long recordCount = sidecarIndex.getIndexedRecordCount()
+                    + countRecords(sidecarIndex.getIndexedEndOffset());
+            return (recordCount + getIndexSize() - 1) / getIndexSize();
+        }
         buildLogFileIndex();
         return _recordIdx.size() - 1;
     }
@@ -277,6 +429,50 @@ public class LogFile implements java.io.Serializable {
         return _indexSize;
     }
 
+    /**
+     * Reads a memory mapped part of the log file.
+     */
+    private static final class MappedInputStream extends InputStream {
+
+        private final Iterator<ByteBuffer> chunks;
+        private ByteBuffer buffer;
+
+        MappedInputStream(List<ByteBuffer> chunks) {
+            this.chunks = chunks.iterator();
+            this.buffer = ByteBuffer.allocate(0);
+        }
+
+        private boolean hasRemaining() {
+            while (!buffer.hasRemaining() && chunks.hasNext()) {
+                buffer = chunks.next();
+            }
+            return buffer.hasRemaining();
+        }
+
+        @Override
+        public int read() {
+            return hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
     /**
      * Class to manage LogEntry information
      */
@@ -0,0 +1,244 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging.logviewer.backend;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of the sidecar index written by {@link LogFileIndexWriter} next to a log file.
+ * <p>
+ * The index divides the log file into consecutive blocks of records. For each block it holds the byte range in the
+ * log file, the number of the first record and the number of records, the range of levels and timestamps of these
+ * records and a bit set of their logger names. This lets the log viewer seek directly to a record number and skip
+ * blocks that cannot match a query without parsing them.
+ * <p>
+ * Layout: a header of {@link #HEADER_SIZE} bytes holding {@link #MAGIC} and {@link #VERSION}, followed by entries of
+ * {@link #ENTRY_SIZE} bytes, all big endian.
+ */
+public final class LogFileIndex {
+
+    public static final String INDEX_FILE_SUFFIX = ".idx";
+
+    static final int MAGIC = 0x504c4958;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 64;
+
+    static final int START_OFFSET = 0;
+    static final int END_OFFSET = 8;
+    static final int FIRST_RECORD = 16;
+    static final int RECORD_COUNT = 24;
+    static final int MIN_LEVEL = 28;
+    static final int MAX_LEVEL = 32;
+    static final int MIN_TIME = 40;
+    static final int MAX_TIME = 48;
+    static final int LOGGER_BITS = 56;
+
+    /**
+     * Timestamps parsed back from the log file may be truncated by the date format, so time ranges are compared with
+     * this tolerance.
+     */
+    private static final long TIME_TOLERANCE_MILLIS = 1000;
+
+    private final ByteBuffer entries;
+    private final int blockCount;
+    private final long indexFileLength;
+    private final long indexLastModified;
+
+    private LogFileIndex(ByteBuffer entries, long indexFileLength, long indexLastModified) {
+        this.entries = entries;
+        this.blockCount = entries.capacity() / ENTRY_SIZE;
+        this.indexFileLength = indexFileLength;
+        this.indexLastModified = indexLastModified;
+    }
+
+    /**
+     * @param logFile a log file
+     * @return the sidecar index file of the given log file, which need not exist
+     */
+    public static File getIndexFile(File logFile) {
+        return new File(logFile.getPath() + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * @param loggerName name of a logger, may be null
+     * @return the bit representing the logger in the logger bits of an index entry
+     */
+    static long loggerBit(String loggerName) {
+        int hash = loggerName == null ? 0 : loggerName.trim().hashCode();
+        return 1L << ((hash ^ (hash >>> 16)) & 63);
+    }
+
+    /**
+     * Maps the index of the given log file.
+     *
+     * @param logFile the log file
+     * @return the index or null if there is no usable index for the log file
+     */
+    static LogFileIndex open(File logFile) {
+        File indexFile = getIndexFile(logFile);
+        long indexFileLength = indexFile.length();
+        long indexLastModified = indexFile.lastModified();
+        if (indexFileLength < HEADER_SIZE + ENTRY_SIZE) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            // a partially written trailing entry is ignored
+            long entriesLength = (indexFileLength - HEADER_SIZE) / ENTRY_SIZE * ENTRY_SIZE;
+            if (entriesLength > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                return null;
+            }
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, entriesLength);
+            LogFileIndex index = new LogFileIndex(entries, indexFileLength, indexLastModified);
+            if (index.getStartOffset(0) != 0 || index.getFirstRecord(0) != 0
+                    || index.getIndexedEndOffset() > logFile.length()) {
+                return null;
+            }
+            return index;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param logFile the log file this index was opened for
+     * @return true if the index file changed since it was opened
+     */
+    boolean isStale(File logFile) {
+        File indexFile = getIndexFile(logFile);
+        return indexFile.length() != indexFileLength || indexFile.lastModified() != indexLastModified;
+    }
+
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return number of records covered by the index, the records after {@link #getIndexedEndOffset()} are not
+     */
+    long getIndexedRecordCount() {
+        return getFirstRecord(blockCount - 1) + getRecordCount(blockCount - 1);
+    }
+
+    long getIndexedEndOffset() {
+        return getEndOffset(blockCount - 1);
+    }
+
+    long getStartOffset(int block) {
+        return entries.getLong(block * ENTRY_SIZE + START_OFFSET);
+    }
+
+    long getEndOffset(int block) {
+        return entries.getLong(block * ENTRY_SIZE + END_OFFSET);
+    }
+
+    long getFirstRecord(int block) {
+        return entries.getLong(block * ENTRY_SIZE + FIRST_RECORD);
+    }
+
+    int getRecordCount(int block) {
+        return entries.getInt(block * ENTRY_SIZE + RECORD_COUNT);
+    }
+
+    /**
+     * @param recordNumber number of a record
+     * @return the block containing the record or -1 if the record is not covered by the index
+     */
+    int findBlock(long recordNumber) {
+        if (recordNumber < 0 || recordNumber >= getIndexedRecordCount()) {
+            return -1;
+        }
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (getFirstRecord(middle) <= recordNumber) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks whether the block can contain records matching the query. All arguments are optional.
+     *
+     * @param block the block
+     * @param fromMillis start of the time range or {@link Long#MIN_VALUE}
+     * @param toMillis end of the time range or {@link Long#MAX_VALUE}
+     * @param minLevel records must have at least this level value or {@link Integer#MIN_VALUE}
+     * @param exactLevel records must have exactly this level value or {@link Integer#MIN_VALUE}
+     * @param loggerBits {@link #loggerBit(String)} of all accepted loggers or 0 to accept any logger
+     * @return false if no record of the block can match the query
+     */
+    boolean mayMatch(int block, long fromMillis, long toMillis, int minLevel, int exactLevel, long loggerBits) {
+        int offset = block * ENTRY_SIZE;
+        int blockMaxLevel = entries.getInt(offset + MAX_LEVEL);
+        if (blockMaxLevel < minLevel) {
+            return false;
+        }
+        if (exactLevel != Integer.MIN_VALUE
+                && (exactLevel < entries.getInt(offset + MIN_LEVEL) || exactLevel > blockMaxLevel)) {
+            return false;
+        }
+        if (fromMillis != Long.MIN_VALUE
+                && entries.getLong(offset + MAX_TIME) < fromMillis - TIME_TOLERANCE_MILLIS) {
+            return false;
+        }
+        if (toMillis != Long.MAX_VALUE
+                && entries.getLong(offset + MIN_TIME) > toMillis + TIME_TOLERANCE_MILLIS) {
+            return false;
+        }
+        return loggerBits == 0 || (entries.getLong(offset + LOGGER_BITS) & loggerBits) != 0;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging.logviewer.backend;
+
+import static com.sun.enterprise.server.logging.logviewer.backend.LogFileIndex.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.LogRecord;
+
+/**
+ * Appends to the sidecar {@link LogFileIndex} of a log file while the log file is written.
+ * <p>
+ * The writer of the log file reports each record it wrote with {@link #recordWritten(LogRecord)} and the size of the
+ * log file after each flush with {@link #flushed(long)}, which ends the current block. Not thread safe, the caller
+ * must serialise these calls with its writes to the log file.
+ */
+public final class LogFileIndexWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+
+    private long blockStartOffset;
+    private long nextRecordNumber;
+    private int recordCount;
+    private int minLevel;
+    private int maxLevel;
+    private long minTime;
+    private long maxTime;
+    private long loggerBits;
+
+    private LogFileIndexWriter(FileChannel channel, long blockStartOffset, long nextRecordNumber) {
+        this.channel = channel;
+        this.blockStartOffset = blockStartOffset;
+        this.nextRecordNumber = nextRecordNumber;
+    }
+
+    /**
+     * Opens the index of a log file that is about to be appended to. An existing index is continued if it covers the
+     * whole log file. A log file with content but without matching index is not indexed, as the numbers of its
+     * records are unknown.
+     *
+     * @param logFile the log file
+     * @return the writer or null if the log file cannot be indexed
+     * @throws IOException if the index file cannot be written
+     */
+    public static LogFileIndexWriter open(File logFile) throws IOException {
+        File indexFile = getIndexFile(logFile);
+        long logFileLength = logFile.length();
+        if (logFileLength > 0) {
+            FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer lastEntry = readLastEntry(channel);
+            if (lastEntry == null || lastEntry.getLong(END_OFFSET) != logFileLength) {
+                channel.close();
+                Files.deleteIfExists(indexFile.toPath());
+                return null;
+            }
+            // a partially written trailing entry is overwritten
+            channel.position(HEADER_SIZE + (channel.size() - HEADER_SIZE) / ENTRY_SIZE * ENTRY_SIZE);
+            return new LogFileIndexWriter(channel, logFileLength,
+                    lastEntry.getLong(FIRST_RECORD) + lastEntry.getInt(RECORD_COUNT));
+        }
+        FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(0L).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return new LogFileIndexWriter(channel, 0, 0);
+    }
+
+    private static ByteBuffer readLastEntry(FileChannel channel) throws IOException {
+        long entryCount = (channel.size() - HEADER_SIZE) / ENTRY_SIZE;
+        if (entryCount <= 0) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ByteBuffer lastEntry = ByteBuffer.allocate(ENTRY_SIZE);
+        long position = 0;
+        while (header.hasRemaining() && channel.read(header, position + header.position()) >= 0) {
+            // keep reading
+        }
+        position = HEADER_SIZE + (entryCount - 1) * ENTRY_SIZE;
+        while (lastEntry.hasRemaining() && channel.read(lastEntry, position + lastEntry.position()) >= 0) {
+            // keep reading
+        }
+        if (header.hasRemaining() || lastEntry.hasRemaining()
+                || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            return null;
+        }
+        return lastEntry;
+    }
+
+    /**
+     * Adds a record written to the log file to the current block.
+     *
+     * @param record the record
+     */
+    public void recordWritten(LogRecord record) {
+        int level = record.getLevel().intValue();
+        long time = record.getMillis();
+        if (recordCount == 0) {
+            minLevel = level;
+            maxLevel = level;
+            minTime = time;
+            maxTime = time;
+            loggerBits = 0;
+        } else {
+            minLevel = Math.min(minLevel, level);
+            maxLevel = Math.max(maxLevel, level);
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+        }
+        loggerBits |= loggerBit(record.getLoggerName());
+        recordCount++;
+    }
+
+    /**
+     * @return number of records in the current block
+     */
+    public int getPendingRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Ends the current block.
+     *
+     * @param logFileLength the number of bytes written to the log file, all of which must have been flushed
+     * @throws IOException if the index entry cannot be written
+     */
+    public void flushed(long logFileLength) throws IOException {
+        if (recordCount == 0 || logFileLength <= blockStartOffset) {
+            return;
+        }
+        entry.clear();
+        entry.putLong(START_OFFSET, blockStartOffset)
+                .putLong(END_OFFSET, logFileLength)
+                .putLong(FIRST_RECORD, nextRecordNumber)
+                .putInt(RECORD_COUNT, recordCount)
+                .putInt(MIN_LEVEL, minLevel)
+                .putInt(MAX_LEVEL, maxLevel)
+                .putLong(MIN_TIME, minTime)
+                .putLong(MAX_TIME, maxTime)
+                .putLong(LOGGER_BITS, loggerBits);
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+        blockStartOffset = logFileLength;
+        nextRecordNumber += recordCount;
+        recordCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
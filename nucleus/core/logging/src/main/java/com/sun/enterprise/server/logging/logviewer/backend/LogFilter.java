@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2017-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2017-2024] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.server.logging.logviewer.backend;
 
@@ -201,10 +201,8 @@ public class LogFilter {
             }
         }
 
-        // TO DO: If the fromRecord count is zero and the fromDate entry is
-        // non-null, then the system should take advantage of file Indexing.
-        // It should move the file position to the marker where the DateTime
-        // query matches.
+        // If the log file has a sidecar index, fetchRecordsUsingQuery skips
+        // the parts of the file that cannot match the query.
         try {
             return fetchRecordsUsingQuery(logFile, startingRecord, nxt, forwd,
                     reqCount, fromDate, toDate, logLevel,
@@ -452,10 +450,8 @@ public class LogFilter {
             }
         }
 
-        // TO DO: If the fromRecord count is zero and the fromDate entry is
-        // non-null, then the system should take advantage of file Indexing.
-        // It should move the file position to the marker where the DateTime
-        // query matches.
+        // If the log file has a sidecar index, fetchRecordsUsingQuery skips
+        // the parts of the file that cannot match the query.
         try {
             return fetchRecordsUsingQuery(logFile, startingRecord, nxt, forwd,
                     reqCount, fromDate, toDate, logLevel,
@@ -505,11 +501,53 @@ public class LogFilter {
         // Make sure the module names are correct
         //updateModuleList(listOfModules);
 
+        // Translate the query for the sidecar index of the log file
+        boolean dateTimeQuery = fromDate != null && toDate != null;
+        long fromMillis = dateTimeQuery ? fromDate.getTime() : Long.MIN_VALUE;
+        long toMillis = dateTimeQuery ? toDate.getTime() : Long.MAX_VALUE;
+        int minLevel = Integer.MIN_VALUE;
+        int exactLevel = Integer.MIN_VALUE;
+        if (logLevel != null) {
+            try {
+                int levelValue = Level.parse(logLevel.trim()).intValue();
+                if (onlyLevel) {
+                    exactLevel = levelValue;
+                } else {
+                    minLevel = levelValue;
+                }
+            } catch (IllegalArgumentException e) {
+                // levelCheck decides on each record
+            }
+        }
+        long loggerBits = 0;
+        if (listOfModules != null) {
+            for (Object module : listOfModules) {
+                loggerBits |= LogFileIndex.loggerBit((String) module);
+            }
+        }
+
         // Keep pulling records to search through until we get enough matches
         List results = new ArrayList();
         List records = null;
         LogFile.LogEntry entry = null;
         while (results.size() < requestedCount) {
+            // Skip records which cannot match according to the index
+            if (forward) {
+                startingRecord = logFile.findCandidateRecord(startingRecord, true,
+                        fromMillis, toMillis, minLevel, exactLevel, loggerBits);
+            } else {
+                long lastRecord = startingRecord + searchChunkIncrement - 1;
+                long lastCandidate = logFile.findCandidateRecord(lastRecord, false,
+                        fromMillis, toMillis, minLevel, exactLevel, loggerBits);
+                if (lastCandidate < 0) {
+                    break;
+                }
+                if (lastCandidate < lastRecord) {
+                    startingRecord = Math.max(0, lastCandidate + 1 - searchChunkIncrement);
+                    searchChunkIncrement = lastCandidate + 1 - startingRecord;
+                }
+            }
+
             // The following will always return unfiltered forward records
             records = logFile.getLogEntries(
                     startingRecord, searchChunkIncrement);
@@ -0,0 +1,133 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class FormattingBuffersTest {
+
+    private static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    @After
+    public void detach() {
+        FormattingBuffers.detach();
+    }
+
+    @Test
+    public void threadsWithoutBuffersAllocatePerRecord() {
+        StringBuilder first = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(first);
+        StringBuilder second = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(second);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void attachedThreadsReuseTheRecordBuffer() {
+        FormattingBuffers.attach();
+        StringBuilder first = FormattingBuffers.acquireRecordBuffer();
+        first.append("record");
+        FormattingBuffers.releaseRecordBuffer(first);
+        StringBuilder second = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(second);
+
+        assertSame(first, second);
+        assertEquals(0, second.length());
+    }
+
+    @Test
+    public void nestedRecordsGetTheirOwnBuffer() {
+        FormattingBuffers.attach();
+        StringBuilder outer = FormattingBuffers.acquireRecordBuffer();
+        StringBuilder inner = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(inner);
+        FormattingBuffers.releaseRecordBuffer(outer);
+
+        assertNotSame(outer, inner);
+        StringBuilder next = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(next);
+        assertSame(outer, next);
+    }
+
+    @Test
+    public void largeBuffersAreNotRetained() {
+        FormattingBuffers.attach();
+        StringBuilder large = FormattingBuffers.acquireRecordBuffer();
+        large.append(new char[100 * 1024]);
+        FormattingBuffers.releaseRecordBuffer(large);
+        StringBuilder next = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(next);
+
+        assertNotSame(large, next);
+    }
+
+    @Test
+    public void detachedThreadsAllocateAgain() {
+        FormattingBuffers.attach();
+        StringBuilder first = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(first);
+        FormattingBuffers.detach();
+        StringBuilder second = FormattingBuffers.acquireRecordBuffer();
+        FormattingBuffers.releaseRecordBuffer(second);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void datesAreFormattedWithOrWithoutBuffers() {
+        long millis = 1_700_000_000_123L;
+        String expected = new SimpleDateFormat(PATTERN).format(new Date(millis));
+
+        assertEquals(expected, FormattingBuffers.formatDate(PATTERN, millis));
+        FormattingBuffers.attach();
+        assertEquals(expected, FormattingBuffers.formatDate(PATTERN, millis));
+        assertEquals(new SimpleDateFormat("HH:mm").format(new Date(millis)),
+                FormattingBuffers.formatDate("HH:mm", millis));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LogRecordRingBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(2, new LogRecordRingBuffer(1, LogRecordRingBuffer.FullPolicy.BLOCK, Level.INFO).getCapacity());
+        assertEquals(4, new LogRecordRingBuffer(4, LogRecordRingBuffer.FullPolicy.BLOCK, Level.INFO).getCapacity());
+        assertEquals(8, new LogRecordRingBuffer(5, LogRecordRingBuffer.FullPolicy.BLOCK, Level.INFO).getCapacity());
+    }
+
+    @Test
+    public void recordsAreDrainedInPublishOrder() {
+        LogRecordRingBuffer buffer = new LogRecordRingBuffer(4, LogRecordRingBuffer.FullPolicy.BLOCK, Level.INFO);
+        List<String> messages = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.publish(new LogRecord(Level.INFO, round + "-" + i)));
+            }
+            assertEquals(3, buffer.drainTo(record -> messages.add(record.getMessage()), 0));
+        }
+        assertTrue(buffer.isEmpty());
+        assertEquals(9, messages.size());
+        assertEquals("0-0", messages.get(0));
+        assertEquals("2-2", messages.get(8));
+    }
+
+    @Test
+    public void drainIsLimitedToMaxRecords() {
+        LogRecordRingBuffer buffer = new LogRecordRingBuffer(4, LogRecordRingBuffer.FullPolicy.BLOCK, Level.INFO);
+        for (int i = 0; i < 4; i++) {
+            buffer.publish(new LogRecord(Level.INFO, "message"));
+        }
+        assertEquals(3, buffer.drainTo(record -> { }, 3));
+        assertEquals(1, buffer.drainTo(record -> { }, 3));
+    }
+
+    @Test
+    public void discardPolicyDropsRecordsWhenFull() {
+        LogRecordRingBuffer buffer = new LogRecordRingBuffer(2, LogRecordRingBuffer.FullPolicy.DISCARD, Level.INFO);
+        assertTrue(buffer.publish(new LogRecord(Level.SEVERE, "first")));
+        assertTrue(buffer.publish(new LogRecord(Level.SEVERE, "second")));
+        assertFalse(buffer.publish(new LogRecord(Level.SEVERE, "third")));
+        assertEquals(1, buffer.getDroppedRecordCount());
+    }
+
+    @Test
+    public void dropBelowLevelPolicyKeepsImportantRecords() throws InterruptedException {
+        LogRecordRingBuffer buffer = new LogRecordRingBuffer(2, LogRecordRingBuffer.FullPolicy.DROP_BELOW_LEVEL, Level.WARNING);
+        buffer.publish(new LogRecord(Level.INFO, "first"));
+        buffer.publish(new LogRecord(Level.INFO, "second"));
+        assertFalse(buffer.publish(new LogRecord(Level.FINE, "dropped")));
+        assertEquals(1, buffer.getDroppedRecordCount());
+
+        List<String> messages = new ArrayList<>();
+        Thread logger = new Thread(() -> buffer.publish(new LogRecord(Level.SEVERE, "kept")));
+        logger.start();
+        while (messages.size() < 3) {
+            buffer.awaitRecords(100);
+            buffer.drainTo(record -> messages.add(record.getMessage()), 0);
+        }
+        logger.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals("kept", messages.get(2));
+        assertEquals(1, buffer.getDroppedRecordCount());
+    }
+
+    @Test
+    public void blockPolicyWaitsUntilDrained() throws InterruptedException {
+        LogRecordRingBuffer buffer = new LogRecordRingBuffer(2, LogRecordRingBuffer.FullPolicy.BLOCK, Level.INFO);
+        buffer.publish(new LogRecord(Level.FINE, "first"));
+        buffer.publish(new LogRecord(Level.FINE, "second"));
+        CountDownLatch published = new CountDownLatch(1);
+        AtomicBoolean added = new AtomicBoolean();
+        Thread logger = new Thread(() -> {
+            added.set(buffer.publish(new LogRecord(Level.FINE, "third")));
+            published.countDown();
+        });
+        logger.start();
+        assertFalse(published.await(50, TimeUnit.MILLISECONDS));
+        assertEquals(2, buffer.drainTo(record -> { }, 0));
+        assertTrue(published.await(10, TimeUnit.SECONDS));
+        assertTrue(added.get());
+        assertEquals(0, buffer.getDroppedRecordCount());
+    }
+
+    @Test
+    public void closeReleasesBlockedPublishers() throws InterruptedException {
+        LogRecordRingBuffer buffer = new LogRecordRingBuffer(2, LogRecordRingBuffer.FullPolicy.BLOCK, Level.INFO);
+        buffer.publish(new LogRecord(Level.INFO, "first"));
+        buffer.publish(new LogRecord(Level.INFO, "second"));
+        AtomicBoolean added = new AtomicBoolean(true);
+        Thread logger = new Thread(() -> added.set(buffer.publish(new LogRecord(Level.INFO, "third"))));
+        logger.start();
+        buffer.close();
+        logger.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(logger.isAlive());
+        assertFalse(added.get());
+    }
+}
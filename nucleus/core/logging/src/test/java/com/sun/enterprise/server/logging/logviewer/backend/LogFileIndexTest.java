@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging.logviewer.backend;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class LogFileIndexTest {
+
+    private static final long ANY_TIME_FROM = Long.MIN_VALUE;
+    private static final long ANY_TIME_TO = Long.MAX_VALUE;
+    private static final int ANY_LEVEL = Integer.MIN_VALUE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File logFile;
+
+    @Before
+    public void writeIndexedLogFile() throws IOException {
+        logFile = folder.newFile("server.log");
+        try (LogFileIndexWriter writer = LogFileIndexWriter.open(logFile)) {
+            assertNotNull(writer);
+            writeRecords(writer, 3, Level.INFO, 10_000, "a");
+            appendBytes(30);
+            writer.flushed(30);
+            writeRecords(writer, 2, Level.FINE, 20_000, "b");
+            appendBytes(20);
+            writer.flushed(50);
+            writeRecords(writer, 1, Level.SEVERE, 30_000, "a");
+            appendBytes(10);
+            writer.flushed(60);
+        }
+    }
+
+    @Test
+    public void blocksAreFoundByRecordNumber() {
+        LogFileIndex index = LogFileIndex.open(logFile);
+        assertNotNull(index);
+        assertEquals(3, index.getBlockCount());
+        assertEquals(6, index.getIndexedRecordCount());
+        assertEquals(60, index.getIndexedEndOffset());
+        assertEquals(0, index.findBlock(0));
+        assertEquals(0, index.findBlock(2));
+        assertEquals(1, index.findBlock(3));
+        assertEquals(2, index.findBlock(5));
+        assertEquals(-1, index.findBlock(6));
+        assertEquals(30, index.getStartOffset(1));
+        assertEquals(50, index.getEndOffset(1));
+    }
+
+    @Test
+    public void blocksAreMatchedByLevelTimeAndLogger() {
+        LogFileIndex index = LogFileIndex.open(logFile);
+        int severe = Level.SEVERE.intValue();
+        assertFalse(index.mayMatch(0, ANY_TIME_FROM, ANY_TIME_TO, severe, ANY_LEVEL, 0));
+        assertTrue(index.mayMatch(2, ANY_TIME_FROM, ANY_TIME_TO, severe, ANY_LEVEL, 0));
+        assertTrue(index.mayMatch(1, ANY_TIME_FROM, ANY_TIME_TO, ANY_LEVEL, Level.FINE.intValue(), 0));
+        assertFalse(index.mayMatch(0, ANY_TIME_FROM, ANY_TIME_TO, ANY_LEVEL, Level.FINE.intValue(), 0));
+        assertFalse(index.mayMatch(0, 19_000, 21_000, ANY_LEVEL, ANY_LEVEL, 0));
+        assertTrue(index.mayMatch(1, 19_000, 21_000, ANY_LEVEL, ANY_LEVEL, 0));
+        assertFalse(index.mayMatch(1, ANY_TIME_FROM, ANY_TIME_TO, ANY_LEVEL, ANY_LEVEL, LogFileIndex.loggerBit("a")));
+        assertTrue(index.mayMatch(2, ANY_TIME_FROM, ANY_TIME_TO, ANY_LEVEL, ANY_LEVEL, LogFileIndex.loggerBit("a")));
+    }
+
+    @Test
+    public void candidateRecordsSkipNonMatchingBlocks() {
+        LogFile file = new LogFile(logFile.getPath());
+        int severe = Level.SEVERE.intValue();
+        int info = Level.INFO.intValue();
+        assertEquals(5, file.findCandidateRecord(0, true, ANY_TIME_FROM, ANY_TIME_TO, severe, ANY_LEVEL, 0));
+        assertEquals(2, file.findCandidateRecord(4, false, ANY_TIME_FROM, ANY_TIME_TO, info, ANY_LEVEL, 0));
+        assertEquals(-1, file.findCandidateRecord(4, false, ANY_TIME_FROM, ANY_TIME_TO, severe, ANY_LEVEL, 0));
+        // records after the indexed part are always candidates
+        assertEquals(6, file.findCandidateRecord(6, false, ANY_TIME_FROM, ANY_TIME_TO, severe, ANY_LEVEL, 0));
+    }
+
+    @Test
+    public void indexIsContinuedWhenItCoversTheLogFile() throws IOException {
+        try (LogFileIndexWriter writer = LogFileIndexWriter.open(logFile)) {
+            assertNotNull(writer);
+            writeRecords(writer, 4, Level.WARNING, 40_000, "c");
+            appendBytes(20);
+            writer.flushed(80);
+        }
+        LogFileIndex index = LogFileIndex.open(logFile);
+        assertEquals(4, index.getBlockCount());
+        assertEquals(6, index.getFirstRecord(3));
+        assertEquals(10, index.getIndexedRecordCount());
+    }
+
+    @Test
+    public void indexIsDroppedWhenItDoesNotCoverTheLogFile() throws IOException {
+        appendBytes(5);
+        assertNull(LogFileIndexWriter.open(logFile));
+        assertFalse(LogFileIndex.getIndexFile(logFile).exists());
+        assertNull(LogFileIndex.open(logFile));
+    }
+
+    private static void writeRecords(LogFileIndexWriter writer, int count, Level level, long millis, String logger) {
+        for (int i = 0; i < count; i++) {
+            LogRecord record = new LogRecord(level, "message " + i);
+            record.setMillis(millis + i);
+            record.setLoggerName(logger);
+            writer.recordWritten(record);
+        }
+        assertEquals(count, writer.getPendingRecordCount());
+    }
+
+    private void appendBytes(int count) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+            out.write(new byte[count]);
+        }
+    }
+}
@@ -37,10 +37,12 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2024] Payara Foundation and/or affiliates
 
 package org.glassfish.flashlight.client;
 
 import org.glassfish.flashlight.FlashlightUtils;
+import org.glassfish.flashlight.impl.client.MethodHandleClientInvoker;
 import org.glassfish.flashlight.impl.client.ReflectiveClientInvoker;
 import org.glassfish.flashlight.provider.FlashlightProbe;
 import org.jvnet.hk2.annotations.Service;
@@ -66,6 +68,10 @@ public class ProbeClientInvokerFactory {
                                                    FlashlightProbe probe, String[] paramNames) {
         int invokerId = clientMethodIdCounter.incrementAndGet();
 
+        ProbeClientInvoker invoker = MethodHandleClientInvoker.create(invokerId, target, method, paramNames, probe);
+        if (invoker != null) {
+            return invoker;
+        }
         return new ReflectiveClientInvoker(invokerId, target, method, paramNames, probe);
     }
 
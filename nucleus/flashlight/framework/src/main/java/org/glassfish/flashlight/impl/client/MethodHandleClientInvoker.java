@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.flashlight.impl.client;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.flashlight.FlashlightUtils;
+import org.glassfish.flashlight.client.ProbeClientInvoker;
+import org.glassfish.flashlight.impl.core.ComputedParamsHandlerManager;
+import org.glassfish.flashlight.provider.FlashlightProbe;
+
+/**
+ * Invokes a probe listener method through a {@link MethodHandle} that is bound to the listener once.
+ * <p>
+ * The handle picks the listener arguments directly out of the probe arguments and computes the computed parameters
+ * itself, so that firing a probe neither re-packs the arguments nor goes through {@link Method#invoke}. The handle is
+ * only created if the probe parameter types fit the listener parameter types without conversion; otherwise the
+ * {@link ReflectiveClientInvoker}, which matches up the arguments, has to be used.
+ */
+public class MethodHandleClientInvoker implements ProbeClientInvoker {
+
+    private static final Logger logger = Logger.getLogger(MethodHandleClientInvoker.class.getName());
+
+    private final ReflectiveClientInvoker reflectiveInvoker;
+    private final MethodHandle handle;
+    private boolean emittedOneMessage;
+
+    private MethodHandleClientInvoker(ReflectiveClientInvoker reflectiveInvoker, MethodHandle handle) {
+        this.reflectiveInvoker = reflectiveInvoker;
+        this.handle = handle;
+    }
+
+    /**
+     * @return the invoker or null if the listener method cannot be bound to a method handle or its parameter types do
+     * not fit the probe, in which case the {@link ReflectiveClientInvoker} should be used
+     */
+    public static MethodHandleClientInvoker create(int id, Object target, Method method,
+            String[] clientParamNames, FlashlightProbe probe) {
+        if (method.isVarArgs()) {
+            return null;
+        }
+        ReflectiveClientInvoker reflectiveInvoker = new ReflectiveClientInvoker(id, target, method,
+                clientParamNames, probe);
+        if (!fitsProbe(method.getParameterTypes(), reflectiveInvoker.probeIndices, probe.getParamTypes())) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Using reflection to invoke probe listener {0} as its parameter types do not"
+                        + " fit the probe", method);
+            }
+            return null;
+        }
+        try {
+            MethodHandle listener = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                listener = listener.bindTo(target);
+            }
+            int size = clientParamNames.length;
+            listener = listener.asType(MethodType.genericMethodType(size).changeReturnType(void.class));
+
+            // argument i of the listener is taken from the probe arguments or computed
+            MethodHandle element = MethodHandles.arrayElementGetter(Object[].class);
+            MethodHandle computeValue = MethodHandles.lookup().findVirtual(ComputedParamsHandlerManager.class,
+                    "computeValue", MethodType.methodType(Object.class, String.class))
+                    .bindTo(ComputedParamsHandlerManager.getInstance());
+            MethodHandle[] arguments = new MethodHandle[size];
+            for (int i = 0; i < size; i++) {
+                int probeIndex = reflectiveInvoker.probeIndices[i];
+                arguments[i] = probeIndex == -1
+                        ? MethodHandles.dropArguments(MethodHandles.insertArguments(computeValue, 0,
+                                clientParamNames[i]), 0, Object[].class)
+                        : MethodHandles.insertArguments(element, 1, probeIndex);
+            }
+            MethodHandle handle = MethodHandles.permuteArguments(
+                    MethodHandles.filterArguments(listener, 0, arguments),
+                    MethodType.methodType(void.class, Object[].class), new int[size]);
+            return new MethodHandleClientInvoker(reflectiveInvoker, handle);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Using reflection to invoke probe listener " + method, e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Checks that every probe argument can be passed to the listener by a plain cast or unboxing, as the handle does.
+     * Computed parameters are only known at runtime, so they have to be taken as {@link Object}.
+     */
+    private static boolean fitsProbe(Class<?>[] listenerTypes, int[] probeIndices, Class<?>[] probeTypes) {
+        if (listenerTypes.length != probeIndices.length) {
+            return false;
+        }
+        for (int i = 0; i < listenerTypes.length; i++) {
+            int probeIndex = probeIndices[i];
+            if (probeIndex == -1) {
+                if (listenerTypes[i] != Object.class) {
+                    return false;
+                }
+            } else if (probeTypes == null || probeIndex >= probeTypes.length
+                    || !fits(probeTypes[probeIndex], listenerTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean fits(Class<?> probeType, Class<?> listenerType) {
+        if (listenerType.isPrimitive()) {
+            return MethodType.methodType(probeType).wrap().returnType()
+                    == MethodType.methodType(listenerType).wrap().returnType();
+        }
+        return listenerType.isAssignableFrom(MethodType.methodType(probeType).wrap().returnType());
+    }
+
+    @Override
+    public int getId() {
+        return reflectiveInvoker.getId();
+    }
+
+    @Override
+    public void invoke(Object[] args) {
+        if (!FlashlightUtils.isMonitoringEnabled()) {
+            return;
+        }
+        try {
+            handle.invokeExact(args);
+        } catch (Throwable ex) {
+            if (!emittedOneMessage) {
+                // Only do this one time!
+                emittedOneMessage = true;
+                logger.log(Level.WARNING, "An exception happened when invoking this probe: " + this, ex);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return reflectiveInvoker.toString();
+    }
+}
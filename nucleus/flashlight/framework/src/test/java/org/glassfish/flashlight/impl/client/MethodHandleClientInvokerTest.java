@@ -0,0 +1,121 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.flashlight.impl.client;
+
+import com.sun.enterprise.config.serverbeans.MonitoringService;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import org.glassfish.flashlight.FlashlightUtils;
+import org.glassfish.flashlight.provider.FlashlightProbe;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MethodHandleClientInvokerTest {
+
+    @BeforeClass
+    public static void enableMonitoring() {
+        ServiceLocator locator = (ServiceLocator) Proxy.newProxyInstance(ServiceLocator.class.getClassLoader(),
+                new Class<?>[]{ServiceLocator.class}, (proxy, method, args) -> null);
+        MonitoringService monitoringService = (MonitoringService) Proxy.newProxyInstance(
+                MonitoringService.class.getClassLoader(), new Class<?>[]{MonitoringService.class},
+                (proxy, method, args) -> method.getName().equals("getMonitoringEnabled") ? "true" : "false");
+        FlashlightUtils.initialize(locator, monitoringService);
+        FlashlightUtils.setMonitoringEnabled(true);
+    }
+
+    @Test
+    public void listenerIsInvokedWithProbeArguments() throws Exception {
+        Listener listener = new Listener();
+        MethodHandleClientInvoker invoker = create(listener, "received", String.class);
+        assertNotNull(invoker);
+
+        invoker.invoke(new Object[]{"a", 1});
+
+        assertEquals(1, listener.invocations);
+        assertEquals("a", listener.last);
+    }
+
+    @Test
+    public void listenerExceptionIsNotRetried() throws Exception {
+        Listener listener = new Listener();
+        MethodHandleClientInvoker invoker = create(listener, "fails", String.class);
+        assertNotNull(invoker);
+
+        invoker.invoke(new Object[]{"a", 1});
+        assertEquals(1, listener.invocations);
+
+        invoker.invoke(new Object[]{"b", 2});
+        assertEquals(2, listener.invocations);
+        assertEquals("b", listener.last);
+    }
+
+    @Test
+    public void mismatchedParameterTypesAreLeftToReflection() throws Exception {
+        assertNull(create(new Listener(), "received", Integer.class));
+    }
+
+    private static MethodHandleClientInvoker create(Listener listener, String methodName, Class<?> firstProbeType)
+            throws NoSuchMethodException {
+        FlashlightProbe probe = new FlashlightProbe(1, Listener.class, "test", "test", "provider", "probe",
+                new String[]{"value", "count"}, new Class[]{firstProbeType, int.class},
+                false, false, false, false, false, new String[0]);
+        Method method = Listener.class.getMethod(methodName, String.class);
+        return MethodHandleClientInvoker.create(1, listener, method, new String[]{"value"}, probe);
+    }
+
+    public static class Listener {
+
+        int invocations;
+        String last;
+
+        public void received(String value) {
+            invocations++;
+            last = value;
+        }
+
+        public void fails(String value) {
+            invocations++;
+            last = value;
+            throw new NullPointerException("listener failure");
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.config.dom.NetworkListener;
+import org.glassfish.grizzly.config.dom.ThreadPool;
+import org.glassfish.hk2.api.ServiceLocator;
+
+/**
+ * Worker thread pool running each task on its own virtual thread.
+ * <p>
+ * Selected by setting the thread-pool <code>classname</code> to
+ * {@link ThreadPool#VIRTUAL_THREAD_POOL_CLASS_NAME}. As virtual threads are
+ * cheap there are no idle threads to keep, so <code>max-thread-pool-size</code>
+ * only limits how many tasks run at the same time and the other tasks wait in
+ * a queue bounded by <code>max-queue-size</code>. The queueing statistics are
+ * available through the {@link VirtualThreadPoolMXBean} registered for the
+ * pool.
+ * <p>
+ * The <code>pinning-threshold-millis</code> property (20 by default, a
+ * negative value disables it) sets how long a virtual thread may block while
+ * pinned to its carrier thread, e.g. inside a <code>synchronized</code>
+ * method, before it is reported. Platform threads are used on JVMs without
+ * virtual threads.
+ */
+public class VirtualThreadExecutorService extends AbstractExecutorService
+        implements ConfigAwareElement<ThreadPool>, VirtualThreadPoolMXBean {
+
+    private static final Logger LOGGER = Grizzly.logger(VirtualThreadExecutorService.class);
+
+    public static final String PINNING_THRESHOLD_PROPERTY = "pinning-threshold-millis";
+    private static final long DEFAULT_PINNING_THRESHOLD_MILLIS = 20;
+
+    private final Queue<QueuedTask> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicInteger peakQueueSize = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final LongAdder completedTaskCount = new LongAdder();
+    private final LongAdder rejectedTaskCount = new LongAdder();
+    private final LongAdder queuedTaskCount = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final Object terminationLock = new Object();
+
+    private String name;
+    private int maxConcurrency;
+    private int maxQueueSize;
+    private Semaphore permits;
+    private ThreadFactory threadFactory;
+    private VirtualThreadPinningMonitor pinningMonitor;
+    private ObjectName objectName;
+    private volatile boolean shutdown;
+
+    public VirtualThreadExecutorService() {
+    }
+
+    VirtualThreadExecutorService(String name, int maxConcurrency, int maxQueueSize,
+            long pinningThresholdMillis) {
+        init(name, maxConcurrency, maxQueueSize, pinningThresholdMillis);
+    }
+
+    @Override
+    public void configure(ServiceLocator habitat, NetworkListener networkListener,
+            ThreadPool configuration) {
+        init(networkListener.getThreadPool() + "::" + networkListener.getName(),
+                Integer.parseInt(configuration.getMaxThreadPoolSize()),
+                configuration.getMaxQueueSize() == null ? -1
+                        : Integer.parseInt(configuration.getMaxQueueSize()),
+                Long.parseLong(configuration.getPropertyValue(PINNING_THRESHOLD_PROPERTY,
+                        String.valueOf(DEFAULT_PINNING_THRESHOLD_MILLIS))));
+        registerMBean();
+    }
+
+    private void init(String name, int maxConcurrency, int maxQueueSize, long pinningThresholdMillis) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE;
+        this.maxQueueSize = maxQueueSize;
+        this.permits = new Semaphore(this.maxConcurrency);
+
+        String threadNamePrefix = name + "-virtual-";
+        threadFactory = createVirtualThreadFactory(threadNamePrefix);
+        if (threadFactory == null) {
+            LOGGER.log(Level.WARNING, "Virtual threads are not available in this JVM, "
+                    + "thread pool {0} will use platform threads", name);
+            threadFactory = createPlatformThreadFactory(threadNamePrefix);
+        } else if (pinningThresholdMillis >= 0) {
+            pinningMonitor = VirtualThreadPinningMonitor.start(threadNamePrefix,
+                    Duration.ofMillis(pinningThresholdMillis));
+        }
+    }
+
+    /**
+     * Creates the virtual thread factory reflectively, as virtual threads are
+     * only available from JDK 21.
+     */
+    private static ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, threadNamePrefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Can not create virtual threads", e);
+            return null;
+        }
+    }
+
+    private static ThreadFactory createPlatformThreadFactory(String threadNamePrefix) {
+        final AtomicLong threadCounter = new AtomicLong();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadNamePrefix + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private void registerMBean() {
+        try {
+            objectName = new ObjectName("org.glassfish.grizzly.config:type=VirtualThreadPool,name="
+                    + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Can not register virtual thread pool " + name, e);
+            objectName = null;
+        }
+    }
+
+    private void unregisterMBean() {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Can not unregister virtual thread pool " + name, e);
+            }
+            objectName = null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            rejectedTaskCount.increment();
+            throw new RejectedExecutionException("Thread pool " + name + " is shut down");
+        }
+
+        if (permits.tryAcquire()) {
+            start(command);
+            return;
+        }
+
+        int size = queueSize.incrementAndGet();
+        if (maxQueueSize >= 0 && size > maxQueueSize) {
+            queueSize.decrementAndGet();
+            rejectedTaskCount.increment();
+            throw new RejectedExecutionException("The queue of thread pool " + name + " is full");
+        }
+        queue.offer(new QueuedTask(command));
+        queuedTaskCount.increment();
+        int peak;
+        while (size > (peak = peakQueueSize.get()) && !peakQueueSize.compareAndSet(peak, size)) {
+            // retry
+        }
+
+        // A running task may have completed before the task was queued
+        if (permits.tryAcquire()) {
+            Runnable task = poll();
+            if (task != null) {
+                start(task);
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Starts a thread for the task, holding one of the permits.
+     */
+    private void start(Runnable task) {
+        activeCount.incrementAndGet();
+        try {
+            Thread thread = threadFactory.newThread(new Worker(task));
+            thread.setContextClassLoader(getClass().getClassLoader());
+            thread.start();
+        } catch (RuntimeException | Error e) {
+            activeCount.decrementAndGet();
+            permits.release();
+            rejectedTaskCount.increment();
+            throw new RejectedExecutionException("Can not start a thread in thread pool " + name, e);
+        }
+    }
+
+    private Runnable poll() {
+        QueuedTask queued = queue.poll();
+        if (queued == null) {
+            return null;
+        }
+        queueSize.decrementAndGet();
+        queueWaitNanos.add(System.nanoTime() - queued.queuedAt);
+        return queued.task;
+    }
+
+    private final class Worker implements Runnable {
+
+        private Runnable task;
+
+        Worker(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            Thread current = Thread.currentThread();
+            threads.add(current);
+            try {
+                while (task != null) {
+                    runTask(task);
+                    task = poll();
+                    if (task == null) {
+                        permits.release();
+                        // A task queued before the permit was released would
+                        // otherwise wait for the next submission
+                        if (queue.isEmpty() || !permits.tryAcquire()) {
+                            break;
+                        }
+                        task = poll();
+                        if (task == null) {
+                            permits.release();
+                        }
+                    }
+                }
+            } finally {
+                threads.remove(current);
+                activeCount.decrementAndGet();
+                if (shutdown) {
+                    signalTermination();
+                }
+            }
+        }
+
+        private void runTask(Runnable runnable) {
+            try {
+                runnable.run();
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING, "Uncaught exception in thread pool " + name, t);
+            } finally {
+                completedTaskCount.increment();
+            }
+        }
+    }
+
+    private static final class QueuedTask {
+
+        final Runnable task;
+        final long queuedAt = System.nanoTime();
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+        }
+    }
+
+    private void signalTermination() {
+        synchronized (terminationLock) {
+            terminationLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (pinningMonitor != null) {
+            pinningMonitor.close();
+        }
+        unregisterMBean();
+        signalTermination();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> pending = new ArrayList<>();
+        Runnable task;
+        while ((task = poll()) != null) {
+            pending.add(task);
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && activeCount.get() == 0 && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationLock) {
+            while (!isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    @Override
+    public int getPeakQueueSize() {
+        return peakQueueSize.get();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completedTaskCount.sum();
+    }
+
+    @Override
+    public long getRejectedTaskCount() {
+        return rejectedTaskCount.sum();
+    }
+
+    @Override
+    public long getQueuedTaskCount() {
+        return queuedTaskCount.sum();
+    }
+
+    @Override
+    public double getAverageQueueWaitMillis() {
+        long queued = queuedTaskCount.sum() - queueSize.get();
+        return queued <= 0 ? 0 : queueWaitNanos.sum() / 1_000_000.0 / queued;
+    }
+
+    @Override
+    public long getPinnedEventCount() {
+        return pinningMonitor == null ? 0 : pinningMonitor.getEventCount();
+    }
+
+    @Override
+    public Map<String, Long> getPinningSites() {
+        return pinningMonitor == null ? Collections.<String, Long>emptyMap() : pinningMonitor.getSites();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.config;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Reports the <code>jdk.VirtualThreadPinned</code> JFR events of the virtual
+ * threads of a pool, i.e. the times one of them blocked while pinned to its
+ * carrier thread, typically inside a <code>synchronized</code> block.
+ * <p>
+ * The JFR streaming API is used reflectively as it is only available from
+ * JDK 14, and the event itself from JDK 21.
+ */
+final class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final Logger LOGGER = Grizzly.logger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final String threadNamePrefix;
+    private final LongAdder eventCount = new LongAdder();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+
+    private AutoCloseable stream;
+    private Method getThread;
+    private Method getJavaName;
+    private Method getStackTrace;
+    private Method getFrames;
+    private Method getMethod;
+    private Method getType;
+    private Method getClassName;
+    private Method getMethodName;
+    private Method getDuration;
+
+    private VirtualThreadPinningMonitor(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * Starts reporting the pinning events longer than the given threshold of
+     * the virtual threads whose name starts with the given prefix.
+     *
+     * @return the monitor, or <code>null</code> if this JVM cannot report them
+     */
+    static VirtualThreadPinningMonitor start(String threadNamePrefix, Duration threshold) {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(threadNamePrefix);
+        try {
+            monitor.startStream(threshold);
+            return monitor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Virtual thread pinning events can not be recorded", e);
+            monitor.close();
+            return null;
+        }
+    }
+
+    private void startStream(Duration threshold) throws ReflectiveOperationException {
+        Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+        Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        Class<?> threadClass = Class.forName("jdk.jfr.consumer.RecordedThread");
+        Class<?> stackTraceClass = Class.forName("jdk.jfr.consumer.RecordedStackTrace");
+        Class<?> frameClass = Class.forName("jdk.jfr.consumer.RecordedFrame");
+        Class<?> methodClass = Class.forName("jdk.jfr.consumer.RecordedMethod");
+        Class<?> classClass = Class.forName("jdk.jfr.consumer.RecordedClass");
+
+        getThread = eventClass.getMethod("getThread");
+        getJavaName = threadClass.getMethod("getJavaName");
+        getStackTrace = eventClass.getMethod("getStackTrace");
+        getDuration = eventClass.getMethod("getDuration");
+        getFrames = stackTraceClass.getMethod("getFrames");
+        getMethod = frameClass.getMethod("getMethod");
+        getType = methodClass.getMethod("getType");
+        getClassName = classClass.getMethod("getName");
+        getMethodName = methodClass.getMethod("getName");
+
+        stream = (AutoCloseable) streamClass.getConstructor().newInstance();
+        Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+        Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+        settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, threshold);
+        settingsClass.getMethod("withStackTrace").invoke(settings);
+        Consumer<Object> handler = this::onPinned;
+        streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, handler);
+        streamClass.getMethod("startAsync").invoke(stream);
+    }
+
+    private void onPinned(Object event) {
+        try {
+            Object thread = getThread.invoke(event);
+            String threadName = thread == null ? null : (String) getJavaName.invoke(thread);
+            if (threadName == null || !threadName.startsWith(threadNamePrefix)) {
+                return;
+            }
+
+            eventCount.increment();
+            String site = findSite(getStackTrace.invoke(event));
+            LongAdder siteCount = sites.get(site);
+            if (siteCount == null) {
+                LongAdder existing = sites.putIfAbsent(site, siteCount = new LongAdder());
+                if (existing != null) {
+                    siteCount = existing;
+                } else {
+                    Duration duration = (Duration) getDuration.invoke(event);
+                    LOGGER.log(Level.WARNING,
+                            "Virtual thread {0} was pinned to its carrier thread for {1} ms in {2}",
+                            new Object[] {threadName, duration.toMillis(), site});
+                }
+            }
+            siteCount.increment();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Can not read virtual thread pinning event", e);
+        }
+    }
+
+    /**
+     * Returns the first frame outside of the JDK, which is the code that
+     * blocked the pinned thread, or the top frame if there is none.
+     */
+    private String findSite(Object stackTrace) throws ReflectiveOperationException {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        String site = null;
+        for (Object frame : (List<?>) getFrames.invoke(stackTrace)) {
+            Object method = getMethod.invoke(frame);
+            String className = (String) getClassName.invoke(getType.invoke(method));
+            String name = className + "." + getMethodName.invoke(method);
+            if (site == null) {
+                site = name;
+            }
+            if (!className.startsWith("java.") && !className.startsWith("jdk.")
+                    && !className.startsWith("sun.")) {
+                return name;
+            }
+        }
+        return site == null ? "unknown" : site;
+    }
+
+    long getEventCount() {
+        return eventCount.sum();
+    }
+
+    Map<String, Long> getSites() {
+        Map<String, Long> result = new ConcurrentHashMap<>();
+        for (Map.Entry<String, LongAdder> site : sites.entrySet()) {
+            result.put(site.getKey(), site.getValue().sum());
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Can not close virtual thread pinning event stream", e);
+            }
+            stream = null;
+        }
+    }
+}
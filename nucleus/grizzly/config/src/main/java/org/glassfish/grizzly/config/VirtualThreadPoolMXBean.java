@@ -0,0 +1,95 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.config;
+
+import java.util.Map;
+
+/**
+ * Management interface of a {@link VirtualThreadExecutorService}.
+ */
+public interface VirtualThreadPoolMXBean {
+
+    /**
+     * The maximum number of tasks running at the same time.
+     */
+    int getMaxConcurrency();
+
+    /**
+     * The number of tasks currently running.
+     */
+    int getActiveCount();
+
+    /**
+     * The number of tasks waiting for a running task to complete.
+     */
+    int getQueueSize();
+
+    /**
+     * The highest number of tasks waiting at the same time.
+     */
+    int getPeakQueueSize();
+
+    long getCompletedTaskCount();
+
+    long getRejectedTaskCount();
+
+    /**
+     * The number of tasks which had to wait in the queue before running.
+     */
+    long getQueuedTaskCount();
+
+    /**
+     * The average time the queued tasks waited before running.
+     */
+    double getAverageQueueWaitMillis();
+
+    /**
+     * The number of times a virtual thread of this pool stayed pinned to its
+     * carrier thread for longer than the pinning threshold.
+     */
+    long getPinnedEventCount();
+
+    /**
+     * The number of pinning events per method, keyed by the first
+     * application frame of the pinned thread's stack.
+     */
+    Map<String, Long> getPinningSites();
+}
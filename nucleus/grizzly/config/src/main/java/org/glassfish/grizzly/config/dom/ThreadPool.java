@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2018-2024] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.grizzly.config.dom;
 
@@ -56,6 +56,13 @@ import java.util.List;
 public interface ThreadPool extends ConfigBeanProxy, PropertyBag {
     String DEFAULT_THREAD_POOL_CLASS_NAME =
             "org.glassfish.grizzly.threadpool.GrizzlyExecutorService";
+
+    /**
+     * Runs each task on a virtual thread, max-thread-pool-size limiting the
+     * number of tasks running at the same time.
+     */
+    String VIRTUAL_THREAD_POOL_CLASS_NAME =
+            "org.glassfish.grizzly.config.VirtualThreadExecutorService";
     
     int IDLE_THREAD_TIMEOUT = 900;
     int MAX_QUEUE_SIZE = 4096;
@@ -0,0 +1,141 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2024] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class VirtualThreadExecutorServiceTest {
+
+    private VirtualThreadExecutorService executor;
+
+    @After
+    public void shutdown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void limitsConcurrentTasks() throws Exception {
+        executor = new VirtualThreadExecutorService("test", 4, -1, -1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            executor.execute(() -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(20, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 4);
+        assertEquals(200, executor.getCompletedTaskCount());
+        assertEquals(0, executor.getQueueSize());
+        assertTrue(executor.getQueuedTaskCount() > 0);
+        assertTrue(executor.getPeakQueueSize() > 0);
+    }
+
+    @Test
+    public void rejectsTasksWhenQueueIsFull() throws Exception {
+        executor = new VirtualThreadExecutorService("test", 1, 1, -1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        };
+
+        executor.execute(blocking);
+        executor.execute(blocking);
+        try {
+            executor.execute(blocking);
+            fail("The third task should not fit in the queue");
+        } catch (RejectedExecutionException expected) {
+            assertEquals(1, executor.getRejectedTaskCount());
+        }
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void runsQueuedTasksAfterShutdown() throws Exception {
+        executor = new VirtualThreadExecutorService("test", 1, -1, -1);
+        final AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            executor.execute(count::incrementAndGet);
+        }
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(10, count.get());
+        try {
+            executor.execute(count::incrementAndGet);
+            fail("Tasks should be rejected after shutdown");
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+}
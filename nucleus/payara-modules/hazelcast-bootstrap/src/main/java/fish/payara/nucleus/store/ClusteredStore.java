@@ -1,6 +1,6 @@
 /*
  *
- * Copyright (c) 2016-2023 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -38,12 +38,19 @@
  */
 package fish.payara.nucleus.store;
 
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
 import com.hazelcast.map.LocalMapStats;
 import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.query.Predicates;
 import fish.payara.monitoring.collect.MonitoringDataCollector;
 import fish.payara.monitoring.collect.MonitoringDataSource;
 import fish.payara.nucleus.events.HazelcastEvents;
@@ -59,10 +66,16 @@ import org.jvnet.hk2.annotations.Service;
 import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.internal.api.JavaEEContextUtil;
 import org.glassfish.internal.api.JavaEEContextUtil.Context;
@@ -85,6 +98,11 @@ public class ClusteredStore implements EventListener, MonitoringDataSource {
     @Inject
     private JavaEEContextUtil ctxUtil;
 
+    // companion store name -> registration, kept across Hazelcast restarts
+    private final Map<String, CompanionStore> companionStores = new ConcurrentHashMap<>();
+    // companion stores whose cleaner is registered with the current Hazelcast instance
+    private final Set<String> attachedCompanionStores = ConcurrentHashMap.newKeySet();
+
     @PostConstruct
     public void postConstruct() {
         events.register(this);
@@ -216,13 +234,228 @@ public class ClusteredStore implements EventListener, MonitoringDataSource {
         return result;
     }
 
+    /**
+     * Gets the values of the given keys from Hazelcast in the given store.
+     * The store will be created if it does not already exist.
+     * @param storeName The store name to lookup
+     * @param keys The keys to lookup
+     * @return the values found, keys without a value are not contained
+     */
+    public Map<Serializable, Serializable> getAll(String storeName, Set<Serializable> keys) {
+        Map<Serializable, Serializable> result = new HashMap<>();
+        if (isEnabled()) {
+            try (Context ctx = ctxUtil.empty().pushContext()) {
+                IMap<Serializable, Serializable> map = hzCore.getInstance().getMap(storeName);
+                if (map != null) {
+                    for (Map.Entry<Serializable, Serializable> entry : map.getAll(keys).entrySet()) {
+                        Serializable value = entry.getValue();
+
+                        if (value instanceof PayaraHazelcastEncryptedValueHolder && hzCore.isDatagridEncryptionEnabled()) {
+                            value = (Serializable) HazelcastSymmetricEncryptor.byteArrayToObject(
+                                    HazelcastSymmetricEncryptor.decode(
+                                            ((PayaraHazelcastEncryptedValueHolder) value).getEncryptedObjectBytes()));
+                        }
+
+                        result.put(entry.getKey(), value);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores all the given values in Hazelcast with one operation per member.
+     * The store will be created if it does not already exist.
+     * @param storeName The name of the store to put the values into
+     * @param values The values by key
+     * @return true if the operation succeeded, false otherwise
+     */
+    public boolean setAll(String storeName, Map<Serializable, Serializable> values) {
+        boolean result = false;
+        if (isEnabled()) {
+            try (Context ctx = ctxUtil.empty().pushContext()) {
+                Map<Serializable, Serializable> stored = values;
+                if (hzCore.isDatagridEncryptionEnabled()) {
+                    stored = new HashMap<>();
+                    for (Map.Entry<Serializable, Serializable> entry : values.entrySet()) {
+                        Serializable value = entry.getValue();
+                        if (value != null) {
+                            value = new PayaraHazelcastEncryptedValueHolder(HazelcastSymmetricEncryptor.encode(
+                                    HazelcastSymmetricEncryptor.objectToByteArray(value)));
+                        }
+                        stored.put(entry.getKey(), value);
+                    }
+                }
+                IMap<Serializable, Serializable> map = hzCore.getInstance().getMap(storeName);
+                map.putAll(stored);
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a key/value pair of a Hazelcast store and returns the removed value.
+     * The store will be created if it does not already exist.
+     * @param storeName The name of the store to remove from
+     * @param key The key to remove
+     * @return the removed value, or null if there was none
+     */
+    public Serializable getAndRemove(String storeName, Serializable key) {
+        Serializable result = null;
+        if (isEnabled()) {
+            try (Context ctx = ctxUtil.empty().pushContext()) {
+                IMap<Serializable, Serializable> map = hzCore.getInstance().getMap(storeName);
+                if (map != null) {
+                    result = decrypt(map.remove(key));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the given keys of a Hazelcast store, sending the removals in parallel.
+     * The store will be created if it does not already exist.
+     * @param storeName The name of the store to remove from
+     * @param keys The keys to remove
+     * @return true if the operation succeeded, false otherwise
+     */
+    public boolean removeAll(String storeName, Set<? extends Serializable> keys) {
+        boolean result = false;
+        if (isEnabled()) {
+            try (Context ctx = ctxUtil.empty().pushContext()) {
+                IMap<Serializable, Serializable> map = hzCore.getInstance().getMap(storeName);
+                if (map != null) {
+                    List<CompletableFuture<Serializable>> pending = new ArrayList<>();
+                    for (Serializable key : keys) {
+                        pending.add(map.removeAsync(key).toCompletableFuture());
+                    }
+                    CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets up a companion store whose entries belong to the entries of another store.
+     * <p>
+     * Unless the companion store is configured explicitly, it gets the Hazelcast map configuration of the other
+     * store, such as its backup counts, apart from expiration and eviction: companion entries are only written when
+     * they change, so they cannot expire on their own. Instead, whenever an entry of the other store expires or is
+     * evicted on this member, the callback is called with its key and value to remove the companion entries.
+     * The registration is kept and set up again when Hazelcast is restarted.
+     * @param storeName The name of the store the companion entries belong to
+     * @param companionStoreName The name of the companion store
+     * @param onRemoved Removes the companion entries of an expired or evicted entry of the store
+     */
+    public void addCompanionStore(String storeName, String companionStoreName,
+            BiConsumer<Serializable, Serializable> onRemoved) {
+        CompanionStore companion = new CompanionStore(storeName, companionStoreName, onRemoved);
+        CompanionStore registered = companionStores.putIfAbsent(companionStoreName, companion);
+        attachCompanionStore(registered != null ? registered : companion);
+    }
+
+    private void attachCompanionStore(CompanionStore companion) {
+        if (!isEnabled() || !attachedCompanionStores.add(companion.companionStoreName)) {
+            return;
+        }
+        try (Context ctx = ctxUtil.empty().pushContext()) {
+            HazelcastInstance hz = hzCore.getInstance();
+            Config config = hz.getConfig();
+            if (config.getMapConfigOrNull(companion.companionStoreName) == null) {
+                MapConfig companionConfig = new MapConfig(config.getMapConfig(companion.storeName))
+                        .setName(companion.companionStoreName)
+                        .setTimeToLiveSeconds(MapConfig.DEFAULT_TTL_SECONDS)
+                        .setMaxIdleSeconds(MapConfig.DEFAULT_MAX_IDLE_SECONDS)
+                        .setEvictionConfig(new EvictionConfig(new MapConfig().getEvictionConfig()));
+                try {
+                    config.addMapConfig(companionConfig);
+                } catch (InvalidConfigurationException ex) {
+                    logger.log(Level.FINE, "Keeping the existing configuration of store "
+                            + companion.companionStoreName, ex);
+                }
+            }
+            IMap<Serializable, Serializable> map = hz.getMap(companion.storeName);
+            map.addLocalEntryListener(new CompanionStoreCleaner(companion.onRemoved), Predicates.alwaysTrue(), true);
+        } catch (RuntimeException ex) {
+            attachedCompanionStores.remove(companion.companionStoreName);
+            throw ex;
+        }
+    }
+
+    private Serializable decrypt(Serializable value) {
+        if (value instanceof PayaraHazelcastEncryptedValueHolder && hzCore.isDatagridEncryptionEnabled()) {
+            return (Serializable) HazelcastSymmetricEncryptor.byteArrayToObject(
+                    HazelcastSymmetricEncryptor.decode(
+                            ((PayaraHazelcastEncryptedValueHolder) value).getEncryptedObjectBytes()));
+        }
+        return value;
+    }
+
+    private static final class CompanionStore {
+
+        final String storeName;
+        final String companionStoreName;
+        final BiConsumer<Serializable, Serializable> onRemoved;
+
+        CompanionStore(String storeName, String companionStoreName,
+                BiConsumer<Serializable, Serializable> onRemoved) {
+            this.storeName = storeName;
+            this.companionStoreName = companionStoreName;
+            this.onRemoved = onRemoved;
+        }
+    }
+
+    private class CompanionStoreCleaner implements EntryExpiredListener<Serializable, Serializable>,
+            EntryEvictedListener<Serializable, Serializable> {
+
+        private final BiConsumer<Serializable, Serializable> onRemoved;
+
+        CompanionStoreCleaner(BiConsumer<Serializable, Serializable> onRemoved) {
+            this.onRemoved = onRemoved;
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<Serializable, Serializable> event) {
+            removed(event);
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<Serializable, Serializable> event) {
+            removed(event);
+        }
+
+        private void removed(EntryEvent<Serializable, Serializable> event) {
+            try (Context ctx = ctxUtil.empty().pushContext()) {
+                onRemoved.accept(event.getKey(), decrypt(event.getOldValue()));
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, "Failed to remove the companion entries of " + event.getKey(), ex);
+            }
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public void event(Event event) {
         if (event.is(HazelcastEvents.HAZELCAST_BOOTSTRAP_COMPLETE)){
             if (hzCore.isEnabled()) {
                 logger.config("Payara Clustered Store Service Enabled");
+                // the listeners of the companion stores went with the previous instance
+                for (CompanionStore companion : companionStores.values()) {
+                    try {
+                        attachCompanionStore(companion);
+                    } catch (RuntimeException ex) {
+                        logger.log(Level.WARNING, "Failed to set up companion store "
+                                + companion.companionStoreName, ex);
+                    }
+                }
             }
+        } else if (event.is(HazelcastEvents.HAZELCAST_SHUTDOWN_STARTED)) {
+            attachedCompanionStores.clear();
         }
     }
 
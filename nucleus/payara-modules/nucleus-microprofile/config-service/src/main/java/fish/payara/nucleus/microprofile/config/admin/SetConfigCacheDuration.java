@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -79,6 +79,9 @@ public class SetConfigCacheDuration implements AdminCommand {
     @Param(alias = "duration")
     int durationInSeconds;
 
+    @Param(optional = true, alias = "untilchanged")
+    Boolean cacheUntilChanged;
+
     @Param(optional = true, defaultValue = "server") // if no target is specified it will be the DAS
     String target;
 
@@ -95,6 +98,9 @@ public class SetConfigCacheDuration implements AdminCommand {
                     @Override
                     public Object run(MicroprofileConfigConfiguration config) {
                         config.setCacheDurationSeconds(Integer.toString(durationInSeconds));
+                        if (cacheUntilChanged != null) {
+                            config.setCacheUntilChanged(cacheUntilChanged.toString());
+                        }
                         return null;
                     }
                 }, serviceConfig);
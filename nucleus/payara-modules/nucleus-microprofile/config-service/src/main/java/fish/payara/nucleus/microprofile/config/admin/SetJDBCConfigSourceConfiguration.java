@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -45,6 +45,7 @@ import fish.payara.nucleus.microprofile.config.spi.JDBCConfigSourceConfiguration
 import fish.payara.nucleus.microprofile.config.spi.MicroprofileConfigConfiguration;
 import java.util.logging.Logger;
 import jakarta.inject.Inject;
+import jakarta.validation.constraints.Min;
 import org.glassfish.api.ActionReport;
 import org.glassfish.api.Param;
 import org.glassfish.api.admin.AdminCommand;
@@ -89,6 +90,10 @@ public class SetJDBCConfigSourceConfiguration implements AdminCommand {
     @Param
     private String valueColumnName;
 
+    @Min(0)
+    @Param(optional = true)
+    private Integer snapshotRefreshSeconds;
+
     @Inject
     private Target targetUtil;
 
@@ -123,6 +128,9 @@ public class SetJDBCConfigSourceConfiguration implements AdminCommand {
                 if (valueColumnName != null) {
                     configProxy.setValueColumnName(valueColumnName);
                 }
+                if (snapshotRefreshSeconds != null) {
+                    configProxy.setSnapshotRefreshSeconds(snapshotRefreshSeconds.toString());
+                }
                 actionReport.setActionExitCode(ActionReport.ExitCode.SUCCESS);
                 return configProxy;
             }, jdbcConfigSourceConfiguration);
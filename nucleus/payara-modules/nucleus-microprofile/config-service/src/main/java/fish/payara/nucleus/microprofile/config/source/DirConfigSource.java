@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,7 +40,6 @@
 package fish.payara.nucleus.microprofile.config.source;
 
 import fish.payara.nucleus.microprofile.config.spi.ConfigProviderResolverImpl;
-import org.eclipse.microprofile.config.spi.ConfigSource;
 
 import java.io.File;
 import java.io.IOException;
@@ -81,7 +80,7 @@ import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
  * where filename is the property name and file contents is the property value.
  * @since 5.2020.7
  */
-public class DirConfigSource extends PayaraConfigSource implements ConfigSource {
+public class DirConfigSource extends PayaraConfigSource implements ObservableConfigSource {
 
     static final class DirProperty {
         final String propertyValue;
@@ -171,6 +170,7 @@ public class DirConfigSource extends PayaraConfigSource implements ConfigSource
             }
             
             Path workDir = watchedFileKeys.get(key);
+            boolean changed = false;
             for (WatchEvent<?> event : key.pollEvents()) {
                 WatchEvent.Kind<?> kind = event.kind();
         
@@ -192,11 +192,12 @@ public class DirConfigSource extends PayaraConfigSource implements ConfigSource
                     if ( kind == ENTRY_MODIFY || (kind == ENTRY_CREATE && Files.isSymbolicLink(path)) ) {
                         logger.finer("MPCONFIG DirConfigSource: processing new or updated file \""+path.toString()+"\".");
                         BasicFileAttributes atts = Files.readAttributes(path, BasicFileAttributes.class);
-                        upsertPropertyFromPath(path, atts);
+                        changed |= upsertPropertyFromPath(path, atts);
                     }
                     if (Files.notExists(path) && ! watchedFileKeys.containsValue(path) && kind == ENTRY_DELETE) {
                         logger.finer("MPCONFIG DirConfigSource: removing deleted file \""+path.toString()+"\".");
                         removePropertyFromPath(path);
+                        changed = true;
                     }
                 } catch (IOException e) {
                     logger.log(WARNING, "MPCONFIG DirConfigSource: could not process event '"+kind+"' on '"+path+"'", e);
@@ -209,6 +210,10 @@ public class DirConfigSource extends PayaraConfigSource implements ConfigSource
                 logger.finer("MPCONFIG DirConfigSource: removing watcher for key \""+key+"\".");
                 watchedFileKeys.remove(key);
             }
+            // values of this source are held in the config caches until invalidated
+            if (changed && configService != null) {
+                configService.invalidateConfigCaches();
+            }
         }
     }
     
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -46,7 +46,7 @@ import java.util.Map;
  *
  * @author Steve Millidge (Payara Foundation)
  */
-public class DottedNamesConfigSource extends PayaraConfigSource {
+public class DottedNamesConfigSource extends PayaraConfigSource implements ObservableConfigSource {
 
     @Override
     public Map<String, String> getProperties() {
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -44,13 +44,12 @@ import java.security.PrivilegedAction;
 import java.util.Map;
 import java.util.Set;
 
-import org.eclipse.microprofile.config.spi.ConfigSource;
 
 /**
  *
  * @author Steve Millidge (Payara Foundation)
  */
-public class EnvironmentConfigSource implements ConfigSource {
+public class EnvironmentConfigSource implements ObservableConfigSource {
 
     @Override
     public Map<String, String> getProperties() {
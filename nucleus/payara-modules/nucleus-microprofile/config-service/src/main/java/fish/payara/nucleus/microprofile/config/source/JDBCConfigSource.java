@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -48,7 +48,7 @@ import org.glassfish.internal.api.Globals;
 
 import fish.payara.nucleus.microprofile.config.spi.JDBCConfigSourceConfiguration;
 
-public class JDBCConfigSource extends PayaraConfigSource {
+public class JDBCConfigSource extends PayaraConfigSource implements ObservableConfigSource {
 
     private static final Logger LOGGER = Logger.getLogger(JDBCConfigSource.class.getName());
 
@@ -60,6 +60,10 @@ public class JDBCConfigSource extends PayaraConfigSource {
 
     @Override
     public Map<String, String> getProperties() {
+        JDBCConfigSourceSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return snapshot.getProperties();
+        }
         JDBCConfigSourceHelper helper = getHelper();
         if (helper == null) {
             return null;
@@ -86,6 +90,10 @@ public class JDBCConfigSource extends PayaraConfigSource {
 
     @Override
     public String getValue(String propertyName) {
+        JDBCConfigSourceSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return snapshot.getValue(propertyName);
+        }
         JDBCConfigSourceHelper helper = getHelper();
         if (helper == null) {
             return null;
@@ -106,6 +114,21 @@ public class JDBCConfigSource extends PayaraConfigSource {
         return "JDBC";
     }
 
+    /**
+     * Values are only observed when they are served from a snapshot, as reloading the snapshot detects changes.
+     */
+    @Override
+    public boolean isObserved() {
+        return getSnapshot() != null;
+    }
+
+    private JDBCConfigSourceSnapshot getSnapshot() {
+        if (config == null || configService == null) {
+            return null;
+        }
+        return configService.getJDBCConfigSourceSnapshot(config);
+    }
+
     private JDBCConfigSourceHelper getHelper() {
         if (config != null) {
             return new JDBCConfigSourceHelper(config);
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -112,15 +112,31 @@ public class JDBCConfigSourceHelper implements Closeable {
     }
 
     public synchronized Map<String, String> getAllConfigValues() {
+        try {
+            Map<String, String> result = loadAllConfigValues();
+            if (result != null) {
+                return result;
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(Level.WARNING, "Error in config source SQL execution", ex);
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * Loads the whole config table with a single query.
+     *
+     * @return all key-value pairs of the table, or null if no connection to the datasource could be made
+     * @throws SQLException when the query fails, so callers can tell an empty table from a failed query
+     */
+    public synchronized Map<String, String> loadAllConfigValues() throws SQLException {
+        if (selectAll == null) {
+            return null;
+        }
         Map<String, String> result = new HashMap<>();
-        if (selectAll != null) {
-            try {
-                ResultSet resultSet = selectAll.executeQuery();
-                while (resultSet.next()) {
-                    result.put(resultSet.getString(1), resultSet.getString(2));
-                }
-            } catch (SQLException ex) {
-                LOGGER.log(Level.WARNING, "Error in config source SQL execution", ex);
+        try (ResultSet resultSet = selectAll.executeQuery()) {
+            while (resultSet.next()) {
+                result.put(resultSet.getString(1), resultSet.getString(2));
             }
         }
         return result;
@@ -0,0 +1,224 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.microprofile.config.source;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.nucleus.executorservice.PayaraExecutorService;
+import fish.payara.nucleus.microprofile.config.spi.ConfigProviderResolverImpl;
+import fish.payara.nucleus.microprofile.config.spi.JDBCConfigSourceConfiguration;
+
+/**
+ * An immutable copy of the whole table of the {@link JDBCConfigSource} which is loaded with a single query and
+ * reloaded in the background at a fixed interval. Lookups are served from the copy without touching the database.
+ * <p>
+ * The database is only ever queried by the background task. Lookups wait a bounded time for the first load, and
+ * until a load succeeded they see no values. When a reload fails the previous copy is kept, so the age of the snapshot
+ * tells how stale its values are, and the next reload is backed off. When a reload changes any value the MP Config
+ * caches are invalidated.
+ */
+public class JDBCConfigSourceSnapshot implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(JDBCConfigSourceSnapshot.class.getName());
+
+    /**
+     * The longest time a lookup waits for the first load of the snapshot.
+     */
+    private static final long FIRST_LOAD_WAIT_SECONDS = 10;
+
+    /**
+     * The longest delay between reloads after repeated failures, unless the refresh interval itself is longer.
+     */
+    private static final long MAX_RETRY_DELAY_SECONDS = 300;
+
+    private final JDBCConfigSourceConfiguration configuration;
+    private final ConfigProviderResolverImpl configService;
+    private final PayaraExecutorService executor;
+    private final long refreshSeconds;
+    private final CountDownLatch firstLoad = new CountDownLatch(1);
+
+    private ScheduledFuture<?> refreshTask;
+    private boolean closed;
+
+    private volatile Map<String, String> properties;
+    private volatile boolean servedWithoutValues;
+    private volatile long loadedAtMillis;
+    private volatile long lastRefreshDurationMillis;
+    private volatile long failedRefreshCount;
+    private int consecutiveFailures;
+
+    public JDBCConfigSourceSnapshot(JDBCConfigSourceConfiguration configuration,
+            ConfigProviderResolverImpl configService, PayaraExecutorService executor, long refreshSeconds) {
+        this.configuration = configuration;
+        this.configService = configService;
+        this.executor = executor;
+        this.refreshSeconds = refreshSeconds;
+        synchronized (this) {
+            refreshTask = executor.schedule(this::scheduledRefresh, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return all properties of the table, or an empty map if the table has not been loaded successfully yet
+     */
+    public Map<String, String> getProperties() {
+        Map<String, String> current = properties;
+        if (current == null) {
+            awaitFirstLoad();
+            current = properties;
+            if (current == null) {
+                servedWithoutValues = true;
+                return emptyMap();
+            }
+        }
+        return current;
+    }
+
+    public String getValue(String propertyName) {
+        return getProperties().get(propertyName);
+    }
+
+    private void awaitFirstLoad() {
+        try {
+            if (!firstLoad.await(FIRST_LOAD_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.log(Level.FINE, "JDBC config source snapshot is not loaded yet, serving no values");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduledRefresh() {
+        boolean loaded = false;
+        try {
+            loaded = refresh();
+        } finally {
+            // whatever went wrong, lookups must stop waiting and the snapshot must keep being refreshed
+            firstLoad.countDown();
+            synchronized (this) {
+                if (!closed) {
+                    refreshTask = executor.schedule(this::scheduledRefresh, nextRefreshDelaySeconds(loaded),
+                            TimeUnit.SECONDS);
+                }
+            }
+        }
+    }
+
+    private long nextRefreshDelaySeconds(boolean loaded) {
+        if (loaded) {
+            consecutiveFailures = 0;
+            return refreshSeconds;
+        }
+        consecutiveFailures++;
+        long maxDelay = Math.max(refreshSeconds, MAX_RETRY_DELAY_SECONDS);
+        long delay = refreshSeconds << Math.min(consecutiveFailures, 16);
+        return delay <= 0 || delay > maxDelay ? maxDelay : delay;
+    }
+
+    /**
+     * Only called by the scheduled task, which reschedules itself, so there is never more than one reload running.
+     *
+     * @return true if the table was loaded
+     */
+    private boolean refresh() {
+        long start = System.currentTimeMillis();
+        Map<String, String> loaded = null;
+        try (JDBCConfigSourceHelper helper = new JDBCConfigSourceHelper(configuration)) {
+            loaded = helper.loadAllConfigValues();
+        } catch (SQLException | IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed to reload JDBC config source snapshot, keeping the previous values", ex);
+        }
+        long end = System.currentTimeMillis();
+        lastRefreshDurationMillis = end - start;
+        if (loaded == null) {
+            failedRefreshCount++;
+            return false;
+        }
+        Map<String, String> previous = properties;
+        properties = unmodifiableMap(loaded);
+        loadedAtMillis = end;
+        if (previous == null ? servedWithoutValues : !previous.equals(loaded)) {
+            LOGGER.log(Level.FINE, "JDBC config source values changed, invalidating MP Config caches");
+            configService.invalidateConfigCaches();
+        }
+        return true;
+    }
+
+    /**
+     * @return milliseconds since the values of this snapshot were loaded, or -1 if they never were
+     */
+    public long getAgeMillis() {
+        long loadedAt = loadedAtMillis;
+        return loadedAt == 0L ? -1L : System.currentTimeMillis() - loadedAt;
+    }
+
+    public long getLastRefreshDurationMillis() {
+        return lastRefreshDurationMillis;
+    }
+
+    public long getFailedRefreshCount() {
+        return failedRefreshCount;
+    }
+
+    public void collect(MonitoringDataCollector collector) {
+        collector.group("jdbc")
+                .collect("SnapshotAge", getAgeMillis())
+                .collect("RefreshDuration", getLastRefreshDurationMillis())
+                .collect("FailedRefreshCount", getFailedRefreshCount());
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        refreshTask.cancel(false);
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -67,7 +67,7 @@ import org.jvnet.hk2.config.TransactionFailure;
  *
  * @author Steve Millidge (Payara Foundation)
  */
-public class JNDIConfigSource extends PayaraConfigSource {
+public class JNDIConfigSource extends PayaraConfigSource implements ObservableConfigSource {
 
     @Override
     public Map<String, String> getProperties() {
@@ -0,0 +1,62 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.microprofile.config.source;
+
+import fish.payara.nucleus.microprofile.config.spi.ConfigProviderResolverImpl;
+import org.eclipse.microprofile.config.spi.ConfigSource;
+
+/**
+ * A {@link ConfigSource} whose values only change in ways that are published to the MP Config caches.
+ * <p>
+ * This is the case for sources backed by the domain configuration, where every change is a config transaction, the
+ * secrets directory which is watched for changes, and sources whose values never change at all. When the cache is
+ * configured to keep values until they change, values supplied by such a source are held until
+ * {@link ConfigProviderResolverImpl#invalidateConfigCaches()} is called rather than until the cache duration elapses.
+ */
+public interface ObservableConfigSource extends ConfigSource {
+
+    /**
+     * @return true if changes of this source's values are currently published, false if this source is configured
+     *         in a way its changes cannot be observed
+     */
+    default boolean isObserved() {
+        return true;
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -53,7 +53,7 @@ import org.glassfish.internal.api.ServerContext;
  *
  * @author Steve Millidge (Payara Foundation)
  */
-public class PayaraServerProperties extends PayaraConfigSource {
+public class PayaraServerProperties extends PayaraConfigSource implements ObservableConfigSource {
 
     private HashMap<String, String> properties;
 
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -44,13 +44,12 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
-import org.eclipse.microprofile.config.spi.ConfigSource;
 
 /**
  *
  * @author Steve Millidge (Payara Foundation)
  */
-public class PropertiesConfigSource implements ConfigSource {
+public class PropertiesConfigSource implements ObservableConfigSource {
     
     private final Properties props;
 
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2023] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,6 +41,7 @@ package fish.payara.nucleus.microprofile.config.spi;
 
 import static fish.payara.nucleus.microprofile.config.spi.PayaraConfigBuilder.getTypeForConverter;
 
+import java.beans.PropertyChangeEvent;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetAddress;
@@ -66,6 +67,8 @@ import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
 import fish.payara.nucleus.executorservice.PayaraExecutorService;
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.spi.ConfigBuilder;
@@ -85,6 +88,9 @@ import org.glassfish.internal.data.ModuleInfo;
 import org.jvnet.hk2.annotations.ContractsProvided;
 import org.jvnet.hk2.annotations.Optional;
 import org.jvnet.hk2.annotations.Service;
+import org.jvnet.hk2.config.TransactionListener;
+import org.jvnet.hk2.config.Transactions;
+import org.jvnet.hk2.config.UnprocessedChangeEvents;
 
 import fish.payara.nucleus.microprofile.config.converters.BooleanConverter;
 import fish.payara.nucleus.microprofile.config.converters.ByteConverter;
@@ -101,6 +107,7 @@ import fish.payara.nucleus.microprofile.config.converters.OptionalLongConverter;
 import fish.payara.nucleus.microprofile.config.converters.ShortConverter;
 import fish.payara.nucleus.microprofile.config.converters.StringConverter;
 import fish.payara.nucleus.microprofile.config.source.JDBCConfigSource;
+import fish.payara.nucleus.microprofile.config.source.JDBCConfigSourceSnapshot;
 import fish.payara.nucleus.microprofile.config.source.ApplicationConfigSource;
 import fish.payara.nucleus.microprofile.config.source.ClusterConfigSource;
 import fish.payara.nucleus.microprofile.config.source.ConfigConfigSource;
@@ -127,9 +134,10 @@ import org.glassfish.api.event.Events;
  * @author Steve Millidge (Payara Foundation)
  */
 @Service(name = "microprofile-config-provider")
-@ContractsProvided({ConfigProviderResolver.class, ConfigProviderResolverImpl.class})
+@ContractsProvided({ConfigProviderResolver.class, ConfigProviderResolverImpl.class, MonitoringDataSource.class})
 @RunLevel(StartupRunLevel.IMPLICITLY_RELIED_ON)
-public class ConfigProviderResolverImpl extends ConfigProviderResolver implements EventListener {
+public class ConfigProviderResolverImpl extends ConfigProviderResolver implements EventListener, TransactionListener,
+        MonitoringDataSource {
 
     private static final Logger LOG = Logger.getLogger(ConfigProviderResolverImpl.class.getName());
     private static final String METADATA_KEY = "MICROPROFILE_APP_CONFIG";
@@ -162,12 +170,19 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
     // a config used at the server level when there is no application associated with the thread
     private PayaraConfig serverLevelConfig;
 
+    // the JDBC config source table shared by all configs, only used when a snapshot refresh interval is configured
+    private volatile JDBCConfigSourceSnapshot jdbcSnapshot;
+
     @Inject
     private ExtensionConfigSourceService extensionService;
     
     @Inject
     private Events events;
 
+    // Config transactions change the values of the domain config backed sources
+    @Inject
+    private Transactions transactions;
+
     /**
      * Logs constructor as finest - may be useful to watch sequence of operations.
      */
@@ -191,6 +206,9 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
         if (events != null) {
             events.register(this);
         }
+        if (transactions != null) {
+            transactions.addTransactionsListener(this);
+        }
     }
 
     public MicroprofileConfigConfiguration getMPConfig() {
@@ -201,6 +219,10 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
         return configuration;
     }
 
+    boolean isCacheUntilChanged() {
+        return Boolean.parseBoolean(getMPConfig().getCacheUntilChanged());
+    }
+
     long getCacheDurationSeconds() {
         if (serverLevelConfig != null) {
             return serverLevelConfig.getCacheDurationMilliSeconds() / 1_000;
@@ -277,7 +299,8 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
                 sources.addAll(getDefaultSources());
                 sources.addAll(extensionService.getExtensionSources());
                 converters.putAll(getDefaultConverters());
-                serverLevelConfig = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()));
+                serverLevelConfig = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()),
+                        isCacheUntilChanged());
                 result = serverLevelConfig;
             }
         } else { // look for an application specific one
@@ -292,7 +315,8 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
                 sources.addAll(getDiscoveredSources(appInfo));
                 converters.putAll(getDefaultConverters());
                 converters.putAll(getDiscoveredConverters(appInfo));
-                PayaraConfig appresult = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()));
+                PayaraConfig appresult = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()),
+                        isCacheUntilChanged());
                 addProfileSource(appresult, appInfo.getAppClassLoader());
                 result = appresult;
                 appInfo.addTransientAppMetaData(METADATA_KEY, result);
@@ -314,6 +338,43 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
     public PayaraExecutorService getExecutor() {
         return this.executorService;
     }
+
+    /**
+     * @param jdbcConfig the configuration of the JDBC config source
+     * @return the snapshot of the JDBC config source table, started on first use, or null when the JDBC config source
+     *         is configured to query the table for each lookup
+     */
+    public JDBCConfigSourceSnapshot getJDBCConfigSourceSnapshot(JDBCConfigSourceConfiguration jdbcConfig) {
+        JDBCConfigSourceSnapshot snapshot = jdbcSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long refreshSeconds = Long.parseLong(jdbcConfig.getSnapshotRefreshSeconds());
+        if (refreshSeconds <= 0) {
+            return null;
+        }
+        synchronized (this) {
+            if (jdbcSnapshot == null) {
+                jdbcSnapshot = new JDBCConfigSourceSnapshot(jdbcConfig, this, executorService, refreshSeconds);
+            }
+            return jdbcSnapshot;
+        }
+    }
+
+    private synchronized void closeJDBCConfigSourceSnapshot() {
+        if (jdbcSnapshot != null) {
+            jdbcSnapshot.close();
+            jdbcSnapshot = null;
+        }
+    }
+
+    @Override
+    public void collect(MonitoringDataCollector collector) {
+        JDBCConfigSourceSnapshot snapshot = jdbcSnapshot;
+        if (snapshot != null) {
+            snapshot.collect(collector.in("mpconfig"));
+        }
+    }
     
     Config getNamedConfig(String applicationName) {
         Config result = null;
@@ -551,18 +612,49 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
     @Override
     public void event(Event<?> event) {
         if (event.is(EventTypes.SERVER_STARTUP)) {
-            if (serverLevelConfig != null) {
-                serverLevelConfig.clearCache();
+            //Server will have already populated cache in deployment before this point,
+            //cache needs clearing as config extensions have not yet been loaded and may have values
+            invalidateConfigCaches();
+        }
+    }
+
+    /**
+     * Drops the cached values of the server level config and all application configs. Called by config sources
+     * which detect that their values changed.
+     */
+    public void invalidateConfigCaches() {
+        if (serverLevelConfig != null) {
+            serverLevelConfig.clearCache();
+        }
+        for (String appName : applicationRegistry.getAllApplicationNames()) {
+            ApplicationInfo appInfo = applicationRegistry.get(appName);
+            if (appInfo == null) {
+                continue;
             }
-            for (String appName : applicationRegistry.getAllApplicationNames()) {
-                PayaraConfig appConfig = applicationRegistry.get(appName).getTransientAppMetaData(METADATA_KEY, PayaraConfig.class);
-                //Server will have already populated cache in deployment before this point,
-                //cache needs clearing as config extensions have not yet been loaded and may have values
-                if (appConfig != null) {
-                    appConfig.clearCache();
-                }
+            Config appConfig = appInfo.getTransientAppMetaData(METADATA_KEY, Config.class);
+            if (appConfig instanceof PayaraConfig) {
+                ((PayaraConfig) appConfig).clearCache();
             }
         }
     }
 
+    @Override
+    public void transactionCommited(List<PropertyChangeEvent> changes) {
+        for (PropertyChangeEvent change : changes) {
+            if (change.getSource() instanceof JDBCConfigSourceConfiguration) {
+                // the snapshot is restarted with the changed settings on next use
+                closeJDBCConfigSourceSnapshot();
+                break;
+            }
+        }
+        // properties, system properties and JNDI resources used as config sources are all domain configuration
+        LOG.log(Level.FINE, "Invalidating MP Config caches after {0} configuration changes", changes.size());
+        invalidateConfigCaches();
+    }
+
+    @Override
+    public void unprocessedTransactedEvents(List<UnprocessedChangeEvents> changes) {
+        // nothing to do, all changes are handled in transactionCommited
+    }
+
 }
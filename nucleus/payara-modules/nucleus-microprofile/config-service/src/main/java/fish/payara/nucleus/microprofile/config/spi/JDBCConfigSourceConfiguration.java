@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,6 +40,8 @@
 
 package fish.payara.nucleus.microprofile.config.spi;
 
+import jakarta.validation.constraints.Min;
+
 import org.glassfish.api.admin.config.ConfigExtension;
 import org.jvnet.hk2.config.Attribute;
 import org.jvnet.hk2.config.ConfigBeanProxy;
@@ -62,4 +64,13 @@ public interface JDBCConfigSourceConfiguration extends ConfigBeanProxy, ConfigEx
     @Attribute(required = true)
     String getValueColumnName();
     void setValueColumnName(String valueColumName);
+
+    /**
+     * @return the interval in seconds at which a snapshot of the whole table is reloaded in the background, 0 to query
+     *         the table for each looked up property instead
+     */
+    @Min(0)
+    @Attribute(defaultValue = "0", dataType = Integer.class)
+    String getSnapshotRefreshSeconds();
+    void setSnapshotRefreshSeconds(String snapshotRefreshSeconds);
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -130,6 +130,15 @@ public interface MicroprofileConfigConfiguration extends ConfigExtension {
     String getCacheDurationSeconds();
     void setCacheDurationSeconds(String cacheDurationSeconds);
 
+    /**
+     * @return true to keep values of config sources that publish their changes (the domain configuration, the
+     *         secrets directory, environment and properties files) cached until a change is published instead of the
+     *         cache duration. Values of other sources still expire after the cache duration.
+     */
+    @Attribute(defaultValue = "false", dataType = Boolean.class)
+    String getCacheUntilChanged();
+    void setCacheUntilChanged(String cacheUntilChanged);
+
     @Element("*")
     List<ConfigSourceConfiguration> getConfigSourceConfigurationList();
 
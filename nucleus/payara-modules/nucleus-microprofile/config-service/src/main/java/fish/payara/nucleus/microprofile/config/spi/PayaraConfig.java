@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2023 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,6 +41,7 @@ package fish.payara.nucleus.microprofile.config.spi;
 
 import fish.payara.nucleus.microprofile.config.converters.ArrayConverter;
 import fish.payara.nucleus.microprofile.config.converters.AutomaticConverter;
+import fish.payara.nucleus.microprofile.config.source.ObservableConfigSource;
 import fish.payara.nucleus.microprofile.config.util.ConfigValueType;
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigValue;
@@ -56,6 +57,7 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static fish.payara.nucleus.microprofile.config.spi.ConfigValueResolverImpl.getCacheKey;
@@ -70,6 +72,9 @@ import java.util.logging.Logger;
  * This implementation usually caches values for 1 min to avoid resolving and converting values each time
  * {@link #getValue(String, Class)} is called. This cache can be bypassed by constructing the {@link PayaraConfig} with
  * a TTL of zero (or negative).
+ * <p>
+ * When constructed to cache until changed, values supplied by an {@link ObservableConfigSource} are kept until
+ * {@link #clearCache()} is called because such a source published a change, only other values expire after the TTL.
  *
  * @author Steve Millidge (Payara Foundation)
  * @author Jan Bernitt (caching part, ConfigValueResolver)
@@ -85,18 +90,23 @@ public class PayaraConfig implements Config {
     private static final class CacheEntry {
         final ConfigValueImpl value;
         final long expires;
+        final long generation;
 
-        CacheEntry(ConfigValueImpl value, long expires) {
+        CacheEntry(ConfigValueImpl value, long expires, long generation) {
             this.value = value;
             this.expires = expires;
+            this.generation = generation;
         }
     }
 
     private final List<ConfigSource> sources;
     private final Map<Class<?>, Converter<?>> converters;
     private final long defaultCacheDurationMilliSeconds;
+    private final boolean cacheUntilChanged;
 
     private final Map<String, CacheEntry> cachedValuesByProperty = new ConcurrentHashMap<>();
+    // incremented on every clearCache() so values resolved before the change are never cached
+    private final AtomicLong cacheGeneration = new AtomicLong();
 
     private volatile long configuredCacheDurationMilliSeconds;
     private volatile long configuredCacheDurationMilliSecondsExpires = 0; // force value reload at start
@@ -105,9 +115,22 @@ public class PayaraConfig implements Config {
     private final String profile;
 
     public PayaraConfig(List<ConfigSource> sources, Map<Class<?>, Converter<?>> converters, long defaultCacheDurationMilliSeconds) {
+        this(sources, converters, defaultCacheDurationMilliSeconds, false);
+    }
+
+    /**
+     * @param sources the sources of this config
+     * @param converters the converters of this config
+     * @param defaultCacheDurationMilliSeconds TTL of the cached values unless configured by a source
+     * @param cacheUntilChanged true to keep values supplied by an {@link ObservableConfigSource} until
+     *        {@link #clearCache()} is called instead of the TTL
+     */
+    public PayaraConfig(List<ConfigSource> sources, Map<Class<?>, Converter<?>> converters,
+            long defaultCacheDurationMilliSeconds, boolean cacheUntilChanged) {
         this.sources = sources;
         this.converters = new ConcurrentHashMap<>(converters);
         this.defaultCacheDurationMilliSeconds = defaultCacheDurationMilliSeconds;
+        this.cacheUntilChanged = cacheUntilChanged;
         Collections.sort(sources, new ConfigSourceComparator());
 
         profile = getConfigValue(MP_CONFIG_PROFILE_NAME_STRING).getValue();
@@ -238,21 +261,23 @@ public class PayaraConfig implements Config {
 
         final String entryKey = cacheKey + (defaultValue != null ? ":" + defaultValue : "") + ":" + (entryTTL / 1000) + "s";
         final long now = currentTimeMillis();
-        long expires = now + entryTTL;
+        final long generation = cacheGeneration.get();
 
         CacheEntry cacheEntry = cachedValuesByProperty.get(entryKey);
         // entry found and valid
-        if (cacheEntry != null && now < cacheEntry.expires) {
+        if (cacheEntry != null && now < cacheEntry.expires && cacheEntry.generation == generation) {
             return cacheEntry.value;
         }
-        // entry not found or expired
+        // entry not found, expired or invalidated by a change
         boolean isExpansionEnabled = isExpansionEnabled(propertyName);
         // searchConfigSources can cause recursive call to getConfigValue when expansion is enabled
         ConfigValueImpl newValue = searchConfigSources(propertyName, defaultValue, isExpansionEnabled, type);
-        CacheEntry newCacheEntry = new CacheEntry(newValue, expires);
+        long expires = isHeldUntilChanged(newValue, isExpansionEnabled) ? Long.MAX_VALUE : now + entryTTL;
+        CacheEntry newCacheEntry = new CacheEntry(newValue, expires, generation);
         // put the new cache entry, if there is not a newer value from other thread
         cacheEntry = cachedValuesByProperty.compute(entryKey, (key, entry) -> {
-            if (entry != null && newCacheEntry.expires < entry.expires) {
+            if (entry != null && (newCacheEntry.generation < entry.generation
+                    || newCacheEntry.generation == entry.generation && newCacheEntry.expires < entry.expires)) {
                 return entry;
             }
             return newCacheEntry;
@@ -260,6 +285,25 @@ public class PayaraConfig implements Config {
         return cacheEntry.value;
     }
 
+    /**
+     * A value can be held until a change is published if it was supplied by an {@link ObservableConfigSource} and
+     * does not depend on other properties through expressions.
+     */
+    private boolean isHeldUntilChanged(ConfigValueImpl value, boolean expansionEnabled) {
+        if (!cacheUntilChanged || value.getSourceName() == null) {
+            return false;
+        }
+        if (expansionEnabled && value.getRawValue() != null && value.getRawValue().contains("${")) {
+            return false;
+        }
+        for (ConfigSource source : sources) {
+            if (source.getName().equals(value.getSourceName())) {
+                return source instanceof ObservableConfigSource && ((ObservableConfigSource) source).isObserved();
+            }
+        }
+        return false;
+    }
+
     private <T> T convertValue(ConfigValue configValue, String defaultValue,
             Optional<Converter<T>> optionalConverter) {
         final String sourceValue = configValue.getValue();
@@ -311,7 +355,11 @@ public class PayaraConfig implements Config {
         return Optional.empty();
     }
     
+    /**
+     * Drops all cached values. Values being resolved concurrently are not cached.
+     */
     public void clearCache() {
+        cacheGeneration.incrementAndGet();
         cachedValuesByProperty.clear();
     }
 
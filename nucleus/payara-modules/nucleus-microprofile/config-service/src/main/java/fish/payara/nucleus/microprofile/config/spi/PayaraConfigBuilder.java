@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -114,7 +114,8 @@ public class PayaraConfigBuilder implements ConfigBuilder {
     @Override
     public Config build() {
         this.converters.putAll(resolver.getDefaultConverters());
-        return new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(resolver.getCacheDurationSeconds()));
+        return new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(resolver.getCacheDurationSeconds()),
+                resolver.isCacheUntilChanged());
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -49,10 +49,24 @@ import java.util.Map;
 
 import org.eclipse.microprofile.config.spi.ConfigSource;
 
+import fish.payara.nucleus.microprofile.config.source.ObservableConfigSource;
+
 public final class ConfigTestUtils {
 
     static ConfigSource createSource(String name, int ordinal, Map<String, String> properties) {
-        ConfigSource source = mock(ConfigSource.class);
+        return createSource(ConfigSource.class, name, ordinal, properties);
+    }
+
+    static ConfigSource createObservableSource(String name, int ordinal, Map<String, String> properties) {
+        ObservableConfigSource source = (ObservableConfigSource) createSource(ObservableConfigSource.class, name,
+                ordinal, properties);
+        when(source.isObserved()).thenReturn(true);
+        return source;
+    }
+
+    private static ConfigSource createSource(Class<? extends ConfigSource> type, String name, int ordinal,
+            Map<String, String> properties) {
+        ConfigSource source = mock(type);
         when(source.getProperties()).thenReturn(properties);
         when(source.getOrdinal()).thenReturn(ordinal);
         when(source.getName()).thenReturn(name);
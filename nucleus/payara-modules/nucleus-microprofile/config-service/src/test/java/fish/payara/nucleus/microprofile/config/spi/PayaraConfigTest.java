@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020-2023 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2024 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,6 +40,7 @@
 package fish.payara.nucleus.microprofile.config.spi;
 
 import static fish.payara.nucleus.microprofile.config.spi.ConfigTestUtils.assertException;
+import static fish.payara.nucleus.microprofile.config.spi.ConfigTestUtils.createObservableSource;
 import static fish.payara.nucleus.microprofile.config.spi.ConfigTestUtils.createSource;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
@@ -269,6 +270,32 @@ public class PayaraConfigTest {
                 () -> config.getValue("brokenarr", Integer[].class));
     }
 
+    @Test
+    public void clearCacheDropsCachedValues() {
+        assertValue("Value not as expected before update", "key1", String.class, "value1");
+        source1.getProperties().put("key1", "changed1");
+        assertValue("Value is not cached", "key1", String.class, "value1");
+        ((PayaraConfig) config).clearCache();
+        assertValue("Cached value still used after clearing the cache", "key1", String.class, "changed1");
+    }
+
+    @Test
+    public void observableValuesAreHeldUntilChanged() throws InterruptedException {
+        ConfigSource observable = createObservableSource("O1", 300, new HashMap<>());
+        observable.getProperties().put("key3", "value3");
+        PayaraConfig untilChanged = new PayaraConfig(asList(observable, source2), emptyMap(), CACHE_TTL, true);
+        assertEquals("value3", untilChanged.getValue("key3", String.class));
+        assertEquals("value2", untilChanged.getValue("key2", String.class));
+        observable.getProperties().put("key3", "changed3");
+        source2.getProperties().put("key2", "changed2");
+        Thread.sleep(CACHE_TTL * 2);
+        assertEquals("Observable value not held beyond TTL", "value3", untilChanged.getValue("key3", String.class));
+        assertEquals("Cached value still used after TTL", "changed2", untilChanged.getValue("key2", String.class));
+        untilChanged.clearCache();
+        assertEquals("Cached value still used after clearing the cache", "changed3",
+                untilChanged.getValue("key3", String.class));
+    }
+
     @Test
     public void ttlParameterIsRespected() {
         final long ttl = 60 * 1000L;
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -56,6 +56,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -79,6 +80,9 @@ import org.jvnet.hk2.config.UnprocessedChangeEvents;
 
 import com.sun.enterprise.config.serverbeans.Config;
 
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
+
 /**
  * Service that provides a shared executor service for server internals rather than all services creating and using
  * their own.
@@ -86,7 +90,9 @@ import com.sun.enterprise.config.serverbeans.Config;
  * @author Andrew Pielage
  */
 @Service(name = "payara-executor-service")
-public class PayaraExecutorService implements ConfigListener, EventListener {
+public class PayaraExecutorService implements ConfigListener, EventListener, MonitoringDataSource {
+
+    private static final Logger LOGGER = Logger.getLogger(PayaraExecutorService.class.getName());
 
     @Inject
     @Named(ServerEnvironment.DEFAULT_INSTANCE_NAME)
@@ -105,9 +111,15 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
     @Inject
     private Events events;
 
+    // either the thread pool or the virtual thread executor
+    private ExecutorService executor;
     private ThreadPoolExecutor threadPoolExecutor;
+    private VirtualThreadExecutor virtualThreadExecutor;
     private ScheduledThreadPoolExecutor scheduledThreadPoolExecutor;
 
+    // tasks run by the submitting thread because the thread pool and its queue were full
+    private final LongAdder callerRunsTaskCount = new LongAdder();
+
     @PostConstruct
     public void postConstruct() {
         if (events != null) {
@@ -134,7 +146,7 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
         if (event.is(EventTypes.POST_SERVER_INIT)) {
             // Embedded containers can be started and stopped multiple times.
             // Thus we need to initialize anytime the server instance is started.
-            if (null == threadPoolExecutor) {
+            if (null == executor) {
                 initialiseThreadPools();
             }
         } else if (event.is(EventTypes.SERVER_SHUTDOWN)) {
@@ -143,28 +155,30 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
     }
 
     private void terminateThreadPools() {
-        if (threadPoolExecutor == null) {
+        if (executor == null) {
             // we didn't initialize yet
             return;
         }
-        threadPoolExecutor.shutdown();
+        executor.shutdown();
         scheduledThreadPoolExecutor.shutdown();
 
         // Wait until the schedulers actually terminate
         try {
-          threadPoolExecutor.awaitTermination(5, TimeUnit.SECONDS);
+          executor.awaitTermination(5, TimeUnit.SECONDS);
           scheduledThreadPoolExecutor.awaitTermination(5, TimeUnit.SECONDS);
         } catch (InterruptedException ignored) {
         }
 
         // If they do not terminate in the alloted time then just forcefully terminate
-        if (!threadPoolExecutor.isShutdown()) {
-          threadPoolExecutor.shutdownNow();
+        if (!executor.isShutdown()) {
+          executor.shutdownNow();
         }
         if (!scheduledThreadPoolExecutor.isShutdown()) {
           scheduledThreadPoolExecutor.shutdownNow();
         }
+        executor = null;
         threadPoolExecutor = null;
+        virtualThreadExecutor = null;
         scheduledThreadPoolExecutor = null;
     }
 
@@ -181,6 +195,7 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
                 new SynchronousQueue<>(), 
                 r -> new Thread(r, "payara-executor-service-task"));
             threadPoolExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            executor = threadPoolExecutor;
             
             scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(
                     0, r -> {
@@ -193,26 +208,20 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
             
             
         } else {
-            int threadPoolExecutorQueueSize = Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorQueueSize());
-            
-            if (threadPoolExecutorQueueSize > 0) {
-                threadPoolExecutor = new ThreadPoolExecutor(
-                        Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorCorePoolSize()),
-                        Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorMaxPoolSize()),
-                        Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTime()),
-                        TimeUnit.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTimeUnit()),
-                        new LinkedBlockingQueue<>(threadPoolExecutorQueueSize),
-                        (Runnable r) -> new Thread(r, "payara-executor-service-task"));
+            if (Boolean.parseBoolean(payaraExecutorServiceConfiguration.getThreadPoolExecutorVirtualThreads())) {
+                virtualThreadExecutor = VirtualThreadExecutor.create("payara-executor-service-virtual-task-");
+                if (virtualThreadExecutor == null) {
+                    LOGGER.log(Level.WARNING, "Virtual threads require JDK 21 or later, the Payara Executor Service "
+                            + "uses a thread pool instead");
+                }
+            }
+            if (virtualThreadExecutor != null) {
+                executor = virtualThreadExecutor;
             } else {
-                threadPoolExecutor = new ThreadPoolExecutor(
-                        Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorCorePoolSize()),
-                        Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorMaxPoolSize()),
-                        Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTime()),
-                        TimeUnit.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTimeUnit()),
-                        new SynchronousQueue<>(), (Runnable r) -> new Thread(r, "payara-executor-service-task"));
+                initialiseThreadPoolExecutor();
+                executor = threadPoolExecutor;
             }
-            
-            threadPoolExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
             scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(
                     Integer.valueOf(payaraExecutorServiceConfiguration.getScheduledThreadPoolExecutorCorePoolSize()), (Runnable r) -> {
                         Thread t = new Thread(r, "payara-executor-service-scheduled-task");
@@ -229,16 +238,45 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
         
     }
 
+    private void initialiseThreadPoolExecutor() {
+        int threadPoolExecutorQueueSize = Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorQueueSize());
+
+        if (threadPoolExecutorQueueSize > 0) {
+            threadPoolExecutor = new ThreadPoolExecutor(
+                    Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorCorePoolSize()),
+                    Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorMaxPoolSize()),
+                    Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTime()),
+                    TimeUnit.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTimeUnit()),
+                    new LinkedBlockingQueue<>(threadPoolExecutorQueueSize),
+                    (Runnable r) -> new Thread(r, "payara-executor-service-task"));
+        } else {
+            threadPoolExecutor = new ThreadPoolExecutor(
+                    Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorCorePoolSize()),
+                    Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorMaxPoolSize()),
+                    Integer.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTime()),
+                    TimeUnit.valueOf(payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTimeUnit()),
+                    new SynchronousQueue<>(), (Runnable r) -> new Thread(r, "payara-executor-service-task"));
+        }
+
+        threadPoolExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+                callerRunsTaskCount.increment();
+                super.rejectedExecution(r, e);
+            }
+        });
+    }
+
     public <T> Future<T> submit(Callable<T> task) {
-        return threadPoolExecutor.submit(task);
+        return executor.submit(task);
     }
 
     public Future<?> submit(Runnable task) {
-        return threadPoolExecutor.submit(task);
+        return executor.submit(task);
     }
 
     public <T> Future<T> submit(Runnable task, T result) {
-        return threadPoolExecutor.submit(task, result);
+        return executor.submit(task, result);
     }
 
     public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
@@ -258,7 +296,7 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
     }
 
     public ExecutorService getUnderlyingExecutorService() {
-        return threadPoolExecutor;
+        return executor;
     }
 
     public ScheduledExecutorService getUnderlyingScheduledExecutorService() {
@@ -273,6 +311,64 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
         return Integer.valueOf(payaraExecutorServiceConfiguration.getScheduledThreadPoolExecutorCorePoolSize());
     }
 
+    /**
+     * @return true if the general purpose executor starts a virtual thread per task instead of using a thread pool
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreadExecutor != null;
+    }
+
+    /**
+     * @return the number of tasks submitted to the general purpose executor, including those run by the submitting
+     *         thread because the thread pool was saturated
+     */
+    public long getSubmittedTaskCount() {
+        VirtualThreadExecutor virtualThreads = virtualThreadExecutor;
+        if (virtualThreads != null) {
+            return virtualThreads.getSubmittedTaskCount();
+        }
+        ThreadPoolExecutor threadPool = threadPoolExecutor;
+        return threadPool == null ? 0L : threadPool.getTaskCount() + callerRunsTaskCount.sum();
+    }
+
+    /**
+     * @return the approximate number of tasks currently run by the general purpose executor
+     */
+    public int getActiveTaskCount() {
+        VirtualThreadExecutor virtualThreads = virtualThreadExecutor;
+        if (virtualThreads != null) {
+            return virtualThreads.getActiveTaskCount();
+        }
+        ThreadPoolExecutor threadPool = threadPoolExecutor;
+        return threadPool == null ? 0 : threadPool.getActiveCount();
+    }
+
+    /**
+     * @return the number of tasks waiting for a thread of the thread pool, always 0 for virtual threads
+     */
+    public int getQueuedTaskCount() {
+        ThreadPoolExecutor threadPool = threadPoolExecutor;
+        return threadPool == null ? 0 : threadPool.getQueue().size();
+    }
+
+    /**
+     * @return the number of tasks the submitting thread had to run itself because the thread pool was saturated
+     */
+    public long getCallerRunsTaskCount() {
+        return callerRunsTaskCount.sum();
+    }
+
+    @Override
+    public void collect(MonitoringDataCollector collector) {
+        if (executor != null) {
+            collector.in("executor")
+                    .collect("SubmittedTaskCount", getSubmittedTaskCount())
+                    .collect("ActiveTaskCount", getActiveTaskCount())
+                    .collect("QueuedTaskCount", getQueuedTaskCount())
+                    .collect("CallerRunsTaskCount", getCallerRunsTaskCount());
+        }
+    }
+
 
     @Override
     public UnprocessedChangeEvents changed(PropertyChangeEvent[] propertyChangeEvents) {
@@ -282,19 +378,19 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
         for (PropertyChangeEvent propertyChangeEvent : propertyChangeEvents) {
             switch (propertyChangeEvent.getPropertyName()) {
                 case "thread-pool-executor-core-pool-size":
-                    if (isCurrentInstanceMatchTarget(propertyChangeEvent)
+                    if (threadPoolExecutor != null && isCurrentInstanceMatchTarget(propertyChangeEvent)
                             && !propertyChangeEvent.getOldValue().equals(propertyChangeEvent.getNewValue())) {
                         threadPoolExecutor.setCorePoolSize((Integer) propertyChangeEvent.getNewValue());
                     }
                     break;
                 case "thread-pool-executor-max-pool-size":
-                    if (isCurrentInstanceMatchTarget(propertyChangeEvent)
+                    if (threadPoolExecutor != null && isCurrentInstanceMatchTarget(propertyChangeEvent)
                             && !propertyChangeEvent.getOldValue().equals(propertyChangeEvent.getNewValue())) {
                         threadPoolExecutor.setMaximumPoolSize((Integer) propertyChangeEvent.getNewValue());
                     }
                     break;
                 case "thread-pool-executor-keep-alive-time":
-                    if (isCurrentInstanceMatchTarget(propertyChangeEvent)
+                    if (threadPoolExecutor != null && isCurrentInstanceMatchTarget(propertyChangeEvent)
                             && !propertyChangeEvent.getOldValue().equals(propertyChangeEvent.getNewValue())) {
                         if (!keepAliveChanged) {
                             for (PropertyChangeEvent pce : propertyChangeEvents) {
@@ -323,7 +419,7 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
                     }
                     break;
                 case "thread-pool-executor-keep-alive-time-unit":
-                    if (isCurrentInstanceMatchTarget(propertyChangeEvent)
+                    if (threadPoolExecutor != null && isCurrentInstanceMatchTarget(propertyChangeEvent)
                             && !propertyChangeEvent.getOldValue().equals(propertyChangeEvent.getNewValue())) {
                         if (!keepAliveChanged) {
                             for (PropertyChangeEvent pce : propertyChangeEvents) {
@@ -351,6 +447,7 @@ public class PayaraExecutorService implements ConfigListener, EventListener {
                     }
                     break;
                 case "thread-pool-executor-queue-size":
+                case "thread-pool-executor-virtual-threads":
                     if (isCurrentInstanceMatchTarget(propertyChangeEvent)
                             && !propertyChangeEvent.getOldValue().equals(propertyChangeEvent.getNewValue())) {
                         unprocessedChanges.add(new UnprocessedChangeEvent(propertyChangeEvent,
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2017-2018] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -74,4 +74,12 @@ public interface PayaraExecutorServiceConfiguration extends ConfigBeanProxy, Con
     @Attribute(defaultValue = "3", dataType = Integer.class)
     String getScheduledThreadPoolExecutorCorePoolSize();
     void setScheduledThreadPoolExecutorCorePoolSize(int corePoolSize);
+
+    /**
+     * @return true to run the tasks of the general purpose executor on virtual threads instead of the thread pool,
+     *         which requires JDK 21 or later. The scheduled executor always uses platform threads.
+     */
+    @Attribute(defaultValue = "false", dataType = Boolean.class)
+    String getThreadPoolExecutorVirtualThreads();
+    void setThreadPoolExecutorVirtualThreads(String virtualThreads);
 }
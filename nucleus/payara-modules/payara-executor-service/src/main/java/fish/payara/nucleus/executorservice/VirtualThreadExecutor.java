@@ -0,0 +1,130 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2024 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/main/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.executorservice;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor starting a new virtual thread for each task, counting submitted and running tasks. Virtual threads are
+ * only available on JDK 21 and later, so they are created reflectively while the server is still compiled for older
+ * JDKs.
+ */
+final class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final LongAdder submittedTaskCount = new LongAdder();
+    private final AtomicInteger activeTaskCount = new AtomicInteger();
+
+    private VirtualThreadExecutor(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param namePrefix prefix of the virtual thread names, followed by a counter
+     * @return a new executor, or null if virtual threads are not supported by the running JDK
+     */
+    static VirtualThreadExecutor create(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return new VirtualThreadExecutor((ExecutorService) newThreadPerTaskExecutor.invoke(null, factory));
+        } catch (ReflectiveOperationException ex) {
+            // either missing before JDK 19, or a disabled preview feature on JDK 19 and 20
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submittedTaskCount.increment();
+        delegate.execute(() -> {
+            activeTaskCount.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                activeTaskCount.decrementAndGet();
+            }
+        });
+    }
+
+    long getSubmittedTaskCount() {
+        return submittedTaskCount.sum();
+    }
+
+    int getActiveTaskCount() {
+        return activeTaskCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  * 
- *    Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  * 
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -81,7 +81,7 @@ public class GetPayaraExecutorServiceConfigurationCommand implements AdminComman
     private static final String[] HEADERS = {"Thread Pool Executor Core Pool Size", 
             "Thread Pool Executor Max Pool Size", "Thread Pool Executor Keep Alive Time", 
             "Thread Pool Executor Keep Alive Time Unit", "Thread Pool Executor Queue Size", 
-            "Scheduled Thread Pool Executor Core Pool Size"};
+            "Scheduled Thread Pool Executor Core Pool Size", "Thread Pool Executor Virtual Threads"};
     
     @Override
     public void execute(AdminCommandContext acc) {
@@ -95,7 +95,8 @@ public class GetPayaraExecutorServiceConfigurationCommand implements AdminComman
                 payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTime(),
                 payaraExecutorServiceConfiguration.getThreadPoolExecutorKeepAliveTimeUnit(),
                 payaraExecutorServiceConfiguration.getThreadPoolExecutorQueueSize(),
-                payaraExecutorServiceConfiguration.getScheduledThreadPoolExecutorCorePoolSize()
+                payaraExecutorServiceConfiguration.getScheduledThreadPoolExecutorCorePoolSize(),
+                payaraExecutorServiceConfiguration.getThreadPoolExecutorVirtualThreads()
         };
 
         columnFormatter.addRow(values);
@@ -109,6 +110,7 @@ public class GetPayaraExecutorServiceConfigurationCommand implements AdminComman
         map.put("threadPoolExecutorKeepAliveTimeUnit", values[3]);
         map.put("threadPoolExecutorQueueSize", values[4]);
         map.put("scheduledThreadPoolExecutorCorePoolSize", values[5]);
+        map.put("threadPoolExecutorVirtualThreads", values[6]);
         extraProps.put("payaraExecutorServiceConfiguration", map);
 
         acc.getActionReport().setExtraProperties(extraProps);
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  * 
- *    Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2017-2024] Payara Foundation and/or its affiliates. All rights reserved.
  * 
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -104,6 +104,9 @@ public class SetPayaraExecutorServiceConfigurationCommand implements AdminComman
     @Param(name = "scheduledThreadPoolExecutorCorePoolSize", optional = true, alias = "scheduledthreadpoolexecutorcorepoolsize")
     private Integer scheduledThreadPoolExecutorCorePoolSize;
     
+    @Param(name = "threadPoolExecutorVirtualThreads", optional = true, alias = "threadpoolexecutorvirtualthreads")
+    private Boolean threadPoolExecutorVirtualThreads;
+    
     @Param(name = "target", optional = true, defaultValue = "server-config")
     private String target;
     
@@ -140,6 +143,10 @@ public class SetPayaraExecutorServiceConfigurationCommand implements AdminComman
                         config.setScheduledThreadPoolExecutorCorePoolSize(scheduledThreadPoolExecutorCorePoolSize);
                     }
                     
+                    if (threadPoolExecutorVirtualThreads != null) {
+                        config.setThreadPoolExecutorVirtualThreads(threadPoolExecutorVirtualThreads.toString());
+                    }
+                    
                     return null;
                 }, payaraExecutorServiceConfiguration);
             } catch (TransactionFailure ex) {